@@ -0,0 +1,100 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.binary.BinaryReader;
+import org.ovirt.api.metamodel.runtime.binary.BinaryWriter;
+import org.ovirt.engine.api.binary.V4BinaryVmReader;
+import org.ovirt.engine.api.binary.V4BinaryVmWriter;
+import org.ovirt.engine.api.types.V4Vm;
+
+/**
+ * Measures the generated binary readers and writers, with the same documents used by the {@link JsonBenchmark} and
+ * {@link XmlBenchmark} classes, so that the results can be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+    @Param({"1", "100", "10000", "100000"})
+    private int size;
+
+    // The objects and the documents containing them:
+    private V4Vm one;
+    private List<V4Vm> many;
+    private byte[] oneBinary;
+    private byte[] manyBinary;
+
+    // The stream where the documents are written, reused so that its growth doesn't affect the results:
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        one = Samples.createVm(0, size);
+        many = Samples.createVms(size);
+        oneBinary = Samples.toBinary(one);
+        manyBinary = Samples.toBinary(many);
+        out = new ByteArrayOutputStream(Math.max(oneBinary.length, manyBinary.length));
+    }
+
+    @Benchmark
+    public V4Vm readOne() {
+        try (BinaryReader reader = new BinaryReader(new ByteArrayInputStream(oneBinary))) {
+            return V4BinaryVmReader.readOne(reader);
+        }
+    }
+
+    @Benchmark
+    public List<V4Vm> readMany() {
+        try (BinaryReader reader = new BinaryReader(new ByteArrayInputStream(manyBinary))) {
+            return V4BinaryVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public List<V4Vm> readManyBytes() {
+        try (BinaryReader reader = new BinaryReader(manyBinary)) {
+            return V4BinaryVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public int writeOne() {
+        out.reset();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            V4BinaryVmWriter.writeOne(one, writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeMany() {
+        out.reset();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            V4BinaryVmWriter.writeMany(many.iterator(), writer);
+        }
+        return out.size();
+    }
+}
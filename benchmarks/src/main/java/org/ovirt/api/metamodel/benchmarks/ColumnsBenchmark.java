@@ -0,0 +1,124 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.columns.EnumColumn;
+import org.ovirt.api.metamodel.runtime.columns.LongColumn;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.types.V4VmColumns;
+import org.ovirt.engine.api.types.V4VmType;
+import org.ovirt.engine.api.xml.V4XmlVmReader;
+
+/**
+ * Compares reading a list of virtual machines into objects and then aggregating one of their attributes with reading
+ * the same list into columns and aggregating the column. The aggregation is the total memory of the servers, so both
+ * variants read only the {@code memory} and {@code type} attributes. The {@code size} parameter is the number of
+ * virtual machines of the document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnsBenchmark {
+    // The attributes used by the aggregation:
+    private static final Projection PROJECTION = Projection.of("memory", "type");
+
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    // The documents:
+    private byte[] xml;
+    private byte[] json;
+
+    // The columns, reused so that their growth doesn't affect the results:
+    private V4VmColumns columns;
+
+    @Setup
+    public void setup() {
+        List<V4Vm> vms = Samples.createVms(size);
+        xml = Samples.toXml(vms);
+        json = Samples.toJson(vms);
+        columns = new V4VmColumns(PROJECTION);
+    }
+
+    @Benchmark
+    public long xmlObjects() {
+        try (XmlReader reader = new XmlReader(new ByteArrayInputStream(xml))) {
+            return sum(V4XmlVmReader.readMany(reader, PROJECTION));
+        }
+    }
+
+    @Benchmark
+    public long xmlColumns() {
+        columns.clear();
+        try (XmlReader reader = new XmlReader(new ByteArrayInputStream(xml))) {
+            V4XmlVmReader.readColumns(reader, columns);
+        }
+        return sum(columns);
+    }
+
+    @Benchmark
+    public long jsonObjects() {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(json))) {
+            return sum(V4JsonVmReader.readMany(reader, PROJECTION));
+        }
+    }
+
+    @Benchmark
+    public long jsonColumns() {
+        columns.clear();
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(json))) {
+            V4JsonVmReader.readColumns(reader, columns);
+        }
+        return sum(columns);
+    }
+
+    private static long sum(List<V4Vm> vms) {
+        long total = 0;
+        for (V4Vm vm : vms) {
+            if (vm.type() == V4VmType.SERVER && vm.memoryPresent()) {
+                total += vm.memory().longValue();
+            }
+        }
+        return total;
+    }
+
+    private static long sum(V4VmColumns columns) {
+        LongColumn memory = columns.memory();
+        EnumColumn type = columns.type();
+        long[] memories = memory.values();
+        byte[] types = type.values();
+        int server = V4VmType.SERVER.ordinal();
+        long total = 0;
+        for (int row = 0; row < columns.getRowCount(); row++) {
+            if (types[row] == server && type.isPresent(row)) {
+                total += memories[row];
+            }
+        }
+        return total;
+    }
+}
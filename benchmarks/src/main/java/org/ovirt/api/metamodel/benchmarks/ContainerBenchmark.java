@@ -0,0 +1,109 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import static org.ovirt.engine.api.builders.V4Builders.vm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.types.V4Disk;
+import org.ovirt.engine.api.types.V4Vm;
+
+/**
+ * Compares the default containers with the containers generated with the {@code --compact-containers} option,
+ * reading the same JSON document and then traversing the objects. The document contains either the usual samples,
+ * with most of the members set, or sparse objects with only the identifier and the name, which is the case where the
+ * compact containers save memory. Run it with the {@code gc} profiler to compare the memory allocated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+    @Param({"100", "10000"})
+    private int size;
+
+    @Param({"dense", "sparse"})
+    private String shape;
+
+    private byte[] json;
+    private List<V4Vm> defaultVms;
+    private List<org.ovirt.engine.api.compact.types.V4Vm> compactVms;
+
+    @Setup
+    public void setup() {
+        List<V4Vm> vms = Samples.createVms(size);
+        if (shape.equals("sparse")) {
+            List<V4Vm> sparse = new ArrayList<>(size);
+            for (V4Vm vm : vms) {
+                sparse.add(vm().id(vm.id()).name(vm.name()).build());
+            }
+            vms = sparse;
+        }
+        json = Samples.toJson(vms);
+        try (JsonReader reader = new JsonReader(json)) {
+            defaultVms = V4JsonVmReader.readMany(reader);
+        }
+        try (JsonReader reader = new JsonReader(json)) {
+            compactVms = org.ovirt.engine.api.compact.json.V4JsonVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public List<V4Vm> readDefault() {
+        try (JsonReader reader = new JsonReader(json)) {
+            return V4JsonVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public List<org.ovirt.engine.api.compact.types.V4Vm> readCompact() {
+        try (JsonReader reader = new JsonReader(json)) {
+            return org.ovirt.engine.api.compact.json.V4JsonVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public long traverseDefault() {
+        long sum = 0;
+        for (V4Vm vm : defaultVms) {
+            sum += vm.name().length();
+            for (V4Disk disk : vm.disks()) {
+                sum += disk.alias().length();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long traverseCompact() {
+        long sum = 0;
+        for (org.ovirt.engine.api.compact.types.V4Vm vm : compactVms) {
+            sum += vm.name().length();
+            for (org.ovirt.engine.api.compact.types.V4Disk disk : vm.disks()) {
+                sum += disk.alias().length();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.engine.api.types.V4Disk;
+import org.ovirt.engine.api.types.V4Vm;
+
+/**
+ * Compares the cost of traversing objects calling the list and date getters repeatedly, like user interface and
+ * report code usually does, with the default containers, that create a new list view in each call, and with the
+ * containers generated with the {@code --cached-views} option, that don't. Both copy the dates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetterBenchmark {
+    // The number of times that each object is traversed:
+    private static final int PASSES = 10;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<V4Vm> defaultVms;
+    private List<org.ovirt.engine.api.cached.types.V4Vm> cachedVms;
+
+    @Setup
+    public void setup() {
+        defaultVms = Samples.createVms(size);
+        try (JsonReader reader = new JsonReader(Samples.toJson(defaultVms))) {
+            cachedVms = org.ovirt.engine.api.cached.json.V4JsonVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public long traverseDefault() {
+        long sum = 0;
+        for (V4Vm vm : defaultVms) {
+            for (int pass = 0; pass < PASSES; pass++) {
+                sum += vm.creationTime().getTime();
+                for (V4Disk disk : vm.disks()) {
+                    sum += disk.alias().length();
+                }
+                sum += vm.tags().size();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long traverseCached() {
+        long sum = 0;
+        for (org.ovirt.engine.api.cached.types.V4Vm vm : cachedVms) {
+            for (int pass = 0; pass < PASSES; pass++) {
+                sum += vm.creationTime().getTime();
+                for (org.ovirt.engine.api.cached.types.V4Disk disk : vm.disks()) {
+                    sum += disk.alias().length();
+                }
+                sum += vm.tags().size();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.util.StringCache;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.types.V4Vm;
+
+/**
+ * Measures the generated JSON readers and writers. The {@code size} parameter is the number of elements of the
+ * document: the number of virtual machines for the {@code *Many} benchmarks, and the number of disks of the single
+ * virtual machine for the {@code *One} benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"1", "100", "10000", "100000"})
+    private int size;
+
+    // The objects and the documents containing them:
+    private V4Vm one;
+    private List<V4Vm> many;
+    private byte[] oneJson;
+    private byte[] manyJson;
+
+    // The stream where the documents are written, reused so that its growth doesn't affect the results:
+    private ByteArrayOutputStream out;
+
+    // The pool used by the parallel readers:
+    private ForkJoinPool pool;
+
+    // The cache used by the readers that deduplicate strings, kept for all the documents like a long lived reader
+    // would do:
+    private StringCache strings;
+
+    @Setup
+    public void setup() {
+        one = Samples.createVm(0, size);
+        many = Samples.createVms(size);
+        oneJson = Samples.toJson(one);
+        manyJson = Samples.toJson(many);
+        out = new ByteArrayOutputStream(Math.max(oneJson.length, manyJson.length));
+        pool = new ForkJoinPool();
+        strings = new StringCache();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public V4Vm readOne() {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(oneJson))) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
+
+    @Benchmark
+    public List<V4Vm> readMany() {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(manyJson))) {
+            return V4JsonVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public List<V4Vm> readManyDeduplicated() {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(manyJson))) {
+            reader.setStringCache(strings);
+            return V4JsonVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public List<V4Vm> readManyParallel() {
+        return V4JsonVmReader.readManyParallel(ByteBuffer.wrap(manyJson), pool);
+    }
+
+    @Benchmark
+    public void iterateMany(Blackhole blackhole) {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(manyJson))) {
+            Iterator<V4Vm> iterator = V4JsonVmReader.iterateMany(reader);
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public void iterateReusing(Blackhole blackhole) {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(manyJson))) {
+            Iterator<V4Vm> iterator = V4JsonVmReader.iterateReusing(reader);
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public int writeOne() {
+        out.reset();
+        try (JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeOne(one, writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeMany() {
+        out.reset();
+        try (JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeMany(many.iterator(), writer);
+        }
+        return out.size();
+    }
+}
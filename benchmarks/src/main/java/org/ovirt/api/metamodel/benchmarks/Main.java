@@ -0,0 +1,45 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * This is the entry point of the benchmarks jar. It accepts the same command line options than the JMH runner, but it
+ * adds the GC profiler if it wasn't explicitly requested, so that the allocation rate and the amount of memory
+ * allocated per operation are always reported together with the time.
+ */
+public class Main {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions parsed = new CommandLineOptions(args);
+        if (parsed.shouldHelp() || parsed.shouldList() || parsed.shouldListProfilers() ||
+                parsed.shouldListResultFormats() || parsed.shouldListWithParams()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(parsed);
+        if (!hasGcProfiler(parsed)) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static boolean hasGcProfiler(CommandLineOptions options) {
+        // The profiler can be given by its short name or by its class name:
+        for (ProfilerConfig profiler : options.getProfilers()) {
+            String name = profiler.getKlass();
+            if (name.equals("gc") || name.equals(GCProfiler.class.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsSink;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsSnapshot;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.types.V4Vm;
+
+/**
+ * Measures the cost of collecting metrics, reading and writing the same JSON documents with collection enabled and
+ * disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean enabled;
+
+    private List<V4Vm> vms;
+    private byte[] json;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        vms = Samples.createVms(size);
+        json = Samples.toJson(vms);
+        out = new ByteArrayOutputStream(2 * json.length);
+        if (enabled) {
+            Metrics.setSink(new MetricsSink() {
+                @Override
+                public void accept(MetricsSnapshot snapshot) {
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Metrics.setSink(null);
+        Metrics.flush();
+    }
+
+    @Benchmark
+    public List<V4Vm> read() {
+        try (JsonReader reader = new JsonReader(json)) {
+            return V4JsonVmReader.readMany(reader);
+        }
+    }
+
+    @Benchmark
+    public int write() {
+        out.reset();
+        try (JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeMany(vms.iterator(), writer);
+        }
+        return out.size();
+    }
+}
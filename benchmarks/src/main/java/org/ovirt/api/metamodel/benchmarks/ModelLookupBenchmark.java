@@ -0,0 +1,148 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.api.metamodel.concepts.Attribute;
+import org.ovirt.api.metamodel.concepts.Method;
+import org.ovirt.api.metamodel.concepts.Model;
+import org.ovirt.api.metamodel.concepts.Name;
+import org.ovirt.api.metamodel.concepts.NameParser;
+import org.ovirt.api.metamodel.concepts.Service;
+import org.ovirt.api.metamodel.concepts.StructType;
+
+/**
+ * Measures the lookups by name of types, services, methods and attributes, in a synthetic model with thousands of
+ * types and services, each type extending a common base type. Each benchmark operation looks up every type and
+ * service of the model once, as the analyzer and the generators do. The {@link #addAndGetType} benchmark builds the
+ * model adding each type and then looking it up, as the analyzer does while it processes the model classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelLookupBenchmark {
+    // The number of attributes of each type, and of methods of each service:
+    private static final int MEMBERS = 20;
+
+    @Param({"1000", "5000"})
+    private int size;
+
+    private Model model;
+    private List<Name> typeNames;
+    private List<Name> serviceNames;
+    private List<Name> memberNames;
+
+    @Setup
+    public void setup() {
+        model = new Model();
+        memberNames = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            memberNames.add(NameParser.parseUsingCase("Member" + i));
+        }
+
+        // Create the base type, that has the identifier attribute:
+        StructType base = new StructType();
+        base.setName(NameParser.parseUsingCase("Identified"));
+        base.addAttribute(attribute("Id"));
+        model.addType(base);
+
+        // Create the types and the services:
+        typeNames = new ArrayList<>();
+        serviceNames = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            StructType type = new StructType();
+            type.setName(NameParser.parseUsingCase("Type" + i));
+            type.setBase(base);
+            for (Name memberName : memberNames) {
+                type.addAttribute(attribute(memberName));
+            }
+            model.addType(type);
+            typeNames.add(type.getName());
+
+            Service service = new Service();
+            service.setName(NameParser.parseUsingCase("Service" + i));
+            for (Name memberName : memberNames) {
+                Method method = new Method();
+                method.setName(memberName);
+                service.addMethod(method);
+            }
+            model.addService(service);
+            serviceNames.add(service.getName());
+        }
+    }
+
+    @Benchmark
+    public void getType(Blackhole blackhole) {
+        for (Name name : typeNames) {
+            blackhole.consume(model.getType(name));
+        }
+    }
+
+    @Benchmark
+    public void getService(Blackhole blackhole) {
+        for (Name name : serviceNames) {
+            blackhole.consume(model.getService(name));
+        }
+    }
+
+    @Benchmark
+    public void addAndGetType(Blackhole blackhole) {
+        Model fresh = new Model();
+        for (Name name : typeNames) {
+            StructType type = new StructType();
+            type.setName(name);
+            fresh.addType(type);
+            blackhole.consume(fresh.getType(name));
+        }
+    }
+
+    @Benchmark
+    public void getAttribute(Blackhole blackhole) {
+        Name id = NameParser.parseUsingCase("Id");
+        Name last = memberNames.get(MEMBERS - 1);
+        for (Name name : typeNames) {
+            StructType type = (StructType) model.getType(name);
+            blackhole.consume(type.getAttribute(last));
+            blackhole.consume(type.getAttribute(id));
+        }
+    }
+
+    @Benchmark
+    public void getMethod(Blackhole blackhole) {
+        Name last = memberNames.get(MEMBERS - 1);
+        for (Name name : serviceNames) {
+            blackhole.consume(model.getService(name).getMethod(last));
+        }
+    }
+
+    private static Attribute attribute(String name) {
+        return attribute(NameParser.parseUsingCase(name));
+    }
+
+    private static Attribute attribute(Name name) {
+        Attribute attribute = new Attribute();
+        attribute.setName(name);
+        return attribute;
+    }
+}
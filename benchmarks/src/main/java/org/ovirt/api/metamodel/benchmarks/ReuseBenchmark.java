@@ -0,0 +1,161 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.util.Pool;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.xml.V4XmlVmReader;
+import org.ovirt.engine.api.xml.V4XmlVmWriter;
+
+/**
+ * Compares creating a new reader or writer for each document with resetting one that is reused, either directly or
+ * taking it from a pool, for small documents containing one virtual machine, which is the typical case of a server
+ * that handles many small requests. The interesting result is the amount of memory allocated per operation, which is
+ * reported by the GC profiler that the {@link Main} class adds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReuseBenchmark {
+    // The object and the documents containing it:
+    private V4Vm vm;
+    private byte[] xml;
+    private byte[] json;
+
+    // The stream where the documents are written, reused so that its growth doesn't affect the results:
+    private ByteArrayOutputStream out;
+
+    // The reused readers and writers:
+    private XmlReader xmlReader;
+    private XmlWriter xmlWriter;
+    private JsonReader jsonReader;
+    private JsonWriter jsonWriter;
+
+    // The pool of JSON readers:
+    private Pool<JsonReader> jsonReaders;
+
+    @Setup
+    public void setup() {
+        vm = Samples.createVm(0, 2);
+        xml = Samples.toXml(vm);
+        json = Samples.toJson(vm);
+        out = new ByteArrayOutputStream(Math.max(xml.length, json.length));
+        xmlReader = new XmlReader();
+        xmlWriter = new XmlWriter(false);
+        jsonReader = new JsonReader();
+        jsonWriter = new JsonWriter(false);
+        jsonReaders = new Pool<>(1, new Pool.Factory<JsonReader>() {
+            @Override
+            public JsonReader create() {
+                return new JsonReader();
+            }
+        });
+    }
+
+    @Benchmark
+    public V4Vm readXmlNew() {
+        try (XmlReader reader = new XmlReader(new ByteArrayInputStream(xml))) {
+            return V4XmlVmReader.readOne(reader);
+        }
+    }
+
+    @Benchmark
+    public V4Vm readXmlReset() {
+        xmlReader.reset(new ByteArrayInputStream(xml));
+        return V4XmlVmReader.readOne(xmlReader);
+    }
+
+    @Benchmark
+    public V4Vm readJsonNew() {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(json))) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
+
+    @Benchmark
+    public V4Vm readJsonReset() {
+        jsonReader.reset(new ByteArrayInputStream(json));
+        return V4JsonVmReader.readOne(jsonReader);
+    }
+
+    @Benchmark
+    public V4Vm readJsonBytesNew() {
+        try (JsonReader reader = new JsonReader(json)) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
+
+    @Benchmark
+    public V4Vm readJsonBytesPooled() {
+        JsonReader reader = jsonReaders.acquire();
+        try {
+            reader.reset(json);
+            return V4JsonVmReader.readOne(reader);
+        }
+        finally {
+            jsonReaders.release(reader);
+        }
+    }
+
+    @Benchmark
+    public int writeXmlNew() {
+        out.reset();
+        try (XmlWriter writer = new XmlWriter(out, false)) {
+            V4XmlVmWriter.writeOne(vm, writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeXmlReset() {
+        out.reset();
+        xmlWriter.reset(out);
+        V4XmlVmWriter.writeOne(vm, xmlWriter);
+        xmlWriter.close();
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeJsonNew() {
+        out.reset();
+        try (JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeOne(vm, writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeJsonReset() {
+        out.reset();
+        jsonWriter.reset(out);
+        V4JsonVmWriter.writeOne(vm, jsonWriter);
+        jsonWriter.close();
+        return out.size();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import static org.ovirt.engine.api.builders.V4Builders.cpu;
+import static org.ovirt.engine.api.builders.V4Builders.disk;
+import static org.ovirt.engine.api.builders.V4Builders.vm;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.ovirt.api.metamodel.runtime.binary.BinaryWriter;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.binary.V4BinaryVmWriter;
+import org.ovirt.engine.api.builders.V4VmBuilder;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.types.V4VmType;
+import org.ovirt.engine.api.xml.V4XmlVmWriter;
+
+/**
+ * This class creates the objects and documents used by the benchmarks, using the types generated from the model of
+ * the tests.
+ */
+final class Samples {
+    private Samples() {
+    }
+
+    /**
+     * Creates a virtual machine with the given number of disks. Lists of strings, like the properties, aren't
+     * populated, because the JSON writer writes them as repeated members, and the JSON reader can't read them back.
+     */
+    static V4Vm createVm(int index, int disks) {
+        String id = Integer.toString(index);
+        V4VmBuilder builder = vm()
+            .id(id)
+            .name("vm" + id)
+            .fqdn("vm" + id + ".example.com")
+            .memory(BigInteger.valueOf(1073741824L))
+            .creationTime(new Date(1453047503123L))
+            .deleteProtected(false)
+            .runOnce(false)
+            .type(V4VmType.SERVER)
+            .cpu(cpu().mode("host_passthrough"));
+        for (int i = 0; i < disks; i++) {
+            builder.disks(disk().id(id + "-" + i).alias("disk" + i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a list of virtual machines with two disks each.
+     */
+    static List<V4Vm> createVms(int count) {
+        List<V4Vm> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(createVm(i, 2));
+        }
+        return list;
+    }
+
+    static byte[] toXml(V4Vm object) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XmlWriter writer = new XmlWriter(out, false)) {
+            V4XmlVmWriter.writeOne(object, writer);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] toXml(List<V4Vm> list) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XmlWriter writer = new XmlWriter(out, false)) {
+            V4XmlVmWriter.writeMany(list.iterator(), writer);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] toJson(V4Vm object) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeOne(object, writer);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] toJson(List<V4Vm> list) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeMany(list.iterator(), writer);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] toBinary(V4Vm object) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            V4BinaryVmWriter.writeOne(object, writer);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] toBinary(List<V4Vm> list) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            V4BinaryVmWriter.writeMany(list.iterator(), writer);
+        }
+        return out.toByteArray();
+    }
+}
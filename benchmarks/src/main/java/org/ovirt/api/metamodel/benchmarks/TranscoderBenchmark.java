@@ -0,0 +1,100 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.transcoders.V4VmTranscoder;
+import org.ovirt.engine.api.xml.V4XmlVmReader;
+import org.ovirt.engine.api.xml.V4XmlVmWriter;
+
+/**
+ * Compares the conversion of lists of objects between XML and JSON using the generated transcoders, to the
+ * conversion reading the objects with the generated readers and then writing them with the generated writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranscoderBenchmark {
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    // The documents:
+    private byte[] manyXml;
+    private byte[] manyJson;
+
+    // The stream where the results are written, reused so that its growth doesn't affect the results:
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        manyXml = Samples.toXml(Samples.createVms(size));
+        manyJson = Samples.toJson(Samples.createVms(size));
+        out = new ByteArrayOutputStream(2 * Math.max(manyXml.length, manyJson.length));
+    }
+
+    @Benchmark
+    public int xmlToJsonObjects() {
+        out.reset();
+        try (XmlReader reader = new XmlReader(new ByteArrayInputStream(manyXml));
+             JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeMany(V4XmlVmReader.readMany(reader).iterator(), writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int xmlToJsonTranscoder() {
+        out.reset();
+        try (XmlReader reader = new XmlReader(new ByteArrayInputStream(manyXml));
+             JsonWriter writer = new JsonWriter(out, false)) {
+            V4VmTranscoder.xmlToJsonMany(reader, writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int jsonToXmlObjects() {
+        out.reset();
+        try (JsonReader reader = new JsonReader(manyJson);
+             XmlWriter writer = new XmlWriter(out, false)) {
+            V4XmlVmWriter.writeMany(V4JsonVmReader.readMany(reader).iterator(), writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int jsonToXmlTranscoder() {
+        out.reset();
+        try (JsonReader reader = new JsonReader(manyJson);
+             XmlWriter writer = new XmlWriter(out, false)) {
+            V4VmTranscoder.jsonToXmlMany(reader, writer);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.api.metamodel.runtime.xml.XmlFactories;
+
+/**
+ * Compares the cost of creating and configuring the StAX factories for each document, which is what the XML readers
+ * and writers used to do, with the cost of using the shared factories, for a small document containing one virtual
+ * machine. Both variants of each benchmark run the same code, only the origin of the factory is different.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlFactoriesBenchmark {
+    private static final byte[] VM = (
+        "<vm id=\"123\" href=\"/vms/123\">" +
+          "<name>myvm</name>" +
+          "<memory>1073741824</memory>" +
+          "<creation_time>2016-01-17T16:18:23.123Z</creation_time>" +
+          "<cpu><mode>host_passthrough</mode></cpu>" +
+          "<disks><disk id=\"456\"><alias>mydisk</alias></disk></disks>" +
+        "</vm>"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public void readWithNewFactory(Blackhole blackhole) throws XMLStreamException {
+        read(XmlFactories.createInputFactory(), blackhole);
+    }
+
+    @Benchmark
+    public void readWithSharedFactory(Blackhole blackhole) throws XMLStreamException {
+        read(XmlFactories.getInputFactory(), blackhole);
+    }
+
+    @Benchmark
+    public byte[] writeWithNewFactory() throws XMLStreamException {
+        return write(XmlFactories.createOutputFactory());
+    }
+
+    @Benchmark
+    public byte[] writeWithSharedFactory() throws XMLStreamException {
+        return write(XmlFactories.getOutputFactory());
+    }
+
+    private static void read(XMLInputFactory factory, Blackhole blackhole) throws XMLStreamException {
+        XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(VM), "UTF-8");
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    blackhole.consume(reader.getLocalName());
+                }
+            }
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private static byte[] write(XMLOutputFactory factory) throws XMLStreamException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(VM.length);
+        XMLStreamWriter writer = factory.createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartElement("vm");
+        writer.writeAttribute("id", "123");
+        writer.writeStartElement("name");
+        writer.writeCharacters("myvm");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+
+/**
+ * Compares the XML writer based on the JDK {@link javax.xml.stream.XMLStreamWriter} with the direct writer created
+ * with the {@link XmlWriter#direct(java.io.OutputStream, boolean)} method, writing a large {@code vms} document with
+ * the same sequence of calls that the generated writers perform.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlWriterBenchmark {
+    @Param({"10000"})
+    private int count;
+
+    @Param({"false", "true"})
+    private boolean indent;
+
+    // The stream where the documents are written, reused so that its growth doesn't affect the results:
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        out = new ByteArrayOutputStream(count * 512);
+    }
+
+    @Benchmark
+    public int writeWithStax() {
+        out.reset();
+        try (XmlWriter writer = new XmlWriter(out, indent)) {
+            writeVms(writer);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeDirect() {
+        out.reset();
+        try (XmlWriter writer = XmlWriter.direct(out, indent)) {
+            writeVms(writer);
+        }
+        return out.size();
+    }
+
+    private void writeVms(XmlWriter writer) {
+        writer.writeStartElement("vms");
+        for (int i = 0; i < count; i++) {
+            String id = Integer.toString(i);
+            writer.writeStartElement("vm");
+            writer.writeAttribute("href", "/ovirt-engine/api/vms/" + id);
+            writer.writeAttribute("id", id);
+            writer.writeElement("name", "vm" + id);
+            writer.writeElement("description", "Virtual machine <" + id + "> & friends");
+            writer.writeElement("memory", "1073741824");
+            writer.writeElement("creation_time", "2016-01-17T16:18:23.123Z");
+            writer.writeElement("delete_protected", "false");
+            writer.writeStartElement("cpu");
+            writer.writeElement("mode", "host_passthrough");
+            writer.writeEndElement();
+            writer.writeStartElement("disks");
+            for (int j = 0; j < 2; j++) {
+                writer.writeStartElement("disk");
+                writer.writeAttribute("id", id + "-" + j);
+                writer.writeElement("alias", "disk" + j);
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+}
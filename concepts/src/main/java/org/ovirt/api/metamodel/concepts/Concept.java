@@ -30,9 +30,13 @@ public abstract class Concept implements Named, Serializable {
     }
 
     /**
-     * Sets the name of this concept.
+     * Sets the name of this concept. If the concept already had a different name the indexes used to find concepts
+     * by name are marked as stale.
      */
     public void setName(Name name) {
+        if (this.name != null && !this.name.equals(name)) {
+            NameIndex.renamed();
+        }
         this.name = name;
     }
 
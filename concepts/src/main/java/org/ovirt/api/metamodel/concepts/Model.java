@@ -6,7 +6,6 @@
 package org.ovirt.api.metamodel.concepts;
 
 import static java.util.stream.Collectors.toCollection;
-import static org.ovirt.api.metamodel.concepts.Named.named;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -34,6 +33,11 @@ public class Model implements Serializable {
     // The list of services of the model:
     private List<Service> services = new ArrayList<>();
 
+    // Indexes used to find modules, types and services by name:
+    private NameIndex<Module> moduleIndex = new NameIndex<>(modules);
+    private NameIndex<Type> typeIndex = new NameIndex<>(types);
+    private NameIndex<Service> serviceIndex = new NameIndex<>(services);
+
     // The list of documents included in the model:
     private List<Document> documents = new ArrayList<>();
 
@@ -88,6 +92,7 @@ public class Model implements Serializable {
      */
     public void addModule(Module newModule) {
         modules.add(newModule);
+        moduleIndex.add(newModule);
     }
 
     /**
@@ -110,7 +115,7 @@ public class Model implements Serializable {
      * Returns the module that has the given name, or {@code null} if there is no such module.
      */
     public Module getModule(Name name) {
-        return modules.stream().filter(named(name)).findFirst().orElse(null);
+        return moduleIndex.get(name);
     }
 
     /**
@@ -118,6 +123,7 @@ public class Model implements Serializable {
      */
     public void addType(Type newType) {
         types.add(newType);
+        typeIndex.add(newType);
     }
 
     /**
@@ -139,7 +145,7 @@ public class Model implements Serializable {
      * Returns the type that has the given name, or {@code null} if there is no such type.
      */
     public Type getType(Name name) {
-        return types.stream().filter(named(name)).findFirst().orElse(null);
+        return typeIndex.get(name);
     }
 
     /**
@@ -147,6 +153,7 @@ public class Model implements Serializable {
      */
     public void addService(Service newService) {
         services.add(newService);
+        serviceIndex.add(newService);
     }
 
     /**
@@ -169,7 +176,7 @@ public class Model implements Serializable {
      * Returns a stream that delivers the services of this model.
      */
     public Service getService(Name name) {
-        return services.stream().filter(named(name)).findFirst().orElse(null);
+        return serviceIndex.get(name);
     }
 
     /**
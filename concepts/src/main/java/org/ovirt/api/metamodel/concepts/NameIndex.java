@@ -0,0 +1,108 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.concepts;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a hash index of a list of named concepts, used to find concepts by name without scanning the list.
+ * The index is built the first time that it is used, and after that it is updated, calling the {@link #add(Named)}
+ * method, each time that a concept is added to the list, so that adding concepts and looking them up alternately
+ * doesn't rebuild it. If several concepts have the same name the index returns the first one, like a scan of the list
+ * would do.
+ *
+ * The names of the concepts are expected to be assigned before they are added to the list. When the name of a concept
+ * is replaced, calling {@link Concept#setName(Name)}, the {@link #renamed()} method is called, and all the indexes
+ * are rebuilt the next time that they are used. If the words of a name are modified in place the index is rebuilt
+ * when the old name is looked up.
+ *
+ * @param <T> the type of the indexed concepts
+ */
+class NameIndex<T extends Named> implements Serializable {
+    // The number of times that concepts have been renamed:
+    private static final AtomicInteger renames = new AtomicInteger();
+
+    // The indexed list:
+    private final List<T> list;
+
+    // The index, or null if it needs to be built:
+    private transient volatile Map<Name, T> index;
+
+    // The number of renames when the index was built:
+    private transient volatile int built;
+
+    NameIndex(List<T> list) {
+        this.list = list;
+    }
+
+    /**
+     * Marks all the indexes as stale after changing the name of a concept. Renames are rare, and usually happen
+     * before the indexes are built, so rebuilding all the indexes is simpler than tracking the lists that contain the
+     * renamed concept.
+     */
+    static void renamed() {
+        renames.incrementAndGet();
+    }
+
+    /**
+     * Updates the index after adding a concept to the end of the list. If the index hasn't been built yet it is left
+     * alone, as it will be built from the complete list the first time that it is used.
+     */
+    void add(T item) {
+        Map<Name, T> current = index;
+        if (current != null) {
+            current.putIfAbsent(key(item), item);
+        }
+    }
+
+    /**
+     * Updates the index after adding a collection of concepts to the end of the list.
+     */
+    void addAll(Collection<? extends T> items) {
+        for (T item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * Returns the concept that has the given name, or {@code null} if there is no such concept.
+     */
+    T get(Name name) {
+        name = Named.removeUnderscore(name);
+        Map<Name, T> current = index;
+        if (current == null || built != renames.get()) {
+            current = build();
+        }
+        T result = current.get(name);
+        if (result != null && !Objects.equals(result.getName(), name)) {
+            // The name of the concept has been modified in place after the index was built:
+            current = build();
+            result = current.get(name);
+        }
+        return result;
+    }
+
+    private Map<Name, T> build() {
+        built = renames.get();
+        Map<Name, T> result = new HashMap<>();
+        for (T item : list) {
+            result.putIfAbsent(key(item), item);
+        }
+        index = result;
+        return result;
+    }
+
+    private static Name key(Named item) {
+        Name name = item.getName();
+        return name != null ? new Name(name) : null;
+    }
+}
@@ -61,12 +61,20 @@ public interface Named extends Comparable<Named> {
     }
 
     static boolean namesEqual(Name name1, Named name2) {
-        if (name1 != null) {
-            String firstWord = name1.getWords().get(0);
+        return Objects.equals(name2.getName(), removeUnderscore(name1));
+    }
+
+    /**
+     * Removes the underscore that may have been added to the first word of the given name to avoid a conflict with
+     * a Java keyword. Note that the given name is modified and returned.
+     */
+    static Name removeUnderscore(Name name) {
+        if (name != null) {
+            String firstWord = name.getWords().get(0);
             if (firstWord.startsWith("_")) {
-                name1.setWord(0, firstWord.substring(1, firstWord.length())); //remove the underscore
+                name.setWord(0, firstWord.substring(1, firstWord.length())); //remove the underscore
             }
         }
-        return Objects.equals(name2.getName(), name1);
+        return name;
     }
 }
@@ -5,13 +5,10 @@
 
 package org.ovirt.api.metamodel.concepts;
 
-import static org.ovirt.api.metamodel.concepts.Named.named;
-
 import static java.util.stream.Stream.concat;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Stream;
 
@@ -22,6 +19,9 @@ public class Service extends Concept {
     private List<Locator> locators = new ArrayList<>();
     private List<Constraint> constraints = new ArrayList<>();
 
+    // Index used to find the methods declared directly in this service by name:
+    private NameIndex<Method> methodIndex = new NameIndex<>(methods);
+
     public Module getModule() {
         return module;
     }
@@ -143,9 +143,9 @@ public class Service extends Concept {
      * @return the method with the given name or {@code null if no such method exists}
      */
     public Method getMethod(Name name) {
-        Optional<Method> method = methods.stream().filter(named(name)).findFirst();
-        if (method.isPresent()) {
-            return method.get();
+        Method method = methodIndex.get(name);
+        if (method != null) {
+            return method;
         }
         if (base != null) {
             return base.getMethod(name);
@@ -160,7 +160,7 @@ public class Service extends Concept {
      * @return {@code true} if the method exists, {@code false} otherwise
      */
     public boolean hasMethod(Name name) {
-        return methods().anyMatch(named(name));
+        return getMethod(name) != null;
     }
 
     /**
@@ -168,6 +168,7 @@ public class Service extends Concept {
      */
     public void addMethod(Method newMethod) {
         methods.add(newMethod);
+        methodIndex.add(newMethod);
     }
 
     /**
@@ -175,6 +176,7 @@ public class Service extends Concept {
      */
     public void addMethods(List<Method> newMethod) {
         methods.addAll(newMethod);
+        methodIndex.addAll(newMethod);
     }
 
     /**
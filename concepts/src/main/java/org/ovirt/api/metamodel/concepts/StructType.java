@@ -5,8 +5,6 @@
 
 package org.ovirt.api.metamodel.concepts;
 
-import static org.ovirt.api.metamodel.concepts.Named.named;
-
 import static java.util.stream.Stream.concat;
 
 import java.util.ArrayList;
@@ -25,6 +23,10 @@ public class StructType extends Type {
     // The list of links declared by this type directly:
     private List<Link> links = new ArrayList<>();
 
+    // Indexes used to find the attributes and links declared by this type directly by name:
+    private NameIndex<Attribute> attributeIndex = new NameIndex<>(attributes);
+    private NameIndex<Link> linkIndex = new NameIndex<>(links);
+
     /**
      * Returns the base of this type, or {@code null} if this type doesn't have a base type.
      */
@@ -80,7 +82,15 @@ public class StructType extends Type {
      * Returns the attribute that has the given name, or an empty {@link Optional} if no such attribute exists.
      */
     public Optional<Attribute> getAttribute(Name name) {
-        return getAttributes().stream().filter(named(name)).findFirst();
+        return Optional.ofNullable(findAttribute(name));
+    }
+
+    private Attribute findAttribute(Name name) {
+        Attribute attribute = attributeIndex.get(name);
+        if (attribute == null && base instanceof StructType) {
+            attribute = ((StructType) base).findAttribute(name);
+        }
+        return attribute;
     }
 
     /**
@@ -105,13 +115,15 @@ public class StructType extends Type {
      */
     public void addAttribute(Attribute newAttribute) {
         attributes.add(newAttribute);
+        attributeIndex.add(newAttribute);
     }
 
     /**
      * Adds a list of new attributes to this type.
      */
     public void addAttributes(List<Attribute> newAttributes) {
-        attributes.addAll(attributes);
+        attributes.addAll(newAttributes);
+        attributeIndex.addAll(newAttributes);
     }
 
     /**
@@ -142,7 +154,15 @@ public class StructType extends Type {
      * Returns the link that has the given name, or an empty {@link Optional} if no such link exists.
      */
     public Optional<Link> getLink(Name name) {
-        return getLinks().stream().filter(named(name)).findFirst();
+        return Optional.ofNullable(findLink(name));
+    }
+
+    private Link findLink(Name name) {
+        Link link = linkIndex.get(name);
+        if (link == null && base instanceof StructType) {
+            link = ((StructType) base).findLink(name);
+        }
+        return link;
     }
 
     /**
@@ -167,6 +187,7 @@ public class StructType extends Type {
      */
     public void addLink(Link newLink) {
         links.add(newLink);
+        linkIndex.add(newLink);
     }
 
     /**
@@ -174,6 +195,7 @@ public class StructType extends Type {
      */
     public void addLinks(List<Link> newLinks) {
         links.addAll(newLinks);
+        linkIndex.addAll(newLinks);
     }
 
     /**
@@ -194,7 +216,18 @@ public class StructType extends Type {
      * or an empty Option otherwise.
      */
     public Optional<StructMember> getMember(Name name) {
-        return getMembers().stream().filter(named(name)).findFirst();
+        return Optional.ofNullable(findMember(name));
+    }
+
+    private StructMember findMember(Name name) {
+        StructMember member = attributeIndex.get(name);
+        if (member == null) {
+            member = linkIndex.get(name);
+        }
+        if (member == null && base instanceof StructType) {
+            member = ((StructType) base).findMember(name);
+        }
+        return member;
     }
 
 }
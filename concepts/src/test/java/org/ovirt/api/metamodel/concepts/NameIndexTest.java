@@ -0,0 +1,214 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.concepts;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the lookups by name of the concepts, which use a hash index instead of scanning the lists.
+ */
+public class NameIndexTest {
+    /**
+     * Checks that types added to the model can be found by name, also after adding more types.
+     */
+    @Test
+    public void testGetType() {
+        Model model = new Model();
+        StructType vm = struct("Vm");
+        model.addType(vm);
+        assertSame(vm, model.getType(name("Vm")));
+        StructType disk = struct("Disk");
+        model.addType(disk);
+        assertSame(vm, model.getType(name("Vm")));
+        assertSame(disk, model.getType(name("Disk")));
+        assertNull(model.getType(name("Nic")));
+    }
+
+    /**
+     * Checks that if several types have the same name the first one is returned.
+     */
+    @Test
+    public void testGetTypeReturnsFirst() {
+        Model model = new Model();
+        StructType first = struct("Vm");
+        StructType second = struct("Vm");
+        model.addType(first);
+        model.addType(second);
+        assertSame(first, model.getType(name("Vm")));
+    }
+
+    /**
+     * Checks that a type that is renamed after the index has been built isn't found by its old name.
+     */
+    @Test
+    public void testGetTypeAfterRename() {
+        Model model = new Model();
+        StructType type = struct("Vm");
+        model.addType(type);
+        assertSame(type, model.getType(name("Vm")));
+        type.setName(name("Host"));
+        assertNull(model.getType(name("Vm")));
+        assertSame(type, model.getType(name("Host")));
+    }
+
+    /**
+     * Checks that a type that is renamed after the index was built is found when the new name is looked up before
+     * the old one.
+     */
+    @Test
+    public void testGetTypeByNewNameAfterRename() {
+        Model model = new Model();
+        StructType type = struct("Vm");
+        model.addType(type);
+        assertSame(type, model.getType(name("Vm")));
+        type.setName(name("Host"));
+        assertSame(type, model.getType(name("Host")));
+        assertNull(model.getType(name("Vm")));
+    }
+
+    /**
+     * Checks that a type whose name is modified in place after the index was built is found by the new name.
+     */
+    @Test
+    public void testGetTypeAfterNameModifiedInPlace() {
+        Model model = new Model();
+        StructType type = struct("Vm");
+        model.addType(type);
+        assertSame(type, model.getType(name("Vm")));
+        type.getName().setWord(0, "host");
+        assertNull(model.getType(name("Vm")));
+        assertSame(type, model.getType(name("Host")));
+    }
+
+    /**
+     * Checks that the leading underscore used to avoid conflicts with Java keywords is ignored.
+     */
+    @Test
+    public void testGetTypeIgnoresUnderscore() {
+        Model model = new Model();
+        StructType type = struct("Default");
+        model.addType(type);
+        assertSame(type, model.getType(new Name("_default")));
+    }
+
+    /**
+     * Checks that services can be found by name.
+     */
+    @Test
+    public void testGetService() {
+        Model model = new Model();
+        Service service = new Service();
+        service.setName(name("Vms"));
+        model.addService(service);
+        assertSame(service, model.getService(name("Vms")));
+        assertNull(model.getService(name("Hosts")));
+    }
+
+    /**
+     * Checks that attributes declared in the type have preference over the ones declared in the base type, and that
+     * attributes added to the base type after the lookup are also found.
+     */
+    @Test
+    public void testGetAttributeWithBase() {
+        StructType base = struct("Identified");
+        Attribute baseId = attribute("Id");
+        base.addAttribute(baseId);
+        StructType type = struct("Vm");
+        type.setBase(base);
+        assertSame(baseId, type.getAttribute(name("Id")).get());
+        Attribute id = attribute("Id");
+        type.addAttribute(id);
+        assertSame(id, type.getAttribute(name("Id")).get());
+        assertFalse(type.getAttribute(name("Name")).isPresent());
+        Attribute name = attribute("Name");
+        base.addAttribute(name);
+        assertSame(name, type.getAttribute(name("Name")).get());
+    }
+
+    /**
+     * Checks that attributes added in bulk after the index has been built are found, and that the index still returns
+     * the first attribute when an added one has the same name as an existing one.
+     */
+    @Test
+    public void testAddAttributesAfterLookup() {
+        StructType type = struct("Vm");
+        Attribute id = attribute("Id");
+        type.addAttribute(id);
+        assertSame(id, type.getAttribute(name("Id")).get());
+        Attribute name = attribute("Name");
+        type.addAttributes(asList(attribute("Id"), name));
+        assertSame(id, type.getAttribute(name("Id")).get());
+        assertSame(name, type.getAttribute(name("Name")).get());
+    }
+
+    /**
+     * Checks that members are found in the attributes, then in the links, and then in the base type.
+     */
+    @Test
+    public void testGetMember() {
+        StructType base = struct("Identified");
+        Link baseLink = new Link();
+        baseLink.setName(name("Tags"));
+        base.addLink(baseLink);
+        StructType type = struct("Vm");
+        type.setBase(base);
+        Link link = new Link();
+        link.setName(name("Disks"));
+        type.addLink(link);
+        assertSame(link, type.getMember(name("Disks")).get());
+        assertSame(baseLink, type.getMember(name("Tags")).get());
+        assertSame(baseLink, type.getLink(name("Tags")).get());
+        assertFalse(type.getMember(name("Nics")).isPresent());
+    }
+
+    /**
+     * Checks that methods declared in the service have preference over the ones declared in the base service.
+     */
+    @Test
+    public void testGetMethodWithBase() {
+        Service base = new Service();
+        Method baseGet = method("Get");
+        base.addMethod(baseGet);
+        Method baseList = method("List");
+        base.addMethod(baseList);
+        Service service = new Service();
+        service.setBase(base);
+        Method get = method("Get");
+        service.addMethod(get);
+        assertSame(get, service.getMethod(name("Get")));
+        assertSame(baseList, service.getMethod(name("List")));
+        assertTrue(service.hasMethod(name("List")));
+        assertFalse(service.hasMethod(name("Remove")));
+    }
+
+    private static Name name(String text) {
+        return NameParser.parseUsingCase(text);
+    }
+
+    private static StructType struct(String name) {
+        StructType type = new StructType();
+        type.setName(name(name));
+        return type;
+    }
+
+    private static Attribute attribute(String name) {
+        Attribute attribute = new Attribute();
+        attribute.setName(name(name));
+        return attribute;
+    }
+
+    private static Method method(String name) {
+        Method method = new Method();
+        method.setName(name(name));
+        return method;
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.binary;
+
+/**
+ * Indicates that some exception happened during binary processing.
+ */
+public class BinaryException extends RuntimeException {
+    public BinaryException(String message) {
+        super(message);
+    }
+
+    public BinaryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.binary;
+
+import static org.ovirt.api.metamodel.runtime.binary.BinaryWriter.BYTES;
+import static org.ovirt.api.metamodel.runtime.binary.BinaryWriter.LIST;
+import static org.ovirt.api.metamodel.runtime.binary.BinaryWriter.OBJECT;
+import static org.ovirt.api.metamodel.runtime.binary.BinaryWriter.TYPE_BITS;
+import static org.ovirt.api.metamodel.runtime.binary.BinaryWriter.VARINT;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class reads objects written with the {@link BinaryWriter} class. The generated readers call the
+ * {@link #next()} method to get the identifier of each member, and then the method that reads the value of the
+ * corresponding type, or the {@link #skipValue()} method if the member isn't known. Instances of this class aren't
+ * thread safe.
+ */
+public class BinaryReader implements AutoCloseable {
+    // The type used before reading the first key, when the reader is positioned at the start of the document:
+    private static final int ROOT = -1;
+
+    // The type used after reading the end of an object or list:
+    private static final int END = -2;
+
+    // The size of the buffer used when reading from a stream, in bytes:
+    private static final int BUFFER_SIZE = 8192;
+
+    // The maximum nesting of the objects and lists skipped by the skipValue method, so that a malicious document
+    // can't exhaust the stack:
+    private static final int MAX_DEPTH = 512;
+
+    // The empty array used when the reader isn't attached to any document:
+    private static final byte[] EMPTY = new byte[0];
+
+    // The buffer containing the bytes, and the limits of the region that hasn't been read yet:
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    // The buffer used when reading from a stream, created the first time that it is needed and then reused when the
+    // reader is reset:
+    private byte[] streamBuffer;
+
+    // The stream where the bytes are read from, null if the reader isn't attached to a stream:
+    private InputStream in;
+
+    // The type of the value that follows the last key:
+    private int type;
+
+    /**
+     * Creates a reader that isn't attached to any document. One of the {@code reset} methods must be called before
+     * reading.
+     */
+    public BinaryReader() {
+        reset(EMPTY);
+    }
+
+    /**
+     * Creates a reader that will read from the given stream.
+     *
+     * @param in the stream containing the document
+     */
+    public BinaryReader(InputStream in) {
+        reset(in);
+    }
+
+    /**
+     * Creates a reader that will read from the given array of bytes, without copying it.
+     *
+     * @param bytes the bytes of the document
+     */
+    public BinaryReader(byte[] bytes) {
+        reset(bytes);
+    }
+
+    /**
+     * Creates a reader that will read from the given file.
+     *
+     * @param file the file containing the document
+     */
+    public BinaryReader(File file) {
+        try {
+            reset(new FileInputStream(file));
+        }
+        catch (IOException exception) {
+            throw new BinaryException("Can't open file \"" + file.getAbsolutePath() + "\" for reading", exception);
+        }
+    }
+
+    /**
+     * Prepares this reader to read a new document from the given stream, reusing the buffer if it has already been
+     * created. The previous stream isn't closed.
+     *
+     * @param in the stream containing the document
+     */
+    public void reset(InputStream in) {
+        if (streamBuffer == null) {
+            streamBuffer = new byte[BUFFER_SIZE];
+        }
+        this.in = in;
+        buffer = streamBuffer;
+        position = 0;
+        limit = 0;
+        type = ROOT;
+    }
+
+    /**
+     * Prepares this reader to read a new document from the given array of bytes, without copying it.
+     *
+     * @param bytes the bytes of the document
+     */
+    public void reset(byte[] bytes) {
+        in = null;
+        buffer = bytes;
+        position = 0;
+        limit = bytes.length;
+        type = ROOT;
+    }
+
+    /**
+     * Reads the key of the next member of the current object.
+     *
+     * @return the identifier of the member, or zero if the end of the object has been reached
+     */
+    public int next() {
+        long key = readVarint();
+        if (key == 0) {
+            type = END;
+            return 0;
+        }
+        type = (int) (key & ((1 << TYPE_BITS) - 1));
+        return (int) (key >>> TYPE_BITS);
+    }
+
+    /**
+     * Reads the marker that precedes the next element of the current list.
+     *
+     * @return {@code true} if there is another element, {@code false} if the end of the list has been reached
+     */
+    public boolean nextElement() {
+        long marker = readVarint();
+        if (marker == 0) {
+            type = END;
+            return false;
+        }
+        type = (int) marker - 1;
+        return true;
+    }
+
+    /**
+     * Checks that the current value is an object. The members are then read calling the {@link #next()} method till
+     * it returns zero.
+     */
+    public void startObject() {
+        if (type != ROOT) {
+            expect(OBJECT);
+        }
+    }
+
+    /**
+     * Checks that the current value is a list. The elements are then read calling the {@link #nextElement()} method
+     * till it returns {@code false}.
+     */
+    public void startList() {
+        if (type != ROOT) {
+            expect(LIST);
+        }
+    }
+
+    /**
+     * Reads a boolean value.
+     */
+    public boolean readBoolean() {
+        expect(VARINT);
+        return readVarint() != 0;
+    }
+
+    /**
+     * Reads an integer value.
+     */
+    public BigInteger readInteger() {
+        if (type == BYTES) {
+            String image = readText();
+            try {
+                return new BigInteger(image);
+            }
+            catch (NumberFormatException exception) {
+                throw new BinaryException("The text \"" + image + "\" isn't a valid integer", exception);
+            }
+        }
+        return BigInteger.valueOf(readLong());
+    }
+
+    /**
+     * Reads an integer value and returns it as a primitive {@code long}.
+     *
+     * @throws BinaryException if the value doesn't fit in a {@code long}
+     */
+    public long readLong() {
+        if (type == BYTES) {
+            String image = readText();
+            throw new BinaryException("The value \"" + image + "\" doesn't fit in a 64 bits integer");
+        }
+        expect(VARINT);
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a decimal value.
+     */
+    public BigDecimal readDecimal() {
+        String image = readString();
+        try {
+            return new BigDecimal(image);
+        }
+        catch (NumberFormatException exception) {
+            throw new BinaryException("The text \"" + image + "\" isn't a valid decimal", exception);
+        }
+    }
+
+    /**
+     * Reads a string value.
+     */
+    public String readString() {
+        expect(BYTES);
+        return readText();
+    }
+
+    /**
+     * Reads a date value.
+     */
+    public Date readDate() {
+        return new Date(readLong());
+    }
+
+    /**
+     * Reads a value of an enumerated type.
+     *
+     * @return the identifier of the value, as calculated by the code generator
+     * @throws BinaryException if the identifier doesn't fit in an {@code int}
+     */
+    public int readEnum() {
+        expect(VARINT);
+        long value = readVarint();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new BinaryException("The enum value " + value + " isn't valid");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a list of boolean values.
+     */
+    public List<Boolean> readBooleans() {
+        startList();
+        List<Boolean> list = new ArrayList<>();
+        while (nextElement()) {
+            list.add(readBoolean());
+        }
+        return list;
+    }
+
+    /**
+     * Reads a list of integer values.
+     */
+    public List<BigInteger> readIntegers() {
+        startList();
+        List<BigInteger> list = new ArrayList<>();
+        while (nextElement()) {
+            list.add(readInteger());
+        }
+        return list;
+    }
+
+    /**
+     * Reads a list of decimal values.
+     */
+    public List<BigDecimal> readDecimals() {
+        startList();
+        List<BigDecimal> list = new ArrayList<>();
+        while (nextElement()) {
+            list.add(readDecimal());
+        }
+        return list;
+    }
+
+    /**
+     * Reads a list of string values.
+     */
+    public List<String> readStrings() {
+        startList();
+        List<String> list = new ArrayList<>();
+        while (nextElement()) {
+            list.add(readString());
+        }
+        return list;
+    }
+
+    /**
+     * Reads a list of date values.
+     */
+    public List<Date> readDates() {
+        startList();
+        List<Date> list = new ArrayList<>();
+        while (nextElement()) {
+            list.add(readDate());
+        }
+        return list;
+    }
+
+    /**
+     * Skips the current value, including all the nested values if it is an object or a list.
+     *
+     * @throws BinaryException if the objects and lists are nested more than 512 levels
+     */
+    public void skipValue() {
+        skipValue(0);
+    }
+
+    private void skipValue(int depth) {
+        switch (type) {
+        case VARINT:
+            readVarint();
+            break;
+        case BYTES:
+            skipBytes(readLength());
+            break;
+        case OBJECT:
+            checkDepth(depth);
+            while (next() != 0) {
+                skipValue(depth + 1);
+            }
+            break;
+        case LIST:
+            checkDepth(depth);
+            while (nextElement()) {
+                skipValue(depth + 1);
+            }
+            break;
+        default:
+            throw new BinaryException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Closes the stream, if any, and detaches this reader from it.
+     */
+    public void close() {
+        if (in != null) {
+            try {
+                in.close();
+            }
+            catch (IOException exception) {
+                throw new BinaryException("Can't close", exception);
+            }
+            finally {
+                in = null;
+                buffer = EMPTY;
+                position = 0;
+                limit = 0;
+            }
+        }
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth >= MAX_DEPTH) {
+            throw new BinaryException("The values are nested more than " + MAX_DEPTH + " levels");
+        }
+    }
+
+    private void expect(int expected) {
+        if (type != expected) {
+            throw new BinaryException("Expected value of type " + expected + " but found type " + type);
+        }
+    }
+
+    private String readText() {
+        int length = readLength();
+        if (limit - position >= length) {
+            String text = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return text;
+        }
+        // The length comes from the document, so it can't be trusted to allocate the array. Instead the array starts
+        // with the size of the stream buffer and grows as the bytes actually arrive:
+        byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];
+        int offset = 0;
+        while (offset < length) {
+            if (position == limit) {
+                fill();
+            }
+            if (offset == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int chunk = Math.min(Math.min(length - offset, limit - position), bytes.length - offset);
+            System.arraycopy(buffer, position, bytes, offset, chunk);
+            position += chunk;
+            offset += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new BinaryException("The length " + length + " isn't valid");
+        }
+        return (int) length;
+    }
+
+    private void skipBytes(int length) {
+        while (length > 0) {
+            if (position == limit) {
+                fill();
+            }
+            int chunk = Math.min(length, limit - position);
+            position += chunk;
+            length -= chunk;
+        }
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            if (position == limit) {
+                fill();
+            }
+            byte b = buffer[position++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new BinaryException("Malformed variable length integer");
+    }
+
+    private void fill() {
+        if (in == null) {
+            throw new BinaryException("Unexpected end of document");
+        }
+        try {
+            int count = in.read(buffer, 0, buffer.length);
+            if (count <= 0) {
+                throw new BinaryException("Unexpected end of document");
+            }
+            position = 0;
+            limit = count;
+        }
+        catch (IOException exception) {
+            throw new BinaryException("Can't read", exception);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.binary;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class writes objects using a compact binary format, intended for service to service traffic and for caches of
+ * objects, where the names of the members don't need to be human readable. The format is similar to the one used by
+ * protocol buffers:
+ *
+ * <ul>
+ * <li>Each member is preceded by a key containing its numeric identifier and the type of its value, encoded as
+ * {@code id << 3 | type}.</li>
+ * <li>Booleans, integers, dates and enumerated values are written as variable length integers, using the zig-zag
+ * encoding for signed values. Dates are written as the number of milliseconds since the epoch. Integers that don't
+ * fit in 64 bits are written as their decimal text.</li>
+ * <li>Strings are written as the length of their UTF-8 encoding followed by the bytes. Decimals are written as their
+ * text.</li>
+ * <li>Objects are written as the sequence of their members, followed by a zero key.</li>
+ * <li>Lists are written as the sequence of their elements, each preceded by its type plus one, followed by a
+ * zero.</li>
+ * </ul>
+ *
+ * The identifiers of the members and of the values of enumerated types are calculated by the code generator from the
+ * names used in the model, so they don't change when members are added or removed. The readers skip the members that
+ * they don't know, so documents written by a newer version of the model can be read with an older one.
+ *
+ * Instances of this class aren't thread safe.
+ */
+public class BinaryWriter implements AutoCloseable {
+    /**
+     * The identifier to use when writing an object or list that isn't a member of another object, for example the
+     * document itself.
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * The identifier to use when writing a value that is an element of a list.
+     */
+    public static final int ELEMENT = -1;
+
+    // The types of values, stored in the three less significant bits of the keys:
+    static final int VARINT = 0;
+    static final int BYTES = 1;
+    static final int OBJECT = 2;
+    static final int LIST = 3;
+
+    // The number of bits of the key used to store the type:
+    static final int TYPE_BITS = 3;
+
+    // The size of the buffer, in bytes:
+    private static final int BUFFER_SIZE = 8192;
+
+    // The buffer where the bytes are accumulated before sending them to the stream:
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+
+    // The stream where the bytes are written, null if the writer isn't attached to a stream:
+    private OutputStream out;
+
+    /**
+     * Creates a writer that isn't attached to any stream. The {@link #reset(OutputStream)} method must be called
+     * before writing.
+     */
+    public BinaryWriter() {
+    }
+
+    /**
+     * Creates a writer that will write to the given stream.
+     *
+     * @param out the stream where the document will be written
+     */
+    public BinaryWriter(OutputStream out) {
+        reset(out);
+    }
+
+    /**
+     * Creates a writer that will write to the given file.
+     *
+     * @param file the file where the document will be written
+     */
+    public BinaryWriter(File file) {
+        try {
+            reset(new FileOutputStream(file));
+        }
+        catch (IOException exception) {
+            throw new BinaryException("Can't open file \"" + file.getAbsolutePath() + "\" for writing", exception);
+        }
+    }
+
+    /**
+     * Prepares this writer to write a new document to the given stream, reusing the buffer. The previous document
+     * should have been completed and closed before calling this method, as whatever hasn't been flushed yet is
+     * discarded.
+     *
+     * @param out the stream where the document will be written
+     */
+    public void reset(OutputStream out) {
+        this.out = out;
+        count = 0;
+    }
+
+    /**
+     * Writes the start of an object.
+     *
+     * @param id the identifier of the member, or {@link #ROOT} or {@link #ELEMENT}
+     */
+    public void writeStartObject(int id) {
+        writeKey(id, OBJECT);
+    }
+
+    /**
+     * Writes the end of an object.
+     */
+    public void writeEndObject() {
+        writeVarint(0);
+    }
+
+    /**
+     * Writes the start of a list.
+     *
+     * @param id the identifier of the member, or {@link #ROOT} or {@link #ELEMENT}
+     */
+    public void writeStartList(int id) {
+        writeKey(id, LIST);
+    }
+
+    /**
+     * Writes the end of a list.
+     */
+    public void writeEndList() {
+        writeVarint(0);
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param id the identifier of the member, or {@link #ELEMENT}
+     * @param value the value
+     */
+    public void writeBoolean(int id, boolean value) {
+        writeKey(id, VARINT);
+        writeVarint(value ? 1 : 0);
+    }
+
+    /**
+     * Writes an integer value. Values that fit in 64 bits are written as variable length integers, and the rest as
+     * their decimal text.
+     *
+     * @param id the identifier of the member, or {@link #ELEMENT}
+     * @param value the value
+     */
+    public void writeInteger(int id, BigInteger value) {
+        if (value.bitLength() < Long.SIZE) {
+            writeLong(id, value.longValue());
+        }
+        else {
+            writeText(id, value.toString());
+        }
+    }
+
+    /**
+     * Writes an integer value stored in a primitive {@code long}.
+     *
+     * @param id the identifier of the member, or {@link #ELEMENT}
+     * @param value the value
+     */
+    public void writeLong(int id, long value) {
+        writeKey(id, VARINT);
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a decimal value, as its text.
+     *
+     * @param id the identifier of the member, or {@link #ELEMENT}
+     * @param value the value
+     */
+    public void writeDecimal(int id, BigDecimal value) {
+        writeText(id, value.toString());
+    }
+
+    /**
+     * Writes a string value.
+     *
+     * @param id the identifier of the member, or {@link #ELEMENT}
+     * @param value the value
+     */
+    public void writeString(int id, String value) {
+        writeText(id, value);
+    }
+
+    /**
+     * Writes a date value, as the number of milliseconds since the epoch.
+     *
+     * @param id the identifier of the member, or {@link #ELEMENT}
+     * @param value the value
+     */
+    public void writeDate(int id, Date value) {
+        writeLong(id, value.getTime());
+    }
+
+    /**
+     * Writes a value of an enumerated type.
+     *
+     * @param id the identifier of the member, or {@link #ELEMENT}
+     * @param value the identifier of the value, as calculated by the code generator
+     */
+    public void writeEnum(int id, int value) {
+        writeKey(id, VARINT);
+        writeVarint(value);
+    }
+
+    /**
+     * Writes a list of boolean values.
+     */
+    public void writeBooleans(int id, List<Boolean> values) {
+        writeStartList(id);
+        for (Boolean value : values) {
+            writeBoolean(ELEMENT, value);
+        }
+        writeEndList();
+    }
+
+    /**
+     * Writes a list of integer values.
+     */
+    public void writeIntegers(int id, List<BigInteger> values) {
+        writeStartList(id);
+        for (BigInteger value : values) {
+            writeInteger(ELEMENT, value);
+        }
+        writeEndList();
+    }
+
+    /**
+     * Writes a list of decimal values.
+     */
+    public void writeDecimals(int id, List<BigDecimal> values) {
+        writeStartList(id);
+        for (BigDecimal value : values) {
+            writeDecimal(ELEMENT, value);
+        }
+        writeEndList();
+    }
+
+    /**
+     * Writes a list of string values.
+     */
+    public void writeStrings(int id, List<String> values) {
+        writeStartList(id);
+        for (String value : values) {
+            writeString(ELEMENT, value);
+        }
+        writeEndList();
+    }
+
+    /**
+     * Writes a list of date values.
+     */
+    public void writeDates(int id, List<Date> values) {
+        writeStartList(id);
+        for (Date value : values) {
+            writeDate(ELEMENT, value);
+        }
+        writeEndList();
+    }
+
+    /**
+     * Sends the buffered bytes to the stream, and flushes it.
+     */
+    public void flush() {
+        try {
+            drain();
+            out.flush();
+        }
+        catch (IOException exception) {
+            throw new BinaryException("Can't flush", exception);
+        }
+    }
+
+    /**
+     * Flushes the buffered bytes and closes the stream.
+     */
+    public void close() {
+        if (out != null) {
+            try {
+                drain();
+                out.close();
+            }
+            catch (IOException exception) {
+                throw new BinaryException("Can't close", exception);
+            }
+            finally {
+                reset(null);
+            }
+        }
+    }
+
+    private void writeKey(int id, int type) {
+        if (id > 0) {
+            writeVarint((long) id << TYPE_BITS | type);
+        }
+        else if (id == ELEMENT) {
+            writeVarint(type + 1);
+        }
+    }
+
+    private void writeText(int id, String value) {
+        writeKey(id, BYTES);
+
+        // Calculate the length of the encoded text first, so that the characters can then be encoded directly into
+        // the buffer. Unpaired surrogates are replaced with a question mark, like the output stream writer does.
+        int length = value.length();
+        long size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            }
+            else if (c < 0x800) {
+                size += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            }
+            else if (Character.isSurrogate(c)) {
+                size += 1;
+            }
+            else {
+                size += 3;
+            }
+        }
+        writeVarint(size);
+
+        // Encode the characters:
+        for (int i = 0; i < length; i++) {
+            if (count > BUFFER_SIZE - 4) {
+                drainQuietly();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[count++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                buffer[count++] = (byte) (0xc0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, value.charAt(++i));
+                buffer[count++] = (byte) (0xf0 | (code >> 18));
+                buffer[count++] = (byte) (0x80 | ((code >> 12) & 0x3f));
+                buffer[count++] = (byte) (0x80 | ((code >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (code & 0x3f));
+            }
+            else if (Character.isSurrogate(c)) {
+                buffer[count++] = '?';
+            }
+            else {
+                buffer[count++] = (byte) (0xe0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void writeVarint(long value) {
+        // Make sure that there is space for the longest encoding, ten bytes:
+        if (count > BUFFER_SIZE - 10) {
+            drainQuietly();
+        }
+        while ((value & ~0x7fL) != 0) {
+            buffer[count++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[count++] = (byte) value;
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        }
+        catch (IOException exception) {
+            throw new BinaryException("Can't write", exception);
+        }
+    }
+
+    private void drain() throws IOException {
+        if (out == null) {
+            throw new IOException("The writer isn't attached to a stream");
+        }
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
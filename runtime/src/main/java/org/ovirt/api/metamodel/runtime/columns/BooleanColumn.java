@@ -0,0 +1,62 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.columns;
+
+import java.util.Arrays;
+
+/**
+ * A column that stores booleans as a bit set, one bit per row.
+ */
+public class BooleanColumn extends Column {
+    private long[] values = new long[1];
+
+    /**
+     * Sets the value of the given row.
+     */
+    public void set(int row, boolean value) {
+        int word = row >>> 6;
+        if (word >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, word));
+        }
+        if (value) {
+            values[word] |= 1L << row;
+        }
+        else {
+            values[word] &= ~(1L << row);
+        }
+        markPresent(row);
+    }
+
+    /**
+     * Returns the value of the given row, or {@code false} if it doesn't have a value.
+     */
+    public boolean get(int row) {
+        int word = row >>> 6;
+        return word < values.length && (values[word] & (1L << row)) != 0;
+    }
+
+    /**
+     * Returns the number of rows, from the first one to the given limit, excluded, whose value is {@code true}.
+     */
+    public int count(int limit) {
+        int words = Math.min(limit >>> 6, values.length);
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(values[i]);
+        }
+        int rest = limit & 63;
+        if (rest != 0 && words < values.length) {
+            count += Long.bitCount(values[words] & ((1L << rest) - 1));
+        }
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(values, 0L);
+    }
+}
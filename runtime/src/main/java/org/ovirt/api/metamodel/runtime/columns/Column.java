@@ -0,0 +1,57 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.columns;
+
+import java.util.Arrays;
+
+/**
+ * This is the base class of the columns filled by the {@code readColumns} methods of the generated XML and JSON
+ * readers. A column stores the values of one member for all the objects of a collection, one row per object, in
+ * arrays of primitives instead of in objects, and one bit per row that indicates if the value was present in the
+ * document. The rows that don't have a value contain the default value of the primitive type.
+ *
+ * Columns aren't thread safe.
+ */
+public abstract class Column {
+    // The initial number of rows of the arrays:
+    static final int INITIAL_CAPACITY = 16;
+
+    // The bits that indicate which rows have a value:
+    private long[] present = new long[1];
+
+    /**
+     * Checks if the given row has a value.
+     */
+    public boolean isPresent(int row) {
+        int word = row >>> 6;
+        return word < present.length && (present[word] & (1L << row)) != 0;
+    }
+
+    /**
+     * Removes all the values, keeping the arrays so that they can be filled again without allocating memory.
+     */
+    public void clear() {
+        Arrays.fill(present, 0L);
+    }
+
+    /**
+     * Records that the given row has a value.
+     */
+    protected void markPresent(int row) {
+        int word = row >>> 6;
+        if (word >= present.length) {
+            present = Arrays.copyOf(present, Math.max(word + 1, 2 * present.length));
+        }
+        present[word] |= 1L << row;
+    }
+
+    /**
+     * Calculates the new length of an array so that it can contain the given row.
+     */
+    static int grow(int length, int row) {
+        return Math.max(row + 1, 2 * length);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.columns;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * A column that stores decimals in an array of primitive {@code double} values. Decimals that can't be represented
+ * exactly as a {@code double} are rounded, so this is intended for aggregation, not for exact arithmetic.
+ */
+public class DoubleColumn extends Column {
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    /**
+     * Sets the value of the given row.
+     */
+    public void set(int row, double value) {
+        if (row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+        values[row] = value;
+        markPresent(row);
+    }
+
+    /**
+     * Sets the value of the given row. Does nothing if the value is {@code null}.
+     */
+    public void set(int row, BigDecimal value) {
+        if (value != null) {
+            set(row, value.doubleValue());
+        }
+    }
+
+    /**
+     * Returns the value of the given row, or zero if it doesn't have a value.
+     */
+    public double get(int row) {
+        return row < values.length ? values[row] : 0.0;
+    }
+
+    /**
+     * Returns the array that contains the values. It may be longer than the number of rows, and it is replaced when
+     * the column grows, so it should be retrieved again after reading more rows.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(values, 0.0);
+    }
+}
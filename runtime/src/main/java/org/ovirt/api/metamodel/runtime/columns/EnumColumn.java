@@ -0,0 +1,67 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.columns;
+
+import java.util.Arrays;
+
+/**
+ * A column that stores enum values as their ordinals, in an array of primitive {@code byte} values, so enums with up
+ * to 256 values are supported. The enum value can be obtained using the {@code values()} method of the enum type, for
+ * example:
+ *
+ * <pre>
+ * V4VmType type = V4VmType.values()[column.get(row)];
+ * </pre>
+ */
+public class EnumColumn extends Column {
+    private byte[] values = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Sets the value of the given row. Does nothing if the value is {@code null}, as the generated readers return
+     * {@code null} for values that they don't know.
+     *
+     * @throws IllegalArgumentException if the ordinal of the value doesn't fit in a {@code byte}
+     */
+    public void set(int row, Enum<?> value) {
+        if (value == null) {
+            return;
+        }
+        int ordinal = value.ordinal();
+        if (ordinal > 0xff) {
+            throw new IllegalArgumentException(
+                "The ordinal " + ordinal + " of value '" + value + "' doesn't fit in a column of enums"
+            );
+        }
+        if (row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+        values[row] = (byte) ordinal;
+        markPresent(row);
+    }
+
+    /**
+     * Returns the ordinal of the value of the given row, or -1 if it doesn't have a value.
+     */
+    public int get(int row) {
+        return isPresent(row) ? values[row] & 0xff : -1;
+    }
+
+    /**
+     * Returns the array that contains the ordinals. It may be longer than the number of rows, and it is replaced when
+     * the column grows, so it should be retrieved again after reading more rows. The rows that don't have a value
+     * contain zero, so use the {@link #isPresent(int)} method to distinguish them from the first value of the enum.
+     * The ordinals are stored as unsigned bytes, so use {@code values[row] & 0xff} to get them.
+     */
+    public byte[] values() {
+        return values;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(values, (byte) 0);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.columns;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A column that stores integers, and dates as the number of milliseconds since the epoch, in an array of primitive
+ * {@code long} values.
+ */
+public class LongColumn extends Column {
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    /**
+     * Sets the value of the given row.
+     */
+    public void set(int row, long value) {
+        if (row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+        values[row] = value;
+        markPresent(row);
+    }
+
+    /**
+     * Sets the value of the given row to the number of milliseconds since the epoch of the given date. Does nothing
+     * if the date is {@code null}.
+     */
+    public void set(int row, Date value) {
+        if (value != null) {
+            set(row, value.getTime());
+        }
+    }
+
+    /**
+     * Returns the value of the given row, or zero if it doesn't have a value.
+     */
+    public long get(int row) {
+        return row < values.length ? values[row] : 0L;
+    }
+
+    /**
+     * Returns the array that contains the values. It may be longer than the number of rows, and it is replaced when
+     * the column grows, so it should be retrieved again after reading more rows.
+     */
+    public long[] values() {
+        return values;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(values, 0L);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.columns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A column that stores strings encoded with a dictionary: each distinct string is stored once, and the rows contain
+ * its position in the dictionary. This saves memory and makes grouping cheap when there are few distinct values, like
+ * the names of hosts or clusters.
+ */
+public class StringColumn extends Column {
+    private int[] codes = new int[INITIAL_CAPACITY];
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> index = new HashMap<>();
+
+    /**
+     * Sets the value of the given row. Does nothing if the value is {@code null}.
+     */
+    public void set(int row, String value) {
+        if (value == null) {
+            return;
+        }
+        Integer code = index.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            index.put(value, code);
+        }
+        if (row >= codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length, row));
+        }
+        codes[row] = code;
+        markPresent(row);
+    }
+
+    /**
+     * Returns the value of the given row, or {@code null} if it doesn't have a value.
+     */
+    public String get(int row) {
+        return isPresent(row) ? dictionary.get(codes[row]) : null;
+    }
+
+    /**
+     * Returns the position in the dictionary of the value of the given row, or -1 if it doesn't have a value.
+     */
+    public int getCode(int row) {
+        return isPresent(row) ? codes[row] : -1;
+    }
+
+    /**
+     * Returns the array that contains the positions in the dictionary. It may be longer than the number of rows, and
+     * it is replaced when the column grows, so it should be retrieved again after reading more rows.
+     */
+    public int[] codes() {
+        return codes;
+    }
+
+    /**
+     * Returns the distinct values, in the order that they were first found.
+     */
+    public List<String> dictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(codes, 0);
+        dictionary.clear();
+        index.clear();
+    }
+}
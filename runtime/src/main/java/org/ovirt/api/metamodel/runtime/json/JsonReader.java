@@ -9,40 +9,67 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.TimeZone;
 import javax.json.Json;
 import javax.json.JsonException;
 import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsAccumulator;
+import org.ovirt.api.metamodel.runtime.util.DateCodec;
+import org.ovirt.api.metamodel.runtime.util.ReusableUtf8Reader;
+import org.ovirt.api.metamodel.runtime.util.StringCache;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
 
 /**
  * This class wraps the {@link JsonParser} class so that the methods don't send checked exceptions, in order to
  * simplify its usage together with streams and lambdas.
  */
 public class JsonReader implements AutoCloseable {
+    // The accumulator for the metrics of complete documents:
+    private static final MetricsAccumulator METRICS = Metrics.accumulator(Metrics.JSON_READ, Metrics.DOCUMENT);
+
+    // Holder for the shared parser factory, so that the service provider lookup is done only once, and lazily:
+    private static class FactoryHolder {
+        private static final JsonParserFactory INSTANCE = Json.createParserFactory(
+            Collections.<String, Object>emptyMap()
+        );
+    }
+
     // The wrapped JSON parser:
     private JsonParser parser;
 
+    // The decoder used when reading from a stream, created the first time that it is needed and then reused when the
+    // reader is reset:
+    private ReusableUtf8Reader decoder;
+
+    // Indicates if metrics were enabled when the current document was started, the number of objects and arrays read
+    // and of values skipped, and the size of the document, or the decoder that counts it, if they are known:
+    private boolean metered;
+    private long elements;
+    private long skipped;
+    private long bytes;
+    private ReusableUtf8Reader counter;
+
+    // The cache used to deduplicate string values, if enabled:
+    private StringCache strings;
+
     /**
-     * Thread local used to store the date formats.
+     * Creates a JSON reader that isn't attached to any document. One of the {@code reset} methods must be called
+     * before reading. This is intended for readers that are kept in a {@link org.ovirt.api.metamodel.runtime.util.Pool}
+     * and reused for many documents.
      */
-    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>(){
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-            format.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return format;
-        }
-    };
+    public JsonReader() {
+    }
 
     /**
      * Creates a JSON reader that will read from the given stream, using UTF-8 as the encoding.
@@ -50,8 +77,7 @@ public class JsonReader implements AutoCloseable {
      * @param in the stream where the document will be read from
      */
     public JsonReader(InputStream in) {
-        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
-        init(reader);
+        reset(in);
     }
 
     /**
@@ -60,7 +86,7 @@ public class JsonReader implements AutoCloseable {
      * @param reader the reader where the document will be read from
      */
     public JsonReader(Reader reader) {
-        init(reader);
+        reset(reader);
     }
 
     /**
@@ -70,24 +96,128 @@ public class JsonReader implements AutoCloseable {
      */
     public JsonReader(File file) {
         try {
-            InputStream in = new FileInputStream(file);
-            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
-            init(reader);
+            reset(new FileInputStream(file));
         }
         catch (IOException exception) {
             throw new JsonException("Can't open file \"" + file.getAbsolutePath() + "\" for reading", exception);
         }
     }
 
-    private void init(Reader reader) {
-        parser = Json.createParser(reader);
+    /**
+     * Creates a JSON reader that will read the UTF-8 bytes of the document directly from the given buffer, starting
+     * in its current position and ending in its limit, without decoding them to characters first. The buffer can be,
+     * for example, the result of mapping a file into memory with the {@link java.nio.channels.FileChannel#map}
+     * method. The names of the members aren't decoded either, they are compared to the names of the model using their
+     * bytes, and the same string objects are reused. The position of the buffer isn't modified, and the buffer must
+     * not be modified while the reader is being used.
+     *
+     * Note that when the code has been generated with the {@code --lazy-structs} option the containers returned by the
+     * readers keep references to regions of this buffer, to decode the nested objects later. In that case the buffer
+     * must not be modified or reused, for example returned to a pool, till those containers are discarded or all
+     * their nested objects have been decoded.
+     *
+     * @param buffer the buffer containing the document
+     */
+    public JsonReader(ByteBuffer buffer) {
+        reset(buffer);
+    }
+
+    /**
+     * Creates a JSON reader that will read the UTF-8 bytes of the document directly from the given array. See the
+     * {@link #JsonReader(ByteBuffer)} constructor for details.
+     *
+     * @param bytes the array containing the document
+     */
+    public JsonReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Discards the current document and prepares this reader to read a new one from the given stream, using UTF-8 as
+     * the encoding. The decoder and its buffers are reused, only the parser is created again. The source of the
+     * previous document isn't closed.
+     *
+     * @param in the stream where the document will be read from
+     */
+    public void reset(InputStream in) {
+        if (decoder == null) {
+            decoder = new ReusableUtf8Reader();
+        }
+        decoder.reset(in);
+        parser = FactoryHolder.INSTANCE.createParser(decoder);
+        start(0, decoder);
+    }
+
+    /**
+     * Discards the current document and prepares this reader to read a new one from the given reader. The source of
+     * the previous document isn't closed.
+     *
+     * @param reader the reader where the document will be read from
+     */
+    public void reset(Reader reader) {
+        parser = FactoryHolder.INSTANCE.createParser(reader);
+        start(0, null);
+    }
+
+    /**
+     * Discards the current document and prepares this reader to read a new one directly from the UTF-8 bytes of the
+     * given buffer. See the {@link #JsonReader(ByteBuffer)} constructor for details. If this reader was already
+     * reading bytes the parser is reused, including its buffers and stack.
+     *
+     * @param buffer the buffer containing the document
+     */
+    public void reset(ByteBuffer buffer) {
+        start(buffer.remaining(), null);
+        if (parser instanceof Utf8JsonParser) {
+            ((Utf8JsonParser) parser).reset(buffer);
+        }
+        else {
+            parser = new Utf8JsonParser(buffer);
+        }
+    }
+
+    /**
+     * Discards the current document and prepares this reader to read a new one directly from the UTF-8 bytes of the
+     * given array. See the {@link #reset(ByteBuffer)} method for details.
+     *
+     * @param bytes the array containing the document
+     */
+    public void reset(byte[] bytes) {
+        reset(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Sets the cache used to deduplicate the string values read, or {@code null}, the default, to disable
+     * deduplication. The cache is kept when this reader is reset.
+     */
+    public void setStringCache(StringCache newStrings) {
+        strings = newStrings;
+    }
+
+    /**
+     * Returns the cache used to deduplicate the string values read, or {@code null} if deduplication is disabled.
+     */
+    public StringCache getStringCache() {
+        return strings;
+    }
+
+    private void start(long bytes, ReusableUtf8Reader counter) {
+        this.metered = Metrics.isEnabled();
+        this.elements = 0;
+        this.skipped = 0;
+        this.bytes = bytes;
+        this.counter = counter;
     }
 
     /**
      * Returns the next event.
      */
     public JsonParser.Event next() {
-        return parser.next();
+        JsonParser.Event event = parser.next();
+        if (metered && (event == JsonParser.Event.START_OBJECT || event == JsonParser.Event.START_ARRAY)) {
+            elements++;
+        }
+        return event;
     }
 
     /**
@@ -97,11 +227,25 @@ public class JsonReader implements AutoCloseable {
         return parser.getString();
     }
 
+    /**
+     * Returns the symbol corresponding to the name of the current member, or {@link SymbolTable#UNKNOWN} if the name
+     * isn't in the given table. When reading UTF-8 bytes directly the name is looked up using those bytes, so no
+     * string is created.
+     *
+     * @param table the table containing the names known by the caller
+     */
+    public int getSymbol(SymbolTable table) {
+        if (parser instanceof Utf8JsonParser) {
+            return ((Utf8JsonParser) parser).getKeySymbol(table);
+        }
+        return table.get(parser.getString());
+    }
+
     /**
      * Checks that the next event is of the given type, and throw and exception if it isn't.
      */
     public void expect(JsonParser.Event expected) {
-        JsonParser.Event actual = parser.next();
+        JsonParser.Event actual = next();
         if (actual != expected) {
             throw new JsonException("Unexpected event");
         }
@@ -111,9 +255,16 @@ public class JsonReader implements AutoCloseable {
      * Skips the current JSON object or array.
      */
     public void skip() {
+        if (metered) {
+            skipped++;
+        }
+        skipNested();
+    }
+
+    private void skipNested() {
         int depth = 1;
         while (parser.hasNext()) {
-            switch (parser.next()) {
+            switch (next()) {
             case START_ARRAY:
             case START_OBJECT:
                 depth++;
@@ -129,6 +280,103 @@ public class JsonReader implements AutoCloseable {
         }
     }
 
+    /**
+     * Skips the next JSON value. Unlike the {@link #skip()} method, this is intended to be called when the start of
+     * the value hasn't been consumed yet, for example right after the name of a member. The value can be a simple
+     * value, an object or an array.
+     */
+    public void skipValue() {
+        if (metered) {
+            skipped++;
+        }
+        switch (next()) {
+        case START_ARRAY:
+        case START_OBJECT:
+            skipNested();
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Checks if this reader can defer the decoding of values with the {@link #deferValue()} method. That is only
+     * possible when reading UTF-8 bytes directly, as the deferred value is represented by the region of the bytes
+     * that contains it.
+     */
+    public boolean canDefer() {
+        return parser instanceof Utf8JsonParser;
+    }
+
+    /**
+     * Skips the next value, without decoding it, and returns the region of the bytes of the document that contains
+     * it. The value can be read later creating a new reader for that region. Note that the region shares the bytes
+     * with the original buffer, so the buffer must not be modified while the deferred value hasn't been read.
+     *
+     * @return the buffer containing the bytes of the value, positioned at the start of the value
+     * @throws UnsupportedOperationException if this reader doesn't read UTF-8 bytes directly
+     */
+    public ByteBuffer deferValue() {
+        if (!(parser instanceof Utf8JsonParser)) {
+            throw new UnsupportedOperationException("Only readers that work with bytes can defer values");
+        }
+        return ((Utf8JsonParser) parser).skipValue();
+    }
+
+    /**
+     * Reads the next value, which must be an array, without decoding its elements, and returns the regions of the
+     * bytes of the document that contain them, in the same order. Each element can then be read creating a new reader
+     * for its region, for example in parallel, using the {@link org.ovirt.api.metamodel.runtime.util.ParallelDecoder}
+     * class. Like in the {@link #deferValue()} method, the regions share the bytes with the original buffer.
+     *
+     * @return the list of buffers containing the bytes of the elements, each positioned at the start of the element
+     * @throws UnsupportedOperationException if this reader doesn't read UTF-8 bytes directly
+     */
+    public List<ByteBuffer> splitArray() {
+        if (!(parser instanceof Utf8JsonParser)) {
+            throw new UnsupportedOperationException("Only readers that work with bytes can split arrays");
+        }
+        return ((Utf8JsonParser) parser).splitArray();
+    }
+
+    /**
+     * Checks if this reader can go back to a previous location with the {@link #mark()} and {@link #rewind(long)}
+     * methods. Like deferring values, that is only possible when reading UTF-8 bytes directly.
+     */
+    public boolean canRewind() {
+        return parser instanceof Utf8JsonParser;
+    }
+
+    /**
+     * Returns a value that describes the current location of the reader, so that it can go back to it later with the
+     * {@link #rewind(long)} method. This is intended for code that needs to look ahead inside an object, for example
+     * to find the members that have to be written as XML attributes before the rest. The value is opaque, and creating
+     * it doesn't allocate anything.
+     *
+     * @return the location of the reader
+     * @throws UnsupportedOperationException if this reader doesn't read UTF-8 bytes directly
+     */
+    public long mark() {
+        if (!(parser instanceof Utf8JsonParser)) {
+            throw new UnsupportedOperationException("Only readers that work with bytes can be marked");
+        }
+        return ((Utf8JsonParser) parser).mark();
+    }
+
+    /**
+     * Goes back to a location returned by the {@link #mark()} method. The reader must not have gone out of the object
+     * or array that contained that location.
+     *
+     * @param mark the location returned by the {@link #mark()} method
+     * @throws UnsupportedOperationException if this reader doesn't read UTF-8 bytes directly
+     */
+    public void rewind(long mark) {
+        if (!(parser instanceof Utf8JsonParser)) {
+            throw new UnsupportedOperationException("Only readers that work with bytes can be rewound");
+        }
+        ((Utf8JsonParser) parser).rewind(mark);
+    }
+
     /**
      * Reads a boolean value from the JSON parser.
      */
@@ -157,6 +405,35 @@ public class JsonReader implements AutoCloseable {
         }
     }
 
+    /**
+     * Reads an integer value from the JSON parser and returns it as a primitive {@code long}. Integral numbers are
+     * converted from their text, without creating {@link BigDecimal} or {@link BigInteger} objects, and when reading
+     * UTF-8 bytes directly numbers of up to 18 digits are converted from the bytes without creating any object.
+     * Numbers with fraction or exponent are truncated, like in the {@link #readInteger()} method.
+     *
+     * @throws JsonException if the value isn't a number, or if it doesn't fit in a {@code long}
+     */
+    public long readLong() {
+        JsonParser.Event event = parser.next();
+        switch (event) {
+        case VALUE_NUMBER:
+            try {
+                if (parser instanceof Utf8JsonParser && ((Utf8JsonParser) parser).isSmallIntegralNumber()) {
+                    return parser.getLong();
+                }
+                if (parser.isIntegralNumber()) {
+                    return Long.parseLong(parser.getString());
+                }
+                return parser.getBigDecimal().setScale(0, RoundingMode.DOWN).longValueExact();
+            }
+            catch (NumberFormatException | ArithmeticException exception) {
+                throw new JsonException("The value \"" + parser.getString() + "\" doesn't fit in a 64 bits integer");
+            }
+        default:
+            throw new JsonException("Expected integer value");
+        }
+    }
+
     /**
      * Reads a decimal value from the JSON parser.
      */
@@ -177,12 +454,22 @@ public class JsonReader implements AutoCloseable {
         JsonParser.Event event = parser.next();
         switch (event) {
         case VALUE_STRING:
-            return parser.getString();
+            return getStringValue();
         default:
             throw new JsonException("Expected string value");
         }
     }
 
+    private String getStringValue() {
+        if (strings == null) {
+            return parser.getString();
+        }
+        if (parser instanceof Utf8JsonParser) {
+            return ((Utf8JsonParser) parser).getString(strings);
+        }
+        return strings.intern(parser.getString());
+    }
+
     /**
      * Reads a date value from the JSON parser.
      */
@@ -192,9 +479,9 @@ public class JsonReader implements AutoCloseable {
             case VALUE_STRING:
                 String image = parser.getString();
                 try {
-                    return DATE_FORMAT.get().parse(image);
+                    return DateCodec.parse(image);
                 }
-                catch (ParseException exception) {
+                catch (IllegalArgumentException exception) {
                     throw new JsonException("The text \"" + image + "\" isn't a valid date", exception);
                 }
             default:
@@ -287,11 +574,12 @@ public class JsonReader implements AutoCloseable {
                 case VALUE_STRING:
                     String image = parser.getString();
                     try {
-                        list.add(DATE_FORMAT.get().parse(image));
+                        list.add(DateCodec.parse(image));
                     }
-                    catch (ParseException exception) {
+                    catch (IllegalArgumentException exception) {
                         throw new JsonException("The text \"" + image + "\" isn't a valid date", exception);
                     }
+                    break;
                 case END_ARRAY:
                     listEnd = true;
                     break;
@@ -313,7 +601,7 @@ public class JsonReader implements AutoCloseable {
             JsonParser.Event next = next();
             switch (next) {
                 case VALUE_STRING:
-                    list.add(getString());
+                    list.add(getStringValue());
                     break;
                 case END_ARRAY:
                     listEnd = true;
@@ -326,9 +614,19 @@ public class JsonReader implements AutoCloseable {
     }
 
     /**
-     * Closes the JSON document and the underlying source.
+     * Closes the JSON document and the underlying source. If metrics are enabled this also records the document. Note
+     * that the objects and arrays that are read again after going back with the {@link #rewind(long)} method are
+     * counted again.
      */
     public void close() {
+        // The reader may not be attached to any document, if it was created without one and not reset yet:
+        if (parser == null) {
+            return;
+        }
         parser.close();
+        if (metered) {
+            METRICS.recordDocument(counter != null ? counter.getByteCount() : bytes, elements, skipped);
+            metered = false;
+        }
     }
 }
@@ -9,41 +9,70 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.TimeZone;
 import javax.json.Json;
 import javax.json.JsonException;
 import javax.json.stream.JsonGenerator;
 import javax.json.stream.JsonGeneratorFactory;
 
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsAccumulator;
+import org.ovirt.api.metamodel.runtime.util.DateCodec;
+import org.ovirt.api.metamodel.runtime.util.ReusableUtf8Writer;
+
 /**
  * This class wraps the {@link JsonGenerator} class so that the methods don't send checked exceptions, in order to
  * simplify its usage together with streams and lambdas.
  */
 public class JsonWriter implements AutoCloseable {
+    // The accumulator for the metrics of complete documents:
+    private static final MetricsAccumulator METRICS = Metrics.accumulator(Metrics.JSON_WRITE, Metrics.DOCUMENT);
+
+    // Holders for the shared generator factories, with and without indentation, so that the service provider lookup
+    // is done only once, and lazily:
+    private static class PlainFactoryHolder {
+        private static final JsonGeneratorFactory INSTANCE = Json.createGeneratorFactory(
+            Collections.<String, Object>emptyMap()
+        );
+    }
+
+    private static class IndentFactoryHolder {
+        private static final JsonGeneratorFactory INSTANCE = Json.createGeneratorFactory(
+            Collections.<String, Object>singletonMap(JsonGenerator.PRETTY_PRINTING, Boolean.TRUE)
+        );
+    }
+
+    // Indicates if the output should be indented:
+    private final boolean indent;
+
     // The wrapped JSON generator:
     private JsonGenerator generator;
 
+    // The encoder used when writing to a stream, created the first time that it is needed and then reused when the
+    // writer is reset:
+    private ReusableUtf8Writer encoder;
+
+    // Indicates if metrics were enabled when the current document was started, the number of objects and arrays
+    // written, and the encoder that counts the bytes, null if they aren't known:
+    private boolean metered;
+    private long elements;
+    private ReusableUtf8Writer counter;
+
     /**
-     * Thread local used to store the date formats.
+     * Creates a JSON writer that isn't attached to any document. One of the {@code reset} methods must be called
+     * before writing. This is intended for writers that are kept in a {@link org.ovirt.api.metamodel.runtime.util.Pool}
+     * and reused for many documents.
+     *
+     * @param indent indicates if the output should be indented
      */
-    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>(){
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-            format.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return format;
-        }
-    };
+    public JsonWriter(boolean indent) {
+        this.indent = indent;
+    }
 
     /**
      * Creates a JSON writer that will write to the given stream, using UTF-8 as the encoding.
@@ -52,8 +81,8 @@ public class JsonWriter implements AutoCloseable {
      * @param indent indicates if the output should be indented
      */
     public JsonWriter(OutputStream out, boolean indent) {
-        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
-        init(writer, indent);
+        this.indent = indent;
+        reset(out);
     }
 
     /**
@@ -63,7 +92,8 @@ public class JsonWriter implements AutoCloseable {
      * @param indent indicates if the output should be indented
      */
     public JsonWriter(Writer writer, boolean indent) {
-        init(writer, indent);
+        this.indent = indent;
+        reset(writer);
     }
 
     /**
@@ -73,29 +103,59 @@ public class JsonWriter implements AutoCloseable {
      * @param indent indicates if the output should be indented
      */
     public JsonWriter(File file, boolean indent) {
+        this.indent = indent;
         try {
-            OutputStream out = new FileOutputStream(file);
-            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
-            init(writer, indent);
+            reset(new FileOutputStream(file));
         }
         catch (IOException exception) {
             throw new JsonException("Can't open file \"" + file.getAbsolutePath() + "\" for writing", exception);
         }
     }
 
-    private void init(Writer writer, boolean indent) {
-        Map<String, Object> configuration = new HashMap<>();
-        if (indent) {
-            configuration.put(JsonGenerator.PRETTY_PRINTING, Boolean.TRUE);
+    /**
+     * Prepares this writer to write a new document to the given stream, using UTF-8 as the encoding. The encoder and
+     * its buffer are reused, only the generator is created again. The previous document should have been completed
+     * and closed before calling this method, as whatever hasn't been flushed yet is discarded.
+     *
+     * @param out the stream where the document will be written
+     */
+    public void reset(OutputStream out) {
+        if (encoder == null) {
+            encoder = new ReusableUtf8Writer();
         }
-        JsonGeneratorFactory factory = Json.createGeneratorFactory(configuration);
-        generator = factory.createGenerator(writer);
+        encoder.reset(out);
+        generator = getFactory().createGenerator(encoder);
+        start(encoder);
+    }
+
+    /**
+     * Prepares this writer to write a new document to the given writer. The previous document should have been
+     * completed and closed before calling this method.
+     *
+     * @param writer the writer where the document will be written
+     */
+    public void reset(Writer writer) {
+        generator = getFactory().createGenerator(writer);
+        start(null);
+    }
+
+    private void start(ReusableUtf8Writer counter) {
+        this.metered = Metrics.isEnabled();
+        this.elements = 0;
+        this.counter = counter;
+    }
+
+    private JsonGeneratorFactory getFactory() {
+        return indent ? IndentFactoryHolder.INSTANCE : PlainFactoryHolder.INSTANCE;
     }
 
     /**
      * Writes the start of an object.
      */
     public void writeStartObject() {
+        if (metered) {
+            elements++;
+        }
         generator.writeStartObject();
     }
 
@@ -105,6 +165,9 @@ public class JsonWriter implements AutoCloseable {
      * @param name the name of the object
      */
     public void writeStartObject(String name) {
+        if (metered) {
+            elements++;
+        }
         generator.writeStartObject(name);
     }
 
@@ -112,6 +175,9 @@ public class JsonWriter implements AutoCloseable {
      * Writes the start of an array.
      */
     public void writeStartArray() {
+        if (metered) {
+            elements++;
+        }
         generator.writeStartArray();
     }
 
@@ -121,6 +187,9 @@ public class JsonWriter implements AutoCloseable {
      * @param name the name of the array
      */
     public void writeStartArray(String name) {
+        if (metered) {
+            elements++;
+        }
         generator.writeStartArray(name);
     }
 
@@ -161,6 +230,16 @@ public class JsonWriter implements AutoCloseable {
         generator.write(name, value);
     }
 
+    /**
+     * Writes an integer name and value pair, where the value is stored in a primitive {@code long}.
+     *
+     * @param name the name
+     * @param value the value
+     */
+    public void writeLong(String name, long value) {
+        generator.write(name, value);
+    }
+
     /**
      * Writes a decimal name and value pair.
      *
@@ -175,7 +254,7 @@ public class JsonWriter implements AutoCloseable {
      * Writes a date.
      */
     public void writeDate(String name, Date value) {
-        generator.write(name, DATE_FORMAT.get().format(value));
+        generator.write(name, DateCodec.format(value));
     }
 
     /**
@@ -224,9 +303,13 @@ public class JsonWriter implements AutoCloseable {
     }
 
     /**
-     * Closes the JSON generator.
+     * Closes the JSON generator. If metrics are enabled this also records the document.
      */
     public void close() {
         generator.close();
+        if (metered) {
+            METRICS.recordDocument(counter != null ? counter.getByteCount() : 0, elements, 0);
+            metered = false;
+        }
     }
 }
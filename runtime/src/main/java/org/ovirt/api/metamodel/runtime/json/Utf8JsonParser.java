@@ -0,0 +1,705 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.json;
+
+import java.math.BigDecimal;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParsingException;
+
+import org.ovirt.api.metamodel.runtime.util.StringCache;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
+
+/**
+ * This is a JSON parser that works directly with the UTF-8 bytes of a buffer, for example a memory mapped file,
+ * without decoding them to characters first. Strings are only created when the {@link #getString()} method is called,
+ * and the names of the members of objects that are part of the model are looked up by their bytes in the symbol table
+ * that the generated readers pass to this parser, so that the same string objects are returned again and again
+ * without decoding or allocating anything. Other names are decoded each time. The generated readers don't even need those strings, as
+ * they translate the bytes of the names directly into symbols, using the {@link #getKeySymbol(SymbolTable)} method.
+ */
+class Utf8JsonParser implements JsonParser {
+    // The states of the parser, what is expected next:
+    private static final int STATE_VALUE = 0;
+    private static final int STATE_FIRST_KEY_OR_END = 1;
+    private static final int STATE_FIRST_VALUE_OR_END = 2;
+    private static final int STATE_AFTER_VALUE = 3;
+
+    // The number of digits that can always be converted to a long without overflow:
+    private static final int MAX_LONG_DIGITS = 18;
+
+    // The buffer containing the document, and the limits of the region that hasn't been parsed yet:
+    private ByteBuffer buffer;
+    private byte[] array;
+    private int offset;
+    private int position;
+    private int limit;
+
+    // The stack of nested objects and arrays, true for objects and false for arrays:
+    private boolean[] stack = new boolean[16];
+    private int depth;
+
+    // What is expected next:
+    private int state = STATE_VALUE;
+
+    // The current event and the location of the bytes of the current token:
+    private Event event;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenHash;
+    private boolean tokenAscii;
+    private boolean tokenIntegral;
+
+    // The decoded text of the current token, only used when it contains escape sequences:
+    private String tokenText;
+
+    // Scratch buffer used to decode tokens when the buffer isn't backed by an array:
+    private byte[] bytes = new byte[64];
+
+    // The table of the member names of the model, used to return the same string objects for those names without
+    // decoding them. It is the last table passed to the getKeySymbol method, so it only contains the names generated
+    // for the model, never names taken from the documents. It is kept when the parser is reset:
+    private SymbolTable keys;
+
+    /**
+     * Creates a parser that will read the document from the given buffer, starting in its current position and ending
+     * at its limit. The position of the buffer isn't modified.
+     */
+    Utf8JsonParser(ByteBuffer buffer) {
+        reset(buffer);
+    }
+
+    /**
+     * Prepares this parser to read a new document from the given buffer, like the constructor does. The stack and the
+     * scratch buffer are kept, so that parsing many documents with the same parser doesn't allocate them again.
+     */
+    void reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.hasArray()) {
+            array = buffer.array();
+            offset = buffer.arrayOffset();
+        }
+        else {
+            array = null;
+            offset = 0;
+        }
+        position = buffer.position();
+        limit = buffer.limit();
+        depth = 0;
+        state = STATE_VALUE;
+        event = null;
+        tokenText = null;
+
+        // Skip the byte order mark, if present:
+        if (limit - position >= 3 && byteAt(position) == (byte) 0xEF && byteAt(position + 1) == (byte) 0xBB &&
+                byteAt(position + 2) == (byte) 0xBF) {
+            position += 3;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (depth == 0 && state == STATE_AFTER_VALUE) {
+            checkEnd();
+            return false;
+        }
+        if (depth == 0 && state == STATE_VALUE) {
+            return skipWhitespace() < limit;
+        }
+        return true;
+    }
+
+    @Override
+    public Event next() {
+        tokenText = null;
+        int index = skipWhitespace();
+        switch (state) {
+        case STATE_VALUE:
+            return event = readValue(index);
+        case STATE_FIRST_KEY_OR_END:
+            if (index < limit && byteAt(index) == '}') {
+                position = index + 1;
+                return event = pop(Event.END_OBJECT);
+            }
+            return event = readKey(index);
+        case STATE_FIRST_VALUE_OR_END:
+            if (index < limit && byteAt(index) == ']') {
+                position = index + 1;
+                return event = pop(Event.END_ARRAY);
+            }
+            return event = readValue(index);
+        default:
+            if (depth == 0) {
+                checkEnd();
+                throw new NoSuchElementException("There are no more events");
+            }
+            if (index >= limit) {
+                throw error("Unexpected end of document", index);
+            }
+            byte b = byteAt(index);
+            boolean object = stack[depth - 1];
+            if (b == ',') {
+                index = skipWhitespace(index + 1);
+                if (object) {
+                    return event = readKey(index);
+                }
+                return event = readValue(index);
+            }
+            if (b == '}' && object) {
+                position = index + 1;
+                return event = pop(Event.END_OBJECT);
+            }
+            if (b == ']' && !object) {
+                position = index + 1;
+                return event = pop(Event.END_ARRAY);
+            }
+            throw error("Unexpected character '" + (char) b + "'", index);
+        }
+    }
+
+    @Override
+    public String getString() {
+        if (event == Event.KEY_NAME) {
+            return tokenText != null ? tokenText : lookupKey();
+        }
+        if (event == Event.VALUE_STRING) {
+            return tokenText != null ? tokenText : decode(tokenStart, tokenEnd, tokenAscii);
+        }
+        if (event == Event.VALUE_NUMBER) {
+            return decode(tokenStart, tokenEnd, true);
+        }
+        throw new IllegalStateException("The current event " + event + " doesn't have a string value");
+    }
+
+    /**
+     * Returns the current string value taking it from the given cache, looking up the bytes of the value directly,
+     * so that nothing is decoded or allocated when the value is already in the cache.
+     */
+    String getString(StringCache cache) {
+        if (event != Event.VALUE_STRING) {
+            return getString();
+        }
+        if (tokenText != null) {
+            return cache.intern(tokenText);
+        }
+        if (!tokenAscii) {
+            return cache.intern(decode(tokenStart, tokenEnd, false));
+        }
+        int length = tokenEnd - tokenStart;
+        if (array != null) {
+            return cache.intern(array, offset + tokenStart, length, tokenHash);
+        }
+        return cache.intern(buffer, tokenStart, length, tokenHash);
+    }
+
+    /**
+     * Returns the symbol corresponding to the name of the current member, looking up the bytes of the name directly,
+     * without decoding them.
+     */
+    int getKeySymbol(SymbolTable table) {
+        if (event != Event.KEY_NAME) {
+            throw new IllegalStateException("The current event " + event + " isn't a member name");
+        }
+        keys = table;
+        if (tokenText != null) {
+            return table.get(tokenText);
+        }
+        return findKey(table);
+    }
+
+    /**
+     * Skips the next value, which can be a simple value, an object or an array, and returns a view of the buffer
+     * that contains only the bytes of that value. The value is checked to be syntactically correct, but its strings
+     * aren't decoded.
+     */
+    ByteBuffer skipValue() {
+        if (state != STATE_VALUE) {
+            throw new IllegalStateException("The next event isn't a value");
+        }
+        int start = skipWhitespace();
+        int outer = depth;
+        Event first = next();
+        if (first == Event.START_OBJECT || first == Event.START_ARRAY) {
+            while (depth > outer) {
+                next();
+            }
+        }
+        return view(start, position);
+    }
+
+    /**
+     * Reads the next value, which must be an array, and returns views of the buffer that contain the bytes of each of
+     * its elements, in order. The elements are checked to be syntactically correct, but their strings aren't decoded,
+     * so this is a fast way to find the boundaries of the elements, in order to decode them later, or in parallel.
+     */
+    List<ByteBuffer> splitArray() {
+        if (state != STATE_VALUE) {
+            throw new IllegalStateException("The next event isn't a value");
+        }
+        int index = skipWhitespace();
+        if (next() != Event.START_ARRAY) {
+            throw error("Expected array", index);
+        }
+        int outer = depth;
+        List<ByteBuffer> elements = new ArrayList<>();
+        while (true) {
+            // The element starts after the separator, if there is one:
+            int start = skipWhitespace();
+            if (start < limit && byteAt(start) == ',') {
+                start = skipWhitespace(start + 1);
+            }
+            Event first = next();
+            if (first == Event.END_ARRAY && depth < outer) {
+                return elements;
+            }
+            if (first == Event.START_OBJECT || first == Event.START_ARRAY) {
+                while (depth > outer) {
+                    next();
+                }
+            }
+            elements.add(view(start, position));
+        }
+    }
+
+    /**
+     * Returns an opaque value that describes the current location of the parser, so that it can go back to it later
+     * with the {@link #rewind(long)} method. The position is stored in the upper half, and the depth, the state and
+     * the current event in the lower half.
+     */
+    long mark() {
+        if (depth >= 1 << 24) {
+            throw new IllegalStateException("The document is too deep to be marked");
+        }
+        int code = event != null ? event.ordinal() : 0xf;
+        return (long) position << 32 | depth << 8 | state << 4 | code;
+    }
+
+    /**
+     * Goes back to a location previously returned by the {@link #mark()} method. This is only correct while the
+     * parser hasn't gone out of the object or array that contained that location, as the part of the stack above the
+     * depth of the mark isn't restored.
+     */
+    void rewind(long mark) {
+        position = (int) (mark >>> 32);
+        depth = (int) (mark >>> 8) & 0xffffff;
+        state = (int) (mark >>> 4) & 0xf;
+        int code = (int) mark & 0xf;
+        event = code != 0xf ? Event.values()[code] : null;
+        tokenText = null;
+    }
+
+    @Override
+    public boolean isIntegralNumber() {
+        checkNumber();
+        return tokenIntegral;
+    }
+
+    @Override
+    public int getInt() {
+        return (int) getLong();
+    }
+
+    /**
+     * Returns {@code true} if the current number is integral and has few enough digits to be converted to a
+     * {@code long} by the {@link #getLong()} method without any possibility of overflow, and without creating any
+     * object.
+     */
+    boolean isSmallIntegralNumber() {
+        checkNumber();
+        int digits = tokenEnd - tokenStart;
+        if (byteAt(tokenStart) == '-') {
+            digits--;
+        }
+        return tokenIntegral && digits <= MAX_LONG_DIGITS;
+    }
+
+    @Override
+    public long getLong() {
+        checkNumber();
+        int index = tokenStart;
+        boolean negative = byteAt(index) == '-';
+        if (negative) {
+            index++;
+        }
+        if (!tokenIntegral || tokenEnd - index > MAX_LONG_DIGITS) {
+            return getBigDecimal().longValue();
+        }
+        long value = 0;
+        for (; index < tokenEnd; index++) {
+            value = value * 10 + (byteAt(index) - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    @Override
+    public BigDecimal getBigDecimal() {
+        checkNumber();
+        char[] chars = new char[tokenEnd - tokenStart];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) byteAt(tokenStart + i);
+        }
+        return new BigDecimal(chars);
+    }
+
+    @Override
+    public JsonLocation getLocation() {
+        return location(position);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close, the buffer belongs to the caller.
+    }
+
+    private Event readValue(int index) {
+        if (index >= limit) {
+            throw error("Unexpected end of document", index);
+        }
+        byte b = byteAt(index);
+        switch (b) {
+        case '{':
+            position = index + 1;
+            push(true);
+            state = STATE_FIRST_KEY_OR_END;
+            return Event.START_OBJECT;
+        case '[':
+            position = index + 1;
+            push(false);
+            state = STATE_FIRST_VALUE_OR_END;
+            return Event.START_ARRAY;
+        case '"':
+            readString(index);
+            state = STATE_AFTER_VALUE;
+            return Event.VALUE_STRING;
+        case 't':
+            readLiteral(index, "true");
+            state = STATE_AFTER_VALUE;
+            return Event.VALUE_TRUE;
+        case 'f':
+            readLiteral(index, "false");
+            state = STATE_AFTER_VALUE;
+            return Event.VALUE_FALSE;
+        case 'n':
+            readLiteral(index, "null");
+            state = STATE_AFTER_VALUE;
+            return Event.VALUE_NULL;
+        default:
+            if (b == '-' || (b >= '0' && b <= '9')) {
+                readNumber(index);
+                state = STATE_AFTER_VALUE;
+                return Event.VALUE_NUMBER;
+            }
+            throw error("Unexpected character '" + (char) b + "'", index);
+        }
+    }
+
+    private Event readKey(int index) {
+        if (index >= limit || byteAt(index) != '"') {
+            throw error("Expected the name of a member", index);
+        }
+        readString(index);
+        index = skipWhitespace(position);
+        if (index >= limit || byteAt(index) != ':') {
+            throw error("Expected ':' after the name of a member", index);
+        }
+        position = index + 1;
+        state = STATE_VALUE;
+        return Event.KEY_NAME;
+    }
+
+    private void readString(int index) {
+        // Find the end of the string, calculating the hash of the bytes as we go, and checking if it contains
+        // escape sequences or non ASCII characters:
+        int start = index + 1;
+        int hash = 0;
+        boolean ascii = true;
+        for (index = start; index < limit; index++) {
+            byte b = byteAt(index);
+            if (b == '"') {
+                tokenStart = start;
+                tokenEnd = index;
+                tokenHash = hash;
+                tokenAscii = ascii;
+                position = index + 1;
+                return;
+            }
+            if (b == '\\') {
+                readEscapedString(start, index);
+                return;
+            }
+            if (b < 0) {
+                ascii = false;
+            }
+            else if (b < 0x20) {
+                throw error("Control characters aren't allowed inside strings", index);
+            }
+            hash = 31 * hash + b;
+        }
+        throw error("Unterminated string", start - 1);
+    }
+
+    private void readEscapedString(int start, int index) {
+        // This is the slow path, decode the part of the string before the first escape, and then process the rest
+        // of the string one byte at a time:
+        StringBuilder text = new StringBuilder(index - start + 16);
+        text.append(decode(start, index, false));
+        int run = index;
+        while (index < limit) {
+            byte b = byteAt(index);
+            if (b == '"') {
+                text.append(decode(run, index, false));
+                tokenStart = start;
+                tokenEnd = index;
+                tokenText = text.toString();
+                position = index + 1;
+                return;
+            }
+            if (b == '\\') {
+                text.append(decode(run, index, false));
+                if (index + 1 >= limit) {
+                    break;
+                }
+                byte escaped = byteAt(index + 1);
+                index += 2;
+                switch (escaped) {
+                case '"':
+                    text.append('"');
+                    break;
+                case '\\':
+                    text.append('\\');
+                    break;
+                case '/':
+                    text.append('/');
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    if (index + 4 > limit) {
+                        throw error("Incomplete unicode escape sequence", index - 2);
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(byteAt(index + i), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape sequence", index - 2);
+                        }
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                    index += 4;
+                    break;
+                default:
+                    throw error("Invalid escape sequence", index - 2);
+                }
+                run = index;
+                continue;
+            }
+            if (b >= 0 && b < 0x20) {
+                throw error("Control characters aren't allowed inside strings", index);
+            }
+            index++;
+        }
+        throw error("Unterminated string", start - 1);
+    }
+
+    private void readNumber(int index) {
+        int start = index;
+        boolean integral = true;
+        if (byteAt(index) == '-') {
+            index++;
+        }
+        int digits = index;
+        index = skipDigits(index);
+        if (index == digits) {
+            throw error("Invalid number", start);
+        }
+        if (index - digits > 1 && byteAt(digits) == '0') {
+            throw error("Leading zeros aren't allowed in numbers", start);
+        }
+        if (index < limit && byteAt(index) == '.') {
+            integral = false;
+            int fraction = ++index;
+            index = skipDigits(index);
+            if (index == fraction) {
+                throw error("Invalid number", start);
+            }
+        }
+        if (index < limit && (byteAt(index) == 'e' || byteAt(index) == 'E')) {
+            integral = false;
+            index++;
+            if (index < limit && (byteAt(index) == '+' || byteAt(index) == '-')) {
+                index++;
+            }
+            int exponent = index;
+            index = skipDigits(index);
+            if (index == exponent) {
+                throw error("Invalid number", start);
+            }
+        }
+        tokenStart = start;
+        tokenEnd = index;
+        tokenIntegral = integral;
+        position = index;
+    }
+
+    private int skipDigits(int index) {
+        while (index < limit) {
+            byte b = byteAt(index);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private void readLiteral(int index, String literal) {
+        int length = literal.length();
+        if (index + length > limit) {
+            throw error("Unexpected end of document", index);
+        }
+        for (int i = 0; i < length; i++) {
+            if (byteAt(index + i) != literal.charAt(i)) {
+                throw error("Invalid literal, expected '" + literal + "'", index);
+            }
+        }
+        position = index + length;
+    }
+
+    private String lookupKey() {
+        // Try to find the name in the table of the model, if this parser already knows it:
+        if (keys != null) {
+            String name = keys.getName(findKey(keys));
+            if (name != null) {
+                return name;
+            }
+        }
+        return decode(tokenStart, tokenEnd, tokenAscii);
+    }
+
+    private int findKey(SymbolTable table) {
+        int length = tokenEnd - tokenStart;
+        if (array != null) {
+            return table.get(array, offset + tokenStart, length, tokenHash);
+        }
+        return table.get(buffer, tokenStart, length, tokenHash);
+    }
+
+    private String decode(int start, int end, boolean ascii) {
+        // ISO-8859-1 is the cheapest decoder, and it produces the same result than UTF-8 when all the bytes are
+        // ASCII:
+        int length = end - start;
+        if (array != null) {
+            return new String(array, offset + start, length,
+                ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).position(start);
+        view.get(bytes, 0, length);
+        return new String(bytes, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    private int skipWhitespace() {
+        position = skipWhitespace(position);
+        return position;
+    }
+
+    private int skipWhitespace(int index) {
+        while (index < limit) {
+            byte b = byteAt(index);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private ByteBuffer view(int start, int end) {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).limit(end);
+        ((Buffer) view).position(start);
+        return view;
+    }
+
+    private byte byteAt(int index) {
+        return array != null ? array[offset + index] : buffer.get(index);
+    }
+
+    private void push(boolean object) {
+        if (depth == stack.length) {
+            boolean[] larger = new boolean[stack.length * 2];
+            System.arraycopy(stack, 0, larger, 0, depth);
+            stack = larger;
+        }
+        stack[depth++] = object;
+    }
+
+    private Event pop(Event end) {
+        depth--;
+        state = STATE_AFTER_VALUE;
+        return end;
+    }
+
+    private void checkEnd() {
+        // Only whitespace is allowed after the top level value:
+        int index = skipWhitespace();
+        if (index < limit) {
+            throw error("Unexpected character '" + (char) byteAt(index) + "' after the end of the document", index);
+        }
+    }
+
+    private void checkNumber() {
+        if (event != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("The current event " + event + " isn't a number");
+        }
+    }
+
+    private JsonParsingException error(String message, int index) {
+        return new JsonParsingException(message + " at offset " + index, location(index));
+    }
+
+    private static JsonLocation location(final long offset) {
+        return new JsonLocation() {
+            @Override
+            public long getLineNumber() {
+                return -1;
+            }
+
+            @Override
+            public long getColumnNumber() {
+                return -1;
+            }
+
+            @Override
+            public long getStreamOffset() {
+                return offset;
+            }
+        };
+    }
+}
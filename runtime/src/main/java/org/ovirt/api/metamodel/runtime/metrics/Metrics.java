@@ -0,0 +1,133 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class is the entry point of the metrics collected by the XML and JSON readers and writers, and by the
+ * generated classes that use them. Collection is disabled by default, and is enabled installing a sink:
+ *
+ * <pre>
+ * Metrics.setSink(new MetricsSink() {
+ *     public void accept(MetricsSnapshot snapshot) {
+ *         ...
+ *     }
+ * });
+ * </pre>
+ *
+ * The readers and writers then accumulate the number of objects of each type that they process and the time spent,
+ * and the number of documents, bytes, elements and skipped elements. The accumulated values are sent to the sink, and
+ * reset, when the {@link #flush()} method is called, usually periodically from a timer.
+ *
+ * When there is no sink the cost is one read of a volatile field per object, and readers or writers created or
+ * reset while the sink isn't installed don't count anything.
+ */
+public final class Metrics {
+    /**
+     * The operation of the generated XML readers.
+     */
+    public static final String XML_READ = "xml.read";
+
+    /**
+     * The operation of the generated XML writers.
+     */
+    public static final String XML_WRITE = "xml.write";
+
+    /**
+     * The operation of the generated JSON readers.
+     */
+    public static final String JSON_READ = "json.read";
+
+    /**
+     * The operation of the generated JSON writers.
+     */
+    public static final String JSON_WRITE = "json.write";
+
+    /**
+     * The type used for the values that correspond to complete documents instead of to objects of a type.
+     */
+    public static final String DOCUMENT = "document";
+
+    // The installed sink, null when collection is disabled:
+    private static volatile MetricsSink sink;
+
+    // The accumulators, indexed by operation and then by type:
+    private static final ConcurrentMap<String, ConcurrentMap<String, MetricsAccumulator>> accumulators =
+        new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Checks if collection of metrics is enabled, which is the case when there is a sink installed.
+     */
+    public static boolean isEnabled() {
+        return sink != null;
+    }
+
+    /**
+     * Installs the sink that will receive the metrics, or disables collection if it is {@code null}.
+     */
+    public static void setSink(MetricsSink newSink) {
+        sink = newSink;
+    }
+
+    /**
+     * Returns the accumulator for the given operation and type, creating it if it doesn't exist yet. The generated
+     * classes call this once, when they are initialized, and keep the result in a static field.
+     *
+     * @param operation the operation, for example {@link #XML_READ}
+     * @param type the name of the type, for example {@code vm}, or {@link #DOCUMENT}
+     */
+    public static MetricsAccumulator accumulator(String operation, String type) {
+        ConcurrentMap<String, MetricsAccumulator> types = accumulators.get(operation);
+        if (types == null) {
+            ConcurrentMap<String, MetricsAccumulator> created = new ConcurrentHashMap<>();
+            types = accumulators.putIfAbsent(operation, created);
+            if (types == null) {
+                types = created;
+            }
+        }
+        MetricsAccumulator accumulator = types.get(type);
+        if (accumulator == null) {
+            MetricsAccumulator created = new MetricsAccumulator(operation, type);
+            accumulator = types.putIfAbsent(type, created);
+            if (accumulator == null) {
+                accumulator = created;
+            }
+        }
+        return accumulator;
+    }
+
+    /**
+     * Takes a snapshot of all the accumulators, resetting them, and sends the ones that aren't empty to the installed
+     * sink. If there is no sink the accumulators are still reset, and the snapshots discarded.
+     *
+     * @return the snapshots that aren't empty, in no particular order
+     */
+    public static List<MetricsSnapshot> flush() {
+        MetricsSink current = sink;
+        List<MetricsSnapshot> snapshots = new ArrayList<>();
+        for (ConcurrentMap<String, MetricsAccumulator> types : accumulators.values()) {
+            for (MetricsAccumulator accumulator : types.values()) {
+                MetricsSnapshot snapshot = accumulator.snapshot();
+                if (snapshot.getCount() != 0) {
+                    snapshots.add(snapshot);
+                }
+            }
+        }
+        if (current != null) {
+            for (MetricsSnapshot snapshot : snapshots) {
+                current.accept(snapshot);
+            }
+        }
+        return snapshots;
+    }
+}
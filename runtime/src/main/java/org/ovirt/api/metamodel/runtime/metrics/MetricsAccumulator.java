@@ -0,0 +1,118 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class accumulates the metrics of one operation and type. It is updated by many threads at the same time, so
+ * instead of a single set of counters, that would make all those threads compete for the same cache line, it uses
+ * several stripes of counters, selected by thread, each stripe in its own cache line. The stripes are added when a
+ * snapshot is taken. Instances are obtained with the {@link Metrics#accumulator(String, String)} method.
+ */
+public final class MetricsAccumulator {
+    // The number of stripes, the smallest power of two not smaller than twice the number of processors, so that
+    // threads rarely share a stripe:
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < 2 * processors) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    // The offsets of the counters inside each stripe. Each stripe uses eight longs, 64 bytes, so that two stripes
+    // are never in the same cache line, even if only five of them are used:
+    private static final int COUNT = 0;
+    private static final int NANOS = 1;
+    private static final int BYTES = 2;
+    private static final int ELEMENTS = 3;
+    private static final int SKIPPED = 4;
+    private static final int STRIDE = 8;
+
+    private final String operation;
+    private final String type;
+
+    // The counters, with an extra stripe at the beginning so that the first one doesn't share the cache line of the
+    // array header:
+    private final AtomicLongArray counters = new AtomicLongArray((STRIPES + 1) * STRIDE);
+
+    MetricsAccumulator(String operation, String type) {
+        this.operation = operation;
+        this.type = type;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Records that one object has been processed, in the given time.
+     *
+     * @param nanos the time spent processing the object, in nanoseconds
+     */
+    public void record(long nanos) {
+        int base = stripe();
+        counters.incrementAndGet(base + COUNT);
+        counters.addAndGet(base + NANOS, nanos);
+    }
+
+    /**
+     * Records that one complete document has been processed.
+     *
+     * @param bytes the number of bytes of the document, or zero if it isn't known
+     * @param elements the number of elements of the document
+     * @param skipped the number of elements or members that were skipped
+     */
+    public void recordDocument(long bytes, long elements, long skipped) {
+        int base = stripe();
+        counters.incrementAndGet(base + COUNT);
+        if (bytes != 0) {
+            counters.addAndGet(base + BYTES, bytes);
+        }
+        if (elements != 0) {
+            counters.addAndGet(base + ELEMENTS, elements);
+        }
+        if (skipped != 0) {
+            counters.addAndGet(base + SKIPPED, skipped);
+        }
+    }
+
+    /**
+     * Returns the values accumulated since the previous call, and starts accumulating again from zero. Values
+     * recorded while the snapshot is being taken are included either in this snapshot or in the next one, but never
+     * lost.
+     */
+    public MetricsSnapshot snapshot() {
+        long count = 0;
+        long nanos = 0;
+        long bytes = 0;
+        long elements = 0;
+        long skipped = 0;
+        for (int i = 1; i <= STRIPES; i++) {
+            int base = i * STRIDE;
+            count += counters.getAndSet(base + COUNT, 0);
+            nanos += counters.getAndSet(base + NANOS, 0);
+            bytes += counters.getAndSet(base + BYTES, 0);
+            elements += counters.getAndSet(base + ELEMENTS, 0);
+            skipped += counters.getAndSet(base + SKIPPED, 0);
+        }
+        return new MetricsSnapshot(operation, type, count, nanos, bytes, elements, skipped);
+    }
+
+    private static int stripe() {
+        int hash = (int) Thread.currentThread().getId();
+        hash ^= hash >>> 16;
+        return ((hash & (STRIPES - 1)) + 1) * STRIDE;
+    }
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.metrics;
+
+/**
+ * This interface is implemented by the objects that receive the metrics collected by the readers and writers, for
+ * example to send them to a monitoring system. The sink is installed with the {@link Metrics#setSink(MetricsSink)}
+ * method, and receives the data when the {@link Metrics#flush()} method is called.
+ */
+public interface MetricsSink {
+    /**
+     * Receives the values accumulated for one operation and type since the previous flush. Implementations should
+     * return quickly, as this is called once for each operation and type that has been used.
+     *
+     * @param snapshot the accumulated values
+     */
+    void accept(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.metrics;
+
+/**
+ * This class contains the values accumulated for one operation and type during one period. Instances are immutable.
+ */
+public class MetricsSnapshot {
+    private final String operation;
+    private final String type;
+    private final long count;
+    private final long nanos;
+    private final long bytes;
+    private final long elements;
+    private final long skipped;
+
+    MetricsSnapshot(String operation, String type, long count, long nanos, long bytes, long elements, long skipped) {
+        this.operation = operation;
+        this.type = type;
+        this.count = count;
+        this.nanos = nanos;
+        this.bytes = bytes;
+        this.elements = elements;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Returns the operation, one of the {@code XML_READ}, {@code XML_WRITE}, {@code JSON_READ} or
+     * {@code JSON_WRITE} constants of the {@link Metrics} class.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the name of the type, as used in the XML tags, or {@link Metrics#DOCUMENT} for the values that
+     * correspond to complete documents.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the number of objects or documents processed.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the total time spent processing the objects, in nanoseconds. The time of an object includes the time of
+     * the objects nested inside it. This is zero for documents.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the total number of bytes of the documents. Documents read from character readers or written to
+     * character writers aren't counted, as their bytes aren't known.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the total number of elements of the documents: start tags for XML, and objects and arrays for JSON.
+     */
+    public long getElements() {
+        return elements;
+    }
+
+    /**
+     * Returns the total number of elements or members of the documents that were skipped by the readers, because
+     * they weren't known or weren't part of the projection.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        return operation + "/" + type + ": count=" + count + ", nanos=" + nanos + ", bytes=" + bytes +
+            ", elements=" + elements + ", skipped=" + skipped;
+    }
+}
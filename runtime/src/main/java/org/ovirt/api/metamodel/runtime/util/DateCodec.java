@@ -0,0 +1,299 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.util.Date;
+
+/**
+ * This class parses and formats the dates used by the API, which use the {@code yyyy-MM-dd'T'HH:mm:ss.SSSXXX}
+ * layout, for example {@code 2016-01-17T16:18:23.123Z}. It doesn't use {@link java.text.SimpleDateFormat} or
+ * {@link java.util.Calendar}, the fields are extracted directly from the text and converted to milliseconds since
+ * the epoch using the proleptic Gregorian calendar, so it doesn't have any state and it can be used concurrently by
+ * any number of threads without locking. The only objects created are the results.
+ *
+ * Note that the proleptic Gregorian calendar is also used for dates before 1582-10-15, and that years before 1 are
+ * numbered like in ISO 8601, so year 0 is 1 BC, year -1 is 2 BC, and so on. This is what {@code java.time} does, but
+ * not what {@link java.text.SimpleDateFormat} did: it used the Julian calendar for those dates, and lost the era of
+ * years before 1. The texts of those dates are therefore different from the ones generated before this class was
+ * introduced, although the number of milliseconds since the epoch is preserved when formatting and parsing back.
+ */
+public final class DateCodec {
+    // Number of milliseconds in a day, hour, minute and second:
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int MILLIS_PER_HOUR = 3_600_000;
+    private static final int MILLIS_PER_MINUTE = 60_000;
+    private static final int MILLIS_PER_SECOND = 1_000;
+
+    // Number of days from 0000-03-01 to 1970-01-01, used to convert civil dates to epoch days and back:
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+
+    // Number of days in each 400 years cycle of the Gregorian calendar:
+    private static final long DAYS_PER_CYCLE = 146_097L;
+
+    private DateCodec() {
+    }
+
+    /**
+     * Parses the given text and returns the corresponding date.
+     *
+     * @param text the text to parse
+     * @return the date
+     * @throws IllegalArgumentException if the text isn't a valid date
+     */
+    public static Date parse(CharSequence text) {
+        return new Date(parseMillis(text));
+    }
+
+    /**
+     * Parses the given text and returns the number of milliseconds since the epoch. The year can have a sign and
+     * more than four digits, like the ones generated by the {@link #format(long)} method for very distant dates. The
+     * fraction of the seconds is optional, and it can contain any number of digits, but only the first three are used.
+     * The time zone is mandatory and it can be {@code Z} or an offset like {@code +01:00}, {@code +0100} or
+     * {@code +01}.
+     *
+     * @param text the text to parse
+     * @return the number of milliseconds since the epoch
+     * @throws IllegalArgumentException if the text isn't a valid date
+     */
+    public static long parseMillis(CharSequence text) {
+        int length = text.length();
+
+        // Year, that can have a sign and more than four digits, followed by month and day:
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            index++;
+        }
+        int first = index;
+        while (index < length && isDigit(text.charAt(index))) {
+            index++;
+        }
+        if (index - first < 4 || index - first > 9) {
+            throw invalid(text);
+        }
+        int year = parseDigits(text, first, index);
+        if (negative) {
+            year = -year;
+        }
+        expect(text, index, '-');
+        int month = parseDigits(text, index + 1, index + 3);
+        expect(text, index + 3, '-');
+        int day = parseDigits(text, index + 4, index + 6);
+        expect(text, index + 6, 'T');
+        index += 7;
+
+        // Hours, minutes and seconds:
+        int hour = parseDigits(text, index, index + 2);
+        expect(text, index + 2, ':');
+        int minute = parseDigits(text, index + 3, index + 5);
+        expect(text, index + 5, ':');
+        int second = parseDigits(text, index + 6, index + 8);
+        index += 8;
+
+        // Optional fraction of the second:
+        int millis = 0;
+        if (index < length && text.charAt(index) == '.') {
+            index++;
+            int start = index;
+            while (index < length && isDigit(text.charAt(index))) {
+                if (index - start < 3) {
+                    millis = millis * 10 + (text.charAt(index) - '0');
+                }
+                index++;
+            }
+            int digits = index - start;
+            if (digits == 0) {
+                throw invalid(text);
+            }
+            for (; digits < 3; digits++) {
+                millis *= 10;
+            }
+        }
+
+        // Time zone:
+        if (index >= length) {
+            throw invalid(text);
+        }
+        int offset = 0;
+        char sign = text.charAt(index);
+        if (sign == 'Z' || sign == 'z') {
+            index++;
+        }
+        else if (sign == '+' || sign == '-') {
+            int offsetHours = parseDigits(text, index + 1, index + 3);
+            int offsetMinutes = 0;
+            index += 3;
+            if (index < length) {
+                if (text.charAt(index) == ':') {
+                    index++;
+                }
+                offsetMinutes = parseDigits(text, index, index + 2);
+                index += 2;
+            }
+            if (offsetHours > 18 || offsetMinutes > 59) {
+                throw invalid(text);
+            }
+            offset = offsetHours * MILLIS_PER_HOUR + offsetMinutes * MILLIS_PER_MINUTE;
+            if (sign == '-') {
+                offset = -offset;
+            }
+        }
+        else {
+            throw invalid(text);
+        }
+        if (index != length) {
+            throw invalid(text);
+        }
+
+        // Check the ranges of the fields:
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            throw invalid(text);
+        }
+        if (hour > 23 || minute > 59 || second > 59) {
+            throw invalid(text);
+        }
+
+        return epochDay(year, month, day) * MILLIS_PER_DAY +
+            hour * MILLIS_PER_HOUR +
+            minute * MILLIS_PER_MINUTE +
+            second * MILLIS_PER_SECOND +
+            millis -
+            offset;
+    }
+
+    /**
+     * Formats the given date, using UTC as the time zone.
+     *
+     * @param date the date to format
+     * @return the text, for example {@code 2016-01-17T16:18:23.123Z}
+     */
+    public static String format(Date date) {
+        return format(date.getTime());
+    }
+
+    /**
+     * Formats the given number of milliseconds since the epoch, using UTC as the time zone.
+     *
+     * @param millis the number of milliseconds since the epoch
+     * @return the text, for example {@code 2016-01-17T16:18:23.123Z}
+     */
+    public static String format(long millis) {
+        // Split the value into days and milliseconds within the day, rounding towards negative infinity, as dates
+        // before the epoch are negative:
+        long days = millis / MILLIS_PER_DAY;
+        long rest = millis % MILLIS_PER_DAY;
+        if (rest < 0) {
+            days--;
+            rest += MILLIS_PER_DAY;
+        }
+        int time = (int) rest;
+
+        // Convert the epoch day to year, month and day:
+        long shifted = days + DAYS_0000_TO_1970;
+        long era = (shifted >= 0 ? shifted : shifted - DAYS_PER_CYCLE + 1) / DAYS_PER_CYCLE;
+        int dayOfEra = (int) (shifted - era * DAYS_PER_CYCLE);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        // The year has at least four digits, and it may have more, or a sign, but that is very unusual:
+        long absoluteYear = Math.abs(year);
+        int yearDigits = 4;
+        for (long remaining = absoluteYear / 10_000; remaining > 0; remaining /= 10) {
+            yearDigits++;
+        }
+        int index = 0;
+        char[] buffer = new char[(year < 0 ? 1 : 0) + yearDigits + 20];
+        if (year < 0) {
+            buffer[index++] = '-';
+        }
+        index = putDigits(buffer, index, absoluteYear, yearDigits);
+        buffer[index++] = '-';
+        index = putDigits(buffer, index, month, 2);
+        buffer[index++] = '-';
+        index = putDigits(buffer, index, day, 2);
+        buffer[index++] = 'T';
+        index = putDigits(buffer, index, time / MILLIS_PER_HOUR, 2);
+        buffer[index++] = ':';
+        index = putDigits(buffer, index, time / MILLIS_PER_MINUTE % 60, 2);
+        buffer[index++] = ':';
+        index = putDigits(buffer, index, time / MILLIS_PER_SECOND % 60, 2);
+        buffer[index++] = '.';
+        index = putDigits(buffer, index, time % MILLIS_PER_SECOND, 3);
+        buffer[index] = 'Z';
+        return new String(buffer);
+    }
+
+    /**
+     * Calculates the number of days since the epoch of the given date of the proleptic Gregorian calendar.
+     */
+    private static long epochDay(long year, int month, int day) {
+        if (month <= 2) {
+            year--;
+        }
+        long era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = (int) (year - era * 400);
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_CYCLE + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+        case 2:
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+
+    private static int putDigits(char[] buffer, int index, long value, int count) {
+        for (int i = index + count - 1; i >= index; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return index + count;
+    }
+
+    private static int parseDigits(CharSequence text, int start, int end) {
+        if (end > text.length()) {
+            throw invalid(text);
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                throw invalid(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void expect(CharSequence text, int index, char expected) {
+        if (index >= text.length() || text.charAt(index) != expected) {
+            throw invalid(text);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text) {
+        return new IllegalArgumentException("The text \"" + text + "\" isn't a valid date");
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+/**
+ * This class represents a value whose decoding has been deferred till it is actually needed. It is used by the
+ * containers generated with the {@code --lazy-structs} option to store nested objects that have been skipped by the
+ * readers, so that they are decoded only if and when the corresponding getter is called. Deferred values keep a
+ * reference to the bytes of the original document, without copying them, so those bytes must not be modified till
+ * the value is decoded or discarded.
+ *
+ * @param <T> the type of the decoded value
+ */
+public abstract class Deferred<T> {
+    /**
+     * Decodes the value. The generated containers call this method at most once, and then discard this object, so
+     * implementations don't need to remember the result. Note that errors in the data are only detected when this
+     * method is called, so they are reported by the getter and not by the reader.
+     */
+    public abstract T decode();
+}
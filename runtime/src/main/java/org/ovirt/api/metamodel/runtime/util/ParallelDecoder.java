@@ -0,0 +1,106 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class decodes the elements of a large collection in parallel, using a fork join pool. The boundaries of the
+ * elements are found first by a fast scan of the bytes of the document, see the
+ * {@link org.ovirt.api.metamodel.runtime.json.JsonReader#splitArray()} and
+ * {@link org.ovirt.api.metamodel.runtime.xml.XmlReader#splitChildren(ByteBuffer)} methods, and then the regions
+ * containing the elements are split in batches that are decoded by the threads of the pool. The result contains the
+ * decoded objects in the same order that the elements have in the document.
+ *
+ * This is usually used via the {@code readManyParallel} methods of the generated readers.
+ */
+public final class ParallelDecoder {
+    /**
+     * Decodes one element of the collection.
+     *
+     * @param <T> the type of the decoded objects
+     */
+    public interface Decoder<T> {
+        /**
+         * Decodes the element contained in the given buffer. This is called concurrently from the threads of the
+         * pool, so it must be thread safe.
+         *
+         * @param element the buffer containing the bytes of the element
+         * @return the decoded object
+         */
+        T decode(ByteBuffer element);
+    }
+
+    // The minimum number of elements decoded by each task, so that the cost of creating and scheduling the tasks
+    // doesn't exceed the benefit when elements are small:
+    private static final int MIN_BATCH = 16;
+
+    // The number of batches created per thread of the pool, more than one so that threads that finish early can
+    // steal work from the others:
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private ParallelDecoder() {
+    }
+
+    /**
+     * Decodes the given elements using the threads of the given pool, and waits till all of them are decoded. If
+     * decoding any of the elements fails the exception is thrown to the caller.
+     *
+     * @param elements the buffers containing the bytes of the elements
+     * @param decoder the decoder used to decode each element
+     * @param pool the pool whose threads will be used
+     * @param <T> the type of the decoded objects
+     * @return the list of decoded objects, in the same order than the elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> decode(List<ByteBuffer> elements, Decoder<T> decoder, ForkJoinPool pool) {
+        int size = elements.size();
+        Object[] results = new Object[size];
+        int batch = Math.max(MIN_BATCH, size / (pool.getParallelism() * BATCHES_PER_THREAD));
+        pool.invoke(new DecodeTask<>(elements, decoder, results, 0, size, batch));
+        return new ArrayList<>((List<T>) Arrays.asList(results));
+    }
+
+    private static class DecodeTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ByteBuffer> elements;
+        private final Decoder<T> decoder;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int batch;
+
+        DecodeTask(List<ByteBuffer> elements, Decoder<T> decoder, Object[] results, int from, int to, int batch) {
+            this.elements = elements;
+            this.decoder = decoder;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batch) {
+                for (int i = from; i < to; i++) {
+                    results[i] = decoder.decode(elements.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new DecodeTask<>(elements, decoder, results, from, middle, batch),
+                new DecodeTask<>(elements, decoder, results, middle, to, batch)
+            );
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+/**
+ * This class is a bounded pool of reusable objects, intended for the readers and writers that can be attached to a
+ * new document with their {@code reset} methods, so that their buffers and parser state are reused instead of being
+ * created again for each document. For example:
+ *
+ * <pre>
+ * Pool&lt;JsonReader&gt; readers = new Pool&lt;&gt;(16, new Pool.Factory&lt;JsonReader&gt;() {
+ *     public JsonReader create() {
+ *         return new JsonReader();
+ *     }
+ * });
+ * ...
+ * JsonReader reader = readers.acquire();
+ * try {
+ *     reader.reset(in);
+ *     V4Vm vm = V4JsonVmReader.readOne(reader);
+ * }
+ * finally {
+ *     readers.release(reader);
+ * }
+ * </pre>
+ *
+ * When the pool is empty a new object is created, and when it is full released objects are discarded, so the pool
+ * never blocks and never retains more than its capacity. The pool is thread safe, but the objects that it contains
+ * usually aren't, so an object must not be used after releasing it.
+ *
+ * @param <T> the type of the pooled objects
+ */
+public final class Pool<T> {
+    /**
+     * Creates the objects of a pool when it is empty.
+     *
+     * @param <T> the type of the created objects
+     */
+    public interface Factory<T> {
+        T create();
+    }
+
+    // The factory used to create new objects:
+    private final Factory<T> factory;
+
+    // The idle objects, used as a stack so that the most recently used ones, which are more likely to be in the
+    // processor caches, are reused first:
+    private final Object[] objects;
+    private int size;
+
+    /**
+     * Creates a pool that retains at most the given number of idle objects.
+     *
+     * @param capacity the maximum number of idle objects
+     * @param factory the factory used to create new objects when the pool is empty
+     */
+    public Pool(int capacity, Factory<T> factory) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity " + capacity + " is negative");
+        }
+        if (factory == null) {
+            throw new IllegalArgumentException("The factory is mandatory");
+        }
+        this.factory = factory;
+        this.objects = new Object[capacity];
+    }
+
+    /**
+     * Takes an idle object from the pool, or creates a new one if there is none.
+     */
+    public T acquire() {
+        T object = poll();
+        return object != null ? object : factory.create();
+    }
+
+    /**
+     * Returns an object to the pool, so that it can be reused. If the pool is full the object is discarded.
+     *
+     * @param object the object to return, null is ignored
+     */
+    public synchronized void release(T object) {
+        if (object != null && size < objects.length) {
+            objects[size++] = object;
+        }
+    }
+
+    /**
+     * Returns the number of idle objects in the pool.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized T poll() {
+        if (size == 0) {
+            return null;
+        }
+        size--;
+        T object = (T) objects[size];
+        objects[size] = null;
+        return object;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class describes the subset of the members of an object that should be read from an XML or JSON document. The
+ * members are identified by their tag names, and nested members by paths separated by slashes. For example, to read
+ * only the name of a virtual machine and the mode of its CPU:
+ *
+ * <pre>
+ * Projection projection = Projection.of("name", "cpu/mode");
+ * V4Vm vm = V4XmlVmReader.readOne(reader, projection);
+ * </pre>
+ *
+ * The members that aren't part of the projection are skipped by the readers without creating any object. For lists
+ * the path applies to the members of each element, for example {@code disks/alias} reads only the alias of each disk.
+ * Projections are immutable, so they can be created once and then used by any number of threads.
+ */
+public final class Projection {
+    /**
+     * The projection that includes all the members, and all the members of the nested objects.
+     */
+    public static final Projection ALL = new Projection(null);
+
+    // The nested projections, indexed by tag name, or null if all the members are included:
+    private final Map<String, Projection> members;
+
+    private Projection(Map<String, Projection> members) {
+        this.members = members;
+    }
+
+    /**
+     * Creates a projection that includes the given paths. A path that ends in a member that is an object or a list
+     * includes that object or list completely.
+     *
+     * @param paths the paths of the members to include, for example {@code name} or {@code cpu/mode}
+     * @return the projection
+     * @throws IllegalArgumentException if any of the paths is empty or contains empty segments
+     */
+    public static Projection of(String... paths) {
+        Map<String, Object> tree = new HashMap<>();
+        for (String path : paths) {
+            add(tree, path);
+        }
+        return build(tree);
+    }
+
+    /**
+     * Checks if the member with the given tag name is included in this projection.
+     */
+    public boolean includes(String name) {
+        return members == null || members.containsKey(name);
+    }
+
+    /**
+     * Returns the projection that should be applied to the members of the nested object or list with the given tag
+     * name. If the member isn't explicitly restricted the result is {@link #ALL}.
+     */
+    public Projection get(String name) {
+        if (members == null) {
+            return this;
+        }
+        Projection nested = members.get(name);
+        return nested != null ? nested : ALL;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void add(Map<String, Object> tree, String path) {
+        String[] segments = path.split("/", -1);
+        Map<String, Object> current = tree;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("The path \"" + path + "\" isn't valid");
+            }
+            boolean last = i == segments.length - 1;
+            Object value = current.get(segment);
+            if (last) {
+                // The member is included completely, which overrides any nested restriction:
+                current.put(segment, ALL);
+                return;
+            }
+            if (value == ALL) {
+                // The member is already included completely, so there is no need to go deeper:
+                return;
+            }
+            if (value == null) {
+                value = new HashMap<String, Object>();
+                current.put(segment, value);
+            }
+            current = (Map<String, Object>) value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Projection build(Map<String, Object> tree) {
+        Map<String, Projection> members = new HashMap<>();
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            Object value = entry.getValue();
+            Projection nested = value == ALL ? ALL : build((Map<String, Object>) value);
+            members.put(entry.getKey(), nested);
+        }
+        return new Projection(Collections.unmodifiableMap(members));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * This class wraps a logger so that warnings are written at most once per interval, by default once per minute. The
+ * warnings that are discarded are counted, and the count is added to the next warning that is written. It is intended
+ * for warnings that may be triggered by data received from the network, for example invalid enum values, so that a
+ * peer that sends many bad values doesn't flood the log. The messages are formatted by the logger, and only when
+ * they are actually written, so discarded warnings don't create any object.
+ */
+public final class RateLimitedLogger {
+    // The default interval between warnings:
+    private static final long DEFAULT_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    // The wrapped logger:
+    private final Logger log;
+
+    // The minimum time between warnings, in nanoseconds:
+    private final long interval;
+
+    // The time when the next warning can be written, in nanoseconds, as returned by System.nanoTime():
+    private final AtomicLong next;
+
+    // The number of warnings discarded since the last one was written:
+    private final AtomicLong discarded = new AtomicLong();
+
+    /**
+     * Creates a rate limited logger that writes at most one warning per minute.
+     *
+     * @param log the logger where the warnings will be written
+     */
+    public RateLimitedLogger(Logger log) {
+        this(log, DEFAULT_INTERVAL, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a rate limited logger that writes at most one warning per the given interval.
+     *
+     * @param log the logger where the warnings will be written
+     * @param interval the minimum time between warnings
+     * @param unit the unit of the interval
+     */
+    public RateLimitedLogger(Logger log, long interval, TimeUnit unit) {
+        this.log = log;
+        this.interval = unit.toNanos(interval);
+        this.next = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Writes a warning with one argument, if the previous one was written long enough ago. Otherwise the warning is
+     * discarded.
+     *
+     * @param format the format of the message, as used by the logger
+     * @param argument the argument of the message
+     */
+    public void warn(String format, Object argument) {
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long allowed = next.get();
+        if (now - allowed < 0 || !next.compareAndSet(allowed, now + interval)) {
+            discarded.incrementAndGet();
+            return;
+        }
+        long count = discarded.getAndSet(0);
+        if (count > 0) {
+            log.warn(format + " {} similar warnings were discarded before this one.", argument, count);
+        }
+        else {
+            log.warn(format, argument);
+        }
+    }
+}
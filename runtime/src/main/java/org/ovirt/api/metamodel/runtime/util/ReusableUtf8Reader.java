@@ -0,0 +1,177 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class decodes UTF-8 bytes read from a stream into characters, like an {@link java.io.InputStreamReader} does,
+ * but it can be attached to a different stream with the {@link #reset(InputStream)} method, so that the decoder and
+ * its buffers are created only once and reused for many documents. Malformed input is replaced with the Unicode
+ * replacement character, like the input stream reader does. Instances aren't thread safe.
+ */
+public final class ReusableUtf8Reader extends Reader {
+    // The size of the buffers, in bytes and in characters:
+    private static final int BUFFER_SIZE = 8192;
+
+    // The decoder, created once and reset for each stream:
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    // The bytes read from the stream and not yet decoded, and the characters decoded and not yet returned. Both
+    // buffers are always ready to be read from. Note that the buffers are cast to Buffer when calling the methods that
+    // return the buffer itself, as the return types of those methods changed in Java 9:
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    // The stream where the bytes are read from, null if the reader isn't attached to a stream:
+    private InputStream in;
+
+    // Indicates if the end of the stream has been reached, and if the decoder has been flushed after that:
+    private boolean eof;
+    private boolean flushed;
+
+    // The number of bytes read from the current stream:
+    private long byteCount;
+
+    /**
+     * Creates a reader that isn't attached to any stream. The {@link #reset(InputStream)} method must be called before
+     * reading.
+     */
+    public ReusableUtf8Reader() {
+        reset(null);
+    }
+
+    /**
+     * Creates a reader that will read from the given stream.
+     *
+     * @param in the stream where the bytes will be read from
+     */
+    public ReusableUtf8Reader(InputStream in) {
+        reset(in);
+    }
+
+    /**
+     * Attaches this reader to a different stream, discarding the bytes and characters of the previous one that haven't
+     * been read yet. The previous stream isn't closed.
+     *
+     * @param in the stream where the bytes will be read from
+     */
+    public void reset(InputStream in) {
+        this.in = in;
+        ((Buffer) bytes).clear();
+        ((Buffer) bytes).flip();
+        ((Buffer) chars).clear();
+        ((Buffer) chars).flip();
+        decoder.reset();
+        eof = false;
+        flushed = false;
+        byteCount = 0;
+    }
+
+    /**
+     * Returns the number of bytes read from the stream since this reader was attached to it. This may be larger than
+     * the number of bytes corresponding to the characters returned, as bytes are read in blocks. The count is preserved
+     * when the reader is closed, and set to zero when it is reset.
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (in == null) {
+            throw new IOException("The reader isn't attached to a stream");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int count = Math.min(length, chars.remaining());
+        chars.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (in == null) {
+            throw new IOException("The reader isn't attached to a stream");
+        }
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return chars.get();
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return chars.hasRemaining() || bytes.hasRemaining() || (in != null && in.available() > 0);
+    }
+
+    /**
+     * Closes the stream, and detaches this reader from it. The reader can be attached to a new stream calling the
+     * {@link #reset(InputStream)} method.
+     */
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            InputStream tmp = in;
+            long total = byteCount;
+            reset(null);
+            byteCount = total;
+            tmp.close();
+        }
+    }
+
+    /**
+     * Decodes the next block of characters, reading more bytes from the stream if needed.
+     *
+     * @return {@code true} if some characters were decoded, {@code false} if the end of the stream has been reached
+     */
+    private boolean fill() throws IOException {
+        if (flushed) {
+            return false;
+        }
+        ((Buffer) chars).clear();
+        while (chars.position() == 0) {
+            if (eof) {
+                decoder.decode(bytes, chars, true);
+                decoder.flush(chars);
+                flushed = true;
+                break;
+            }
+            decoder.decode(bytes, chars, false);
+            if (chars.position() > 0) {
+                break;
+            }
+
+            // All the complete sequences have been decoded, so more bytes are needed:
+            bytes.compact();
+            int count = in.read(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            if (count < 0) {
+                eof = true;
+            }
+            else {
+                ((Buffer) bytes).position(bytes.position() + count);
+                byteCount += count;
+            }
+            ((Buffer) bytes).flip();
+        }
+        ((Buffer) chars).flip();
+        return chars.hasRemaining();
+    }
+}
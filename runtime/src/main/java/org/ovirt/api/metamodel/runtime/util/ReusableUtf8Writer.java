@@ -0,0 +1,184 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * This class encodes characters as UTF-8 bytes and writes them to a stream, like an {@link java.io.OutputStreamWriter}
+ * does, but it can be attached to a different stream with the {@link #reset(OutputStream)} method, so that its buffer
+ * is created only once and reused for many documents. The characters are encoded directly into the buffer, without
+ * creating intermediate objects. Unpaired surrogates are replaced with a question mark, like the output stream writer
+ * does. Instances aren't thread safe.
+ */
+public final class ReusableUtf8Writer extends Writer {
+    // The size of the buffer, in bytes:
+    private static final int BUFFER_SIZE = 8192;
+
+    // The buffer where the bytes are accumulated before sending them to the stream:
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+
+    // The high surrogate that has been written and that is waiting for the corresponding low surrogate, or zero:
+    private char high;
+
+    // The stream where the bytes are written, null if the writer isn't attached to a stream:
+    private OutputStream out;
+
+    // The number of bytes already sent to the current stream:
+    private long drained;
+
+    /**
+     * Creates a writer that isn't attached to any stream. The {@link #reset(OutputStream)} method must be called
+     * before writing.
+     */
+    public ReusableUtf8Writer() {
+        reset(null);
+    }
+
+    /**
+     * Creates a writer that will write to the given stream.
+     *
+     * @param out the stream where the bytes will be written
+     */
+    public ReusableUtf8Writer(OutputStream out) {
+        reset(out);
+    }
+
+    /**
+     * Attaches this writer to a different stream, discarding the bytes that haven't been flushed to the previous
+     * one. The previous stream isn't flushed or closed.
+     *
+     * @param out the stream where the bytes will be written
+     */
+    public void reset(OutputStream out) {
+        this.out = out;
+        count = 0;
+        high = 0;
+        drained = 0;
+    }
+
+    /**
+     * Returns the number of bytes written since this writer was attached to the current stream, including the ones
+     * that are still in the buffer. The count is preserved when the writer is closed, and set to zero when it is reset.
+     */
+    public long getByteCount() {
+        return drained + count;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        check();
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        check();
+        for (int i = offset; i < offset + length; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        check();
+        for (int i = offset; i < offset + length; i++) {
+            encode(text.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        check();
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Flushes the buffer and closes the stream, and detaches this writer from it. The writer can be attached to a
+     * new stream calling the {@link #reset(OutputStream)} method.
+     */
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            try {
+                if (high != 0) {
+                    high = 0;
+                    put('?');
+                }
+                drain();
+                out.close();
+            }
+            finally {
+                long total = drained;
+                reset(null);
+                drained = total;
+            }
+        }
+    }
+
+    private void check() throws IOException {
+        if (out == null) {
+            throw new IOException("The writer isn't attached to a stream");
+        }
+    }
+
+    private void encode(char c) throws IOException {
+        // Make sure that there is space for the longest sequence:
+        if (count > BUFFER_SIZE - 4) {
+            drain();
+        }
+        if (high != 0) {
+            char previous = high;
+            high = 0;
+            if (Character.isLowSurrogate(c)) {
+                int code = Character.toCodePoint(previous, c);
+                buffer[count++] = (byte) (0xf0 | (code >> 18));
+                buffer[count++] = (byte) (0x80 | ((code >> 12) & 0x3f));
+                buffer[count++] = (byte) (0x80 | ((code >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (code & 0x3f));
+                return;
+            }
+            put('?');
+        }
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        }
+        else if (c < 0x800) {
+            buffer[count++] = (byte) (0xc0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+        else if (Character.isHighSurrogate(c)) {
+            high = c;
+        }
+        else if (Character.isLowSurrogate(c)) {
+            buffer[count++] = '?';
+        }
+        else {
+            buffer[count++] = (byte) (0xe0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            buffer[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (count == BUFFER_SIZE) {
+            drain();
+        }
+        buffer[count++] = (byte) c;
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            drained += count;
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class deduplicates the strings read from documents, so that values that are repeated many times, like the
+ * identifiers of clusters and hosts or the names of operating systems, are stored only once in the objects that are
+ * kept in memory. It is enabled for a reader calling its {@code setStringCache} method, and it is kept when the
+ * reader is reset, so that it also deduplicates the values repeated in different documents.
+ *
+ * The cache is an open addressing table with a fixed size, so the memory that it uses is bounded. A value is looked
+ * up only in a few slots, and when they are all used it replaces the first one. Long strings aren't cached, as they
+ * are rarely repeated. Values can be looked up using strings or directly using their UTF-8 bytes, in the later case
+ * without creating any string when the value is found. Only ASCII bytes are looked up, so that the hash of the bytes
+ * is the same than the hash of the string.
+ *
+ * The cache isn't thread safe, so it shouldn't be shared by readers that are used by different threads.
+ */
+public final class StringCache {
+    /**
+     * The default number of slots.
+     */
+    public static final int DEFAULT_SIZE = 4096;
+
+    /**
+     * The length of the longest string that is cached.
+     */
+    public static final int MAX_LENGTH = 128;
+
+    // The number of slots where a value is looked up before replacing the first one:
+    private static final int MAX_PROBES = 4;
+
+    // The cached strings, and their hash codes:
+    private final String[] strings;
+    private final int[] hashes;
+    private final int mask;
+
+    /**
+     * Creates a cache with the default number of slots.
+     */
+    public StringCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a cache with the given number of slots, rounded up to a power of two.
+     *
+     * @param size the number of slots, the maximum number of strings that the cache can contain
+     */
+    public StringCache(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size must be positive, but it is " + size);
+        }
+        int slots = Integer.highestOneBit(Math.max(size, 2) * 2 - 1);
+        this.strings = new String[slots];
+        this.hashes = new int[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Returns the cached string that is equal to the given one, adding it to the cache if there is no such string.
+     * Returns the given string if it is {@code null} or too long to be cached.
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        int hash = value.hashCode();
+        int first = spread(hash) & mask;
+        int slot = first;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            String candidate = strings[slot];
+            if (candidate == null) {
+                break;
+            }
+            if (hashes[slot] == hash && candidate.equals(value)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return put(strings[slot] == null ? slot : first, hash, value);
+    }
+
+    /**
+     * Returns the cached string encoded in the given region of an array of ASCII bytes, decoding it and adding it
+     * to the cache if it isn't there yet.
+     *
+     * @param array the array containing the bytes
+     * @param offset the position of the first byte of the string
+     * @param length the number of bytes of the string
+     * @param hash the hash of the bytes, calculated as {@code hash = 31 * hash + b} for each byte
+     */
+    public String intern(byte[] array, int offset, int length, int hash) {
+        if (length > MAX_LENGTH) {
+            return new String(array, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        int first = spread(hash) & mask;
+        int slot = first;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            String candidate = strings[slot];
+            if (candidate == null) {
+                break;
+            }
+            if (hashes[slot] == hash && matches(candidate, array, offset, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = new String(array, offset, length, StandardCharsets.ISO_8859_1);
+        return put(strings[slot] == null ? slot : first, hash, value);
+    }
+
+    /**
+     * Returns the cached string encoded in the given region of a buffer of ASCII bytes, decoding it and adding it
+     * to the cache if it isn't there yet. The position of the buffer isn't used or modified.
+     *
+     * @param buffer the buffer containing the bytes
+     * @param offset the absolute position of the first byte of the string
+     * @param length the number of bytes of the string
+     * @param hash the hash of the bytes, calculated as {@code hash = 31 * hash + b} for each byte
+     */
+    public String intern(ByteBuffer buffer, int offset, int length, int hash) {
+        if (length <= MAX_LENGTH) {
+            int slot = spread(hash) & mask;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                String candidate = strings[slot];
+                if (candidate == null) {
+                    break;
+                }
+                if (hashes[slot] == hash && matches(candidate, buffer, offset, length)) {
+                    return candidate;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return intern(new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Removes all the strings from the cache.
+     */
+    public void clear() {
+        Arrays.fill(strings, null);
+        Arrays.fill(hashes, 0);
+    }
+
+    private String put(int slot, int hash, String value) {
+        strings[slot] = value;
+        hashes[slot] = hash;
+        return value;
+    }
+
+    private static boolean matches(String candidate, byte[] array, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != array[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String candidate, ByteBuffer buffer, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != buffer.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
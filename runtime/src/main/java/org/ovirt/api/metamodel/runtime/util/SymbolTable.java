@@ -0,0 +1,191 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class translates the names of XML tags and JSON members into small integer symbols, so that the generated
+ * readers can dispatch them with a {@code switch} on integers instead of on strings. The table is created once, by
+ * the code generated for the model, with all the names that the readers know, and it can't be modified after that,
+ * so it can be used by any number of threads without locking.
+ *
+ * The symbol of each name is its position in the list passed to the constructor plus one, and {@link #UNKNOWN} is
+ * returned for names that aren't in the table. Names can be looked up using strings or directly using their UTF-8
+ * bytes, in the later case without creating any string. Only ASCII names are supported, so that the hash of the
+ * bytes is the same than the hash of the string.
+ */
+public final class SymbolTable {
+    /**
+     * The symbol returned for names that aren't in the table.
+     */
+    public static final int UNKNOWN = 0;
+
+    // The names, their bytes and their hash codes, indexed by symbol. The first position isn't used, as it
+    // corresponds to the unknown symbol:
+    private final String[] names;
+    private final byte[][] bytes;
+    private final int[] hashes;
+
+    // The open addressing table, containing the symbols, or zero for empty slots:
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * Creates a symbol table containing the given names.
+     *
+     * @param names the names, the first one will have symbol one, the second symbol two, and so on
+     * @throws IllegalArgumentException if any of the names is repeated or contains non ASCII characters
+     */
+    public SymbolTable(String... names) {
+        int count = names.length + 1;
+        this.names = new String[count];
+        this.bytes = new byte[count][];
+        this.hashes = new int[count];
+
+        // Use a table with at least twice the number of names, so that the chains are short:
+        int size = Integer.highestOneBit(Math.max(count, 2) * 4 - 1);
+        this.slots = new int[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            if (get(name) != UNKNOWN) {
+                throw new IllegalArgumentException("The name \"" + name + "\" is repeated");
+            }
+            int symbol = i + 1;
+            byte[] encoded = new byte[name.length()];
+            for (int j = 0; j < encoded.length; j++) {
+                char c = name.charAt(j);
+                if (c > 0x7f) {
+                    throw new IllegalArgumentException("The name \"" + name + "\" contains non ASCII characters");
+                }
+                encoded[j] = (byte) c;
+            }
+            int hash = name.hashCode();
+            this.names[symbol] = name;
+            this.bytes[symbol] = encoded;
+            this.hashes[symbol] = hash;
+            int slot = spread(hash) & mask;
+            while (slots[slot] != UNKNOWN) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = symbol;
+        }
+    }
+
+    /**
+     * Returns the number of names in the table.
+     */
+    public int size() {
+        return names.length - 1;
+    }
+
+    /**
+     * Returns the symbol corresponding to the given name, or {@link #UNKNOWN} if the name isn't in the table. The
+     * names of the table are compared to the given one by identity first, and only if that fails by their contents.
+     * The names generated for the model are string literals, so they are interned, and most XML parsers also return
+     * interned names, so in that case the characters aren't compared at all, and the hash code is the one cached by
+     * the string.
+     */
+    public int get(String name) {
+        if (name == null) {
+            return UNKNOWN;
+        }
+        int hash = name.hashCode();
+        for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+            int symbol = slots[slot];
+            if (symbol == UNKNOWN) {
+                return UNKNOWN;
+            }
+            String candidate = names[symbol];
+            if (candidate == name || (hashes[symbol] == hash && candidate.equals(name))) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Returns the symbol corresponding to the name encoded in the given region of an array of UTF-8 bytes, or
+     * {@link #UNKNOWN} if the name isn't in the table.
+     *
+     * @param array the array containing the bytes
+     * @param offset the position of the first byte of the name
+     * @param length the number of bytes of the name
+     * @param hash the hash of the bytes, calculated as {@code hash = 31 * hash + b} for each byte
+     */
+    public int get(byte[] array, int offset, int length, int hash) {
+        for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+            int symbol = slots[slot];
+            if (symbol == UNKNOWN) {
+                return UNKNOWN;
+            }
+            if (hashes[symbol] == hash && matches(bytes[symbol], array, offset, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Returns the symbol corresponding to the name encoded in the given region of a buffer of UTF-8 bytes, or
+     * {@link #UNKNOWN} if the name isn't in the table. The position of the buffer isn't used or modified.
+     *
+     * @param buffer the buffer containing the bytes
+     * @param offset the absolute position of the first byte of the name
+     * @param length the number of bytes of the name
+     * @param hash the hash of the bytes, calculated as {@code hash = 31 * hash + b} for each byte
+     */
+    public int get(ByteBuffer buffer, int offset, int length, int hash) {
+        for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+            int symbol = slots[slot];
+            if (symbol == UNKNOWN) {
+                return UNKNOWN;
+            }
+            if (hashes[symbol] == hash && matches(bytes[symbol], buffer, offset, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Returns the name corresponding to the given symbol, or {@code null} if the symbol is {@link #UNKNOWN} or
+     * isn't part of this table.
+     */
+    public String getName(int symbol) {
+        if (symbol <= UNKNOWN || symbol >= names.length) {
+            return null;
+        }
+        return names[symbol];
+    }
+
+    private static boolean matches(byte[] candidate, byte[] array, int offset, int length) {
+        if (candidate.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate[i] != array[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(byte[] candidate, ByteBuffer buffer, int offset, int length) {
+        if (candidate.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate[i] != buffer.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class writes XML documents directly as UTF-8 bytes to an output stream, without using an
+ * {@link javax.xml.stream.XMLStreamWriter}. It supports only the subset of XML that is generated by the metamodel:
+ * elements and attributes without namespaces, and text. The output is the same that the JDK XML writer generates,
+ * optionally indented in the same way than the {@link IndentingXMLStreamWriter} class does it.
+ *
+ * The generated writers pass the names of the tags and attributes already encoded, as constants. The names passed as
+ * strings are encoded the first time that they are used by each instance, and the text is encoded and escaped
+ * directly into a byte buffer that is written to the stream only when it is full, or when the output is flushed.
+ */
+final class Utf8XmlOutput {
+    // The maximum number of names encoded by each instance that are remembered:
+    private static final int MAX_NAMES = 256;
+
+    // Constant byte sequences:
+    private static final byte[] LT = bytes("&lt;");
+    private static final byte[] GT = bytes("&gt;");
+    private static final byte[] AMP = bytes("&amp;");
+    private static final byte[] QUOT = bytes("&quot;");
+    private static final byte[] INDENT = bytes("  ");
+
+    // What was seen inside the current element, used for indentation:
+    private static final byte SEEN_NOTHING = 0;
+    private static final byte SEEN_ELEMENT = 1;
+    private static final byte SEEN_DATA = 2;
+
+    // The stream where the bytes are written:
+    private OutputStream out;
+
+    // Indicates if the output should be indented:
+    private final boolean indent;
+
+    // The buffer where the bytes are accumulated before sending them to the stream:
+    private final byte[] buffer = new byte[8192];
+    private int count;
+
+    // The number of bytes already sent to the stream:
+    private long written;
+
+    // The names of the elements that have been started and not yet ended, and what was seen inside each of them:
+    private byte[][] names = new byte[16][];
+    private byte[] states = new byte[16];
+    private int depth;
+    private byte state = SEEN_NOTHING;
+
+    // Indicates if the start tag of the current element is still open, waiting for attributes:
+    private boolean open;
+
+    // The bytes of the names that have been passed as strings, kept across documents when the output is reset. The
+    // names used by the metamodel are a small and fixed set, but the size is limited anyhow, to avoid unbounded growth
+    // if some application uses arbitrary names:
+    private final Map<String, byte[]> encodedNames = new HashMap<>();
+
+    Utf8XmlOutput(OutputStream out, boolean indent) {
+        this.out = out;
+        this.indent = indent;
+    }
+
+    /**
+     * Prepares this output to write a new document to the given stream, discarding the bytes that haven't been
+     * flushed yet and the elements that haven't been ended. The buffer and the stack of names are reused.
+     */
+    void reset(OutputStream out) {
+        this.out = out;
+        count = 0;
+        written = 0;
+        depth = 0;
+        state = SEEN_NOTHING;
+        open = false;
+    }
+
+    void writeStartDocument(String encoding, String version) {
+        writeBytes(bytes("<?xml version=\""));
+        writeEscaped(version, true);
+        writeBytes(bytes("\" encoding=\""));
+        writeEscaped(encoding, true);
+        writeBytes(bytes("\"?>"));
+    }
+
+    void writeEndDocument() {
+        while (depth > 0) {
+            writeEndElement();
+        }
+    }
+
+    void writeStartElement(String name) {
+        writeStartElement(name(name));
+    }
+
+    void writeStartElement(byte[] name) {
+        closeStartTag();
+        if (depth == names.length) {
+            byte[][] largerNames = new byte[depth * 2][];
+            System.arraycopy(names, 0, largerNames, 0, depth);
+            names = largerNames;
+            byte[] largerStates = new byte[depth * 2];
+            System.arraycopy(states, 0, largerStates, 0, depth);
+            states = largerStates;
+        }
+        if (indent) {
+            state = SEEN_NOTHING;
+            if (depth > 0) {
+                writeByte((byte) '\n');
+                state = SEEN_DATA;
+            }
+            writeIndent();
+        }
+        states[depth] = SEEN_ELEMENT;
+        names[depth] = name;
+        depth++;
+        writeByte((byte) '<');
+        writeBytes(name);
+        open = true;
+    }
+
+    void writeEndElement() {
+        if (depth == 0) {
+            throw new XmlException("There is no element to end");
+        }
+        closeStartTag();
+        depth--;
+        if (indent) {
+            if (state == SEEN_ELEMENT) {
+                writeByte((byte) '\n');
+                writeIndent();
+            }
+            state = states[depth];
+        }
+        writeByte((byte) '<');
+        writeByte((byte) '/');
+        writeBytes(names[depth]);
+        writeByte((byte) '>');
+        names[depth] = null;
+    }
+
+    void writeAttribute(String name, String value) {
+        writeAttribute(name(name), value);
+    }
+
+    void writeAttribute(byte[] name, String value) {
+        if (!open) {
+            throw new XmlException(
+                "Can't write attribute \"" + new String(name, StandardCharsets.UTF_8) + "\" outside of a start tag"
+            );
+        }
+        writeByte((byte) ' ');
+        writeBytes(name);
+        writeByte((byte) '=');
+        writeByte((byte) '"');
+        writeEscaped(value, true);
+        writeByte((byte) '"');
+    }
+
+    void writeCharacters(String text) {
+        closeStartTag();
+        state = SEEN_DATA;
+        writeEscaped(text, false);
+    }
+
+    /**
+     * Returns the number of bytes written to this output since it was created or reset, including the ones that are
+     * still in the buffer.
+     */
+    long getByteCount() {
+        return written + count;
+    }
+
+    void flush() {
+        try {
+            out.write(buffer, 0, count);
+            written += count;
+            count = 0;
+            out.flush();
+        }
+        catch (IOException exception) {
+            throw new XmlException("Can't flush", exception);
+        }
+    }
+
+    private void closeStartTag() {
+        if (open) {
+            writeByte((byte) '>');
+            open = false;
+        }
+    }
+
+    private void writeIndent() {
+        for (int i = 0; i < depth; i++) {
+            writeBytes(INDENT);
+        }
+    }
+
+    private void writeEscaped(String text, boolean attribute) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                case '<':
+                    writeBytes(LT);
+                    break;
+                case '>':
+                    writeBytes(GT);
+                    break;
+                case '&':
+                    writeBytes(AMP);
+                    break;
+                case '"':
+                    if (attribute) {
+                        writeBytes(QUOT);
+                    }
+                    else {
+                        writeByte((byte) c);
+                    }
+                    break;
+                default:
+                    writeByte((byte) c);
+                }
+            }
+            else if (c < 0x800) {
+                ensure(2);
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, text.charAt(++i));
+                ensure(4);
+                buffer[count++] = (byte) (0xF0 | (code >> 18));
+                buffer[count++] = (byte) (0x80 | ((code >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((code >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (code & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates can't be encoded, so they are replaced, like the JDK encoder does:
+                writeByte((byte) '?');
+            }
+            else {
+                ensure(3);
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        if (bytes.length > buffer.length - count) {
+            drain();
+            if (bytes.length > buffer.length) {
+                write(bytes, bytes.length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void writeByte(byte b) {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = b;
+    }
+
+    private void ensure(int length) {
+        if (length > buffer.length - count) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        write(buffer, count);
+        count = 0;
+    }
+
+    private void write(byte[] bytes, int length) {
+        try {
+            out.write(bytes, 0, length);
+            written += length;
+        }
+        catch (IOException exception) {
+            throw new XmlException("Can't write", exception);
+        }
+    }
+
+    private byte[] name(String name) {
+        byte[] bytes = encodedNames.get(name);
+        if (bytes == null) {
+            bytes = bytes(name);
+            if (encodedNames.size() < MAX_NAMES) {
+                encodedNames.put(name, bytes);
+            }
+        }
+        return bytes;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.xml;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class scans the UTF-8 bytes of an XML document and finds the boundaries of the children of the root element,
+ * without decoding the text and without checking that the document is well formed: that is left to the reader that
+ * will decode each child later. It understands just enough of the syntax to not be confused by markup characters
+ * inside attribute values, comments, processing instructions, CDATA sections and the document type declaration.
+ *
+ * Note that the children are extracted without the namespace declarations of the root element. That is fine for the
+ * documents used by the API, which don't use namespaces.
+ */
+final class Utf8XmlSplitter {
+    // The buffer containing the document, and the limits of the region that hasn't been scanned yet:
+    private final ByteBuffer buffer;
+    private final byte[] array;
+    private final int offset;
+    private int position;
+    private final int limit;
+
+    Utf8XmlSplitter(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.hasArray()) {
+            array = buffer.array();
+            offset = buffer.arrayOffset();
+        }
+        else {
+            array = null;
+            offset = 0;
+        }
+        position = buffer.position();
+        limit = buffer.limit();
+    }
+
+    /**
+     * Returns views of the buffer that contain the bytes of each of the children of the root element, in order.
+     */
+    List<ByteBuffer> split() {
+        List<ByteBuffer> children = new ArrayList<>();
+
+        // Skip the prolog and the start tag of the root element:
+        skipProlog();
+        if (position >= limit) {
+            return children;
+        }
+        if (skipTag()) {
+            return children;
+        }
+
+        // Scan the content of the root element, keeping track of the depth to find where each child starts and
+        // ends:
+        int depth = 0;
+        int start = -1;
+        while (true) {
+            position = indexOf('<', position);
+            if (position < 0) {
+                throw new XmlException("Unexpected end of document");
+            }
+            if (startsWith("<!--")) {
+                skipPast("-->");
+            }
+            else if (startsWith("<![CDATA[")) {
+                skipPast("]]>");
+            }
+            else if (startsWith("<?")) {
+                skipPast("?>");
+            }
+            else if (startsWith("</")) {
+                skipTag();
+                if (depth == 0) {
+                    return children;
+                }
+                depth--;
+                if (depth == 0) {
+                    children.add(view(start, position));
+                }
+            }
+            else {
+                int tag = position;
+                boolean empty = skipTag();
+                if (depth == 0) {
+                    start = tag;
+                    if (empty) {
+                        children.add(view(start, position));
+                        continue;
+                    }
+                }
+                if (!empty) {
+                    depth++;
+                }
+            }
+        }
+    }
+
+    private void skipProlog() {
+        while (true) {
+            position = skipWhitespace(position);
+            if (position >= limit) {
+                return;
+            }
+            if (startsWith("<?")) {
+                skipPast("?>");
+            }
+            else if (startsWith("<!--")) {
+                skipPast("-->");
+            }
+            else if (startsWith("<!")) {
+                skipDoctype();
+            }
+            else if (byteAt(position) == '<') {
+                return;
+            }
+            else {
+                throw new XmlException("Unexpected character '" + (char) byteAt(position) + "' at offset " + position);
+            }
+        }
+    }
+
+    /**
+     * Skips the document type declaration, including the internal subset, if present.
+     */
+    private void skipDoctype() {
+        int brackets = 0;
+        byte quote = 0;
+        for (int index = position; index < limit; index++) {
+            byte b = byteAt(index);
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            }
+            else if (b == '"' || b == '\'') {
+                quote = b;
+            }
+            else if (b == '[') {
+                brackets++;
+            }
+            else if (b == ']') {
+                brackets--;
+            }
+            else if (b == '>' && brackets == 0) {
+                position = index + 1;
+                return;
+            }
+        }
+        throw new XmlException("Unexpected end of document");
+    }
+
+    /**
+     * Skips the start or end tag that begins at the current position, taking into account that attribute values may
+     * contain markup characters.
+     *
+     * @return {@code true} if the tag is an empty element tag, like {@code <disk/>}
+     */
+    private boolean skipTag() {
+        byte quote = 0;
+        for (int index = position + 1; index < limit; index++) {
+            byte b = byteAt(index);
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            }
+            else if (b == '"' || b == '\'') {
+                quote = b;
+            }
+            else if (b == '>') {
+                position = index + 1;
+                return byteAt(index - 1) == '/';
+            }
+        }
+        throw new XmlException("Unexpected end of document");
+    }
+
+    private void skipPast(String end) {
+        int index = position;
+        while (index < limit) {
+            index = indexOf(end.charAt(0), index);
+            if (index < 0) {
+                break;
+            }
+            if (startsWith(end, index)) {
+                position = index + end.length();
+                return;
+            }
+            index++;
+        }
+        throw new XmlException("Unexpected end of document");
+    }
+
+    private int skipWhitespace(int index) {
+        while (index < limit) {
+            byte b = byteAt(index);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private int indexOf(char c, int index) {
+        while (index < limit) {
+            if (byteAt(index) == c) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private boolean startsWith(String prefix) {
+        return startsWith(prefix, position);
+    }
+
+    private boolean startsWith(String prefix, int index) {
+        if (limit - index < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (byteAt(index + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ByteBuffer view(int start, int end) {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).limit(end);
+        ((Buffer) view).position(start);
+        return view;
+    }
+
+    private byte byteAt(int index) {
+        return array != null ? array[offset + index] : buffer.get(index);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.xml;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+/**
+ * This class provides the StAX factories used by the XML readers and writers. Looking up and configuring a factory
+ * is expensive, as it involves a service provider lookup in the class path, so the factories are created and
+ * configured only once, the first time that they are needed, and then they are shared by all the readers and
+ * writers. Once configured the factories aren't modified, and creating readers and writers from them is thread safe.
+ */
+public final class XmlFactories {
+
+    // Holders for the shared factories, so that they are created lazily and without synchronization:
+    private static class InputFactoryHolder {
+        private static final XMLInputFactory INSTANCE = createInputFactory();
+    }
+
+    private static class OutputFactoryHolder {
+        private static final XMLOutputFactory INSTANCE = createOutputFactory();
+    }
+
+    private XmlFactories() {
+    }
+
+    /**
+     * Returns the shared XML input factory. Callers must not change the properties of the returned factory, if they
+     * need a different configuration they should use the {@link #createInputFactory()} method instead.
+     */
+    public static XMLInputFactory getInputFactory() {
+        return InputFactoryHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the shared XML output factory. Callers must not change the properties of the returned factory, if they
+     * need a different configuration they should use the {@link #createOutputFactory()} method instead.
+     */
+    public static XMLOutputFactory getOutputFactory() {
+        return OutputFactoryHolder.INSTANCE;
+    }
+
+    /**
+     * Creates a new XML input factory, configured in the same way than the shared one. DTDs and external entities
+     * are ignored, as the documents used by the API never contain them.
+     */
+    public static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        setProperty(factory, XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        setProperty(factory, XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+        setProperty(factory, XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        setProperty(factory, XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Creates a new XML output factory, configured in the same way than the shared one.
+     */
+    public static XMLOutputFactory createOutputFactory() {
+        XMLOutputFactory factory = XMLOutputFactory.newFactory();
+        if (factory.isPropertySupported(XMLOutputFactory.IS_REPAIRING_NAMESPACES)) {
+            factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.FALSE);
+        }
+        return factory;
+    }
+
+    private static void setProperty(XMLInputFactory factory, String name, Object value) {
+        // Not all the implementations support all the properties, and they fail if asked to set an unsupported one,
+        // so we need to check first:
+        if (factory.isPropertySupported(name)) {
+            factory.setProperty(name, value);
+        }
+    }
+}
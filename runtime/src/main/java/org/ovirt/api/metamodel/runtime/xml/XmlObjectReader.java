@@ -0,0 +1,21 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.xml;
+
+/**
+ * This interface represents a method that reads an object from an XML document. It is used by the
+ * {@link XmlReader#read()} method to delegate the reading of the document to the method that knows how to read the
+ * object corresponding to the root tag.
+ */
+public interface XmlObjectReader {
+    /**
+     * Reads the object that starts in the current element of the given reader.
+     *
+     * @param reader the reader positioned in the start tag of the element
+     * @return the object read
+     */
+    Object read(XmlReader reader);
+}
@@ -5,6 +5,7 @@
 
 package org.ovirt.api.metamodel.runtime.xml;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -15,9 +16,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
@@ -25,7 +25,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.TimeZone;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -34,6 +36,12 @@ import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsAccumulator;
+import org.ovirt.api.metamodel.runtime.util.DateCodec;
+import org.ovirt.api.metamodel.runtime.util.ReusableUtf8Reader;
+import org.ovirt.api.metamodel.runtime.util.StringCache;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,29 +53,68 @@ public class XmlReader implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(XmlReader.class);
 
+    // The accumulator for the metrics of complete documents:
+    private static final MetricsAccumulator METRICS = Metrics.accumulator(Metrics.XML_READ, Metrics.DOCUMENT);
+
     /**
-     * This dictionary stores for each known tag a reference to the method that read the object corresponding for that
-     * tag. For example, for the {@code vm} tag it will contain a reference to the {@code VmReader.readOne} method,
-     * and for the {@code vms} tag it will contain a reference to the {@code VmReader.readMany} method.
+     * This dictionary stores for each tag that has been explicitly registered with one of the {@code register}
+     * methods the reader for the object corresponding to that tag. Tags that haven't been explicitly registered are
+     * looked up in the registries.
      */
-    private static Map<String, Method> readers = new HashMap<>();
+    private static final Map<String, XmlObjectReader> readers = new ConcurrentHashMap<>();
 
+    /**
+     * The name of the properties file that was used by older versions of the code generator to tell what method
+     * should be used to read each tag. It is only loaded if no registry is found.
+     */
     public static final String METHODS_FILE = "methods.properties";
 
     /**
-     * This static block is needed to initialize with proper data the {@code readers} variable. Those data are stored
-     * in @{code methods.properties} of the result .jar file and should be of the following format:
+     * This class holds the registries, so that they are loaded the first time that the {@link #read()} method is
+     * used, and not when this class is loaded.
+     */
+    private static class RegistriesHolder {
+        private static final XmlReaderRegistry[] INSTANCES = loadRegistries();
+    }
+
+    /**
+     * Loads the registries generated for the model, using the {@link ServiceLoader} mechanism. If there are no such
+     * registries then it tries to load the {@code methods.properties} file generated by older versions of the code
+     * generator. That file should have the following format:
      *   tag=Full.Class.Name.methodName
-     * This block parses the properties values of the properties file and store them in the {@code readers} variable.
      */
-    static {
-        try (
-            InputStream in = XmlReader.class.getResourceAsStream(METHODS_FILE);
-            java.io.Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)
-        ) {
+    private static XmlReaderRegistry[] loadRegistries() {
+        List<XmlReaderRegistry> registries = new ArrayList<>();
+        try {
+            ClassLoader loader = XmlReader.class.getClassLoader();
+            for (XmlReaderRegistry registry : ServiceLoader.load(XmlReaderRegistry.class, loader)) {
+                registries.add(registry);
+            }
+        }
+        catch (ServiceConfigurationError error) {
+            log.error("Can't load XML reader registries: {}", error.getMessage());
+            log.debug("Exception:", error);
+        }
+        if (registries.isEmpty()) {
+            XmlReaderRegistry registry = loadMethodsFile();
+            if (registry != null) {
+                registries.add(registry);
+            }
+        }
+        return registries.toArray(new XmlReaderRegistry[registries.size()]);
+    }
+
+    private static XmlReaderRegistry loadMethodsFile() {
+        InputStream in = XmlReader.class.getResourceAsStream(METHODS_FILE);
+        if (in == null) {
+            log.error("No XML reader registry or {} file was found", METHODS_FILE);
+            return null;
+        }
+        try (java.io.Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
             Properties props = new Properties();
             props.load(reader);
 
+            final Map<String, XmlObjectReader> methods = new HashMap<>();
             Enumeration propertiesEnumeration = props.propertyNames();
             while (propertiesEnumeration.hasMoreElements()) {
                 String key = (String) propertiesEnumeration.nextElement();
@@ -76,28 +123,73 @@ public class XmlReader implements AutoCloseable {
                 String methodName = value.substring(value.lastIndexOf(".") + 1);
 
                 Class<?> clazz = Class.forName(className);
-                register(key, clazz.getDeclaredMethod(methodName, XmlReader.class));
+                methods.put(key, new MethodReader(key, clazz.getDeclaredMethod(methodName, XmlReader.class)));
             }
-        } catch (Exception e) {
-            log.error("methods.properties file wasn't found: {}", e.getMessage());
+            return new XmlReaderRegistry() {
+                @Override
+                public XmlObjectReader getReader(String tag) {
+                    return methods.get(tag);
+                }
+            };
+        }
+        catch (Exception e) {
+            log.error("{} file can't be loaded: {}", METHODS_FILE, e.getMessage());
             log.debug("Exception:", e);
+            return null;
+        }
+    }
+
+    /**
+     * Adapts a reflective reference to a read method to the {@link XmlObjectReader} interface.
+     */
+    private static class MethodReader implements XmlObjectReader {
+        private final String tag;
+        private final Method method;
+
+        MethodReader(String tag, Method method) {
+            this.tag = tag;
+            this.method = method;
+        }
+
+        @Override
+        public Object read(XmlReader reader) {
+            try {
+                return method.invoke(null, reader);
+            }
+            catch (IllegalAccessException | InvocationTargetException exception) {
+                throw new RuntimeException(
+                    String.format("Failed to invoke method '%1$s' to read element for tag '%2$s'", method, tag),
+                    exception
+                );
+            }
         }
     }
 
     // The wrapped XML reader:
     private XMLStreamReader reader;
 
+    // The decoder used when reading from a stream, created the first time that it is needed and then reused when the
+    // reader is reset:
+    private ReusableUtf8Reader decoder;
+
+    // Indicates if metrics were enabled when the current document was started, the number of elements read and
+    // skipped, and the size of the document, or the decoder that counts it, if they are known:
+    private boolean metered;
+    private long elements;
+    private long skipped;
+    private long bytes;
+    private ReusableUtf8Reader counter;
+
+    // The cache used to deduplicate string values, if enabled:
+    private StringCache strings;
+
     /**
-     * Thread local used to store the date formats.
+     * Creates an XML reader that isn't attached to any document. One of the {@code reset} methods must be called
+     * before reading. This is intended for readers that are kept in a {@link org.ovirt.api.metamodel.runtime.util.Pool}
+     * and reused for many documents.
      */
-    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>(){
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-            format.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return format;
-        }
-    };
+    public XmlReader() {
+    }
 
     /**
      * Creates an XML reader that will read from the given source.
@@ -114,9 +206,7 @@ public class XmlReader implements AutoCloseable {
      * @param in the stream where the document will be read from
      */
     public XmlReader(InputStream in) {
-        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
-        Source source = new StreamSource(reader);
-        init(source);
+        reset(in);
     }
 
     /**
@@ -125,8 +215,7 @@ public class XmlReader implements AutoCloseable {
      * @param in the reader where the document will be read from
      */
     public XmlReader(Reader in) {
-        Source source = new StreamSource(in);
-        init(source);
+        reset(in);
     }
 
     /**
@@ -136,19 +225,124 @@ public class XmlReader implements AutoCloseable {
      */
     public XmlReader(File file) {
         try {
-            InputStream in = new FileInputStream(file);
-            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
-            Source source = new StreamSource(reader);
-            init(source);
+            reset(new FileInputStream(file));
         }
         catch (IOException exception) {
             throw new XmlException("Can't open file \"" + file.getAbsolutePath() + "\" for reading", exception);
         }
     }
 
+    /**
+     * Creates an XML reader that will read the UTF-8 bytes of the document from the given buffer, starting in its
+     * current position and ending in its limit. The position of the buffer isn't modified.
+     *
+     * @param buffer the buffer containing the document
+     */
+    public XmlReader(ByteBuffer buffer) {
+        // The bytes are given directly to the StAX reader, which does its own decoding, as allocating the buffers of
+        // the decoder would be expensive for the small regions returned by the splitChildren method:
+        InputStream in;
+        if (buffer.hasArray()) {
+            in = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            in = new ByteArrayInputStream(bytes);
+        }
+        init(new StreamSource(in));
+        this.bytes = buffer.remaining();
+    }
+
+    /**
+     * Finds the children of the root element of the XML document contained in the given buffer, without decoding
+     * them, and returns the regions of the buffer that contain them, in the same order. Each child can then be read
+     * creating a new reader for its region with the {@link #XmlReader(ByteBuffer)} constructor, for example in
+     * parallel, using the {@link org.ovirt.api.metamodel.runtime.util.ParallelDecoder} class. The regions share the
+     * bytes with the original buffer, so it must not be modified while they are being used.
+     *
+     * Note that the bytes are scanned quickly, and the document isn't checked to be well formed. Errors inside the
+     * children will be detected when they are read.
+     *
+     * @param buffer the buffer containing the UTF-8 bytes of the document
+     * @return the list of buffers containing the bytes of the children, each positioned at the start of the child
+     */
+    public static List<ByteBuffer> splitChildren(ByteBuffer buffer) {
+        return new Utf8XmlSplitter(buffer).split();
+    }
+
+    /**
+     * Discards the current document and prepares this reader to read a new one from the given stream, using UTF-8 as
+     * the encoding. The decoder and its buffers are reused, only the StAX reader is created again. The source of the
+     * previous document isn't closed.
+     *
+     * @param in the stream where the document will be read from
+     */
+    public void reset(InputStream in) {
+        release();
+        if (decoder == null) {
+            decoder = new ReusableUtf8Reader();
+        }
+        decoder.reset(in);
+        init(new StreamSource(decoder));
+        counter = decoder;
+    }
+
+    /**
+     * Discards the current document and prepares this reader to read a new one from the given reader. The source of
+     * the previous document isn't closed.
+     *
+     * @param in the reader where the document will be read from
+     */
+    public void reset(Reader in) {
+        release();
+        init(new StreamSource(in));
+    }
+
+    /**
+     * Sets the cache used to deduplicate the string values read, or {@code null}, the default, to disable
+     * deduplication. The cache is kept when this reader is reset.
+     */
+    public void setStringCache(StringCache newStrings) {
+        strings = newStrings;
+    }
+
+    /**
+     * Returns the cache used to deduplicate the string values read, or {@code null} if deduplication is disabled.
+     */
+    public StringCache getStringCache() {
+        return strings;
+    }
+
+    /**
+     * Returns the string from the cache that is equal to the given one, if deduplication is enabled, or else the
+     * given string. This is used by the generated readers for the values of attributes that are strings.
+     */
+    public String intern(String value) {
+        return strings != null ? strings.intern(value) : value;
+    }
+
+    private void release() {
+        // Closing the StAX reader releases its resources, but it doesn't close the underlying source:
+        if (reader != null) {
+            try {
+                reader.close();
+            }
+            catch (XMLStreamException exception) {
+                throw new XmlException("Can't close", exception);
+            }
+            reader = null;
+        }
+    }
+
     private void init(Source source) {
+        metered = Metrics.isEnabled();
+        elements = 0;
+        skipped = 0;
+        bytes = 0;
+        counter = null;
         try {
-            XMLInputFactory factory = XMLInputFactory.newFactory();
+            XMLInputFactory factory = XmlFactories.getInputFactory();
             reader = factory.createXMLStreamReader(source);
         }
         catch (XMLStreamException exception) {
@@ -172,6 +366,18 @@ public class XmlReader implements AutoCloseable {
         return reader.getAttributeLocalName(index);
     }
 
+    /**
+     * Returns the symbol corresponding to the name of the attribute with the given index, or
+     * {@link SymbolTable#UNKNOWN} if the name isn't in the given table. Like in the
+     * {@link #getLocalNameSymbol(SymbolTable)} method the interned name is compared by identity first.
+     *
+     * @param index the index of the attribute
+     * @param table the table containing the names known by the caller
+     */
+    public int getAttributeLocalNameSymbol(int index, SymbolTable table) {
+        return table.get(reader.getAttributeLocalName(index));
+    }
+
     /**
      * Returns the value of the attribute corresponding to the given index.
      *
@@ -195,7 +401,11 @@ public class XmlReader implements AutoCloseable {
      */
     public int next() {
         try {
-            return reader.next();
+            int event = reader.next();
+            if (metered && event == XMLStreamConstants.START_ELEMENT) {
+                elements++;
+            }
+            return event;
         }
         catch (XMLStreamException exception) {
             throw new XmlException("Can't get next event", exception);
@@ -209,6 +419,18 @@ public class XmlReader implements AutoCloseable {
         return reader.getLocalName();
     }
 
+    /**
+     * Returns the symbol corresponding to the name of the current element, or {@link SymbolTable#UNKNOWN} if the name
+     * isn't in the given table. The StAX parser interns the names that it returns, and so are the names of the table,
+     * so they are compared by identity, and the characters are only compared when that fails. The hash code is the one
+     * cached by the interned string, so it isn't calculated again for each element.
+     *
+     * @param table the table containing the names known by the caller
+     */
+    public int getLocalNameSymbol(SymbolTable table) {
+        return table.get(reader.getLocalName());
+    }
+
     /**
      * Returns the type of the current event.
      */
@@ -229,12 +451,7 @@ public class XmlReader implements AutoCloseable {
                 case XMLStreamConstants.END_DOCUMENT:
                     return false;
                 default:
-                    try {
-                        reader.next();
-                    }
-                    catch (XMLStreamException exception) {
-                        throw new XmlException("Can't get next event", exception);
-                    }
+                    next();
             }
         }
     }
@@ -246,6 +463,9 @@ public class XmlReader implements AutoCloseable {
      * of the {@code current} element, and will leave the reader positioned at the start of the {@code next} element.
      */
     public void skip() {
+        if (metered) {
+            skipped++;
+        }
         int depth = 0;
         for(;;) {
             switch (reader.getEventType()) {
@@ -255,24 +475,14 @@ public class XmlReader implements AutoCloseable {
                 case XMLStreamConstants.END_ELEMENT:
                     depth--;
                     if (depth <= 0) {
-                        try {
-                            reader.next();
-                        }
-                        catch (XMLStreamException exception) {
-                            throw new XmlException("Can't get next event", exception);
-                        }
+                        next();
                         return;
                     }
                     break;
                 case XMLStreamConstants.END_DOCUMENT:
                     return;
             }
-            try {
-                reader.next();
-            }
-            catch (XMLStreamException exception) {
-                throw new XmlException("Can't get next event", exception);
-            }
+            next();
         }
     }
 
@@ -281,7 +491,7 @@ public class XmlReader implements AutoCloseable {
      * element that contains the value of the boolean.
      */
     public boolean readBoolean() {
-        return parseBoolean(readString());
+        return parseBoolean(readText());
     }
 
     /**
@@ -289,7 +499,16 @@ public class XmlReader implements AutoCloseable {
      * element that contains the value of the integer.
      */
     public BigInteger readInteger() {
-        return parseInteger(readString());
+        return parseInteger(readText());
+    }
+
+    /**
+     * Reads an integer value from the given XML reader, assuming that the cursor is positioned at the start
+     * element that contains the value of the integer, and returns it as a primitive {@code long}, without creating
+     * a {@link BigInteger}.
+     */
+    public long readLong() {
+        return parseLong(readText());
     }
 
     /**
@@ -297,7 +516,7 @@ public class XmlReader implements AutoCloseable {
      * element that contains the value of the decimal.
      */
     public BigDecimal readDecimal() {
-        return parseDecimal(readString());
+        return parseDecimal(readText());
     }
 
     /**
@@ -305,6 +524,11 @@ public class XmlReader implements AutoCloseable {
      * element that contains the value of the string.
      */
     public String readString() {
+        return intern(readText());
+    }
+
+    // Reads the text of the current element without deduplicating it, used for the values that are parsed:
+    private String readText() {
         try {
             return reader.getElementText();
         }
@@ -312,12 +536,7 @@ public class XmlReader implements AutoCloseable {
             throw new XmlException("Can't get element text", exception);
         }
         finally {
-            try {
-                reader.next();
-            }
-            catch (XMLStreamException exception) {
-                throw new XmlException("Can't get next event", exception);
-            }
+            next();
         }
     }
 
@@ -326,7 +545,7 @@ public class XmlReader implements AutoCloseable {
      * element that contains the value of the date.
      */
     public Date readDate() {
-        return parseDate(readString());
+        return parseDate(readText());
     }
 
     /**
@@ -417,6 +636,15 @@ public class XmlReader implements AutoCloseable {
         }
     }
 
+    public long parseLong(String image) {
+        try {
+            return Long.parseLong(image);
+        }
+        catch (NumberFormatException exception) {
+            throw new XmlException("The text \"" + image + "\" isn't a valid 64 bits integer value");
+        }
+    }
+
     public BigDecimal parseDecimal(String image) {
         try {
             return new BigDecimal(image).stripTrailingZeros();
@@ -428,9 +656,9 @@ public class XmlReader implements AutoCloseable {
 
     public Date parseDate(String image) {
         try {
-            return DATE_FORMAT.get().parse(image);
+            return DateCodec.parse(image);
         }
-        catch(ParseException exception) {
+        catch(IllegalArgumentException exception) {
             throw new XmlException("The text \"" + image + "\" isn't a valid date value");
         }
     }
@@ -448,28 +676,64 @@ public class XmlReader implements AutoCloseable {
     }
 
     /**
-     * Closes the XML document and the underlying source.
+     * Closes the XML document and the underlying source. If metrics are enabled this also records the document.
      */
     public void close() {
+        // The reader may not be attached to any document, if it was created without one and not reset yet:
+        if (reader == null) {
+            return;
+        }
         try {
             reader.close();
         }
         catch (XMLStreamException exception) {
             throw new XmlException("Can't close", exception);
         }
+        if (metered) {
+            METRICS.recordDocument(counter != null ? counter.getByteCount() : bytes, elements, skipped);
+            metered = false;
+        }
     }
 
 
     /**
-     * Registers a read method.
+     * Registers a read method. Note that calling the method will be done using reflection, so it is better to use
+     * the {@link #register(String, XmlObjectReader)} method.
      *
      * @param tag The tag name.
      * @param reader The reference to the method that reads the object corresponding to the `tag`.
      */
     public static void register(String tag, Method reader) {
+        readers.put(tag, new MethodReader(tag, reader));
+    }
+
+    /**
+     * Registers an object reader. Readers registered with this method take precedence over the ones provided by the
+     * registries.
+     *
+     * @param tag The tag name.
+     * @param reader The object reader for the `tag`.
+     */
+    public static void register(String tag, XmlObjectReader reader) {
         readers.put(tag, reader);
     }
 
+    /**
+     * Finds the object reader for the given tag, first in the explicitly registered readers, and then in the
+     * registries.
+     */
+    private static XmlObjectReader findReader(String tag) {
+        XmlObjectReader reader = readers.get(tag);
+        if (reader == null) {
+            for (XmlReaderRegistry registry : RegistriesHolder.INSTANCES) {
+                reader = registry.getReader(tag);
+                if (reader != null) {
+                    break;
+                }
+            }
+        }
+        return reader;
+    }
 
     /**
      * Reads one object, determining the reader method to use based on the tag name of the first element. For example,
@@ -477,33 +741,23 @@ public class XmlReader implements AutoCloseable {
      * will create an array of {@code Vm} objects, so on.
      */
     public Object read() {
-        String tag = null;
-        Method method = null;
-
         try {
             // Do nothing if there aren't more tags:
             if (!forward()) {
                 return null;
             }
 
-            tag = getLocalName();
-            method = readers.get(tag);
-
             // Select the specific reader according to the tag:
-            if (method == null) {
+            String tag = getLocalName();
+            XmlObjectReader reader = findReader(tag);
+            if (reader == null) {
                 throw new RuntimeException(
                     String.format("Can't find a reader for tag '%s'", tag)
                 );
             }
 
             // Read the object using the specific reader:
-            return method.invoke(null, this);
-        }
-        catch (IllegalAccessException | InvocationTargetException exception) {
-            throw new RuntimeException(
-                String.format("Failed to invoke method '%1$s' to read element for tag '%2$s'", method, tag),
-                exception
-            );
+            return reader.read(this);
         }
         finally {
             close();
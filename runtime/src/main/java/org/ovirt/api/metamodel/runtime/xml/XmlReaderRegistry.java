@@ -0,0 +1,22 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.runtime.xml;
+
+/**
+ * This interface is implemented by the registry classes generated for each version of the model, in order to tell
+ * the {@link XmlReader#read()} method what object reader should be used for each tag. The implementations are
+ * discovered using the {@link java.util.ServiceLoader} mechanism, so they should have a public constructor without
+ * parameters, and they should be listed in the {@code META-INF/services/} file corresponding to this interface.
+ */
+public interface XmlReaderRegistry {
+    /**
+     * Returns the object reader that should be used to read the elements that have the given tag.
+     *
+     * @param tag the name of the tag
+     * @return the object reader, or {@code null} if this registry doesn't know how to read that tag
+     */
+    XmlObjectReader getReader(String tag);
+}
@@ -9,40 +9,61 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
-import java.util.TimeZone;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Result;
 import javax.xml.transform.stream.StreamResult;
 
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsAccumulator;
+import org.ovirt.api.metamodel.runtime.util.DateCodec;
+import org.ovirt.api.metamodel.runtime.util.ReusableUtf8Writer;
+
 /**
  * This class wraps the {@link XMLStreamWriter} class so that the methods don't send checked exceptions, in order to
  * simplify its usage together with streams and lambdas.
  */
 public class XmlWriter implements AutoCloseable {
+    // The accumulator for the metrics of complete documents:
+    private static final MetricsAccumulator METRICS = Metrics.accumulator(Metrics.XML_WRITE, Metrics.DOCUMENT);
+
+    // Indicates if the output should be indented:
+    private final boolean indent;
+
     // The wrapped XML writer:
     private XMLStreamWriter writer;
 
+    // The direct output, used instead of the XML writer when the writer has been created with the
+    // {@link #direct(OutputStream, boolean)} method:
+    private Utf8XmlOutput output;
+
+    // The encoder used when writing to a stream, created the first time that it is needed and then reused when the
+    // writer is reset:
+    private ReusableUtf8Writer encoder;
+
+    // Indicates if metrics were enabled when the current document was started, the number of elements written, and
+    // the encoder that counts the bytes, null if they aren't known:
+    private boolean metered;
+    private long elements;
+    private ReusableUtf8Writer counter;
+
     /**
-     * Thread local used to store the date formats.
+     * Creates an XML writer that isn't attached to any document. One of the {@code reset} methods must be called
+     * before writing. This is intended for writers that are kept in a {@link org.ovirt.api.metamodel.runtime.util.Pool}
+     * and reused for many documents.
+     *
+     * @param indent indicates if the output should be indented
      */
-    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>(){
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-            format.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return format;
-        }
-    };
+    public XmlWriter(boolean indent) {
+        this.indent = indent;
+    }
 
     /**
      * Creates an XML writer that will write to the given result, using UTF-8 as the encoding.
@@ -51,7 +72,8 @@ public class XmlWriter implements AutoCloseable {
      * @param indent indicates if the output should be indented
      */
     public XmlWriter(Result result, boolean indent) {
-        init(result, indent);
+        this.indent = indent;
+        init(result);
     }
 
     /**
@@ -61,9 +83,8 @@ public class XmlWriter implements AutoCloseable {
      * @param indent indicates if the output should be indented
      */
     public XmlWriter(OutputStream out, boolean indent) {
-        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
-        Result result = new StreamResult(writer);
-        init(result, indent);
+        this.indent = indent;
+        reset(out);
     }
 
     /**
@@ -73,8 +94,8 @@ public class XmlWriter implements AutoCloseable {
      * @param indent indicates if the output should be indented
      */
     public XmlWriter(Writer out, boolean indent) {
-        Result result = new StreamResult(out);
-        init(result, indent);
+        this.indent = indent;
+        reset(out);
     }
 
     /**
@@ -84,20 +105,81 @@ public class XmlWriter implements AutoCloseable {
      * @param indent indicates if the output should be indented
      */
     public XmlWriter(File file, boolean indent) {
+        this.indent = indent;
         try {
-            OutputStream out = new FileOutputStream(file);
-            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
-            Result result = new StreamResult(writer);
-            init(result, indent);
+            reset(new FileOutputStream(file));
         }
         catch (IOException exception) {
             throw new XmlException("Can't open file \"" + file.getAbsolutePath() + "\" for writing", exception);
         }
     }
 
-    private void init(Result result, boolean indent) {
+    /**
+     * Creates an XML writer that will write UTF-8 bytes directly to the given stream, without using the
+     * {@link XMLStreamWriter} class. This writer is faster and creates less garbage, as the bytes of the names of
+     * the tags are calculated only once, and the text is encoded and escaped directly into a reusable buffer, but it
+     * only supports the subset of XML used by the generated writers: it doesn't support namespaces, so the methods
+     * that receive a namespace URI and the {@link #setPrefix(String, String)} method will throw an exception. The
+     * generated text is the same that the other writers generate.
+     *
+     * Note that the bytes are buffered, and they are only sent to the stream when the {@link #flush()} or
+     * {@link #close()} methods are called, or when the buffer is full. Closing the writer doesn't close the stream.
+     *
+     * The stream can be null if the writer will be attached to a stream later, with the {@link #reset(OutputStream)}
+     * method.
+     *
+     * @param out the stream where the document will be written
+     * @param indent indicates if the output should be indented
+     * @return the XML writer
+     */
+    public static XmlWriter direct(OutputStream out, boolean indent) {
+        XmlWriter writer = new XmlWriter(indent);
+        writer.output = new Utf8XmlOutput(out, indent);
+        writer.start();
+        return writer;
+    }
+
+    /**
+     * Prepares this writer to write a new document to the given stream, using UTF-8 as the encoding. The buffers are
+     * reused: for a direct writer the output buffer, and for other writers the encoder, so only the StAX writer is
+     * created again. The previous document should have been completed and closed before calling this method, as
+     * whatever hasn't been flushed yet is discarded.
+     *
+     * @param out the stream where the document will be written
+     */
+    public void reset(OutputStream out) {
+        if (output != null) {
+            output.reset(out);
+            start();
+            return;
+        }
+        if (encoder == null) {
+            encoder = new ReusableUtf8Writer();
+        }
+        encoder.reset(out);
+        init(new StreamResult(encoder));
+        counter = encoder;
+    }
+
+    /**
+     * Prepares this writer to write a new document to the given writer. The previous document should have been
+     * completed and closed before calling this method.
+     *
+     * @param out the writer where the document will be written
+     * @throws XmlException if this is a direct writer, as those can only write to streams
+     */
+    public void reset(Writer out) {
+        if (output != null) {
+            throw new XmlException("The direct writer can only write to streams");
+        }
+        init(new StreamResult(out));
+    }
+
+    private void init(Result result) {
+        start();
+        counter = null;
         try {
-            XMLOutputFactory factory = XMLOutputFactory.newFactory();
+            XMLOutputFactory factory = XmlFactories.getOutputFactory();
             writer = factory.createXMLStreamWriter(result);
             if (indent) {
                 IndentingXMLStreamWriter indenter = new IndentingXMLStreamWriter(writer);
@@ -109,6 +191,11 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    private void start() {
+        metered = Metrics.isEnabled();
+        elements = 0;
+    }
+
     /**
      * Writes the start of the document.
      *
@@ -116,6 +203,10 @@ public class XmlWriter implements AutoCloseable {
      * @param version the XML version used in the document
      */
     public void writeStartDocument(String encoding, String version) {
+        if (output != null) {
+            output.writeStartDocument(encoding, version);
+            return;
+        }
         try {
             writer.writeStartDocument(encoding, version);
         }
@@ -128,6 +219,10 @@ public class XmlWriter implements AutoCloseable {
      * Writes the end of the document.
      */
     public void writeEndDocument() {
+        if (output != null) {
+            output.writeEndDocument();
+            return;
+        }
         try {
             writer.writeEndDocument();
         }
@@ -143,6 +238,9 @@ public class XmlWriter implements AutoCloseable {
      * @param uri the namespace URI
      */
     public void setPrefix(String prefix, String uri) {
+        if (output != null) {
+            throw new XmlException("The direct writer doesn't support namespaces");
+        }
         try {
             writer.setPrefix(prefix, uri);
         }
@@ -181,6 +279,21 @@ public class XmlWriter implements AutoCloseable {
         writeEndElement();
     }
 
+    /**
+     * Writes an XML element with the given name and value, like the {@link #writeElement(String, String)} method,
+     * but using the already encoded name when writing directly to a stream.
+     *
+     * @param name the name of the XML element
+     * @param encodedName the name of the XML element encoded with the {@link #encodeName(String)} method, or
+     *     {@code null} if it hasn't been encoded
+     * @param value the text content of the XML element
+     */
+    public void writeElement(String name, byte[] encodedName, String value) {
+        writeStartElement(name, encodedName);
+        writeCharacters(value);
+        writeEndElement();
+    }
+
     /**
      * Writes the start of an XML element with the given name. For example, if the name is {@code size} it will
      * write {@code <size>}.
@@ -189,6 +302,12 @@ public class XmlWriter implements AutoCloseable {
      * @param name the name of the XML element
      */
     public void writeStartElement(String uri, String name) {
+        if (output != null) {
+            throw new XmlException("The direct writer doesn't support namespaces");
+        }
+        if (metered) {
+            elements++;
+        }
         try {
             writer.writeStartElement(uri, name);
         }
@@ -204,6 +323,13 @@ public class XmlWriter implements AutoCloseable {
      * @param name the name of the XML element
      */
     public void writeStartElement(String name) {
+        if (metered) {
+            elements++;
+        }
+        if (output != null) {
+            output.writeStartElement(name);
+            return;
+        }
         try {
             writer.writeStartElement(name);
         }
@@ -212,10 +338,33 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    /**
+     * Writes the start of an XML element with the given name, like the {@link #writeStartElement(String)} method, but
+     * using the already encoded name when writing directly to a stream.
+     *
+     * @param name the name of the XML element
+     * @param encodedName the name of the XML element encoded with the {@link #encodeName(String)} method, or
+     *     {@code null} if it hasn't been encoded
+     */
+    public void writeStartElement(String name, byte[] encodedName) {
+        if (output != null && encodedName != null) {
+            if (metered) {
+                elements++;
+            }
+            output.writeStartElement(encodedName);
+            return;
+        }
+        writeStartElement(name);
+    }
+
     /**
      * Closes the latest XML element started with the {@link #writeStartElement(String)}.
      */
     public void writeEndElement() {
+        if (output != null) {
+            output.writeEndElement();
+            return;
+        }
         try {
             writer.writeEndElement();
         }
@@ -232,6 +381,10 @@ public class XmlWriter implements AutoCloseable {
      * @param value the text content of the XML attribute
      */
     public void writeAttribute(String name, String value) {
+        if (output != null) {
+            output.writeAttribute(name, value);
+            return;
+        }
         try {
             writer.writeAttribute(name, value);
         }
@@ -243,12 +396,33 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    /**
+     * Writes an XML attribute with the given name and value, like the {@link #writeAttribute(String, String)} method,
+     * but using the already encoded name when writing directly to a stream.
+     *
+     * @param name the name of the XML attribute
+     * @param encodedName the name of the XML attribute encoded with the {@link #encodeName(String)} method, or
+     *     {@code null} if it hasn't been encoded
+     * @param value the text content of the XML attribute
+     */
+    public void writeAttribute(String name, byte[] encodedName, String value) {
+        if (output != null && encodedName != null) {
+            output.writeAttribute(encodedName, value);
+            return;
+        }
+        writeAttribute(name, value);
+    }
+
     /**
      * Writes the given characters as text content.
      *
      * @param text the characters to write
      */
     public void writeCharacters(String text) {
+        if (output != null) {
+            output.writeCharacters(text);
+            return;
+        }
         try {
             writer.writeCharacters(text);
         }
@@ -272,6 +446,13 @@ public class XmlWriter implements AutoCloseable {
         writeElement(name, renderBoolean(value));
     }
 
+    /**
+     * Writes a boolean value, using the already encoded name when writing directly to a stream.
+     */
+    public void writeBoolean(String name, byte[] encodedName, boolean value) {
+        writeElement(name, encodedName, renderBoolean(value));
+    }
+
     /**
      * Writes an integer value.
      */
@@ -279,6 +460,28 @@ public class XmlWriter implements AutoCloseable {
         writeElement(name, renderInteger(value));
     }
 
+    /**
+     * Writes an integer value, using the already encoded name when writing directly to a stream.
+     */
+    public void writeInteger(String name, byte[] encodedName, BigInteger value) {
+        writeElement(name, encodedName, renderInteger(value));
+    }
+
+    /**
+     * Writes an integer value stored in a primitive {@code long}.
+     */
+    public void writeLong(String name, long value) {
+        writeElement(name, Long.toString(value));
+    }
+
+    /**
+     * Writes an integer value stored in a primitive {@code long}, using the already encoded name when writing
+     * directly to a stream.
+     */
+    public void writeLong(String name, byte[] encodedName, long value) {
+        writeElement(name, encodedName, Long.toString(value));
+    }
+
     /**
      * Writes a decimal value.
      */
@@ -286,6 +489,13 @@ public class XmlWriter implements AutoCloseable {
         writeElement(name, renderDecimal(value));
     }
 
+    /**
+     * Writes a decimal value, using the already encoded name when writing directly to a stream.
+     */
+    public void writeDecimal(String name, byte[] encodedName, BigDecimal value) {
+        writeElement(name, encodedName, renderDecimal(value));
+    }
+
     /**
      * Writes a date.
      */
@@ -293,6 +503,13 @@ public class XmlWriter implements AutoCloseable {
         writeElement(name, renderDate(value));
     }
 
+    /**
+     * Writes a date, using the already encoded name when writing directly to a stream.
+     */
+    public void writeDate(String name, byte[] encodedName, Date value) {
+        writeElement(name, encodedName, renderDate(value));
+    }
+
     /**
      * Writes a string.
      */
@@ -309,6 +526,15 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    /**
+     * Writes a list of boolean values, using the already encoded name when writing directly to a stream.
+     */
+    public void writeBooleans(String name, byte[] encodedName, List<Boolean> values) {
+        for (Boolean value : values) {
+            writeBoolean(name, encodedName, value);
+        }
+    }
+
     /**
      * Writes a list of integer values.
      */
@@ -318,6 +544,15 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    /**
+     * Writes a list of integer values, using the already encoded name when writing directly to a stream.
+     */
+    public void writeIntegers(String name, byte[] encodedName, List<BigInteger> values) {
+        for (BigInteger value : values) {
+            writeInteger(name, encodedName, value);
+        }
+    }
+
     /**
      * Writes a list of decimal values.
      */
@@ -327,6 +562,15 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    /**
+     * Writes a list of decimal values, using the already encoded name when writing directly to a stream.
+     */
+    public void writeDecimals(String name, byte[] encodedName, List<BigDecimal> values) {
+        for (BigDecimal value : values) {
+            writeDecimal(name, encodedName, value);
+        }
+    }
+
     /**
      * Writes a list of date values.
      */
@@ -336,6 +580,15 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    /**
+     * Writes a list of date values, using the already encoded name when writing directly to a stream.
+     */
+    public void writeDates(String name, byte[] encodedName, List<Date> values) {
+        for (Date value : values) {
+            writeDate(name, encodedName, value);
+        }
+    }
+
     /**
      * Writes a list of string values.
      */
@@ -345,6 +598,23 @@ public class XmlWriter implements AutoCloseable {
         }
     }
 
+    /**
+     * Writes a list of string values, using the already encoded name when writing directly to a stream.
+     */
+    public void writeElements(String name, byte[] encodedName, List<String> values) {
+        for (String value : values) {
+            writeElement(name, encodedName, value);
+        }
+    }
+
+    /**
+     * Encodes a name of an element or attribute so that it can be passed to the methods that accept the already
+     * encoded name. The generated writers use this to calculate the names once, as constants.
+     */
+    public static byte[] encodeName(String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Render a string representation of string value
      */
@@ -377,7 +647,7 @@ public class XmlWriter implements AutoCloseable {
      * Render a string representation of Date value
      */
     public static String renderDate(Date value) {
-        return DATE_FORMAT.get().format(value);
+        return DateCodec.format(value);
     }
 
     /**
@@ -393,6 +663,10 @@ public class XmlWriter implements AutoCloseable {
      * Flushes the output.
      */
     public void flush() {
+        if (output != null) {
+            output.flush();
+            return;
+        }
         try {
             writer.flush();
         }
@@ -402,10 +676,19 @@ public class XmlWriter implements AutoCloseable {
     }
 
     /**
-     * Closes the XML document and the underlying result.
+     * Closes the XML document and the underlying result. If metrics are enabled this also records the document.
      */
     @Override
     public void close() {
+        if (output != null) {
+            output.writeEndDocument();
+            output.flush();
+            if (metered) {
+                METRICS.recordDocument(output.getByteCount(), elements, 0);
+                metered = false;
+            }
+            return;
+        }
         try {
             writer.writeEndDocument();
             writer.close();
@@ -413,5 +696,9 @@ public class XmlWriter implements AutoCloseable {
         catch (XMLStreamException exception) {
             throw new XmlException("Can't close", exception);
         }
+        if (metered) {
+            METRICS.recordDocument(counter != null ? counter.getByteCount() : 0, elements, 0);
+            metered = false;
+        }
     }
 }
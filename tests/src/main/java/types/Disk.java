@@ -14,4 +14,5 @@ import org.ovirt.api.metamodel.annotations.Type;
 public interface Disk {
     String id();
     String alias();
+    Integer provisionedSize();
 }
@@ -0,0 +1,371 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.engine.api.builders.V4Builders.cpu;
+import static org.ovirt.engine.api.builders.V4Builders.disk;
+import static org.ovirt.engine.api.builders.V4Builders.vm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.binary.BinaryException;
+import org.ovirt.api.metamodel.runtime.binary.BinaryReader;
+import org.ovirt.api.metamodel.runtime.binary.BinaryWriter;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+import org.ovirt.engine.api.binary.V4BinaryVmReader;
+import org.ovirt.engine.api.binary.V4BinaryVmWriter;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.types.V4VmDisplayType;
+import org.ovirt.engine.api.types.V4VmType;
+
+/**
+ * Tests for the generated classes that convert objects to and from the binary format. Like the tests of the other
+ * formats they are centered around the {@code Vm} class.
+ */
+public class BinaryTest {
+    /**
+     * Checks that an empty object is written and read back as an empty object.
+     */
+    @Test
+    public void testEmpty() {
+        V4Vm object = roundTrip(vm().build());
+        assertNotNull(object);
+        assertFalse(object.idPresent());
+        assertFalse(object.namePresent());
+        assertFalse(object.disksPresent());
+    }
+
+    /**
+     * Checks that all the kinds of members are written and read back correctly.
+     */
+    @Test
+    public void testAllMembers() {
+        Date date = new Date(1234567890123L);
+        V4Vm object = roundTrip(
+            vm()
+                .id("123")
+                .name("myvm")
+                .fqdn("")
+                .runOnce(true)
+                .deleteProtected(false)
+                .memory(1024)
+                .creationTime(date)
+                .cpu(cpu().mode("mymode"))
+                .disks(disk().id("456").alias("disk1"), disk().id("789").alias("disk2"))
+                .type(V4VmType.SERVER)
+                .displayTypes(V4VmDisplayType.VNC, V4VmDisplayType.SPICE)
+                .properties("a", "b")
+                .build()
+        );
+        assertEquals("123", object.id());
+        assertEquals("myvm", object.name());
+        assertEquals("", object.fqdn());
+        assertTrue(object.runOnce());
+        assertFalse(object.deleteProtected());
+        assertEquals(BigInteger.valueOf(1024), object.memory());
+        assertEquals(date, object.creationTime());
+        assertEquals("mymode", object.cpu().mode());
+        assertEquals(2, object.disks().size());
+        assertEquals("456", object.disks().get(0).id());
+        assertEquals("disk1", object.disks().get(0).alias());
+        assertEquals("789", object.disks().get(1).id());
+        assertEquals("disk2", object.disks().get(1).alias());
+        assertEquals(V4VmType.SERVER, object.type());
+        assertEquals(Arrays.asList(V4VmDisplayType.VNC, V4VmDisplayType.SPICE), object.displayTypes());
+        assertEquals(Arrays.asList("a", "b"), object.properties());
+    }
+
+    /**
+     * Checks that strings containing characters outside of the ASCII range, including surrogate pairs, are preserved.
+     */
+    @Test
+    public void testNonAsciiString() {
+        String name = "máquina 中文 😀";
+        V4Vm object = roundTrip(vm().name(name).build());
+        assertEquals(name, object.name());
+    }
+
+    /**
+     * Checks that strings larger than the buffers are written and read back correctly from a stream.
+     */
+    @Test
+    public void testLargeString() {
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'á');
+        String name = new String(chars);
+        V4Vm object = roundTrip(vm().name(name).build());
+        assertEquals(name, object.name());
+    }
+
+    /**
+     * Checks that negative integers and integers that don't fit in 64 bits are preserved.
+     */
+    @Test
+    public void testIntegers() {
+        assertEquals(BigInteger.valueOf(-1), roundTrip(vm().memory(-1).build()).memory());
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE), roundTrip(vm().memory(Long.MIN_VALUE).build()).memory());
+        BigInteger large = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TEN);
+        assertEquals(large, roundTrip(vm().memory(large).build()).memory());
+    }
+
+    /**
+     * Checks that dates before the epoch are preserved.
+     */
+    @Test
+    public void testDateBeforeEpoch() {
+        Date date = new Date(-1234567890123L);
+        assertEquals(date, roundTrip(vm().creationTime(date).build()).creationTime());
+    }
+
+    /**
+     * Checks that members that the reader doesn't know, including nested objects and lists, are skipped.
+     */
+    @Test
+    public void testUnknownMembers() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            writer.writeStartObject(BinaryWriter.ROOT);
+            writer.writeStartObject(1);
+            writer.writeString(2, "x");
+            writer.writeLong(3, -5);
+            writer.writeEndObject();
+            writer.writeStartList(4);
+            writer.writeString(BinaryWriter.ELEMENT, "y");
+            writer.writeStartObject(BinaryWriter.ELEMENT);
+            writer.writeEndObject();
+            writer.writeEndList();
+            writer.writeInteger(5, BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TEN));
+            writer.writeEndObject();
+        }
+        try (BinaryReader reader = new BinaryReader(out.toByteArray())) {
+            V4Vm object = V4BinaryVmReader.readOne(reader);
+            assertFalse(object.idPresent());
+            assertFalse(object.namePresent());
+        }
+    }
+
+    /**
+     * Checks that the members not included in the projection are skipped.
+     */
+    @Test
+    public void testProjection() {
+        V4Vm original = vm()
+            .id("123")
+            .name("myvm")
+            .disks(disk().id("456").alias("disk1"))
+            .build();
+        byte[] bytes = toBinary(original);
+        try (BinaryReader reader = new BinaryReader(bytes)) {
+            V4Vm object = V4BinaryVmReader.readOne(reader, Projection.of("name", "disks/id"));
+            assertNull(object.id());
+            assertEquals("myvm", object.name());
+            assertEquals("456", object.disks().get(0).id());
+            assertNull(object.disks().get(0).alias());
+        }
+    }
+
+    /**
+     * Checks that a list of objects is written and read back correctly, and that the same reader and writer can be
+     * reused for several documents.
+     */
+    @Test
+    public void testManyAndReset() {
+        List<V4Vm> vms = Arrays.asList(vm().id("1").build(), vm().id("2").build());
+        BinaryWriter writer = new BinaryWriter();
+        BinaryReader reader = new BinaryReader();
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.reset(out);
+            V4BinaryVmWriter.writeMany(vms.iterator(), writer);
+            writer.close();
+            reader.reset(new ByteArrayInputStream(out.toByteArray()));
+            List<V4Vm> list = V4BinaryVmReader.readMany(reader);
+            reader.close();
+            assertEquals(2, list.size());
+            assertEquals("1", list.get(0).id());
+            assertEquals("2", list.get(1).id());
+        }
+    }
+
+    /**
+     * Checks that the same object produces the same bytes, so that the format can be used as a cache key.
+     */
+    @Test
+    public void testDeterministic() {
+        V4Vm object = vm().id("123").name("myvm").disks(disk().id("456")).build();
+        assertArrayEquals(toBinary(object), toBinary(object));
+    }
+
+    /**
+     * Checks that a truncated document is reported with an exception.
+     */
+    @Test(expected = BinaryException.class)
+    public void testTruncated() {
+        byte[] bytes = toBinary(vm().id("123").name("myvm").build());
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        try (BinaryReader reader = new BinaryReader(new ByteArrayInputStream(truncated))) {
+            V4BinaryVmReader.readOne(reader);
+        }
+    }
+
+    /**
+     * Checks that a string with a huge length but without the corresponding bytes is reported with an exception,
+     * instead of allocating an array of that length first.
+     */
+    @Test(expected = BinaryException.class)
+    public void testHugeStringLength() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            writer.writeStartList(BinaryWriter.ROOT);
+            writer.writeString(BinaryWriter.ELEMENT, "x");
+            writer.writeEndList();
+        }
+
+        // Replace the length of the string, one byte, with the largest length that can be encoded:
+        byte[] bytes = out.toByteArray();
+        int index = 0;
+        while (bytes[index] != 'x') {
+            index++;
+        }
+        ByteArrayOutputStream patched = new ByteArrayOutputStream();
+        patched.write(bytes, 0, index - 1);
+        patched.write(new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 }, 0, 5);
+        patched.write(bytes, index, bytes.length - index);
+        try (BinaryReader reader = new BinaryReader(new ByteArrayInputStream(patched.toByteArray()))) {
+            reader.startList();
+            reader.nextElement();
+            reader.readString();
+        }
+    }
+
+    /**
+     * Checks that a member with a value of the wrong type is reported with an exception.
+     */
+    @Test(expected = BinaryException.class)
+    public void testWrongType() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            writer.writeStartList(BinaryWriter.ROOT);
+            writer.writeString(BinaryWriter.ELEMENT, "x");
+            writer.writeEndList();
+        }
+        try (BinaryReader reader = new BinaryReader(out.toByteArray())) {
+            V4BinaryVmReader.readMany(reader);
+        }
+    }
+
+    /**
+     * Checks that an enum value that doesn't fit in an {@code int} is reported with an exception, instead of being
+     * truncated.
+     */
+    @Test(expected = BinaryException.class)
+    public void testEnumOutOfRange() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            writer.writeStartList(BinaryWriter.ROOT);
+            writer.writeLong(BinaryWriter.ELEMENT, 1L << 40);
+            writer.writeEndList();
+        }
+        try (BinaryReader reader = new BinaryReader(out.toByteArray())) {
+            reader.startList();
+            reader.nextElement();
+            reader.readEnum();
+        }
+    }
+
+    /**
+     * Checks that values nested a reasonable number of levels are skipped.
+     */
+    @Test
+    public void testSkipNested() {
+        try (BinaryReader reader = new BinaryReader(nestedLists(100))) {
+            reader.startList();
+            reader.nextElement();
+            reader.skipValue();
+            assertFalse(reader.nextElement());
+        }
+    }
+
+    /**
+     * Checks that skipping values nested too deeply is reported with an exception, instead of exhausting the stack.
+     */
+    @Test(expected = BinaryException.class)
+    public void testSkipTooDeep() {
+        try (BinaryReader reader = new BinaryReader(nestedLists(100000))) {
+            reader.startList();
+            reader.nextElement();
+            reader.skipValue();
+        }
+    }
+
+    /**
+     * Checks that the binary format is smaller than the JSON format.
+     */
+    @Test
+    public void testSmallerThanJson() {
+        V4Vm object = vm()
+            .id("123e4567-e89b-12d3-a456-426614174000")
+            .name("myvm")
+            .memory(1073741824L)
+            .creationTime(new Date())
+            .runOnce(true)
+            .disks(
+                disk().id("223e4567-e89b-12d3-a456-426614174000").alias("disk1"),
+                disk().id("323e4567-e89b-12d3-a456-426614174000").alias("disk2")
+            )
+            .build();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(json, false)) {
+            V4JsonVmWriter.writeOne(object, writer);
+        }
+        byte[] binary = toBinary(object);
+        assertTrue(binary.length + " >= " + json.size(), binary.length < json.size());
+    }
+
+    private byte[] nestedLists(int depth) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            writer.writeStartList(BinaryWriter.ROOT);
+            for (int i = 0; i < depth; i++) {
+                writer.writeStartList(BinaryWriter.ELEMENT);
+            }
+            for (int i = 0; i < depth; i++) {
+                writer.writeEndList();
+            }
+            writer.writeEndList();
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] toBinary(V4Vm object) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            V4BinaryVmWriter.writeOne(object, writer);
+        }
+        return out.toByteArray();
+    }
+
+    private V4Vm roundTrip(V4Vm object) {
+        byte[] bytes = toBinary(object);
+        try (BinaryReader reader = new BinaryReader(new ByteArrayInputStream(bytes))) {
+            return V4BinaryVmReader.readOne(reader);
+        }
+    }
+}
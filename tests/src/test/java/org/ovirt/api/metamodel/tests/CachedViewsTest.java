@@ -0,0 +1,113 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.engine.api.primitive.builders.V4Builders.disk;
+import static org.ovirt.engine.api.primitive.builders.V4Builders.vm;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.util.ListWithHref;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.engine.api.primitive.containers.V4VmContainer;
+import org.ovirt.engine.api.primitive.types.V4Disk;
+import org.ovirt.engine.api.primitive.types.V4Vm;
+import org.ovirt.engine.api.primitive.xml.V4XmlVmReader;
+
+/**
+ * Tests for the code generated with the {@code --cached-views} option, where the getters of the generated containers
+ * return views that are created when the value is set.
+ */
+public class CachedViewsTest {
+    /**
+     * Checks that the list getter returns the same unmodifiable view in each call.
+     */
+    @Test
+    public void testSameListView() {
+        V4Vm object = vm().disks(disk().id("1"), disk().id("2")).build();
+        List<V4Disk> disks = object.disks();
+        assertSame(disks, object.disks());
+        assertEquals(2, disks.size());
+        assertEquals("1", disks.get(0).id());
+    }
+
+    /**
+     * Checks that the view can't be used to modify the list.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testListViewIsUnmodifiable() {
+        V4Vm object = vm().disks(disk().id("1")).build();
+        object.disks().clear();
+    }
+
+    /**
+     * Checks that the getter of a list that hasn't been set returns an empty list.
+     */
+    @Test
+    public void testUnsetList() {
+        V4Vm object = vm().build();
+        assertTrue(object.disks().isEmpty());
+    }
+
+    /**
+     * Checks that setting the list replaces the view.
+     */
+    @Test
+    public void testSetReplacesView() {
+        V4VmContainer object = new V4VmContainer();
+        object.disks(Arrays.<V4Disk>asList(disk().id("1").build()));
+        List<V4Disk> before = object.disks();
+        object.disks(Arrays.<V4Disk>asList(disk().id("2").build(), disk().id("3").build()));
+        List<V4Disk> after = object.disks();
+        assertNotSame(before, after);
+        assertEquals(1, before.size());
+        assertEquals(2, after.size());
+        object.disks(null);
+        assertTrue(object.disks().isEmpty());
+    }
+
+    /**
+     * Checks that the {@code href} of a list of links read from XML is preserved by the view.
+     */
+    @Test
+    public void testListWithHref() {
+        String xml = "<vm><link rel=\"tags\" href=\"/vms/123/tags\"/></vm>";
+        V4Vm object;
+        try (XmlReader reader = new XmlReader(new StringReader(xml))) {
+            object = V4XmlVmReader.readOne(reader);
+        }
+        assertSame(object.tags(), object.tags());
+        assertTrue(object.tags() instanceof ListWithHref);
+        assertEquals("/vms/123/tags", ((ListWithHref) object.tags()).href());
+    }
+
+    /**
+     * Checks that the date getter still returns a copy, so that modifying it doesn't change the container, and that
+     * the setter still copies its input.
+     */
+    @Test
+    public void testDate() {
+        Date date = new Date(1234567890000L);
+        V4VmContainer object = new V4VmContainer();
+        object.creationTime(date);
+        assertNotSame(object.creationTime(), object.creationTime());
+        date.setTime(0);
+        assertEquals(1234567890000L, object.creationTime().getTime());
+        object.creationTime().setTime(0);
+        assertEquals(1234567890000L, object.creationTime().getTime());
+        object.creationTime(null);
+        assertNull(object.creationTime());
+    }
+}
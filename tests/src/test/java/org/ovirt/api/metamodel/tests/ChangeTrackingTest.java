@@ -0,0 +1,227 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.engine.api.primitive.builders.V4Builders.cpu;
+import static org.ovirt.engine.api.primitive.builders.V4Builders.disk;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.lazy.containers.V4CpuContainer;
+import org.ovirt.engine.api.primitive.containers.V4DiskContainer;
+import org.ovirt.engine.api.primitive.containers.V4VmContainer;
+import org.ovirt.engine.api.primitive.json.V4JsonVmWriter;
+import org.ovirt.engine.api.primitive.types.V4Disk;
+import org.ovirt.engine.api.primitive.xml.V4XmlVmReader;
+import org.ovirt.engine.api.primitive.xml.V4XmlVmWriter;
+
+/**
+ * Tests for the code generated with the {@code --track-changes} option, where the containers record the members that
+ * are changed, and the writers can write only those members.
+ */
+public class ChangeTrackingTest {
+    private static final String XML =
+        "<vm id=\"123\">" +
+          "<cpu><mode>mymode</mode></cpu>" +
+          "<memory>1024</memory>" +
+          "<name>myvm</name>" +
+        "</vm>";
+
+    /**
+     * Checks that when changes aren't tracked all the members are considered changed, so the delta is the complete
+     * object.
+     */
+    @Test
+    public void testNotTracking() {
+        V4VmContainer object = objectFromXml(XML);
+        assertTrue(object.nameChanged());
+        assertEquals(objectToXml(object), deltaToXml(object));
+    }
+
+    /**
+     * Checks that after starting to track changes only the members that are set are written.
+     */
+    @Test
+    public void testOnlyChangedMembersWritten() {
+        V4VmContainer object = objectFromXml(XML);
+        object.trackChanges();
+        assertFalse(object.nameChanged());
+        assertEquals("<vm></vm>", deltaToXml(object));
+        assertEquals("{}", deltaToJson(object));
+
+        object.name("yourvm");
+        object.memory(2048L);
+        assertTrue(object.nameChanged());
+        assertTrue(object.memoryChanged());
+        assertFalse(object.idChanged());
+        assertEquals("<vm><memory>2048</memory><name>yourvm</name></vm>", deltaToXml(object));
+        assertEquals("{\"memory\":2048,\"name\":\"yourvm\"}", deltaToJson(object));
+    }
+
+    /**
+     * Checks that all the kinds of setters record the change, and that nested structs and lists are written
+     * completely when they change.
+     */
+    @Test
+    public void testAllSetters() {
+        V4VmContainer object = objectFromXml(XML);
+        object.trackChanges();
+        object.memory(BigInteger.valueOf(4096));
+        object.runOnce(true);
+        object.cpu(cpu().mode("other").build());
+        object.disks(Arrays.<V4Disk>asList(disk().id("456").build()));
+        assertEquals(
+            "<vm>" +
+              "<cpu><mode>other</mode></cpu>" +
+              "<disks><disk id=\"456\"></disk></disks>" +
+              "<memory>4096</memory>" +
+              "<run_once>true</run_once>" +
+            "</vm>",
+            deltaToXml(object)
+        );
+    }
+
+    /**
+     * Checks that changes made directly to a nested struct, without calling the setter of the parent, are detected,
+     * and that only the changed members of the nested struct are written.
+     */
+    @Test
+    public void testNestedStructChanged() {
+        V4VmContainer object = objectFromXml(XML);
+        object.trackChanges();
+        assertFalse(object.hasChanges());
+        ((org.ovirt.engine.api.primitive.containers.V4CpuContainer) object.cpu()).mode("other");
+        assertFalse(object.cpuChanged());
+        assertTrue(object.hasChanges());
+        assertEquals("<vm><cpu><mode>other</mode></cpu></vm>", deltaToXml(object));
+        assertEquals("{\"cpu\":{\"mode\":\"other\"}}", deltaToJson(object));
+    }
+
+    /**
+     * Checks that changes made directly to an element of a list of structs are detected, and that the list is then
+     * written completely.
+     */
+    @Test
+    public void testListElementChanged() {
+        V4VmContainer object = objectFromXml(
+            "<vm>" +
+              "<disks>" +
+                "<disk id=\"456\"><alias>first</alias></disk>" +
+                "<disk id=\"789\"><alias>second</alias></disk>" +
+              "</disks>" +
+              "<name>myvm</name>" +
+            "</vm>"
+        );
+        object.trackChanges();
+        assertFalse(object.disksChanged());
+        ((V4DiskContainer) object.disks().get(1)).alias("third");
+        assertTrue(object.disksChanged());
+        assertTrue(object.hasChanges());
+        assertEquals(
+            "<vm>" +
+              "<disks>" +
+                "<disk id=\"456\"><alias>first</alias></disk>" +
+                "<disk id=\"789\"><alias>third</alias></disk>" +
+              "</disks>" +
+            "</vm>",
+            deltaToXml(object)
+        );
+    }
+
+    /**
+     * Checks that members that are removed after starting to track changes aren't written, as the documents can't
+     * express the removal.
+     */
+    @Test
+    public void testRemovedMemberNotWritten() {
+        V4VmContainer object = objectFromXml(XML);
+        object.trackChanges();
+        object.name(null);
+        assertTrue(object.nameChanged());
+        assertEquals("<vm></vm>", deltaToXml(object));
+    }
+
+    /**
+     * Checks that starting to track changes again forgets the changes recorded so far.
+     */
+    @Test
+    public void testTrackAgain() {
+        V4VmContainer object = objectFromXml(XML);
+        object.trackChanges();
+        object.name("yourvm");
+        object.trackChanges();
+        assertFalse(object.nameChanged());
+        assertEquals("<vm></vm>", deltaToXml(object));
+    }
+
+    /**
+     * Checks that the setters of the containers that store nested structs in deferred form also record changes.
+     */
+    @Test
+    public void testLazyStructs() {
+        byte[] json = "{\"cpu\":{\"mode\":\"mymode\"},\"name\":\"myvm\"}".getBytes(StandardCharsets.UTF_8);
+        org.ovirt.engine.api.lazy.types.V4Vm object;
+        try (JsonReader reader = new JsonReader(json)) {
+            object = org.ovirt.engine.api.lazy.json.V4JsonVmReader.readOne(reader);
+        }
+        object.trackChanges();
+        assertFalse(object.cpuChanged());
+        V4CpuContainer cpu = new V4CpuContainer();
+        cpu.mode("other");
+        ((org.ovirt.engine.api.lazy.containers.V4VmContainer) object).cpu(cpu);
+        assertTrue(object.cpuChanged());
+        assertFalse(object.nameChanged());
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(buffer, false)) {
+            org.ovirt.engine.api.lazy.json.V4JsonVmWriter.writeDelta(object, writer);
+        }
+        assertEquals("{\"cpu\":{\"mode\":\"other\"}}", buffer.toString());
+    }
+
+    private V4VmContainer objectFromXml(String text) {
+        try (XmlReader reader = new XmlReader(new StringReader(text))) {
+            return (V4VmContainer) V4XmlVmReader.readOne(reader);
+        }
+    }
+
+    private String objectToXml(V4VmContainer object) {
+        StringWriter buffer = new StringWriter();
+        try (XmlWriter writer = new XmlWriter(buffer, false)) {
+            V4XmlVmWriter.writeOne(object, writer);
+            writer.flush();
+        }
+        return buffer.toString();
+    }
+
+    private String deltaToXml(V4VmContainer object) {
+        StringWriter buffer = new StringWriter();
+        try (XmlWriter writer = new XmlWriter(buffer, false)) {
+            V4XmlVmWriter.writeDelta(object, writer);
+            writer.flush();
+        }
+        return buffer.toString();
+    }
+
+    private String deltaToJson(V4VmContainer object) {
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(buffer, false)) {
+            V4JsonVmWriter.writeDelta(object, writer);
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.columns.EnumColumn;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.types.V4VmColumns;
+import org.ovirt.engine.api.types.V4VmType;
+import org.ovirt.engine.api.xml.V4XmlVmReader;
+
+/**
+ * Tests for the {@code readColumns} methods of the generated readers, that store the attributes of the elements of a
+ * list in columns instead of creating the objects.
+ */
+public class ColumnsTest {
+    private static final String XML =
+        "<vms>" +
+          "<vm id=\"1\">" +
+            "<cpu><mode>mymode</mode></cpu>" +
+            "<creation_time>2016-01-17T16:18:23.123Z</creation_time>" +
+            "<delete_protected>true</delete_protected>" +
+            "<disks><disk id=\"11\"/></disks>" +
+            "<memory>1024</memory>" +
+            "<name>myvm</name>" +
+            "<type>server</type>" +
+          "</vm>" +
+          "<vm id=\"2\">" +
+            "<memory>2048</memory>" +
+            "<name>yourvm</name>" +
+            "<type>desktop</type>" +
+          "</vm>" +
+          "<vm id=\"3\">" +
+            "<delete_protected>false</delete_protected>" +
+            "<name>myvm</name>" +
+          "</vm>" +
+        "</vms>";
+
+    private static final String JSON =
+        "[" +
+          "{" +
+            "\"id\":\"1\"," +
+            "\"cpu\":{\"mode\":\"mymode\"}," +
+            "\"creation_time\":\"2016-01-17T16:18:23.123Z\"," +
+            "\"delete_protected\":true," +
+            "\"disks\":[{\"id\":\"11\"}]," +
+            "\"memory\":1024," +
+            "\"name\":\"myvm\"," +
+            "\"type\":\"server\"" +
+          "}," +
+          "{" +
+            "\"id\":\"2\"," +
+            "\"memory\":2048," +
+            "\"name\":\"yourvm\"," +
+            "\"type\":\"desktop\"" +
+          "}," +
+          "{" +
+            "\"id\":\"3\"," +
+            "\"delete_protected\":false," +
+            "\"name\":\"myvm\"" +
+          "}" +
+        "]";
+
+    /**
+     * Checks that the XML reader stores the values of all the attributes, and skips the nested objects and lists.
+     */
+    @Test
+    public void testXml() {
+        V4VmColumns columns = new V4VmColumns();
+        try (XmlReader reader = new XmlReader(new StringReader(XML))) {
+            V4XmlVmReader.readColumns(reader, columns);
+        }
+        checkColumns(columns);
+    }
+
+    /**
+     * Checks that the JSON reader stores the values of all the attributes, and skips the nested objects and lists.
+     */
+    @Test
+    public void testJson() {
+        V4VmColumns columns = new V4VmColumns();
+        try (JsonReader reader = new JsonReader(JSON.getBytes(StandardCharsets.UTF_8))) {
+            V4JsonVmReader.readColumns(reader, columns);
+        }
+        checkColumns(columns);
+    }
+
+    /**
+     * Checks that only the columns included in the projection are created and filled.
+     */
+    @Test
+    public void testProjection() {
+        V4VmColumns columns = new V4VmColumns(Projection.of("memory"));
+        try (XmlReader reader = new XmlReader(new StringReader(XML))) {
+            V4XmlVmReader.readColumns(reader, columns);
+        }
+        assertEquals(3, columns.getRowCount());
+        assertNull(columns.id());
+        assertNull(columns.name());
+        assertNull(columns.creationTime());
+        assertNotNull(columns.memory());
+        assertEquals(1024L, columns.memory().get(0));
+        assertEquals(2048L, columns.memory().get(1));
+        assertFalse(columns.memory().isPresent(2));
+    }
+
+    /**
+     * Checks that the columns can be cleared and filled again.
+     */
+    @Test
+    public void testClear() {
+        V4VmColumns columns = new V4VmColumns();
+        try (JsonReader reader = new JsonReader(JSON.getBytes(StandardCharsets.UTF_8))) {
+            V4JsonVmReader.readColumns(reader, columns);
+        }
+        columns.clear();
+        assertEquals(0, columns.getRowCount());
+        assertFalse(columns.name().isPresent(0));
+        assertTrue(columns.name().dictionary().isEmpty());
+        try (JsonReader reader = new JsonReader(JSON.getBytes(StandardCharsets.UTF_8))) {
+            V4JsonVmReader.readColumns(reader, columns);
+        }
+        checkColumns(columns);
+    }
+
+    private void checkColumns(V4VmColumns columns) {
+        assertEquals(3, columns.getRowCount());
+
+        // Strings are encoded with a dictionary:
+        assertEquals("1", columns.id().get(0));
+        assertEquals("2", columns.id().get(1));
+        assertEquals("3", columns.id().get(2));
+        assertEquals(asList("myvm", "yourvm"), columns.name().dictionary());
+        assertEquals(0, columns.name().getCode(0));
+        assertEquals(1, columns.name().getCode(1));
+        assertEquals(0, columns.name().getCode(2));
+        assertFalse(columns.fqdn().isPresent(0));
+        assertEquals(-1, columns.fqdn().getCode(0));
+
+        // Integers and dates are stored as longs:
+        assertEquals(1024L, columns.memory().get(0));
+        assertEquals(2048L, columns.memory().get(1));
+        assertFalse(columns.memory().isPresent(2));
+        assertEquals(1453047503123L, columns.creationTime().get(0));
+        assertFalse(columns.creationTime().isPresent(1));
+
+        // Booleans are stored as bits:
+        assertTrue(columns.deleteProtected().get(0));
+        assertFalse(columns.deleteProtected().isPresent(1));
+        assertTrue(columns.deleteProtected().isPresent(2));
+        assertFalse(columns.deleteProtected().get(2));
+        assertEquals(1, columns.deleteProtected().count(3));
+
+        // Enums are stored as ordinals:
+        assertEquals(V4VmType.SERVER.ordinal(), columns.type().get(0));
+        assertEquals(V4VmType.DESKTOP.ordinal(), columns.type().get(1));
+        assertEquals(-1, columns.type().get(2));
+    }
+
+    /**
+     * Checks that the column of enums supports ordinals that don't fit in a signed byte. The last Unicode script has
+     * an ordinal larger than 127.
+     */
+    @Test
+    public void testEnumColumnLargeOrdinal() {
+        Character.UnicodeScript[] scripts = Character.UnicodeScript.values();
+        Character.UnicodeScript last = scripts[scripts.length - 1];
+        assertTrue(last.ordinal() > Byte.MAX_VALUE);
+        EnumColumn column = new EnumColumn();
+        column.set(0, last);
+        assertEquals(last.ordinal(), column.get(0));
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.engine.api.lazy.builders.V4Builders.disk;
+import static org.ovirt.engine.api.lazy.builders.V4Builders.vm;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.lazy.containers.V4Container;
+import org.ovirt.engine.api.lazy.json.V4JsonVmReader;
+import org.ovirt.engine.api.lazy.containers.V4VmContainer;
+import org.ovirt.engine.api.lazy.types.V4Disk;
+import org.ovirt.engine.api.lazy.types.V4Vm;
+import org.ovirt.engine.api.lazy.types.V4VmVisitor;
+import org.ovirt.engine.api.lazy.xml.V4XmlVmReader;
+import org.ovirt.engine.api.lazy.xml.V4XmlVmWriter;
+
+/**
+ * Tests for the code generated with the {@code --compact-containers} option, where the containers store the members
+ * that are present in a dense array instead of in one field per member.
+ */
+public class CompactContainersTest {
+    /**
+     * Checks that members set in any order can be retrieved, and that the members that aren't set are not present.
+     */
+    @Test
+    public void testSetInAnyOrder() {
+        V4VmContainer object = new V4VmContainer();
+        object.name("myvm");
+        object.id("123");
+        object.memory(BigInteger.valueOf(1024));
+        object.creationTime(new Date(1000));
+        object.deleteProtected(true);
+        assertEquals("myvm", object.name());
+        assertEquals("123", object.id());
+        assertEquals(1024L, (long) object.memoryAsLong());
+        assertEquals(1000L, object.creationTime().getTime());
+        assertTrue(object.deleteProtected());
+        assertTrue(object.namePresent());
+        assertFalse(object.fqdnPresent());
+        assertNull(object.fqdn());
+    }
+
+    /**
+     * Checks that replacing and removing members doesn't affect the other members.
+     */
+    @Test
+    public void testReplaceAndRemove() {
+        V4VmContainer object = new V4VmContainer();
+        object.id("123");
+        object.name("myvm");
+        object.fqdn("myvm.example.com");
+        object.name("yourvm");
+        assertEquals("yourvm", object.name());
+        object.name(null);
+        assertFalse(object.namePresent());
+        assertEquals("123", object.id());
+        assertEquals("myvm.example.com", object.fqdn());
+        object.id(null);
+        object.fqdn(null);
+        assertFalse(object.idPresent());
+        assertFalse(object.fqdnPresent());
+        object.name("myvm");
+        assertEquals("myvm", object.name());
+    }
+
+    /**
+     * Checks that lists are copied when set, and that empty lists aren't present.
+     */
+    @Test
+    public void testLists() {
+        V4Vm object = vm().disks(disk().id("1"), disk().id("2")).build();
+        assertTrue(object.disksPresent());
+        assertEquals(2, object.disks().size());
+        assertEquals("2", object.disks().get(1).id());
+        V4VmContainer container = (V4VmContainer) object;
+        container.disks(Collections.<V4Disk>emptyList());
+        assertFalse(container.disksPresent());
+        container.disks(null);
+        assertTrue(container.disks().isEmpty());
+        container.disks(Arrays.<V4Disk>asList(disk().id("3").build()));
+        assertEquals("3", container.disks().get(0).id());
+    }
+
+    /**
+     * Checks that documents read into compact containers are written back unchanged.
+     */
+    @Test
+    public void testRoundTrip() {
+        String xml =
+            "<vm id=\"123\">" +
+              "<creation_time>1970-01-01T00:00:01.000Z</creation_time>" +
+              "<disks><disk id=\"456\"></disk><disk id=\"789\"></disk></disks>" +
+              "<memory>1024</memory>" +
+              "<name>myvm</name>" +
+            "</vm>";
+        V4Vm object;
+        try (XmlReader reader = new XmlReader(new StringReader(xml))) {
+            object = V4XmlVmReader.readOne(reader);
+        }
+        StringWriter buffer = new StringWriter();
+        try (XmlWriter writer = new XmlWriter(buffer, false)) {
+            V4XmlVmWriter.writeOne(object, writer);
+            writer.flush();
+        }
+        assertEquals(xml, buffer.toString());
+    }
+
+    /**
+     * Checks the storage methods of the base container with indexes that span several words of the bit set, and that
+     * the members that are present can be iterated with a bit scan.
+     */
+    @Test
+    public void testWideStorage() {
+        new V4Container() {
+            {
+                int[] indexes = { 130, 3, 64, 0, 63, 200 };
+                for (int index : indexes) {
+                    setValue(index, index);
+                }
+                for (int index : indexes) {
+                    assertTrue(hasValue(index));
+                    assertEquals(index, getValue(index));
+                }
+                assertFalse(hasValue(1));
+                assertFalse(hasValue(1000));
+                assertNull(getValue(65));
+
+                setValue(64, null);
+                assertFalse(hasValue(64));
+                assertEquals(130, getValue(130));
+                assertEquals(63, getValue(63));
+
+                StringBuilder present = new StringBuilder();
+                for (int index = nextPresent(0); index >= 0; index = nextPresent(index + 1)) {
+                    present.append(index).append(' ');
+                }
+                assertEquals("0 3 63 130 200 ", present.toString());
+            }
+        };
+    }
+
+    /**
+     * Checks that the members that are present in a container can be iterated with a bit scan, and that their indexes
+     * can be mapped back to their names.
+     */
+    @Test
+    public void testIteratePresentMembers() {
+        V4VmContainer object = new V4VmContainer();
+        object.name("myvm");
+        object.id("123");
+        object.memory(BigInteger.valueOf(1024));
+        object.deleteProtected(true);
+        object.memory(null);
+
+        StringBuilder present = new StringBuilder();
+        for (int index = object.nextPresent(0); index >= 0; index = object.nextPresent(index + 1)) {
+            present.append(object.memberName(index)).append(' ');
+        }
+        assertEquals("deleteProtected id name ", present.toString());
+        assertNull(object.memberName(-1));
+        assertNull(object.memberName(1000));
+    }
+
+    /**
+     * Checks that an empty nested list is set in the object both when it is read with and without a visitor, also
+     * when the visitor discards all the elements, so that both ways produce the same object.
+     */
+    @Test
+    public void testEmptyNestedListWithAndWithoutVisitor() {
+        V4VmVisitor discarding = new V4VmVisitor() {
+            @Override
+            public boolean visitDisk(V4Disk element) {
+                return false;
+            }
+        };
+
+        // XML:
+        String xml = "<vm><disks/></vm>";
+        try (XmlReader reader = new XmlReader(new StringReader(xml))) {
+            assertEquals("disks ", presentMembers(V4XmlVmReader.readOne(reader)));
+        }
+        try (XmlReader reader = new XmlReader(new StringReader(xml))) {
+            assertEquals("disks ", presentMembers(V4XmlVmReader.visitOne(reader, new V4VmVisitor() {})));
+        }
+        xml = "<vm><disks><disk id=\"123\"/></disks></vm>";
+        try (XmlReader reader = new XmlReader(new StringReader(xml))) {
+            assertEquals("disks ", presentMembers(V4XmlVmReader.visitOne(reader, discarding)));
+        }
+
+        // JSON:
+        String json = "{\"disks\":[]}";
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            assertEquals("disks ", presentMembers(V4JsonVmReader.readOne(reader)));
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            assertEquals("disks ", presentMembers(V4JsonVmReader.visitOne(reader, new V4VmVisitor() {})));
+        }
+        json = "{\"disks\":[{\"id\":\"123\"}]}";
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            assertEquals("disks ", presentMembers(V4JsonVmReader.visitOne(reader, discarding)));
+        }
+    }
+
+    /**
+     * Returns the names of the members that are present in the given object, separated by spaces.
+     */
+    private static String presentMembers(V4Vm object) {
+        V4VmContainer container = (V4VmContainer) object;
+        StringBuilder present = new StringBuilder();
+        for (int index = container.nextPresent(0); index >= 0; index = container.nextPresent(index + 1)) {
+            present.append(container.memberName(index)).append(' ');
+        }
+        return present.toString();
+    }
+}
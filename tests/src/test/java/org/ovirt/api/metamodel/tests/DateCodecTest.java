@@ -0,0 +1,70 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.util.DateCodec;
+
+/**
+ * Tests for the parsing and formatting of the dates used by the API.
+ */
+public class DateCodecTest {
+    /**
+     * Checks that the text of a usual date is generated and parsed.
+     */
+    @Test
+    public void testUsualDate() {
+        assertEquals("2016-01-17T16:18:23.123Z", DateCodec.format(1453047503123L));
+        assertEquals(1453047503123L, DateCodec.parseMillis("2016-01-17T16:18:23.123Z"));
+        assertEquals(1453047503123L, DateCodec.parseMillis("2016-01-17T17:18:23.123+01:00"));
+    }
+
+    /**
+     * Checks that years before 1 are formatted with a sign, using the numbering of ISO 8601 and the proleptic
+     * Gregorian calendar, and that they are parsed back.
+     */
+    @Test
+    public void testNegativeYears() {
+        assertEquals("0000-01-01T00:00:00.000Z", DateCodec.format(-62167219200000L));
+        assertEquals("-0001-12-31T23:59:59.999Z", DateCodec.format(-62167219200001L));
+        assertEquals(-62167219200001L, DateCodec.parseMillis("-0001-12-31T23:59:59.999Z"));
+        assertEquals(-62167219200000L, DateCodec.parseMillis("+0000-01-01T00:00:00.000Z"));
+    }
+
+    /**
+     * Checks that dates before the introduction of the Gregorian calendar use the proleptic Gregorian calendar.
+     */
+    @Test
+    public void testBeforeGregorian() {
+        assertEquals("1000-01-01T00:00:00.000Z", DateCodec.format(-30610224000000L));
+        assertEquals(-30610224000000L, DateCodec.parseMillis("1000-01-01T00:00:00.000Z"));
+    }
+
+    /**
+     * Checks that formatting and parsing back gives the same value for extreme and unusual dates, including the ones
+     * with years of more than four digits.
+     */
+    @Test
+    public void testRoundTrip() {
+        long[] values = {
+            Long.MIN_VALUE,
+            Long.MIN_VALUE + 1,
+            -62167219200001L,
+            -1L,
+            0L,
+            253402300800000L,
+            Long.MAX_VALUE - 1,
+            Long.MAX_VALUE,
+        };
+        for (long value : values) {
+            String text = DateCodec.format(value);
+            assertEquals(text, value, DateCodec.parseMillis(text));
+        }
+        assertEquals("10000-01-01T00:00:00.000Z", DateCodec.format(253402300800000L));
+    }
+}
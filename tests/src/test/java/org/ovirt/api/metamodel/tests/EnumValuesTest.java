@@ -0,0 +1,103 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.util.RateLimitedLogger;
+import org.ovirt.engine.api.types.V4VmDisplayType;
+import org.ovirt.engine.api.types.V4VmType;
+import org.slf4j.Logger;
+
+/**
+ * Tests for the conversion of strings into the generated enum types, and for the rate limited logger used to report
+ * invalid values.
+ */
+public class EnumValuesTest {
+    /**
+     * Checks that the exact images of the values are converted.
+     */
+    @Test
+    public void testExactMatch() {
+        assertSame(V4VmType.DESKTOP, V4VmType.fromValue("desktop"));
+        assertSame(V4VmType.SERVER, V4VmType.fromValue("server"));
+        assertSame(V4VmDisplayType.SPICE, V4VmDisplayType.fromValue("spice"));
+    }
+
+    /**
+     * Checks that images with different case are also converted.
+     */
+    @Test
+    public void testCaseInsensitiveMatch() {
+        assertSame(V4VmType.DESKTOP, V4VmType.fromValue("DESKTOP"));
+        assertSame(V4VmType.SERVER, V4VmType.fromValue("Server"));
+        assertSame(V4VmDisplayType.VNC, V4VmDisplayType.fromValue("VnC"));
+    }
+
+    /**
+     * Checks that unknown images are converted to {@code null} instead of throwing an exception.
+     */
+    @Test
+    public void testUnknownValue() {
+        assertNull(V4VmType.fromValue("laptop"));
+        assertNull(V4VmType.fromValue(""));
+    }
+
+    /**
+     * Checks that the rate limited logger writes only the first warning of each interval, and that it reports the
+     * number of discarded warnings in the next one that it writes.
+     */
+    @Test
+    public void testWarningRateLimit() throws InterruptedException {
+        List<List<Object>> warnings = new ArrayList<>();
+        RateLimitedLogger log = new RateLimitedLogger(recordingLogger(warnings), 200, TimeUnit.MILLISECONDS);
+        log.warn("Bad value '{}'.", "a");
+        log.warn("Bad value '{}'.", "b");
+        log.warn("Bad value '{}'.", "c");
+        assertEquals(1, warnings.size());
+        assertEquals(Arrays.asList("Bad value '{}'.", "a"), warnings.get(0));
+
+        Thread.sleep(300);
+        log.warn("Bad value '{}'.", "d");
+        assertEquals(2, warnings.size());
+        assertEquals(
+            Arrays.asList("Bad value '{}'. {} similar warnings were discarded before this one.", "d", 2L),
+            warnings.get(1)
+        );
+    }
+
+    /**
+     * Creates a logger that adds the format and the arguments of each warning to the given list.
+     */
+    private static Logger recordingLogger(final List<List<Object>> warnings) {
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                case "isWarnEnabled":
+                    return true;
+                case "warn":
+                    warnings.add(Arrays.asList(args));
+                    return null;
+                default:
+                    return method.getReturnType() == boolean.class ? false : null;
+                }
+            }
+        };
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[] { Logger.class }, handler);
+    }
+}
@@ -8,14 +8,20 @@ package org.ovirt.api.metamodel.tests;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PipedReader;
 import java.io.PipedWriter;
 import java.io.StringReader;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
@@ -23,14 +29,20 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import java.util.concurrent.ForkJoinPool;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParsingException;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.util.Pool;
+import org.ovirt.api.metamodel.runtime.util.Projection;
 import org.ovirt.engine.api.json.V4JsonVmReader;
 import org.ovirt.engine.api.types.V4Disk;
 import org.ovirt.engine.api.types.V4Vm;
 import org.ovirt.engine.api.types.V4VmDisplayType;
 import org.ovirt.engine.api.types.V4VmType;
+import org.ovirt.engine.api.types.V4VmVisitor;
 
 /**
  * Tests for the classes that convert JSON to objects. Note that the tests are centered around an specific class,
@@ -352,6 +364,385 @@ public class JsonReaderTest {
         }
     }
 
+    /**
+     * Checks that the elements of nested lists are pushed to the visitor while they are read, and that the ones that
+     * the visitor doesn't keep aren't added to the object.
+     */
+    @Test
+    public void testVisitOneDiscardsNestedElements() {
+        final List<String> ids = new ArrayList<>();
+        V4VmVisitor visitor = new V4VmVisitor() {
+            @Override
+            public boolean visitDisk(V4Disk element) {
+                ids.add(element.id());
+                return element.id().equals("456");
+            }
+        };
+        String text = "{\"name\":\"myvm\",\"disks\":[{\"id\":\"123\"},{\"id\":\"456\"}]}";
+        V4Vm object;
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            object = V4JsonVmReader.visitOne(reader, visitor);
+        }
+        assertEquals(Arrays.asList("123", "456"), ids);
+        assertEquals("myvm", object.name());
+        assertEquals(1, object.disks().size());
+        assertEquals("456", object.disks().get(0).id());
+    }
+
+    /**
+     * Checks that all the objects of a list are pushed to the visitor.
+     */
+    @Test
+    public void testVisitMany() {
+        final List<String> names = new ArrayList<>();
+        V4VmVisitor visitor = new V4VmVisitor() {
+            @Override
+            public void visit(V4Vm object) {
+                names.add(object.name());
+            }
+        };
+        String text = "[{\"name\":\"vm1\"},{\"name\":\"vm2\"}]";
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            V4JsonVmReader.visitMany(reader, visitor);
+        }
+        assertEquals(Arrays.asList("vm1", "vm2"), names);
+    }
+
+    /**
+     * Checks that only the members included in the projection are read, and that the rest, including nested objects
+     * and lists, are skipped.
+     */
+    @Test
+    public void testReadOneWithProjection() {
+        String text =
+            "{" +
+              "\"id\":\"123\"," +
+              "\"cpu\":{\"mode\":\"custom\"}," +
+              "\"disks\":[{\"id\":\"456\",\"alias\":\"mydisk\"}]," +
+              "\"properties\":[\"a\",\"b\"]," +
+              "\"name\":\"myvm\"" +
+            "}";
+        V4Vm object;
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            object = V4JsonVmReader.readOne(reader, Projection.of("name", "disks/id"));
+        }
+        assertEquals("myvm", object.name());
+        assertNull(object.id());
+        assertFalse(object.cpuPresent());
+        assertFalse(object.propertiesPresent());
+        assertEquals(1, object.disks().size());
+        assertEquals("456", object.disks().get(0).id());
+        assertNull(object.disks().get(0).alias());
+    }
+
+    /**
+     * Checks that unknown members are skipped without consuming the members that follow them.
+     */
+    @Test
+    public void testSkipUnknownMembers() {
+        V4Vm object = objectFromJson("{'junk':{'a':[1,2]},'other':'x','name':'myvm'}");
+        assertEquals("myvm", object.name());
+    }
+
+    /**
+     * Checks that the reader that works with bytes produces the same objects than the reader that works with
+     * characters, including nested objects, lists and members that are skipped.
+     */
+    @Test
+    public void testBytes() {
+        String text =
+            "{" +
+              "'id':'123'," +
+              "'name':'myvm'," +
+              "'memory':1073741824," +
+              "'junk':{'a':[1,2.5e3,true,null]}," +
+              "'cpu':{'mode':'custom'}," +
+              "'disks':[{'id':'456'},{'id':'789'}]," +
+              "'run_once':false" +
+            "}";
+        V4Vm object = objectFromBytes(text);
+        assertEquals("123", object.id());
+        assertEquals("myvm", object.name());
+        assertEquals(BigInteger.valueOf(1073741824), object.memory());
+        assertEquals("custom", object.cpu().mode());
+        assertEquals(2, object.disks().size());
+        assertEquals("456", object.disks().get(0).id());
+        assertEquals("789", object.disks().get(1).id());
+        assertFalse(object.runOnce());
+    }
+
+    /**
+     * Checks that the reader that works with bytes decodes escape sequences and non ASCII characters.
+     */
+    @Test
+    public void testBytesEscapesAndUnicode() {
+        V4Vm object = objectFromBytes("{'name':'a\\\"b\\n\\u00e1','fqdn':'\u00f1and\u00fa \u20ac'}");
+        assertEquals("a\"b\n\u00e1", object.name());
+        assertEquals("\u00f1and\u00fa \u20ac", object.fqdn());
+    }
+
+    /**
+     * Checks that the reader that works with bytes identifies members whose names contain escape sequences or non
+     * ASCII characters, and skips the ones that aren't known.
+     */
+    @Test
+    public void testBytesEscapedAndUnicodeNames() {
+        V4Vm object = objectFromBytes("{'n\\u0061me':'myvm','n\u00e1me':'junk','fqdn':'myhost'}");
+        assertEquals("myvm", object.name());
+        assertEquals("myhost", object.fqdn());
+    }
+
+    /**
+     * Checks that the reader that works with bytes returns the same string objects for the names of the members of
+     * the model, and decodes other names each time.
+     */
+    @Test
+    public void testBytesKeyNames() {
+        try (JsonReader reader = new JsonReader(new byte[0])) {
+            // Read a document with the generated reader first, so that the names of the model are known:
+            reader.reset("{\"name\":\"myvm\"}".getBytes(StandardCharsets.UTF_8));
+            V4JsonVmReader.readOne(reader);
+            String[] first = keysFromBytes(reader, "{'name':1,'junk':2}");
+            String[] second = keysFromBytes(reader, "{'name':3,'junk':4}");
+            assertSame(first[0], second[0]);
+            assertEquals("name", first[0]);
+            assertEquals("junk", first[1]);
+            assertEquals("junk", second[1]);
+        }
+    }
+
+    /**
+     * Checks that the names of the model known by one reader aren't used by other readers, as each one may be reading
+     * a different model.
+     */
+    @Test
+    public void testBytesKeyNamesArePerReader() {
+        String[] known;
+        try (JsonReader reader = new JsonReader("{\"name\":\"myvm\"}".getBytes(StandardCharsets.UTF_8))) {
+            V4JsonVmReader.readOne(reader);
+            known = keysFromBytes(reader, "{'name':1}");
+        }
+        String[] unknown;
+        try (JsonReader reader = new JsonReader(new byte[0])) {
+            unknown = keysFromBytes(reader, "{'name':1}");
+        }
+        assertEquals("name", unknown[0]);
+        assertNotSame(known[0], unknown[0]);
+    }
+
+    /**
+     * Checks that the reader that works with bytes rejects numbers with leading zeros, like the JSON specification
+     * requires.
+     */
+    @Test(expected = JsonParsingException.class)
+    public void testBytesLeadingZeros() {
+        objectFromBytes("{'memory':0123}");
+    }
+
+    /**
+     * Checks that the reader that works with bytes accepts zero, with and without sign.
+     */
+    @Test
+    public void testBytesZeros() {
+        assertEquals(BigInteger.ZERO, objectFromBytes("{'memory':0}").memory());
+        assertEquals(BigInteger.ZERO, objectFromBytes("{'memory':-0}").memory());
+    }
+
+    /**
+     * Checks that the reader that works with bytes rejects anything but whitespace after the top level value.
+     */
+    @Test(expected = JsonParsingException.class)
+    public void testBytesTrailingContent() {
+        byte[] bytes = "{} \n x".getBytes(StandardCharsets.UTF_8);
+        try (JsonReader reader = new JsonReader(bytes)) {
+            reader.expect(JsonParser.Event.START_OBJECT);
+            reader.expect(JsonParser.Event.END_OBJECT);
+            reader.next();
+        }
+    }
+
+    /**
+     * Checks that the reader that works with bytes accepts whitespace after the top level value.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testBytesTrailingWhitespace() {
+        byte[] bytes = "{} \n ".getBytes(StandardCharsets.UTF_8);
+        try (JsonReader reader = new JsonReader(bytes)) {
+            reader.expect(JsonParser.Event.START_OBJECT);
+            reader.expect(JsonParser.Event.END_OBJECT);
+            reader.next();
+        }
+    }
+
+    /**
+     * Checks that the reader that works with bytes reads large and negative numbers.
+     */
+    @Test
+    public void testBytesNumbers() {
+        assertEquals(new BigInteger("-1"), objectFromBytes("{'memory':-1}").memory());
+        assertEquals(
+            new BigInteger("12345678901234567890"),
+            objectFromBytes("{'memory':12345678901234567890}").memory()
+        );
+    }
+
+    /**
+     * Checks that the reader that works with bytes can read from buffers that aren't backed by an array, like the
+     * ones used to map files into memory.
+     */
+    @Test
+    public void testDirectBuffer() {
+        byte[] bytes = "{\"name\":\"myvm\",\"disks\":[{\"id\":\"456\"}]}".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        V4Vm object;
+        try (JsonReader reader = new JsonReader(buffer)) {
+            object = V4JsonVmReader.readOne(reader);
+        }
+        assertEquals("myvm", object.name());
+        assertEquals("456", object.disks().get(0).id());
+    }
+
+    /**
+     * Checks that the reader that works with bytes reads lists of objects.
+     */
+    @Test
+    public void testBytesReadMany() {
+        byte[] bytes = "[{\"id\":\"123\"},{\"id\":\"456\"}]".getBytes(StandardCharsets.UTF_8);
+        List<V4Vm> list;
+        try (JsonReader reader = new JsonReader(bytes)) {
+            list = V4JsonVmReader.readMany(reader);
+        }
+        assertEquals(2, list.size());
+        assertEquals("123", list.get(0).id());
+        assertEquals("456", list.get(1).id());
+    }
+
+    /**
+     * Checks that a reader that was never attached to a document can be closed, for example when it is taken from a
+     * pool and closed before being reset.
+     */
+    @Test
+    public void testCloseUnattached() {
+        JsonReader reader = new JsonReader();
+        reader.close();
+        reader.close();
+    }
+
+    /**
+     * Checks that a reader can be reset to read several documents from streams, and that text that contains multi-byte
+     * characters is decoded correctly also when it crosses the boundaries of the internal buffer of the decoder.
+     */
+    @Test
+    public void testResetStream() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            name.append("\u00f1\u4e2d\ud83d\ude00");
+        }
+        JsonReader reader = new JsonReader();
+        for (String text : Arrays.asList("{\"name\":\"" + name + "\"}", "{\"name\":\"myvm\"}")) {
+            reader.reset(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+            V4Vm object = V4JsonVmReader.readOne(reader);
+            assertEquals(text.substring(9, text.length() - 2), object.name());
+        }
+        reader.close();
+    }
+
+    /**
+     * Checks that a reader that works with UTF-8 bytes can be reset to read several documents, also after a document
+     * that wasn't completely read.
+     */
+    @Test
+    public void testResetBytes() {
+        JsonReader reader = new JsonReader("[{\"id\":\"123\"}".getBytes(StandardCharsets.UTF_8));
+        reader.next();
+        reader.next();
+        reader.reset("{\"id\":\"456\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("456", V4JsonVmReader.readOne(reader).id());
+        reader.reset(new StringReader("{\"id\":\"789\"}"));
+        assertEquals("789", V4JsonVmReader.readOne(reader).id());
+        reader.reset("{\"id\":\"abc\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("abc", V4JsonVmReader.readOne(reader).id());
+    }
+
+    /**
+     * Checks that readers taken from a pool are reused after they are released.
+     */
+    @Test
+    public void testPool() {
+        Pool<JsonReader> pool = new Pool<>(1, new Pool.Factory<JsonReader>() {
+            @Override
+            public JsonReader create() {
+                return new JsonReader();
+            }
+        });
+        JsonReader first = pool.acquire();
+        first.reset("{\"id\":\"123\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("123", V4JsonVmReader.readOne(first).id());
+        pool.release(first);
+        JsonReader second = pool.acquire();
+        assertTrue(first == second);
+        JsonReader third = pool.acquire();
+        assertFalse(first == third);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(1, pool.size());
+    }
+
+    /**
+     * Checks that a large array is read in parallel, and that the order of the elements is preserved, also when the
+     * elements contain nested arrays and strings with separators.
+     */
+    @Test
+    public void testReadManyParallel() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                text.append(",");
+            }
+            text.append(" {\"id\":\"").append(i).append("\",");
+            text.append("\"name\":\"a,]}\\\"\",");
+            text.append("\"disks\":[{\"id\":\"d\"}]}");
+        }
+        text.append("]");
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<V4Vm> list = V4JsonVmReader.readManyParallel(buffer, pool);
+            assertEquals(1000, list.size());
+            for (int i = 0; i < 1000; i++) {
+                V4Vm object = list.get(i);
+                assertEquals(Integer.toString(i), object.id());
+                assertEquals("a,]}\"", object.name());
+                assertEquals("d", object.disks().get(0).id());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Checks that an empty array is read in parallel as an empty list, and that the projection is applied.
+     */
+    @Test
+    public void testReadManyParallelEmptyAndProjection() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ByteBuffer empty = ByteBuffer.wrap(" [ ] ".getBytes(StandardCharsets.UTF_8));
+            assertTrue(V4JsonVmReader.readManyParallel(empty, pool).isEmpty());
+            String text = "[{\"id\":\"1\",\"name\":\"x\"}]";
+            ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            List<V4Vm> list = V4JsonVmReader.readManyParallel(buffer, Projection.of("id"), pool);
+            assertEquals("1", list.get(0).id());
+            assertNull(list.get(0).name());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
     /**
      * Converts the given JSON text to an object. Single quotes in the JSON text are replaced by double quotes before
      * performing the conversion, to simplify writing and reading the strings used by the texts.
@@ -386,4 +777,44 @@ public class JsonReaderTest {
             return V4JsonVmReader.readMany(reader);
         }
     }
+
+    /**
+     * Returns the names of the members of the given JSON object, which must contain only numbers, read using the
+     * reader that works directly with the UTF-8 bytes. Single quotes are replaced by double quotes.
+     *
+     * @param text the JSON text
+     * @return the names of the members
+     */
+    private String[] keysFromBytes(JsonReader reader, String text) {
+        // Replace single quotes with double quotes:
+        text = text.replace('\'', '\"');
+
+        // Collect the names:
+        List<String> keys = new ArrayList<>();
+        reader.reset(text.getBytes(StandardCharsets.UTF_8));
+        reader.expect(JsonParser.Event.START_OBJECT);
+        while (reader.next() == JsonParser.Event.KEY_NAME) {
+            keys.add(reader.getString());
+            reader.next();
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    /**
+     * Converts the given JSON text to an object, using the reader that works directly with the UTF-8 bytes. Single
+     * quotes are replaced by double quotes, like in the {@link #objectFromJson(String)} method.
+     *
+     * @param text the JSON text
+     * @return the object
+     */
+    private V4Vm objectFromBytes(String text) {
+        // Replace single quotes with double quotes:
+        text = text.replace('\'', '\"');
+
+        // Perform the conversion:
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try (JsonReader reader = new JsonReader(bytes)) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
 }
@@ -11,9 +11,11 @@ import static org.ovirt.engine.api.builders.V4Builders.cpu;
 import static org.ovirt.engine.api.builders.V4Builders.disk;
 import static org.ovirt.engine.api.builders.V4Builders.vm;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -373,6 +375,25 @@ public class JsonWriterTest {
         assertTrue(elapsed < 60_000_000);
     }
 
+    /**
+     * Checks that a writer can be reset to write several documents to streams, and that multi-byte characters are
+     * encoded correctly.
+     */
+    @Test
+    public void testResetStream() {
+        JsonWriter writer = new JsonWriter(false);
+        for (String name : Arrays.asList("\u00f1\u4e2d\ud83d\ude00", "myvm")) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writer.reset(buffer);
+            V4JsonVmWriter.writeOne(vm().name(name).build(), writer);
+            writer.close();
+            assertEquals(
+                "{\"name\":\"" + name + "\"}",
+                new String(buffer.toByteArray(), StandardCharsets.UTF_8)
+            );
+        }
+    }
+
     /**
      * Converts the given object to JSON and returns a string containing the JSON text. Double quotes in the generated
      * JSON are replaced by single quotes to simplify writing and reading the string constants that are used in the
@@ -0,0 +1,174 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.engine.api.lazy.builders.V4Builders.cpu;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import javax.json.JsonException;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+import org.ovirt.api.metamodel.runtime.util.StringCache;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.engine.api.lazy.containers.V4VmContainer;
+import org.ovirt.engine.api.lazy.json.V4JsonVmReader;
+import org.ovirt.engine.api.lazy.json.V4JsonVmWriter;
+import org.ovirt.engine.api.lazy.types.V4Vm;
+import org.ovirt.engine.api.lazy.xml.V4XmlVmReader;
+
+/**
+ * Tests for the code generated with the {@code --lazy-structs} option, where the decoding of nested structs read from
+ * UTF-8 bytes is deferred till the corresponding getter is called.
+ */
+public class LazyStructsTest {
+    /**
+     * Checks that a deferred struct is reported as present, and that it is decoded when the getter is called.
+     */
+    @Test
+    public void testDeferredStruct() {
+        V4Vm object = objectFromBytes("{'cpu':{'mode':'custom'},'name':'myvm'}");
+        assertTrue(object.cpuPresent());
+        assertEquals("custom", object.cpu().mode());
+        assertEquals("myvm", object.name());
+    }
+
+    /**
+     * Checks that the members that follow a deferred struct with nested objects and arrays are read correctly.
+     */
+    @Test
+    public void testMembersAfterDeferredStruct() {
+        V4Vm object = objectFromBytes(
+            "{'cpu':{'junk':[1,{'a':[true,null]},'x'],'mode':'custom'},'disks':[{'id':'456'}],'name':'myvm'}"
+        );
+        assertEquals("myvm", object.name());
+        assertEquals("456", object.disks().get(0).id());
+        assertEquals("custom", object.cpu().mode());
+    }
+
+    /**
+     * Checks that a deferred struct is decoded using the string cache of the reader that deferred it.
+     */
+    @Test
+    public void testDeferredStringCache() {
+        StringCache cache = new StringCache();
+        String mode = cache.intern(new String("custom"));
+        byte[] bytes = "{\"cpu\":{\"mode\":\"custom\"}}".getBytes(StandardCharsets.UTF_8);
+        V4Vm object;
+        try (JsonReader reader = new JsonReader(bytes)) {
+            reader.setStringCache(cache);
+            object = V4JsonVmReader.readOne(reader);
+        }
+        assertSame(mode, object.cpu().mode());
+    }
+
+    /**
+     * Checks that a missing struct is reported as not present.
+     */
+    @Test
+    public void testMissingStruct() {
+        V4Vm object = objectFromBytes("{'name':'myvm'}");
+        assertFalse(object.cpuPresent());
+        assertNull(object.cpu());
+    }
+
+    /**
+     * Checks that errors inside a deferred struct are reported when the getter is called, and not when the enclosing
+     * object is read.
+     */
+    @Test(expected = JsonException.class)
+    public void testDeferredError() {
+        V4Vm object = objectFromBytes("{'cpu':{'mode':1},'name':'myvm'}");
+        assertEquals("myvm", object.name());
+        object.cpu();
+    }
+
+    /**
+     * Checks that the projection is applied to the deferred struct when it is decoded.
+     */
+    @Test
+    public void testDeferredProjection() {
+        String text = "{'cpu':{'mode':'custom'},'name':'myvm'}".replace('\'', '"');
+        try (JsonReader reader = new JsonReader(text.getBytes(StandardCharsets.UTF_8))) {
+            V4Vm object = V4JsonVmReader.readOne(reader, Projection.of("cpu/name"));
+            assertTrue(object.cpuPresent());
+            assertNull(object.cpu().mode());
+            assertNull(object.name());
+        }
+    }
+
+    /**
+     * Checks that setting the decoded value discards the deferred one.
+     */
+    @Test
+    public void testSetterReplacesDeferred() {
+        V4VmContainer object = (V4VmContainer) objectFromBytes("{'cpu':{'mode':'custom'}}");
+        object.cpu(cpu().mode("host_passthrough").build());
+        assertEquals("host_passthrough", object.cpu().mode());
+        object.cpu(null);
+        assertFalse(object.cpuPresent());
+    }
+
+    /**
+     * Checks that the JSON reader that works with characters, which can't defer values, still reads nested structs.
+     */
+    @Test
+    public void testCharacters() {
+        StringReader buffer = new StringReader("{\"cpu\":{\"mode\":\"custom\"}}");
+        try (JsonReader reader = new JsonReader(buffer)) {
+            V4Vm object = V4JsonVmReader.readOne(reader);
+            assertEquals("custom", object.cpu().mode());
+        }
+    }
+
+    /**
+     * Checks that the XML reader still reads nested structs.
+     */
+    @Test
+    public void testXml() {
+        StringReader buffer = new StringReader("<vm><cpu><mode>custom</mode></cpu></vm>");
+        try (XmlReader reader = new XmlReader(buffer)) {
+            V4Vm object = V4XmlVmReader.readOne(reader);
+            assertEquals("custom", object.cpu().mode());
+        }
+    }
+
+    /**
+     * Checks that deferred structs are decoded when the object is written.
+     */
+    @Test
+    public void testWriteDeferred() {
+        V4Vm object = objectFromBytes("{'cpu':{'mode':'custom'}}");
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(buffer, false)) {
+            V4JsonVmWriter.writeOne(object, writer);
+        }
+        assertEquals("{\"cpu\":{\"mode\":\"custom\"}}", buffer.toString());
+    }
+
+    /**
+     * Converts the given JSON text to an object, using the reader that works directly with the UTF-8 bytes. Single
+     * quotes are replaced by double quotes.
+     *
+     * @param text the JSON text
+     * @return the object
+     */
+    private V4Vm objectFromBytes(String text) {
+        text = text.replace('\'', '"');
+        try (JsonReader reader = new JsonReader(text.getBytes(StandardCharsets.UTF_8))) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.engine.api.builders.V4Builders.disk;
+import static org.ovirt.engine.api.builders.V4Builders.vm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsSink;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsSnapshot;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.xml.V4XmlVmReader;
+import org.ovirt.engine.api.xml.V4XmlVmWriter;
+
+/**
+ * Tests for the metrics collected by the readers and writers, and by the generated classes that use them.
+ */
+public class MetricsTest {
+    // The snapshots received by the sink:
+    private final List<MetricsSnapshot> received = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        // Discard whatever other tests may have accumulated, and install the sink:
+        Metrics.setSink(null);
+        Metrics.flush();
+        Metrics.setSink(new MetricsSink() {
+            @Override
+            public void accept(MetricsSnapshot snapshot) {
+                received.add(snapshot);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setSink(null);
+        Metrics.flush();
+    }
+
+    /**
+     * Checks that reading an XML document records the objects of each type, and the document.
+     */
+    @Test
+    public void testXmlRead() {
+        byte[] xml = (
+            "<vm id=\"123\">" +
+              "<junk><name>x</name></junk>" +
+              "<name>myvm</name>" +
+              "<disks><disk id=\"456\"/><disk id=\"789\"/></disks>" +
+            "</vm>"
+        ).getBytes(StandardCharsets.UTF_8);
+        try (XmlReader reader = new XmlReader(new ByteArrayInputStream(xml))) {
+            V4XmlVmReader.readOne(reader);
+        }
+        Metrics.flush();
+        MetricsSnapshot vms = find(Metrics.XML_READ, "vm");
+        assertNotNull(vms);
+        assertEquals(1, vms.getCount());
+        assertTrue(vms.getNanos() > 0);
+        MetricsSnapshot disks = find(Metrics.XML_READ, "disk");
+        assertNotNull(disks);
+        assertEquals(2, disks.getCount());
+        assertTrue(disks.getNanos() <= vms.getNanos());
+        MetricsSnapshot documents = find(Metrics.XML_READ, Metrics.DOCUMENT);
+        assertNotNull(documents);
+        assertEquals(1, documents.getCount());
+        assertEquals(xml.length, documents.getBytes());
+        assertEquals(7, documents.getElements());
+        assertEquals(1, documents.getSkipped());
+    }
+
+    /**
+     * Checks that reading a JSON document records the objects of each type, and the document.
+     */
+    @Test
+    public void testJsonRead() {
+        byte[] json = (
+            "{" +
+              "\"id\":\"123\"," +
+              "\"junk\":{\"a\":[1,2]}," +
+              "\"name\":\"myvm\"," +
+              "\"disks\":[{\"id\":\"456\"},{\"id\":\"789\"}]" +
+            "}"
+        ).getBytes(StandardCharsets.UTF_8);
+        try (JsonReader reader = new JsonReader(json)) {
+            V4JsonVmReader.readOne(reader);
+        }
+        Metrics.flush();
+        assertEquals(1, find(Metrics.JSON_READ, "vm").getCount());
+        assertEquals(2, find(Metrics.JSON_READ, "disk").getCount());
+        MetricsSnapshot documents = find(Metrics.JSON_READ, Metrics.DOCUMENT);
+        assertEquals(1, documents.getCount());
+        assertEquals(json.length, documents.getBytes());
+        assertEquals(6, documents.getElements());
+        assertEquals(1, documents.getSkipped());
+    }
+
+    /**
+     * Checks that writing documents records the objects of each type, and the documents, including the number of
+     * bytes when writing to a stream.
+     */
+    @Test
+    public void testWrite() {
+        V4Vm object = vm().id("123").name("myvm").disks(disk().id("456"), disk().id("789")).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XmlWriter writer = new XmlWriter(out, false)) {
+            V4XmlVmWriter.writeOne(object, writer);
+        }
+        int xmlLength = out.size();
+        out.reset();
+        try (JsonWriter writer = new JsonWriter(out, false)) {
+            V4JsonVmWriter.writeOne(object, writer);
+        }
+        int jsonLength = out.size();
+        Metrics.flush();
+        assertEquals(1, find(Metrics.XML_WRITE, "vm").getCount());
+        assertEquals(2, find(Metrics.XML_WRITE, "disk").getCount());
+        MetricsSnapshot xmlDocuments = find(Metrics.XML_WRITE, Metrics.DOCUMENT);
+        assertEquals(xmlLength, xmlDocuments.getBytes());
+        assertEquals(5, xmlDocuments.getElements());
+        assertEquals(1, find(Metrics.JSON_WRITE, "vm").getCount());
+        assertEquals(2, find(Metrics.JSON_WRITE, "disk").getCount());
+        MetricsSnapshot jsonDocuments = find(Metrics.JSON_WRITE, Metrics.DOCUMENT);
+        assertEquals(jsonLength, jsonDocuments.getBytes());
+        assertEquals(4, jsonDocuments.getElements());
+    }
+
+    /**
+     * Checks that nothing is recorded when there is no sink, and that the bytes of documents read from characters
+     * aren't counted.
+     */
+    @Test
+    public void testDisabled() {
+        Metrics.setSink(null);
+        try (XmlReader reader = new XmlReader(new StringReader("<vm><name>myvm</name></vm>"))) {
+            V4XmlVmReader.readOne(reader);
+        }
+        assertTrue(Metrics.flush().isEmpty());
+        setUp();
+        try (XmlReader reader = new XmlReader(new StringReader("<vm><name>myvm</name></vm>"))) {
+            V4XmlVmReader.readOne(reader);
+        }
+        Metrics.flush();
+        MetricsSnapshot documents = find(Metrics.XML_READ, Metrics.DOCUMENT);
+        assertEquals(0, documents.getBytes());
+        assertEquals(2, documents.getElements());
+        assertNull(find(Metrics.XML_WRITE, Metrics.DOCUMENT));
+    }
+
+    private MetricsSnapshot find(String operation, String type) {
+        for (MetricsSnapshot snapshot : received) {
+            if (snapshot.getOperation().equals(operation) && snapshot.getType().equals(type)) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.ovirt.engine.api.primitive.builders.V4Builders.vm;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import javax.json.JsonException;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.xml.XmlException;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.primitive.json.V4JsonVmReader;
+import org.ovirt.engine.api.primitive.json.V4JsonVmWriter;
+import org.ovirt.engine.api.primitive.types.V4Disk;
+import org.ovirt.engine.api.primitive.types.V4Vm;
+import org.ovirt.engine.api.primitive.xml.V4XmlVmReader;
+import org.ovirt.engine.api.primitive.xml.V4XmlVmWriter;
+
+/**
+ * Tests for the code generated with the {@code --primitive-integers} option, where integer members are stored in
+ * primitive {@code long} fields instead of {@link BigInteger} objects.
+ */
+public class PrimitiveIntegersTest {
+    /**
+     * Checks that a missing integer is reported as not present, and that all the getters return {@code null}.
+     */
+    @Test
+    public void testMissingInteger() {
+        V4Vm object = objectFromXml("<vm></vm>");
+        assertFalse(object.memoryPresent());
+        assertNull(object.memory());
+        assertNull(object.memoryAsInteger());
+        assertNull(object.memoryAsLong());
+    }
+
+    /**
+     * Checks that zero is stored as a present value, and not confused with a missing one.
+     */
+    @Test
+    public void testZero() {
+        V4Vm object = objectFromXml("<vm><memory>0</memory></vm>");
+        assertTrue(object.memoryPresent());
+        assertEquals(BigInteger.ZERO, object.memory());
+        assertEquals(Long.valueOf(0), object.memoryAsLong());
+    }
+
+    /**
+     * Checks that large values are read from XML without loss.
+     */
+    @Test
+    public void testXmlLargeValue() {
+        V4Vm object = objectFromXml("<vm><memory>" + Long.MAX_VALUE + "</memory></vm>");
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE), object.memory());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), object.memoryAsLong());
+    }
+
+    /**
+     * Checks that negative values are read from XML correctly.
+     */
+    @Test
+    public void testXmlNegativeValue() {
+        V4Vm object = objectFromXml("<vm><memory>-1</memory></vm>");
+        assertEquals(BigInteger.ONE.negate(), object.memory());
+        assertEquals(Integer.valueOf(-1), object.memoryAsInteger());
+    }
+
+    /**
+     * Checks that values that don't fit in a {@code long} are rejected by the XML reader.
+     */
+    @Test(expected = XmlException.class)
+    public void testXmlOverflow() {
+        objectFromXml("<vm><memory>92233720368547758070</memory></vm>");
+    }
+
+    /**
+     * Checks that conversion to a narrower type fails if the value doesn't fit, and that the error explains why.
+     */
+    @Test
+    public void testNarrowingOverflow() {
+        V4Vm object = objectFromXml("<vm><memory>21474836470</memory></vm>");
+        try {
+            object.memoryAsInteger();
+            fail("Expected an ArithmeticException");
+        }
+        catch (ArithmeticException exception) {
+            assertTrue(exception.getMessage().endsWith("would lose precision."));
+        }
+    }
+
+    /**
+     * Checks that the integer members that aren't in the list given to the {@code --primitive-integers} option keep
+     * using {@link BigInteger}, so that they still accept values that don't fit in 64 bits.
+     */
+    @Test
+    public void testUnlistedMember() throws NoSuchMethodException {
+        String large = "92233720368547758070";
+        V4Vm xml = objectFromXml(
+            "<vm><disks><disk><provisioned_size>" + large + "</provisioned_size></disk></disks></vm>"
+        );
+        assertEquals(new BigInteger(large), xml.disks().get(0).provisionedSize());
+        V4Vm json = objectFromJsonBytes("{\"disks\":[{\"provisioned_size\":" + large + "}]}");
+        assertEquals(new BigInteger(large), json.disks().get(0).provisionedSize());
+        V4Vm.class.getMethod("memoryAsPrimitiveLong");
+        try {
+            V4Disk.class.getMethod("provisionedSizeAsPrimitiveLong");
+            fail("Expected the disk to have no primitive getter");
+        }
+        catch (NoSuchMethodException exception) {
+            // Expected, the disk size isn't stored as a primitive.
+        }
+    }
+
+    /**
+     * Checks that large values are read from JSON without loss.
+     */
+    @Test
+    public void testJsonLargeValue() {
+        V4Vm object = objectFromJson("{\"memory\":" + Long.MIN_VALUE + "}");
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE), object.memory());
+    }
+
+    /**
+     * Checks that values that don't fit in a {@code long} are rejected by the JSON reader, instead of silently
+     * truncated.
+     */
+    @Test(expected = JsonException.class)
+    public void testJsonOverflow() {
+        objectFromJson("{\"memory\":92233720368547758070}");
+    }
+
+    /**
+     * Checks that values are read without loss by the JSON reader that works directly with UTF-8 bytes, both the ones
+     * that are converted directly from the bytes and the ones that have too many digits for that.
+     */
+    @Test
+    public void testJsonBytes() {
+        V4Vm small = objectFromJsonBytes("{\"memory\":-1024}");
+        assertEquals(-1024L, small.memoryAsPrimitiveLong());
+        V4Vm min = objectFromJsonBytes("{\"memory\":" + Long.MIN_VALUE + "}");
+        assertEquals(Long.MIN_VALUE, min.memoryAsPrimitiveLong());
+        V4Vm max = objectFromJsonBytes("{\"memory\":" + Long.MAX_VALUE + "}");
+        assertEquals(Long.MAX_VALUE, max.memoryAsPrimitiveLong());
+    }
+
+    /**
+     * Checks that values that don't fit in a {@code long} are rejected by the JSON reader that works directly with
+     * UTF-8 bytes.
+     */
+    @Test(expected = JsonException.class)
+    public void testJsonBytesOverflow() {
+        objectFromJsonBytes("{\"memory\":92233720368547758070}");
+    }
+
+    /**
+     * Checks that the builders still accept {@link BigInteger} values, and that values that don't fit in a
+     * {@code long} are rejected.
+     */
+    @Test(expected = ArithmeticException.class)
+    public void testBuilderOverflow() {
+        vm().memory(BigInteger.TEN.multiply(BigInteger.valueOf(Long.MAX_VALUE))).build();
+    }
+
+    /**
+     * Checks that integers are written to XML.
+     */
+    @Test
+    public void testXmlWrite() {
+        V4Vm object = vm().memory(10L * Integer.MAX_VALUE).build();
+        StringWriter buffer = new StringWriter();
+        try (XmlWriter writer = new XmlWriter(buffer, false)) {
+            V4XmlVmWriter.writeOne(object, writer);
+            writer.flush();
+        }
+        assertEquals("<vm><memory>21474836470</memory></vm>", buffer.toString());
+    }
+
+    /**
+     * Checks that integers are written to JSON.
+     */
+    @Test
+    public void testJsonWrite() {
+        V4Vm object = vm().memory(-1).build();
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(buffer, false)) {
+            V4JsonVmWriter.writeOne(object, writer);
+        }
+        assertEquals("{\"memory\":-1}", buffer.toString());
+    }
+
+    /**
+     * Converts the given XML to an object.
+     *
+     * @param text the XML text
+     * @return the object
+     */
+    private V4Vm objectFromXml(String text) {
+        StringReader buffer = new StringReader(text);
+        try (XmlReader reader = new XmlReader(buffer)) {
+            return V4XmlVmReader.readOne(reader);
+        }
+    }
+
+    /**
+     * Converts the given JSON to an object.
+     *
+     * @param text the JSON text
+     * @return the object
+     */
+    private V4Vm objectFromJson(String text) {
+        StringReader buffer = new StringReader(text);
+        try (JsonReader reader = new JsonReader(buffer)) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
+
+    /**
+     * Converts the given JSON to an object, using the reader that works directly with the UTF-8 bytes.
+     *
+     * @param text the JSON text
+     * @return the object
+     */
+    private V4Vm objectFromJsonBytes(String text) {
+        try (JsonReader reader = new JsonReader(text.getBytes(StandardCharsets.UTF_8))) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
+}
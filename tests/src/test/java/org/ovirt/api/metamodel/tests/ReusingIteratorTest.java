@@ -0,0 +1,150 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.types.V4Cpu;
+import org.ovirt.engine.api.types.V4Disk;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.xml.V4XmlVmReader;
+
+/**
+ * Tests for the {@code iterateReusing} methods of the generated readers, that reuse the same containers for all the
+ * elements of a list.
+ */
+public class ReusingIteratorTest {
+    private static final String XML =
+        "<vms>" +
+          "<vm id=\"1\">" +
+            "<cpu><mode>mymode</mode></cpu>" +
+            "<disks><disk id=\"11\"/><disk id=\"12\"/></disks>" +
+            "<name>first</name>" +
+          "</vm>" +
+          "<vm id=\"2\">" +
+            "<cpu><mode>yourmode</mode></cpu>" +
+            "<disks><disk id=\"21\"/></disks>" +
+          "</vm>" +
+        "</vms>";
+
+    private static final String JSON =
+        "[" +
+          "{" +
+            "\"id\":\"1\"," +
+            "\"cpu\":{\"mode\":\"mymode\"}," +
+            "\"disks\":[{\"id\":\"11\"},{\"id\":\"12\"}]," +
+            "\"name\":\"first\"" +
+          "}," +
+          "{" +
+            "\"id\":\"2\"," +
+            "\"cpu\":{\"mode\":\"yourmode\"}," +
+            "\"disks\":[{\"id\":\"21\"}]" +
+          "}" +
+        "]";
+
+    /**
+     * Checks that the XML iterator returns the same container for all the elements, reuses the containers of the
+     * nested objects, and clears the members that aren't present in the next element.
+     */
+    @Test
+    public void testXml() {
+        try (XmlReader reader = new XmlReader(new StringReader(XML))) {
+            checkReused(V4XmlVmReader.iterateReusing(reader));
+        }
+    }
+
+    /**
+     * Checks that the JSON iterator returns the same container for all the elements, reuses the containers of the
+     * nested objects, and clears the members that aren't present in the next element.
+     */
+    @Test
+    public void testJson() {
+        try (JsonReader reader = new JsonReader(JSON.getBytes(StandardCharsets.UTF_8))) {
+            checkReused(V4JsonVmReader.iterateReusing(reader));
+        }
+    }
+
+    /**
+     * Checks that the iterators that don't reuse containers still return different objects.
+     */
+    @Test
+    public void testNotReused() {
+        try (JsonReader reader = new JsonReader(JSON.getBytes(StandardCharsets.UTF_8))) {
+            Iterator<V4Vm> iterator = V4JsonVmReader.iterateMany(reader);
+            assertTrue(iterator.hasNext());
+            V4Vm first = iterator.next();
+            assertTrue(iterator.hasNext());
+            V4Vm second = iterator.next();
+            assertNotSame(first, second);
+            assertNotSame(first.cpu(), second.cpu());
+            assertEquals("first", first.name());
+            assertEquals("mymode", first.cpu().mode());
+        }
+    }
+
+    /**
+     * Checks that containers generated with the compact layout and with lazy structs can also be reused.
+     */
+    @Test
+    public void testCompact() {
+        try (JsonReader reader = new JsonReader(JSON.getBytes(StandardCharsets.UTF_8))) {
+            Iterator<org.ovirt.engine.api.lazy.types.V4Vm> iterator =
+                org.ovirt.engine.api.lazy.json.V4JsonVmReader.iterateReusing(reader);
+            assertTrue(iterator.hasNext());
+            org.ovirt.engine.api.lazy.types.V4Vm first = iterator.next();
+            assertEquals("first", first.name());
+            assertEquals(2, first.disks().size());
+            assertTrue(iterator.hasNext());
+            org.ovirt.engine.api.lazy.types.V4Vm second = iterator.next();
+            assertSame(first, second);
+            assertEquals("2", second.id());
+            assertFalse(second.namePresent());
+            assertEquals("yourmode", second.cpu().mode());
+            assertEquals(1, second.disks().size());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    private void checkReused(Iterator<V4Vm> iterator) {
+        assertTrue(iterator.hasNext());
+        V4Vm first = iterator.next();
+        assertEquals("1", first.id());
+        assertEquals("first", first.name());
+        V4Cpu cpu = first.cpu();
+        assertEquals("mymode", cpu.mode());
+        List<V4Disk> disks = first.disks();
+        assertEquals(2, disks.size());
+        V4Disk disk = disks.get(0);
+
+        assertTrue(iterator.hasNext());
+        V4Vm second = iterator.next();
+        assertSame(first, second);
+        assertEquals("2", second.id());
+        assertNull(second.name());
+        assertFalse(second.namePresent());
+        assertSame(cpu, second.cpu());
+        assertEquals("yourmode", second.cpu().mode());
+        assertEquals(1, second.disks().size());
+        assertSame(disk, second.disks().get(0));
+        assertEquals("21", second.disks().get(0).id());
+
+        assertFalse(iterator.hasNext());
+    }
+}
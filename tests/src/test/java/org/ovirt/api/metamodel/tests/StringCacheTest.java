@@ -0,0 +1,181 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.util.StringCache;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.xml.V4XmlVmReader;
+
+/**
+ * Tests for the deduplication of the string values read by the XML and JSON readers.
+ */
+public class StringCacheTest {
+    private static final String XML =
+        "<vms>" +
+          "<vm id=\"123\">" +
+            "<cpu><mode>mymode</mode></cpu>" +
+            "<memory>1024</memory>" +
+            "<name>myvm</name>" +
+          "</vm>" +
+          "<vm id=\"123\">" +
+            "<cpu><mode>mymode</mode></cpu>" +
+            "<memory>1024</memory>" +
+            "<name>myvm</name>" +
+          "</vm>" +
+        "</vms>";
+
+    private static final String JSON =
+        "[" +
+          "{\"id\":\"123\",\"cpu\":{\"mode\":\"mymode\"},\"memory\":1024,\"name\":\"myvm\"}," +
+          "{\"id\":\"123\",\"cpu\":{\"mode\":\"mymode\"},\"memory\":1024,\"name\":\"my\\u0076m\"}" +
+        "]";
+
+    /**
+     * Checks that equal strings are replaced by the same object, and that long strings and nulls aren't cached.
+     */
+    @Test
+    public void testIntern() {
+        StringCache cache = new StringCache();
+        String first = cache.intern(new String("myvm"));
+        assertSame(first, cache.intern(new String("myvm")));
+        assertNull(cache.intern(null));
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i <= StringCache.MAX_LENGTH; i++) {
+            buffer.append('x');
+        }
+        String longer = buffer.toString();
+        cache.intern(longer);
+        assertNotSame(longer, cache.intern(new String(longer)));
+    }
+
+    /**
+     * Checks that the strings can be looked up using their bytes.
+     */
+    @Test
+    public void testBytes() {
+        StringCache cache = new StringCache();
+        String value = cache.intern("myvm");
+        byte[] bytes = "..myvm..".getBytes(StandardCharsets.US_ASCII);
+        int hash = value.hashCode();
+        assertSame(value, cache.intern(bytes, 2, 4, hash));
+        assertSame(value, cache.intern(ByteBuffer.wrap(bytes), 2, 4, hash));
+        String other = cache.intern(bytes, 0, 2, "..".hashCode());
+        assertEquals("..", other);
+        assertSame(other, cache.intern(".."));
+    }
+
+    /**
+     * Checks that the cache doesn't grow beyond its size, and that it still returns the right values when full.
+     */
+    @Test
+    public void testBounded() {
+        StringCache cache = new StringCache(4);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, cache.intern("value" + i));
+        }
+        String value = cache.intern(new String("value99"));
+        assertSame(value, cache.intern(new String("value99")));
+        cache.clear();
+        assertNotSame(value, cache.intern(new String("value99")));
+    }
+
+    /**
+     * Checks that the XML reader deduplicates the values of elements and attributes that are strings.
+     */
+    @Test
+    public void testXml() {
+        List<V4Vm> vms;
+        try (XmlReader reader = new XmlReader(new StringReader(XML))) {
+            reader.setStringCache(new StringCache());
+            vms = V4XmlVmReader.readMany(reader);
+        }
+        checkShared(vms);
+    }
+
+    /**
+     * Checks that the XML reader doesn't deduplicate anything when there is no cache.
+     */
+    @Test
+    public void testXmlWithoutCache() {
+        List<V4Vm> vms;
+        try (XmlReader reader = new XmlReader(new StringReader(XML))) {
+            vms = V4XmlVmReader.readMany(reader);
+        }
+        assertNotSame(vms.get(0).id(), vms.get(1).id());
+        assertNotSame(vms.get(0).name(), vms.get(1).name());
+    }
+
+    /**
+     * Checks that the JSON reader deduplicates the values when it reads the UTF-8 bytes directly, including the
+     * values that contain escape sequences.
+     */
+    @Test
+    public void testJsonBytes() {
+        List<V4Vm> vms;
+        try (JsonReader reader = new JsonReader(JSON.getBytes(StandardCharsets.UTF_8))) {
+            reader.setStringCache(new StringCache());
+            vms = V4JsonVmReader.readMany(reader);
+        }
+        checkShared(vms);
+    }
+
+    /**
+     * Checks that the JSON reader deduplicates the values when it reads from a stream.
+     */
+    @Test
+    public void testJsonStream() {
+        List<V4Vm> vms;
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)))) {
+            reader.setStringCache(new StringCache());
+            vms = V4JsonVmReader.readMany(reader);
+        }
+        checkShared(vms);
+    }
+
+    /**
+     * Checks that the cache is kept when the reader is reset, so that values are shared by different documents.
+     */
+    @Test
+    public void testReset() {
+        StringCache cache = new StringCache();
+        JsonReader reader = new JsonReader();
+        reader.setStringCache(cache);
+        reader.reset(JSON.getBytes(StandardCharsets.UTF_8));
+        V4Vm first = V4JsonVmReader.readMany(reader).get(0);
+        reader.reset(JSON.getBytes(StandardCharsets.UTF_8));
+        V4Vm second = V4JsonVmReader.readMany(reader).get(0);
+        reader.close();
+        assertSame(cache, reader.getStringCache());
+        assertSame(first.name(), second.name());
+    }
+
+    private void checkShared(List<V4Vm> vms) {
+        assertEquals(2, vms.size());
+        V4Vm first = vms.get(0);
+        V4Vm second = vms.get(1);
+        assertEquals("123", first.id());
+        assertEquals("myvm", first.name());
+        assertEquals("myvm", second.name());
+        assertSame(first.id(), second.id());
+        assertSame(first.name(), second.name());
+        assertSame(first.cpu().mode(), second.cpu().mode());
+    }
+}
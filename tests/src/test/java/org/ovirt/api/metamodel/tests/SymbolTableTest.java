@@ -0,0 +1,71 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+
+/**
+ * Tests for the table that translates the names of XML tags and JSON members into symbols.
+ */
+public class SymbolTableTest {
+    private static final SymbolTable TABLE = new SymbolTable("id", "name", "disks");
+
+    /**
+     * Checks that names are found both when they are the same objects than the ones in the table and when they are
+     * different objects with the same characters.
+     */
+    @Test
+    public void testGetByString() {
+        assertEquals(1, TABLE.get("id"));
+        assertEquals(2, TABLE.get(new String("name")));
+        assertEquals(3, TABLE.get(new StringBuilder("dis").append("ks").toString()));
+        assertEquals(SymbolTable.UNKNOWN, TABLE.get("nics"));
+        assertEquals(SymbolTable.UNKNOWN, TABLE.get((String) null));
+    }
+
+    /**
+     * Checks that names are found using their UTF-8 bytes.
+     */
+    @Test
+    public void testGetByBytes() {
+        byte[] bytes = "xnamex".getBytes(StandardCharsets.UTF_8);
+        assertEquals(2, TABLE.get(bytes, 1, 4, "name".hashCode()));
+        assertEquals(SymbolTable.UNKNOWN, TABLE.get(bytes, 0, 5, "xname".hashCode()));
+    }
+
+    /**
+     * Checks that the names are returned for the symbols, and {@code null} for the symbols that aren't in the table.
+     */
+    @Test
+    public void testGetName() {
+        assertSame("disks", TABLE.getName(3));
+        assertNull(TABLE.getName(SymbolTable.UNKNOWN));
+        assertNull(TABLE.getName(4));
+    }
+
+    /**
+     * Checks that the XML reader finds the symbols of the names of elements and attributes returned by the parser.
+     */
+    @Test
+    public void testXmlReaderSymbols() {
+        try (XmlReader reader = new XmlReader(new StringReader("<disks id=\"123\"><name/></disks>"))) {
+            reader.forward();
+            assertEquals(3, reader.getLocalNameSymbol(TABLE));
+            assertEquals(1, reader.getAttributeLocalNameSymbol(0, TABLE));
+            reader.next();
+            assertEquals(2, reader.getLocalNameSymbol(TABLE));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.ovirt.engine.api.builders.V4Builders.cpu;
+import static org.ovirt.engine.api.builders.V4Builders.disk;
+import static org.ovirt.engine.api.builders.V4Builders.vm;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+import org.ovirt.engine.api.json.V4JsonVmReader;
+import org.ovirt.engine.api.json.V4JsonVmWriter;
+import org.ovirt.engine.api.transcoders.V4VmTranscoder;
+import org.ovirt.engine.api.types.V4Vm;
+import org.ovirt.engine.api.types.V4VmType;
+import org.ovirt.engine.api.xml.V4XmlVmWriter;
+
+/**
+ * Tests for the generated classes that convert documents from XML to JSON and from JSON to XML. The result of the
+ * conversion is compared to the result of reading the document with one of the generated readers and writing it with
+ * the other.
+ */
+public class TranscoderTest {
+    /**
+     * Checks that all the kinds of members are converted from XML to JSON.
+     */
+    @Test
+    public void testXmlToJsonAllMembers() {
+        V4Vm object = vm()
+            .id("123")
+            .name("myvm")
+            .runOnce(true)
+            .memory(1024)
+            .creationTime(new Date(1234567890000L))
+            .cpu(cpu().mode("mymode"))
+            .disks(disk().id("456").alias("disk1"), disk().id("789"))
+            .type(V4VmType.SERVER)
+            .build();
+        String xml = objectToXml(object);
+        String json = xmlToJson(xml);
+        assertEquals(objectToJson(object), objectToJson(objectFromJson(json)));
+    }
+
+    /**
+     * Checks that the links and the unknown elements and attributes are skipped when converting from XML to JSON.
+     */
+    @Test
+    public void testXmlToJsonSkipsLinksAndUnknown() {
+        String xml =
+            "<vm id=\"123\" junk=\"x\">" +
+              "<link rel=\"disks\" href=\"/vms/123/disks\"/>" +
+              "<junk><name>x</name></junk>" +
+              "<name>myvm</name>" +
+            "</vm>";
+        assertEquals("{\"id\":\"123\",\"name\":\"myvm\"}", xmlToJson(xml));
+    }
+
+    /**
+     * Checks that enum values that aren't known are omitted, like when reading the object.
+     */
+    @Test
+    public void testXmlToJsonUnknownEnum() {
+        assertEquals("{\"name\":\"myvm\"}", xmlToJson("<vm><type>junk</type><name>myvm</name></vm>"));
+    }
+
+    /**
+     * Checks that a list of objects is converted from XML to JSON.
+     */
+    @Test
+    public void testXmlToJsonMany() {
+        String xml = "<vms><vm id=\"1\"><name>a</name></vm><vm id=\"2\"/></vms>";
+        StringWriter buffer = new StringWriter();
+        try (XmlReader reader = new XmlReader(new StringReader(xml)); JsonWriter writer = new JsonWriter(buffer, false)) {
+            V4VmTranscoder.xmlToJsonMany(reader, writer);
+        }
+        assertEquals("[{\"id\":\"1\",\"name\":\"a\"},{\"id\":\"2\"}]", buffer.toString());
+    }
+
+    /**
+     * Checks that all the kinds of members are converted from JSON to XML, and that the result is identical to the
+     * one generated by the XML writer, reading the JSON both from bytes and from characters.
+     */
+    @Test
+    public void testJsonToXmlAllMembers() {
+        V4Vm object = vm()
+            .id("123")
+            .name("myvm")
+            .runOnce(true)
+            .memory(1024)
+            .creationTime(new Date(1234567890000L))
+            .cpu(cpu().mode("mymode"))
+            .disks(disk().id("456").alias("disk1"), disk().id("789"))
+            .type(V4VmType.SERVER)
+            .build();
+        String json = objectToJson(object);
+        String expected = objectToXml(object);
+        assertEquals(expected, jsonToXml(new JsonReader(json.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(expected, jsonToXml(new JsonReader(new StringReader(json))));
+    }
+
+    /**
+     * Checks that the members that are represented as XML attributes are written before the inner elements, even if
+     * they appear after them in the JSON document.
+     */
+    @Test
+    public void testJsonToXmlAttributesAfterElements() {
+        String json =
+            "{" +
+              "\"disks\":[{\"alias\":\"disk1\",\"junk\":{\"id\":\"x\"},\"id\":\"456\"}]," +
+              "\"name\":\"myvm\"," +
+              "\"id\":\"123\"" +
+            "}";
+        String expected =
+            "<vm id=\"123\">" +
+              "<disks><disk id=\"456\"><alias>disk1</alias></disk></disks>" +
+              "<name>myvm</name>" +
+            "</vm>";
+        assertEquals(expected, jsonToXml(new JsonReader(json.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(expected, jsonToXml(new JsonReader(new StringReader(json))));
+    }
+
+    /**
+     * Checks that a list of objects is converted from JSON to XML.
+     */
+    @Test
+    public void testJsonToXmlMany() {
+        List<V4Vm> objects = Arrays.asList(vm().id("1").name("a").build(), vm().id("2").build());
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(buffer, false)) {
+            V4JsonVmWriter.writeMany(objects.iterator(), writer);
+        }
+        String json = buffer.toString();
+        buffer = new StringWriter();
+        try (JsonReader reader = new JsonReader(json.getBytes(StandardCharsets.UTF_8));
+             XmlWriter writer = new XmlWriter(buffer, false)) {
+            V4VmTranscoder.jsonToXmlMany(reader, writer);
+            writer.flush();
+        }
+        assertEquals("<vms><vm id=\"1\"><name>a</name></vm><vm id=\"2\"></vm></vms>", buffer.toString());
+    }
+
+    private String objectToXml(V4Vm object) {
+        StringWriter buffer = new StringWriter();
+        try (XmlWriter writer = new XmlWriter(buffer, false)) {
+            V4XmlVmWriter.writeOne(object, writer);
+            writer.flush();
+        }
+        return buffer.toString();
+    }
+
+    private String objectToJson(V4Vm object) {
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(buffer, false)) {
+            V4JsonVmWriter.writeOne(object, writer);
+        }
+        return buffer.toString();
+    }
+
+    private V4Vm objectFromJson(String json) {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return V4JsonVmReader.readOne(reader);
+        }
+    }
+
+    private String xmlToJson(String xml) {
+        StringWriter buffer = new StringWriter();
+        try (XmlReader reader = new XmlReader(new StringReader(xml)); JsonWriter writer = new JsonWriter(buffer, false)) {
+            V4VmTranscoder.xmlToJsonOne(reader, writer);
+        }
+        return buffer.toString();
+    }
+
+    private String jsonToXml(JsonReader reader) {
+        StringWriter buffer = new StringWriter();
+        try (XmlWriter writer = new XmlWriter(buffer, false)) {
+            V4VmTranscoder.jsonToXmlOne(reader, writer);
+            writer.flush();
+        }
+        finally {
+            reader.close();
+        }
+        return buffer.toString();
+    }
+}
@@ -11,23 +11,29 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PipedReader;
 import java.io.PipedWriter;
 import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 import javax.xml.stream.XMLStreamConstants;
 
 import org.junit.Ignore;
 import org.junit.Test;
 import org.ovirt.api.metamodel.runtime.util.ListWithHref;
+import org.ovirt.api.metamodel.runtime.util.Projection;
 import org.ovirt.api.metamodel.runtime.xml.XmlException;
 import org.ovirt.api.metamodel.runtime.xml.XmlReader;
 import org.ovirt.engine.api.types.V4Disk;
@@ -36,6 +42,7 @@ import org.ovirt.engine.api.types.V4SsoMethodId;
 import org.ovirt.engine.api.types.V4Vm;
 import org.ovirt.engine.api.types.V4VmDisplayType;
 import org.ovirt.engine.api.types.V4VmType;
+import org.ovirt.engine.api.types.V4VmVisitor;
 import org.ovirt.engine.api.xml.V4XmlVmReader;
 
 /**
@@ -156,6 +163,16 @@ public class XmlReaderTest {
         assertEquals("next", reader.getLocalName());
     }
 
+    /**
+     * Checks that the {@code readString} method returns the complete text of an element when the parser reports it
+     * in several pieces, as it does for entity references and CDATA sections, as the parser doesn't coalesce them.
+     */
+    @Test
+    public void testReadStringSplitText() {
+        XmlReader reader = openReader("<value>a&amp;b<![CDATA[<c>]]>d</value>");
+        assertEquals("a&b<c>d", reader.readString());
+    }
+
     /**
      * Checks that given the text {@code true} the {@code readBoolean} method returns the correct value.
      */
@@ -793,6 +810,32 @@ public class XmlReaderTest {
         assertEquals(date, object.creationTime());
     }
 
+    /**
+     * Checks that dates using the {@code Z} time zone are read correctly.
+     */
+    @Test
+    public void testDateUtc() {
+        V4Vm object = objectFromXml("<vm><creation_time>2016-01-17T16:18:23.123Z</creation_time></vm>");
+        assertEquals(1453047503123L, object.creationTime().getTime());
+    }
+
+    /**
+     * Checks that dates without fraction of second and with a negative offset are read correctly.
+     */
+    @Test
+    public void testDateWithoutFraction() {
+        V4Vm object = objectFromXml("<vm><creation_time>2016-01-17T11:18:23-05:00</creation_time></vm>");
+        assertEquals(1453047503000L, object.creationTime().getTime());
+    }
+
+    /**
+     * Checks that invalid dates are rejected.
+     */
+    @Test(expected = XmlException.class)
+    public void testInvalidDate() {
+        objectFromXml("<vm><creation_time>2016-02-30T16:18:23.123Z</creation_time></vm>");
+    }
+
     /**
      * Checks that empty lists of objects are read correctly.
      */
@@ -870,6 +913,19 @@ public class XmlReaderTest {
         assertEquals("456", vm.permissions().get(0).id());
     }
 
+    /**
+     * Checks that the 'href' of a link is kept when the link appears before the element that contains the list.
+     */
+    @Test
+    public void testLinkHrefAttributeBeforeElement() {
+        V4Vm vm = objectFromXml(
+            "<vm><link rel=\"permissions\" href=\"123\"/><permissions><permission id=\"456\"/></permissions></vm>"
+        );
+        assertTrue(vm.permissions() instanceof ListWithHref);
+        assertEquals("123", ((ListWithHref) vm.permissions()).href());
+        assertEquals("456", vm.permissions().get(0).id());
+    }
+
     /**
      * Checks that link element is read correctly if href is not present
      */
@@ -1012,6 +1068,237 @@ public class XmlReaderTest {
         }
     }
 
+    /**
+     * Checks that the generic read method uses the generated registry to read a single object.
+     */
+    @Test
+    public void testGenericReadOne() {
+        XmlReader reader = new XmlReader(new StringReader("<vm id=\"123\"><name>myvm</name></vm>"));
+        Object result = reader.read();
+        assertTrue(result instanceof V4Vm);
+        V4Vm vm = (V4Vm) result;
+        assertEquals("123", vm.id());
+        assertEquals("myvm", vm.name());
+    }
+
+    /**
+     * Checks that the generic read method uses the generated registry to read a list of objects.
+     */
+    @Test
+    public void testGenericReadMany() {
+        XmlReader reader = new XmlReader(new StringReader("<vms><vm id=\"123\"/><vm id=\"456\"/></vms>"));
+        Object result = reader.read();
+        assertTrue(result instanceof List);
+        List<?> vms = (List<?>) result;
+        assertEquals(2, vms.size());
+        assertEquals("123", ((V4Vm) vms.get(0)).id());
+        assertEquals("456", ((V4Vm) vms.get(1)).id());
+    }
+
+    /**
+     * Checks that the generic read method fails if there is no reader for the tag.
+     */
+    @Test(expected = RuntimeException.class)
+    public void testGenericReadUnknownTag() {
+        XmlReader reader = new XmlReader(new StringReader("<junk/>"));
+        reader.read();
+    }
+
+    /**
+     * Checks that the elements of nested lists are pushed to the visitor while they are read, and that the ones that
+     * the visitor doesn't keep aren't added to the object.
+     */
+    @Test
+    public void testVisitOneDiscardsNestedElements() {
+        final List<String> aliases = new ArrayList<>();
+        final List<V4Vm> visited = new ArrayList<>();
+        V4VmVisitor visitor = new V4VmVisitor() {
+            @Override
+            public boolean visitDisk(V4Disk element) {
+                aliases.add(element.alias());
+                return false;
+            }
+
+            @Override
+            public void visit(V4Vm object) {
+                visited.add(object);
+            }
+        };
+        String text =
+            "<vm>" +
+              "<name>myvm</name>" +
+              "<disks>" +
+                "<disk><alias>disk1</alias></disk>" +
+                "<disk><alias>disk2</alias></disk>" +
+              "</disks>" +
+            "</vm>";
+        V4Vm object;
+        try (XmlReader reader = new XmlReader(new StringReader(text))) {
+            object = V4XmlVmReader.visitOne(reader, visitor);
+        }
+        assertEquals(Arrays.asList("disk1", "disk2"), aliases);
+        assertEquals(1, visited.size());
+        assertEquals("myvm", object.name());
+        assertFalse(object.disksPresent());
+    }
+
+    /**
+     * Checks that the default visitor keeps the elements of the nested lists, and that all the objects of the list
+     * are pushed to the visitor.
+     */
+    @Test
+    public void testVisitManyKeepsNestedElementsByDefault() {
+        final List<V4Vm> visited = new ArrayList<>();
+        V4VmVisitor visitor = new V4VmVisitor() {
+            @Override
+            public void visit(V4Vm object) {
+                visited.add(object);
+            }
+        };
+        String text =
+            "<vms>" +
+              "<vm><name>vm1</name><disks><disk><alias>disk1</alias></disk></disks></vm>" +
+              "<vm><name>vm2</name></vm>" +
+            "</vms>";
+        try (XmlReader reader = new XmlReader(new StringReader(text))) {
+            V4XmlVmReader.visitMany(reader, visitor);
+        }
+        assertEquals(2, visited.size());
+        assertEquals("vm1", visited.get(0).name());
+        assertEquals(1, visited.get(0).disks().size());
+        assertEquals("disk1", visited.get(0).disks().get(0).alias());
+        assertEquals("vm2", visited.get(1).name());
+    }
+
+    /**
+     * Checks that only the members included in the projection are read, including the members of nested objects
+     * and lists.
+     */
+    @Test
+    public void testReadOneWithProjection() {
+        String text =
+            "<vm id=\"123\">" +
+              "<name>myvm</name>" +
+              "<fqdn>myvm.example.com</fqdn>" +
+              "<cpu><mode>host_passthrough</mode></cpu>" +
+              "<disks><disk id=\"456\"><alias>mydisk</alias></disk></disks>" +
+              "<sso><methods><method id=\"guest_agent\"/></methods></sso>" +
+            "</vm>";
+        Projection projection = Projection.of("id", "name", "disks/alias");
+        V4Vm object;
+        try (XmlReader reader = new XmlReader(new StringReader(text))) {
+            object = V4XmlVmReader.readOne(reader, projection);
+        }
+        assertEquals("123", object.id());
+        assertEquals("myvm", object.name());
+        assertFalse(object.fqdnPresent());
+        assertFalse(object.cpuPresent());
+        assertFalse(object.ssoPresent());
+        assertEquals(1, object.disks().size());
+        assertEquals("mydisk", object.disks().get(0).alias());
+        assertNull(object.disks().get(0).id());
+    }
+
+    /**
+     * Checks that the projection is applied to all the objects of a list.
+     */
+    @Test
+    public void testReadManyWithProjection() {
+        String text =
+            "<vms>" +
+              "<vm><name>vm1</name><cpu><mode>custom</mode></cpu></vm>" +
+              "<vm><name>vm2</name></vm>" +
+            "</vms>";
+        List<V4Vm> list;
+        try (XmlReader reader = new XmlReader(new StringReader(text))) {
+            list = V4XmlVmReader.readMany(reader, Projection.of("cpu"));
+        }
+        assertEquals(2, list.size());
+        assertNull(list.get(0).name());
+        assertEquals("custom", list.get(0).cpu().mode());
+        assertNull(list.get(1).name());
+    }
+
+    /**
+     * Checks that a reader that was never attached to a document can be closed, for example when it is taken from a
+     * pool and closed before being reset.
+     */
+    @Test
+    public void testCloseUnattached() {
+        XmlReader reader = new XmlReader();
+        reader.close();
+        reader.close();
+    }
+
+    /**
+     * Checks that a reader can be reset to read several documents from streams, and that text that contains multi-byte
+     * characters is decoded correctly also when it crosses the boundaries of the internal buffer of the decoder.
+     */
+    @Test
+    public void testResetStream() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            name.append("\u00f1\u4e2d\ud83d\ude00");
+        }
+        try (XmlReader reader = new XmlReader()) {
+            for (String value : Arrays.asList(name.toString(), "myvm")) {
+                String text = "<vm><name>" + value + "</name></vm>";
+                reader.reset(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+                assertEquals(value, V4XmlVmReader.readOne(reader).name());
+            }
+            reader.reset(new StringReader("<vm><name>last</name></vm>"));
+            assertEquals("last", V4XmlVmReader.readOne(reader).name());
+        }
+    }
+
+    /**
+     * Checks that the children of a large document are read in parallel, and that the order is preserved, also when
+     * the document contains markup characters inside attributes, comments and CDATA sections.
+     */
+    @Test
+    public void testReadManyParallel() {
+        StringBuilder text = new StringBuilder("<?xml version=\"1.0\"?>\n<!-- <vm> -->\n<vms>");
+        for (int i = 0; i < 1000; i++) {
+            text.append("<vm id=\"").append(i).append("\" href=\"/vms/>\">");
+            text.append("<!-- </vm> --><name><![CDATA[</vm>]]></name>");
+            text.append("<disks><disk id=\"d\"/></disks>");
+            text.append("</vm>\n");
+        }
+        text.append("<vm id=\"last\"/></vms>");
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<V4Vm> list = V4XmlVmReader.readManyParallel(buffer, pool);
+            assertEquals(1001, list.size());
+            for (int i = 0; i < 1000; i++) {
+                V4Vm object = list.get(i);
+                assertEquals(Integer.toString(i), object.id());
+                assertEquals("</vm>", object.name());
+                assertEquals("d", object.disks().get(0).id());
+            }
+            assertEquals("last", list.get(1000).id());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Checks that errors found while reading the children in parallel are reported to the caller.
+     */
+    @Test(expected = XmlException.class)
+    public void testReadManyParallelError() {
+        String text = "<vms><vm/><vm><creation_time>junk</creation_time></vm></vms>";
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            V4XmlVmReader.readManyParallel(buffer, pool);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
     /**
      * Opens a cursor for reading the given XML text and positions it in the first event.
      */
@@ -14,9 +14,11 @@ import static org.ovirt.engine.api.builders.V4Builders.sso;
 import static org.ovirt.engine.api.builders.V4Builders.ssoMethod;
 import static org.ovirt.engine.api.builders.V4Builders.vm;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -279,6 +281,18 @@ public class XmlWriterTest {
         );
     }
 
+    /**
+     * Checks that dates before the epoch are written correctly.
+     */
+    @Test
+    public void testDateBeforeEpoch() {
+        V4Vm object = vm().creationTime(new Date(-1)).build();
+        assertEquals(
+            "<vm><creation_time>1969-12-31T23:59:59.999Z</creation_time></vm>",
+            objectToXml(object)
+        );
+    }
+
     /**
      * Checks that enum values are written correctly.
      */
@@ -441,6 +455,90 @@ public class XmlWriterTest {
         );
     }
 
+    /**
+     * Checks that the direct writer generates the same text than the writer based on the JDK, both with and without
+     * indentation, for an object that contains attributes, nested objects, lists and text that needs to be escaped.
+     */
+    @Test
+    public void testDirectSameAsStax() {
+        V4Vm object = vm()
+            .id("1\"2<3>&")
+            .name("a < b && c > d \u00e1\u20ac\ud83d\ude00")
+            .memory(BigInteger.valueOf(1024))
+            .cpu(cpu().mode("mymode"))
+            .disks(disk().id("123").alias("disk1"))
+            .disks(disk().id("456"))
+            .properties("x", "y")
+            .build();
+        for (boolean indent : new boolean[] { false, true }) {
+            StringWriter expected = new StringWriter();
+            try (XmlWriter writer = new XmlWriter(expected, indent)) {
+                V4XmlVmWriter.writeMany(Arrays.asList(object, vm().build()).iterator(), writer);
+                writer.flush();
+            }
+            assertEquals(expected.toString(), directToXml(Arrays.asList(object, vm().build()), indent));
+        }
+    }
+
+    /**
+     * Checks that the names passed already encoded are written in the same way than the names passed only as strings,
+     * both by the direct writer and by the writer based on the JDK, which ignores the encoded names.
+     */
+    @Test
+    public void testEncodedNames() {
+        V4Vm object = vm().id("123").name("myvm").disks(disk().id("456")).build();
+        String expected =
+            "<myvms><myvm id=\"123\"><disks><disk id=\"456\"></disk></disks><name>myvm</name></myvm></myvms>";
+        byte[] singular = XmlWriter.encodeName("myvm");
+        byte[] plural = XmlWriter.encodeName("myvms");
+        for (boolean direct : new boolean[] { false, true }) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try (XmlWriter writer = direct ? XmlWriter.direct(encoded, false) : new XmlWriter(encoded, false)) {
+                V4XmlVmWriter.writeMany(Arrays.asList(object).iterator(), "myvm", singular, "myvms", plural, writer);
+            }
+            assertEquals(expected, new String(encoded.toByteArray(), StandardCharsets.UTF_8));
+            ByteArrayOutputStream plain = new ByteArrayOutputStream();
+            try (XmlWriter writer = direct ? XmlWriter.direct(plain, false) : new XmlWriter(plain, false)) {
+                V4XmlVmWriter.writeMany(Arrays.asList(object).iterator(), "myvm", "myvms", writer);
+            }
+            assertEquals(expected, new String(plain.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Checks that the direct writer writes the start of the document and closes the elements that are still open
+     * when the document ends.
+     */
+    @Test
+    public void testDirectDocument() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (XmlWriter writer = XmlWriter.direct(buffer, false)) {
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("vm");
+            writer.writeStartElement("name");
+        }
+        assertEquals(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?><vm><name></name></vm>",
+            new String(buffer.toByteArray(), StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Checks that the direct writer handles texts larger than its internal buffer.
+     */
+    @Test
+    public void testDirectLargeText() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            name.append("\u00e1&");
+        }
+        List<V4Vm> list = Collections.singletonList(vm().name(name.toString()).build());
+        assertEquals(
+            listToXml(list.iterator()),
+            directToXml(list, false)
+        );
+    }
+
     /**
      * Checks that one million of VMs can be serialized in a reasonable time and without exhausting the memory of the
      * virtual machine. Note that the test is currently disabled because if it fails it will block other tests, but it
@@ -487,6 +585,46 @@ public class XmlWriterTest {
         assertTrue(elapsed < 60_000_000);
     }
 
+    /**
+     * Checks that a writer can be reset to write several documents to streams, and that multi-byte characters are
+     * encoded correctly.
+     */
+    @Test
+    public void testResetStream() {
+        XmlWriter writer = new XmlWriter(false);
+        for (String name : Arrays.asList("\u00f1\u4e2d\ud83d\ude00", "myvm")) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writer.reset(buffer);
+            V4XmlVmWriter.writeOne(vm().name(name).build(), writer);
+            writer.close();
+            assertEquals(
+                "<vm><name>" + name + "</name></vm>",
+                new String(buffer.toByteArray(), StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+    /**
+     * Checks that a direct writer can be reset to write several documents, also after a document that wasn't
+     * completed.
+     */
+    @Test
+    public void testResetDirect() {
+        XmlWriter writer = XmlWriter.direct(null, false);
+        writer.reset(new ByteArrayOutputStream());
+        writer.writeStartElement("junk");
+        for (String name : Arrays.asList("\u00f1\u4e2d\ud83d\ude00", "myvm")) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writer.reset(buffer);
+            V4XmlVmWriter.writeOne(vm().name(name).build(), writer);
+            writer.close();
+            assertEquals(
+                "<vm><name>" + name + "</name></vm>",
+                new String(buffer.toByteArray(), StandardCharsets.UTF_8)
+            );
+        }
+    }
+
     /**
      * Converts the given object to XML and returns a string containing the XML text. Will use the default tag
      * for the object.
@@ -549,4 +687,20 @@ public class XmlWriterTest {
             return buffer.toString();
         }
     }
+
+    /**
+     * Converts the given list of objects to XML using the direct writer, and returns a string containing the XML
+     * text.
+     *
+     * @param list the list of objects to convert
+     * @param indent indicates if the output should be indented
+     */
+    private String directToXml(List<V4Vm> list, boolean indent) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (XmlWriter writer = XmlWriter.direct(buffer, indent)) {
+            V4XmlVmWriter.writeMany(list.iterator(), writer);
+            writer.flush();
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
 }
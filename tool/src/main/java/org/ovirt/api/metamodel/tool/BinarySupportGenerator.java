@@ -0,0 +1,617 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tool;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+
+import org.ovirt.api.metamodel.concepts.EnumType;
+import org.ovirt.api.metamodel.concepts.EnumValue;
+import org.ovirt.api.metamodel.concepts.ListType;
+import org.ovirt.api.metamodel.concepts.Model;
+import org.ovirt.api.metamodel.concepts.Name;
+import org.ovirt.api.metamodel.concepts.PrimitiveType;
+import org.ovirt.api.metamodel.concepts.StructMember;
+import org.ovirt.api.metamodel.concepts.StructType;
+import org.ovirt.api.metamodel.concepts.Type;
+import org.ovirt.api.metamodel.runtime.binary.BinaryReader;
+import org.ovirt.api.metamodel.runtime.binary.BinaryWriter;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+
+/**
+ * This class generates the readers and writers for the compact binary format implemented by the
+ * {@link BinaryReader} and {@link BinaryWriter} classes.
+ *
+ * The numeric identifiers of the members of the struct types and of the values of the enum types are calculated from
+ * their names, using the 32 bits FNV-1a hash reduced to the range from 1 to {@value #MAX_ID}. That way the identifier
+ * of a member doesn't depend on the rest of the model, so it doesn't change when other members are added or removed,
+ * and documents written with one version of the model can be read with another. When two names of the same type
+ * collide, the one that goes later in alphabetical order is hashed again with a suffix. Note that this means that
+ * adding a member whose name collides with an existing one, and goes first in alphabetical order, changes the
+ * identifier of the existing one. This is very unlikely, and is detected comparing the generated code.
+ */
+public class BinarySupportGenerator extends JavaGenerator {
+    // The maximum value of an identifier, chosen so that the keys of the members fit in three bytes:
+    private static final int MAX_ID = (1 << 18) - 1;
+
+    // Reference to the object used to calculate names:
+    @Inject
+    private Names names;
+
+    // Reference to the object used to calculate Java names:
+    @Inject
+    @Style("versioned")
+    private JavaNames javaNames;
+
+    // Reference to the object used to calculate Java types:
+    @Inject
+    private JavaTypes javaTypes;
+
+    // Reference to the object used to calculate XML schema names:
+    @Inject
+    private SchemaNames schemaNames;
+
+    // Reference to the object that contains the options for the generated code:
+    @Inject
+    private JavaOptions javaOptions;
+
+    public void generate(Model model) {
+        // Generate classes for each struct type:
+        model.types()
+            .filter(StructType.class::isInstance)
+            .map(StructType.class::cast)
+            .forEach(this::generateStructSupportClasses);
+
+        // Generate classes for each enum type:
+        model.types()
+            .filter(EnumType.class::isInstance)
+            .map(EnumType.class::cast)
+            .forEach(this::generateEnumSupportClasses);
+    }
+
+    private void generateStructSupportClasses(StructType type) {
+        generateStructReader(type);
+        generateStructWriter(type);
+    }
+
+    private void generateEnumSupportClasses(EnumType type) {
+        generateEnumReader(type);
+        generateEnumWriter(type);
+    }
+
+    /**
+     * Calculates the identifiers of the given names, resolving collisions as explained in the documentation of the
+     * class.
+     *
+     * @return a map containing the identifiers, in the alphabetical order of the names
+     */
+    private Map<String, Integer> getIds(Stream<String> names) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        Set<Integer> used = new HashSet<>();
+        names.sorted().distinct().forEach(name -> {
+            int id = getId(name);
+            for (int suffix = 1; used.contains(id); suffix++) {
+                id = getId(name + "#" + suffix);
+            }
+            used.add(id);
+            ids.put(name, id);
+        });
+        return ids;
+    }
+
+    private int getId(String name) {
+        int hash = 0x811c9dc5;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return (int) (Integer.toUnsignedLong(hash) % MAX_ID) + 1;
+    }
+
+    private List<StructMember> getMembers(StructType type) {
+        List<StructMember> members = new ArrayList<>();
+        members.addAll(type.getAttributes());
+        members.addAll(type.getLinks());
+        return members;
+    }
+
+    private Map<String, Integer> getMemberIds(StructType type) {
+        return getIds(getMembers(type).stream().map(member -> schemaNames.getSchemaTagName(member.getName())));
+    }
+
+    private Map<String, Integer> getValueIds(EnumType type) {
+        return getIds(type.values().map(this::getEnumValueImage));
+    }
+
+    private String getEnumValueName(EnumValue value) {
+        return names.getUpperJoined(value.getName(), "_");
+    }
+
+    private String getEnumValueImage(EnumValue value) {
+        return names.getLowerJoined(value.getName(), "_");
+    }
+
+    private void generateMemberIds(StructType type) {
+        Map<String, Integer> ids = getMemberIds(type);
+        if (ids.isEmpty()) {
+            return;
+        }
+        javaBuffer.addLine("// The identifiers of the members:");
+        ids.forEach((tag, id) ->
+            javaBuffer.addLine("private static final int %1$s = %2$d;", getSymbolConstant(tag), id)
+        );
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReader(StructType type) {
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName readerName = javaTypes.getBinaryReaderName(type);
+        javaBuffer.setClassName(readerName);
+        generateStructReaderSource(type);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for binary reader \"" + readerName + "\"", exception);
+        }
+    }
+
+    private void generateStructReaderSource(StructType type) {
+        // Begin class:
+        JavaClassName readerName = javaTypes.getBinaryReaderName(type);
+        javaBuffer.addLine("public class %1$s {", readerName.getSimpleName());
+        javaBuffer.addLine();
+        generateMemberIds(type);
+
+        // Generate methods to read one instance and a list of instances:
+        generateStructReadOne(type);
+        generateStructReadMany(type);
+
+        // End class:
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadOne(StructType type) {
+        // Get the type and container name:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+        JavaClassName containerName = javaTypes.getContainerName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(containerName);
+        javaBuffer.addImport(BinaryReader.class);
+        javaBuffer.addImport(Projection.class);
+
+        // Generate the method that reads all the members:
+        javaBuffer.addLine("public static %1$s readOne(BinaryReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "return readOne(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that reads only the members included in a projection:
+        List<StructMember> members = getMembers(type);
+        javaBuffer.addLine(
+            "public static %1$s readOne(BinaryReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "reader.startObject();");
+        javaBuffer.addLine(  "%1$s object = new %1$s();", containerName.getSimpleName());
+        javaBuffer.addLine(  "int id;");
+        javaBuffer.addLine(  "while ((id = reader.next()) != 0) {");
+        if (members.isEmpty()) {
+            javaBuffer.addLine("reader.skipValue();");
+        }
+        else {
+            javaBuffer.addLine("switch (id) {");
+            members.stream().sorted().forEach(this::generateStructReadMember);
+            javaBuffer.addLine("default:");
+            javaBuffer.addLine(  "reader.skipValue();");
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return object;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadMember(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s:", getSymbolConstant(tag));
+        javaBuffer.addLine("if (!projection.includes(\"%1$s\")) {", tag);
+        javaBuffer.addLine(  "reader.skipValue();");
+        javaBuffer.addLine(  "break;");
+        javaBuffer.addLine("}");
+        if (type instanceof PrimitiveType) {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("object.%1$s(reader.readBoolean());", field);
+            }
+            else if (type == model.getIntegerType()) {
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("object.%1$s(reader.readLong());", field);
+                }
+                else {
+                    javaBuffer.addLine("object.%1$s(reader.readInteger());", field);
+                }
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("object.%1$s(reader.readDecimal());", field);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("object.%1$s(reader.readString());", field);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("object.%1$s(reader.readDate());", field);
+            }
+            else {
+                javaBuffer.addLine("reader.skipValue();");
+            }
+        }
+        else if (type instanceof StructType) {
+            JavaClassName readerName = javaTypes.getBinaryReaderName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine(
+                "object.%1$s(%2$s.readOne(reader, projection.get(\"%3$s\")));",
+                field,
+                readerName.getSimpleName(),
+                tag
+            );
+        }
+        else if (type instanceof EnumType) {
+            JavaClassName readerName = javaTypes.getBinaryReaderName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine("object.%1$s(%2$s.readOne(reader));", field, readerName.getSimpleName());
+        }
+        else if (type instanceof ListType) {
+            ListType listType = (ListType) type;
+            Type elementType = listType.getElementType();
+            if (elementType instanceof StructType) {
+                JavaClassName readerName = javaTypes.getBinaryReaderName(elementType);
+                javaBuffer.addImport(readerName);
+                javaBuffer.addLine(
+                    "object.%1$s(%2$s.readMany(reader, projection.get(\"%3$s\")));",
+                    field,
+                    readerName.getSimpleName(),
+                    tag
+                );
+            }
+            else if (elementType instanceof EnumType) {
+                JavaClassName readerName = javaTypes.getBinaryReaderName(elementType);
+                javaBuffer.addImport(readerName);
+                javaBuffer.addLine("object.%1$s(%2$s.readMany(reader));", field, readerName.getSimpleName());
+            }
+            else if (elementType instanceof PrimitiveType) {
+                Model model = type.getModel();
+                if (elementType == model.getBooleanType()) {
+                    javaBuffer.addLine("object.%1$s(reader.readBooleans());", field);
+                }
+                else if (elementType == model.getIntegerType()) {
+                    javaBuffer.addLine("object.%1$s(reader.readIntegers());", field);
+                }
+                else if (elementType == model.getDecimalType()) {
+                    javaBuffer.addLine("object.%1$s(reader.readDecimals());", field);
+                }
+                else if (elementType == model.getStringType()) {
+                    javaBuffer.addLine("object.%1$s(reader.readStrings());", field);
+                }
+                else if (elementType == model.getDateType()) {
+                    javaBuffer.addLine("object.%1$s(reader.readDates());", field);
+                }
+                else {
+                    javaBuffer.addLine("reader.skipValue();");
+                }
+            }
+            else {
+                javaBuffer.addLine("reader.skipValue();");
+            }
+        }
+        else {
+            javaBuffer.addLine("reader.skipValue();");
+        }
+        javaBuffer.addLine("break;");
+    }
+
+    private void generateStructReadMany(StructType type) {
+        // Get the type name:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(ArrayList.class);
+        javaBuffer.addImport(BinaryReader.class);
+        javaBuffer.addImport(List.class);
+        javaBuffer.addImport(Projection.class);
+
+        // Generate the methods:
+        javaBuffer.addLine("public static List<%1$s> readMany(BinaryReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "return readMany(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static List<%1$s> readMany(BinaryReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "reader.startList();");
+        javaBuffer.addLine(  "List<%1$s> list = new ArrayList<>();", typeName.getSimpleName());
+        javaBuffer.addLine(  "while (reader.nextElement()) {");
+        javaBuffer.addLine(    "list.add(readOne(reader, projection));");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return list;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructWriter(StructType type) {
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName writerName = javaTypes.getBinaryWriterName(type);
+        javaBuffer.setClassName(writerName);
+        generateStructWriterSource(type);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for binary writer \"" + writerName + "\"", exception);
+        }
+    }
+
+    private void generateStructWriterSource(StructType type) {
+        // Begin class:
+        JavaClassName writerName = javaTypes.getBinaryWriterName(type);
+        javaBuffer.addLine("public class %1$s {", writerName.getSimpleName());
+        javaBuffer.addLine();
+        generateMemberIds(type);
+
+        // Generate methods to write one instance and a list of instances:
+        generateStructWriteOne(type);
+        generateWriteMany(type);
+
+        // End class:
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructWriteOne(StructType type) {
+        // Get the name of the type:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(BinaryWriter.class);
+
+        // Generate the method that writes the object as the document:
+        javaBuffer.addLine("public static void writeOne(%1$s object, BinaryWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "writeOne(object, BinaryWriter.ROOT, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the identifier of the member as parameter:
+        javaBuffer.addLine("public static void writeOne(%1$s object, int id, BinaryWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "writer.writeStartObject(id);");
+        getMembers(type).stream().sorted().forEach(this::generateStructWriteMember);
+        javaBuffer.addLine(  "writer.writeEndObject();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructWriteMember(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String id = getSymbolConstant(schemaNames.getSchemaTagName(name));
+        javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        if (type instanceof PrimitiveType) {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("writer.writeBoolean(%1$s, object.%2$s());", id, field);
+            }
+            else if (type == model.getIntegerType()) {
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("writer.writeLong(%1$s, object.%2$sAsPrimitiveLong());", id, field);
+                }
+                else {
+                    javaBuffer.addLine("writer.writeInteger(%1$s, object.%2$s());", id, field);
+                }
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("writer.writeDecimal(%1$s, object.%2$s());", id, field);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("writer.writeString(%1$s, object.%2$s());", id, field);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("writer.writeDate(%1$s, object.%2$s());", id, field);
+            }
+        }
+        else if (type instanceof StructType || type instanceof EnumType) {
+            JavaClassName writerName = javaTypes.getBinaryWriterName(type);
+            javaBuffer.addImport(writerName);
+            javaBuffer.addLine("%1$s.writeOne(object.%2$s(), %3$s, writer);", writerName.getSimpleName(), field, id);
+        }
+        else if (type instanceof ListType) {
+            ListType listType = (ListType) type;
+            Type elementType = listType.getElementType();
+            if (elementType instanceof StructType || elementType instanceof EnumType) {
+                JavaClassName writerName = javaTypes.getBinaryWriterName(elementType);
+                javaBuffer.addImport(writerName);
+                javaBuffer.addLine("%1$s.writeMany(object.%2$s().iterator(), %3$s, writer);",
+                    writerName.getSimpleName(), field, id);
+            }
+            else if (elementType instanceof PrimitiveType) {
+                Model model = type.getModel();
+                if (elementType == model.getBooleanType()) {
+                    javaBuffer.addLine("writer.writeBooleans(%1$s, object.%2$s());", id, field);
+                }
+                else if (elementType == model.getIntegerType()) {
+                    javaBuffer.addLine("writer.writeIntegers(%1$s, object.%2$s());", id, field);
+                }
+                else if (elementType == model.getDecimalType()) {
+                    javaBuffer.addLine("writer.writeDecimals(%1$s, object.%2$s());", id, field);
+                }
+                else if (elementType == model.getStringType()) {
+                    javaBuffer.addLine("writer.writeStrings(%1$s, object.%2$s());", id, field);
+                }
+                else if (elementType == model.getDateType()) {
+                    javaBuffer.addLine("writer.writeDates(%1$s, object.%2$s());", id, field);
+                }
+            }
+        }
+        javaBuffer.addLine("}");
+    }
+
+    private void generateWriteMany(Type type) {
+        // Get the name of the type:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(Iterator.class);
+        javaBuffer.addImport(BinaryWriter.class);
+
+        // Generate the method that writes the list as the document:
+        javaBuffer.addLine("public static void writeMany(Iterator<%1$s> iterator, BinaryWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "writeMany(iterator, BinaryWriter.ROOT, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the identifier of the member as parameter:
+        javaBuffer.addLine("public static void writeMany(Iterator<%1$s> iterator, int id, BinaryWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "writer.writeStartList(id);");
+        javaBuffer.addLine(  "while (iterator.hasNext()) {");
+        javaBuffer.addLine(    "writeOne(iterator.next(), BinaryWriter.ELEMENT, writer);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "writer.writeEndList();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateEnumReader(EnumType type) {
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName readerName = javaTypes.getBinaryReaderName(type);
+        javaBuffer.setClassName(readerName);
+        generateEnumReaderSource(type);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for binary reader \"" + readerName + "\"", exception);
+        }
+    }
+
+    private void generateEnumReaderSource(EnumType type) {
+        // Get the type name:
+        JavaClassName readerName = javaTypes.getBinaryReaderName(type);
+        JavaClassName typeName = javaTypes.getEnumName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(ArrayList.class);
+        javaBuffer.addImport(BinaryReader.class);
+        javaBuffer.addImport(List.class);
+
+        // Begin class:
+        javaBuffer.addLine("public class %1$s {", readerName.getSimpleName());
+        javaBuffer.addLine();
+
+        // Generate the method that reads one value, returning null for identifiers that aren't known, like the
+        // method that converts strings:
+        Map<String, Integer> ids = getValueIds(type);
+        List<EnumValue> values = type.values().sorted().collect(toList());
+        javaBuffer.addLine("public static %1$s readOne(BinaryReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "switch (reader.readEnum()) {");
+        for (EnumValue value : values) {
+            javaBuffer.addLine("case %1$d:", ids.get(getEnumValueImage(value)));
+            javaBuffer.addLine(  "return %1$s.%2$s;", typeName.getSimpleName(), getEnumValueName(value));
+        }
+        javaBuffer.addLine(  "default:");
+        javaBuffer.addLine(    "return null;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that reads a list of values:
+        javaBuffer.addLine("public static List<%1$s> readMany(BinaryReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "reader.startList();");
+        javaBuffer.addLine(  "List<%1$s> list = new ArrayList<>();", typeName.getSimpleName());
+        javaBuffer.addLine(  "while (reader.nextElement()) {");
+        javaBuffer.addLine(    "list.add(readOne(reader));");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return list;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // End class:
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateEnumWriter(EnumType type) {
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName writerName = javaTypes.getBinaryWriterName(type);
+        javaBuffer.setClassName(writerName);
+        generateEnumWriterSource(type);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for binary writer \"" + writerName + "\"", exception);
+        }
+    }
+
+    private void generateEnumWriterSource(EnumType type) {
+        // Get the type name:
+        JavaClassName writerName = javaTypes.getBinaryWriterName(type);
+        JavaClassName typeName = javaTypes.getEnumName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(BinaryWriter.class);
+
+        // Begin class:
+        javaBuffer.addLine("public class %1$s {", writerName.getSimpleName());
+        javaBuffer.addLine();
+
+        // Generate the method that writes one value:
+        Map<String, Integer> ids = getValueIds(type);
+        List<EnumValue> values = type.values().sorted().collect(toList());
+        javaBuffer.addLine("public static void writeOne(%1$s object, int id, BinaryWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "switch (object) {");
+        for (EnumValue value : values) {
+            javaBuffer.addLine("case %1$s:", getEnumValueName(value));
+            javaBuffer.addLine(  "writer.writeEnum(id, %1$d);", ids.get(getEnumValueImage(value)));
+            javaBuffer.addLine(  "break;");
+        }
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the methods that write lists of values:
+        generateWriteMany(type);
+
+        // End class:
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+}
@@ -60,6 +60,7 @@ public class EnumGeneratorJaxb extends JavaGenerator {
         writeAnnotations(enumName);
         writeClassHeader(enumName);
         writeEnumValues(enumType);
+        writeValuesArray(enumName);
         writeValueMethod();
         writeFromValueMethod(enumName, enumType);
         writeAdapter(enumName);
@@ -113,6 +114,12 @@ public class EnumGeneratorJaxb extends JavaGenerator {
         return value + (lastValue ? ";" : ",");
     }
 
+    private void writeValuesArray(String enumName) {
+        // The array of values, so that it isn't copied each time that the values are scanned:
+        javaBuffer.addLine("private static final %1$s[] VALUES = values();", enumName);
+        javaBuffer.addLine();
+    }
+
     private void writeValueMethod() {
         javaBuffer.addLine("public String value() {");
         javaBuffer.addLine("return name().toLowerCase();");
@@ -121,13 +128,21 @@ public class EnumGeneratorJaxb extends JavaGenerator {
     }
 
     private void writeFromValueMethod(String enumName, EnumType enumType) {
+        // The exact values are checked first, with a switch, and then the rest of the values are compared ignoring
+        // case, so that no temporary string or exception is created:
         javaBuffer.addLine("public static " + enumName + " fromValue(String value) {");
-        javaBuffer.addLine(  "try {");
-        javaBuffer.addLine(    "return valueOf(value.toUpperCase());");
+        javaBuffer.addLine(  "switch (value) {");
+        for (EnumValue enumValue : enumType.getValues()) {
+            javaBuffer.addLine("case \"%1$s\":", getValueText(enumValue));
+            javaBuffer.addLine("return %1$s;", getValueText(enumValue).toUpperCase());
+        }
         javaBuffer.addLine(  "}");
-        javaBuffer.addLine(  "catch (IllegalArgumentException e) {");
-        javaBuffer.addLine(    "throw new InvalidEnumValueException(\"" + nonExistingValueMessage(enumName, enumType)  + "\");");
+        javaBuffer.addLine(  "for (" + enumName + " candidate : VALUES) {");
+        javaBuffer.addLine(    "if (candidate.name().equalsIgnoreCase(value)) {");
+        javaBuffer.addLine(      "return candidate;");
+        javaBuffer.addLine(    "}");
         javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "throw new InvalidEnumValueException(\"" + nonExistingValueMessage(enumName, enumType)  + "\");");
         javaBuffer.addLine("}");
     }
 
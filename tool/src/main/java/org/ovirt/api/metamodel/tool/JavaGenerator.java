@@ -5,13 +5,23 @@
 
 package org.ovirt.api.metamodel.tool;
 
+import static java.util.stream.Collectors.toList;
+
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.stream.Stream;
 
 import org.ovirt.api.metamodel.concepts.Concept;
+import org.ovirt.api.metamodel.concepts.ListType;
 import org.ovirt.api.metamodel.concepts.Model;
+import org.ovirt.api.metamodel.concepts.StructMember;
+import org.ovirt.api.metamodel.concepts.StructType;
+import org.ovirt.api.metamodel.concepts.Type;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
 
 /**
  * This class contains methods useful for several different kinds of classes that generate Java source code.
@@ -55,5 +65,70 @@ public abstract class JavaGenerator {
             javaBuffer.addDocComment(lines);
         }
     }
-}
 
+    /**
+     * Returns the members of the given type whose elements are pushed to the visitors while they are read, that is
+     * all the attributes and links, including the inherited ones, that are lists of structs.
+     */
+    protected List<StructMember> getVisitedMembers(StructType type) {
+        return Stream.<StructMember>concat(type.attributes(), type.links())
+            .filter(member -> {
+                Type memberType = member.getType();
+                return memberType instanceof ListType &&
+                    ((ListType) memberType).getElementType() instanceof StructType;
+            })
+            .sorted()
+            .collect(toList());
+    }
+
+    /**
+     * Generates the source of a class that contains an integer constant for each of the given tag names, and the
+     * symbol table that translates those names into the constants. The generated readers use the constants in their
+     * {@code switch} statements, instead of the names.
+     *
+     * @param tags the names, the position in the set determines the value of the constant
+     */
+    protected void generateSymbolsSource(SortedSet<String> tags) {
+        // Begin class:
+        javaBuffer.addImport(SymbolTable.class);
+        javaBuffer.addDocComment(
+            "This class contains the symbols used by the generated readers to identify the names of the members,",
+            "and the table that translates the names into those symbols."
+        );
+        javaBuffer.addLine("public class %1$s {", javaBuffer.getClassName().getSimpleName());
+        javaBuffer.addLine();
+
+        // Generate the constants:
+        int symbol = SymbolTable.UNKNOWN;
+        for (String tag : tags) {
+            symbol++;
+            javaBuffer.addLine("public static final int %1$s = %2$d;", getSymbolConstant(tag), symbol);
+        }
+        javaBuffer.addLine();
+
+        // Generate the table, with the names in the same order than the constants:
+        javaBuffer.addLine("private static final %1$s table = new %1$s(", SymbolTable.class.getSimpleName());
+        Iterator<String> iterator = tags.iterator();
+        while (iterator.hasNext()) {
+            javaBuffer.addLine("\"%1$s\"%2$s", iterator.next(), iterator.hasNext() ? "," : "");
+        }
+        javaBuffer.addLine(");");
+        javaBuffer.addLine();
+
+        // Generate the method that returns the table:
+        javaBuffer.addLine("public static %1$s table() {", SymbolTable.class.getSimpleName());
+        javaBuffer.addLine("return table;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // End class:
+        javaBuffer.addLine("}");
+    }
+
+    /**
+     * Returns the name of the constant that contains the symbol of the given tag name.
+     */
+    protected String getSymbolConstant(String tag) {
+        return tag.toUpperCase();
+    }
+}
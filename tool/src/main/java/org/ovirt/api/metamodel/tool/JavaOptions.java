@@ -0,0 +1,175 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tool;
+
+import java.util.Set;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.ovirt.api.metamodel.concepts.StructMember;
+import org.ovirt.api.metamodel.concepts.Type;
+
+/**
+ * This class contains the options that change the way that the Java code is generated. The default values of the
+ * options generate the same code that was generated before the options were introduced.
+ */
+@ApplicationScoped
+public class JavaOptions {
+    /**
+     * Indicates if integer members should be stored in primitive {@code long} fields instead of {@link
+     * java.math.BigInteger} objects.
+     */
+    private boolean primitiveIntegers = false;
+
+    /**
+     * The names of the integer members that should be stored in primitive fields, in {@code type.member} form, or
+     * {@code null} if all the integer members should.
+     */
+    private Set<String> primitiveIntegerMembers;
+
+    /**
+     * Indicates if the decoding of nested struct members should be deferred till they are used.
+     */
+    private boolean lazyStructs = false;
+
+    /**
+     * Indicates if the generated containers should record the members that are changed.
+     */
+    private boolean trackChanges = false;
+
+    /**
+     * Indicates if the getters of the generated containers should return views created once instead of in each call.
+     */
+    private boolean cachedViews = false;
+
+    /**
+     * Indicates if the generated containers should store the members that are present in a dense array.
+     */
+    private boolean compactContainers = false;
+
+    /**
+     * Returns {@code true} if integer members of the generated containers are stored in primitive {@code long} fields,
+     * and read and written by the generated XML and JSON support classes without creating {@link java.math.BigInteger}
+     * objects. The {@code BigInteger} getters and setters are still generated, for compatibility, but they convert
+     * the value each time that they are called. Values that don't fit in 64 bits can't be stored in those members,
+     * so the readers reject them with an exception, and so do the setters. Use the
+     * {@link #setPrimitiveIntegerMembers(Set)} method to restrict this to the members that are known to fit.
+     */
+    public boolean isPrimitiveIntegers() {
+        return primitiveIntegers;
+    }
+
+    /**
+     * Sets the flag that indicates if integer members should be stored in primitive {@code long} fields.
+     */
+    public void setPrimitiveIntegers(boolean newPrimitiveIntegers) {
+        primitiveIntegers = newPrimitiveIntegers;
+    }
+
+    /**
+     * Returns the names of the integer members that are stored in primitive fields, in {@code type.member} form, for
+     * example {@code vm.memory}, or {@code null}, the default, if all the integer members are.
+     */
+    public Set<String> getPrimitiveIntegerMembers() {
+        return primitiveIntegerMembers;
+    }
+
+    /**
+     * Sets the names of the integer members that are stored in primitive fields, in {@code type.member} form, using
+     * the name of the type that declares the member, with the words separated by underscores. The rest of the integer
+     * members keep using {@link java.math.BigInteger}. A {@code null} value means all the integer members.
+     */
+    public void setPrimitiveIntegerMembers(Set<String> newPrimitiveIntegerMembers) {
+        primitiveIntegerMembers = newPrimitiveIntegerMembers;
+    }
+
+    /**
+     * Returns {@code true} if the given member is an integer that is stored in a primitive {@code long} field.
+     */
+    public boolean isPrimitiveInteger(StructMember member) {
+        Type type = member.getType();
+        if (!primitiveIntegers || type != type.getModel().getIntegerType()) {
+            return false;
+        }
+        if (primitiveIntegerMembers == null) {
+            return true;
+        }
+        String name = member.getDeclaringType().getName() + "." + member.getName();
+        return primitiveIntegerMembers.contains(name.toLowerCase());
+    }
+
+    /**
+     * Returns {@code true} if the generated containers can store nested struct members in a deferred form, that is
+     * decoded the first time that the getter is called. The generated JSON readers use that form when they read
+     * directly from UTF-8 bytes, keeping only the region of the bytes that contains the nested object. That region
+     * shares the bytes with the buffer given to the reader, so that buffer must not be modified or reused while any
+     * container still has deferred members. The XML readers, and the JSON readers that work with characters, still
+     * decode the nested objects immediately.
+     */
+    public boolean isLazyStructs() {
+        return lazyStructs;
+    }
+
+    /**
+     * Sets the flag that indicates if the decoding of nested struct members should be deferred.
+     */
+    public void setLazyStructs(boolean newLazyStructs) {
+        lazyStructs = newLazyStructs;
+    }
+
+    /**
+     * Returns {@code true} if the generated containers record the members that are set after the
+     * {@code trackChanges} method is called, and the generated XML and JSON writers have {@code writeDelta} methods
+     * that write only those members. The tracking also extends to the nested structs and to the elements of the lists
+     * of structs, so that changes made directly to them are also written. This is intended for update requests, where
+     * only the changed members need to be sent.
+     */
+    public boolean isTrackChanges() {
+        return trackChanges;
+    }
+
+    /**
+     * Sets the flag that indicates if the generated containers should record the members that are changed.
+     */
+    public void setTrackChanges(boolean newTrackChanges) {
+        trackChanges = newTrackChanges;
+    }
+
+    /**
+     * Returns {@code true} if the list getters of the generated containers return an unmodifiable view that is
+     * created when the list is set, instead of creating a new one in each call. This avoids allocations in code that
+     * calls the getters many times. The date getters still return copies, as dates are mutable.
+     */
+    public boolean isCachedViews() {
+        return cachedViews;
+    }
+
+    /**
+     * Sets the flag that indicates if the getters of the generated containers should return cached views.
+     */
+    public void setCachedViews(boolean newCachedViews) {
+        cachedViews = newCachedViews;
+    }
+
+    /**
+     * Returns {@code true} if the generated containers store the members that are present in a dense array, in the
+     * order of their indexes, and use a bit set to indicate which members are present and to locate them in the
+     * array, instead of using one field per member. This reduces the memory used by objects that have many members
+     * but only a few of them set, like most of the objects returned by the server, at the cost of slower getters and
+     * setters. The members that are present can be iterated with a bit scan, using the {@code nextPresent} and
+     * {@code memberName} methods of the containers. Integers stored as primitives and lazy structs still use their
+     * own fields.
+     */
+    public boolean isCompactContainers() {
+        return compactContainers;
+    }
+
+    /**
+     * Sets the flag that indicates if the generated containers should store the members in a dense array.
+     */
+    public void setCompactContainers(boolean newCompactContainers) {
+        compactContainers = newCompactContainers;
+    }
+}
@@ -48,6 +48,8 @@ public class JavaPackages {
     private String containersPackageName = "org.ovirt.engine.api.containers";
     private String buildersPackageName = "org.ovirt.engine.api.builders";
     private String jsonPackageName = "org.ovirt.engine.api.json";
+    private String binaryPackageName = "org.ovirt.engine.api.binary";
+    private String transcodersPackageName = "org.ovirt.engine.api.transcoders";
     private String xmlPackageName = "org.ovirt.engine.api.xml";
 
     /**
@@ -120,6 +122,34 @@ public class JavaPackages {
         jsonPackageName = newJsonPackageName;
     }
 
+    /**
+     * Get the name of the package that contains the generated binary readers and writers.
+     */
+    public String getBinaryPackageName() {
+        return binaryPackageName;
+    }
+
+    /**
+     * Set the name of the package that contains the generated binary readers and writers.
+     */
+    public void setBinaryPackageName(String newBinaryPackageName) {
+        binaryPackageName = newBinaryPackageName;
+    }
+
+    /**
+     * Get the name of the package that contains the generated XML to JSON and JSON to XML transcoders.
+     */
+    public String getTranscodersPackageName() {
+        return transcodersPackageName;
+    }
+
+    /**
+     * Set the name of the package that contains the generated XML to JSON and JSON to XML transcoders.
+     */
+    public void setTranscodersPackageName(String newTranscodersPackageName) {
+        transcodersPackageName = newTranscodersPackageName;
+    }
+
     /**
      * Get the name of the package that contains the generated XML readers and writers.
      */
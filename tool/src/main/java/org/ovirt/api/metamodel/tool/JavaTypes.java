@@ -47,6 +47,27 @@ public interface JavaTypes {
      */
     JavaClassName getBuilderName(Type type);
 
+    /**
+     * Calculates the name of the visitor class that should be generated for the given type. For example,
+     * for the {@code Vm} type it will generate {@code V4VmVisitor} as the simple class name, in the same package
+     * than the interface.
+     */
+    JavaClassName getVisitorName(Type type);
+
+    /**
+     * Calculates the name of the class that stores the values of the attributes of the given type in columns. For
+     * example, for the {@code Vm} type it will generate {@code V4VmColumns} as the simple class name, in the same
+     * package than the interface.
+     */
+    JavaClassName getColumnsName(Type type);
+
+    /**
+     * Calculates the name of the runtime class used to store the values of the given type in a column, for example
+     * {@code LongColumn} for integers and dates. Returns {@code null} if the values of the type can't be stored in a
+     * column, for example if it is a struct or a list.
+     */
+    JavaClassName getColumnName(Type type);
+
     /**
      * Calculates the name of the base class of all the JSON readers.
      */
@@ -67,6 +88,21 @@ public interface JavaTypes {
      */
     JavaClassName getJsonWriterName(Type type);
 
+    /**
+     * Calculates the name of the binary reader that should be generated for the given type.
+     */
+    JavaClassName getBinaryReaderName(Type type);
+
+    /**
+     * Calculates the name of the binary writer that should be generated for the given type.
+     */
+    JavaClassName getBinaryWriterName(Type type);
+
+    /**
+     * Calculates the name of the class that converts the given type between XML and JSON.
+     */
+    JavaClassName getTranscoderName(Type type);
+
     /**
      * Calculates the name of the base class of all the XML readers.
      */
@@ -5,11 +5,17 @@
 
 package org.ovirt.api.metamodel.tool;
 
+import static java.util.stream.Collectors.toList;
+
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.json.stream.JsonParser;
@@ -18,12 +24,20 @@ import org.ovirt.api.metamodel.concepts.EnumType;
 import org.ovirt.api.metamodel.concepts.ListType;
 import org.ovirt.api.metamodel.concepts.Model;
 import org.ovirt.api.metamodel.concepts.Name;
+import org.ovirt.api.metamodel.concepts.NameParser;
 import org.ovirt.api.metamodel.concepts.PrimitiveType;
 import org.ovirt.api.metamodel.concepts.StructMember;
 import org.ovirt.api.metamodel.concepts.StructType;
 import org.ovirt.api.metamodel.concepts.Type;
 import org.ovirt.api.metamodel.runtime.json.JsonReader;
 import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsAccumulator;
+import org.ovirt.api.metamodel.runtime.util.Deferred;
+import org.ovirt.api.metamodel.runtime.util.ParallelDecoder;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+import org.ovirt.api.metamodel.runtime.util.StringCache;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
 
 /**
  * This class generates the XML readers and writers.
@@ -49,6 +63,10 @@ public class JsonSupportGenerator extends JavaGenerator {
     // Reference to the object used to calculate XML schema names:
     @Inject private SchemaNames schemaNames;
 
+    // Reference to the object that contains the options for the generated code:
+    @Inject
+    private JavaOptions javaOptions;
+
     public void generate(Model model) {
         // Generate classes for each type:
         model.types()
@@ -61,6 +79,9 @@ public class JsonSupportGenerator extends JavaGenerator {
             .filter(EnumType.class::isInstance)
             .map(EnumType.class::cast)
             .forEach(this::generateEnumSupportClasses);
+
+        // Generate the symbols used by the readers to identify members:
+        generateSymbols(model);
     }
 
     private void generateStructSupportClasses(StructType type) {
@@ -73,6 +94,37 @@ public class JsonSupportGenerator extends JavaGenerator {
         generateEnumWriter(type);
     }
 
+    private JavaClassName getSymbolsName() {
+        Name name = NameParser.parseUsingCase("JsonSymbols");
+        JavaClassName symbolsName = new JavaClassName();
+        symbolsName.setPackageName(javaPackages.getJsonPackageName());
+        symbolsName.setSimpleName(javaNames.getJavaClassStyleName(name));
+        return symbolsName;
+    }
+
+    private void generateSymbols(Model model) {
+        // Collect the names of all the members of all the struct types:
+        SortedSet<String> tags = new TreeSet<>();
+        model.types()
+            .filter(StructType.class::isInstance)
+            .map(StructType.class::cast)
+            .flatMap(type -> Stream.<StructMember>concat(type.attributes(), type.links()))
+            .map(member -> schemaNames.getSchemaTagName(member.getName()))
+            .forEach(tags::add);
+
+        // Generate the class:
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName symbolsName = getSymbolsName();
+        javaBuffer.setClassName(symbolsName);
+        generateSymbolsSource(tags);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for JSON symbols \"" + symbolsName + "\"", exception);
+        }
+    }
+
     private void generateStructReader(StructType type) {
         javaBuffer = new JavaClassBuffer();
         JavaClassName readerName = javaTypes.getJsonReaderName(type);
@@ -92,9 +144,17 @@ public class JsonSupportGenerator extends JavaGenerator {
         javaBuffer.addLine("public class %1$s {", readerName.getSimpleName());
         javaBuffer.addLine();
 
+        // Generate the accumulator for the metrics:
+        generateMetricsField(type, "JSON_READ");
+
         // Generate methods to read one instance and a list of instances:
         generateStructReadOne(type);
         generateStructReadMany(type);
+        generateStructReadManyParallel(type);
+        generateStructReadColumns(type);
+        if (javaOptions.isLazyStructs()) {
+            generateStructDeferOne(type);
+        }
 
         // End class:
         javaBuffer.addLine("}");
@@ -114,37 +174,156 @@ public class JsonSupportGenerator extends JavaGenerator {
 
         // Generate the that assumes that parsing of the object hasn't started yet, so it will expect the start of the
         // object as the first event:
+        javaBuffer.addImport(Projection.class);
         javaBuffer.addLine("public static %1$s readOne(JsonReader reader) {", typeName.getSimpleName());
         javaBuffer.addLine(  "return readOne(reader, false);");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
+        // Generate the method that reads only the members included in a projection:
+        javaBuffer.addLine(
+            "public static %1$s readOne(JsonReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return visitOne(reader, false, null, projection);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
         // Generate the method that receives a boolean parameter indicating if parsing of the object has already
         // started. In that case the start event will have been consumed already.
         List<StructMember> members = new ArrayList<>();
         members.addAll(type.getAttributes());
         members.addAll(type.getLinks());
         javaBuffer.addLine("public static %1$s readOne(JsonReader reader, boolean started) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "return visitOne(reader, started, null, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the methods that push the object, and the elements of its nested lists, to a visitor:
+        JavaClassName visitorName = javaTypes.getVisitorName(type);
+        javaBuffer.addImport(visitorName);
+        javaBuffer.addLine(
+            "public static %1$s visitOne(JsonReader reader, %2$s visitor) {",
+            typeName.getSimpleName(),
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return visitOne(reader, false, visitor, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static %1$s visitOne(JsonReader reader, boolean started, %2$s visitor) {",
+            typeName.getSimpleName(),
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return visitOne(reader, started, visitor, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static %1$s visitOne(JsonReader reader, boolean started, %2$s visitor, Projection projection) {",
+            typeName.getSimpleName(),
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return readInto(reader, started, visitor, projection, null);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that reuses the given container and the containers of its nested objects, if any,
+        // used by the iterators that reuse containers and by the readers of the objects that contain this one:
+        javaBuffer.addLine(
+            "static %1$s readInto(JsonReader reader, boolean started, %2$s visitor, Projection projection, " +
+            "%1$s object) {",
+            containerName.getSimpleName(),
+            visitorName.getSimpleName()
+        );
+        generateMetricsStart();
         javaBuffer.addLine(  "if (!started) {");
         javaBuffer.addLine(    "reader.expect(JsonParser.Event.START_OBJECT);");
         javaBuffer.addLine(  "}");
-        javaBuffer.addLine(  "%1$s object = new %1$s();", containerName.getSimpleName());
+        generateStructRecycle(members, containerName);
+        if (!members.isEmpty()) {
+            JavaClassName symbolsName = getSymbolsName();
+            javaBuffer.addImport(symbolsName);
+            javaBuffer.addImport(SymbolTable.class);
+            javaBuffer.addLine("SymbolTable symbols = %1$s.table();", symbolsName.getSimpleName());
+        }
         javaBuffer.addLine(  "while (reader.next() == JsonParser.Event.KEY_NAME) {");
         if (members.isEmpty()) {
-            javaBuffer.addLine("reader.skip();");
+            javaBuffer.addLine("reader.skipValue();");
         }
         else {
-            javaBuffer.addLine("String name = reader.getString();");
-            javaBuffer.addLine("switch (name) {");
+            javaBuffer.addLine("int symbol = reader.getSymbol(symbols);");
+            javaBuffer.addLine("if (symbol == SymbolTable.UNKNOWN ||");
+            javaBuffer.addLine(  "(projection != Projection.ALL && !projection.includes(symbols.getName(symbol)))) {");
+            javaBuffer.addLine(  "reader.skipValue();");
+            javaBuffer.addLine(  "continue;");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine("switch (symbol) {");
             members.stream().sorted().forEach(this::generateStructReadMember);
             javaBuffer.addLine("default:");
-            javaBuffer.addLine(  "reader.skip();");
+            javaBuffer.addLine(  "reader.skipValue();");
             javaBuffer.addLine("}");
         }
         javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "if (visitor != null) {");
+        javaBuffer.addLine(    "visitor.visit(object);");
+        javaBuffer.addLine(  "}");
+        generateMetricsRecord();
         javaBuffer.addLine(  "return object;");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
+
+        // Generate the method used by the readers of the objects that contain this one to reuse the container of the
+        // previous value:
+        javaBuffer.addLine(
+            "static %1$s readOne(JsonReader reader, Projection projection, %1$s recycled) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "%1$s object = null;", containerName.getSimpleName());
+        javaBuffer.addLine(  "if (recycled instanceof %1$s) {", containerName.getSimpleName());
+        javaBuffer.addLine(    "object = (%1$s) recycled;", containerName.getSimpleName());
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return readInto(reader, false, null, projection, object);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructRecycle(List<StructMember> members, JavaClassName containerName) {
+        // When a container is given it is cleared and reused, but before that the values of the members that contain
+        // other objects are saved, so that their containers can also be reused:
+        List<StructMember> recycled = members.stream()
+            .filter(this::isRecycledMember)
+            .sorted()
+            .collect(toList());
+        for (StructMember member : recycled) {
+            JavaTypeReference reference = javaTypes.getTypeReference(member.getType(), false);
+            javaBuffer.addImports(reference.getImports());
+            javaBuffer.addLine(
+                "%1$s %2$sRecycled = null;",
+                reference.getText(),
+                javaNames.getJavaMemberStyleName(member.getName())
+            );
+        }
+        javaBuffer.addLine("if (object == null) {");
+        javaBuffer.addLine(  "object = new %1$s();", containerName.getSimpleName());
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("else {");
+        for (StructMember member : recycled) {
+            javaBuffer.addLine("%1$sRecycled = object.%1$s();", javaNames.getJavaMemberStyleName(member.getName()));
+        }
+        javaBuffer.addLine(  "object.clear();");
+        javaBuffer.addLine("}");
+    }
+
+    private boolean isRecycledMember(StructMember member) {
+        // The structs that are decoded lazily aren't reused, as getting the previous value would decode it:
+        Type type = member.getType();
+        if (type instanceof StructType) {
+            return !javaOptions.isLazyStructs();
+        }
+        if (type instanceof ListType) {
+            return ((ListType) type).getElementType() instanceof StructType;
+        }
+        return false;
     }
 
     private void generateStructReadMember(StructMember member) {
@@ -152,14 +331,19 @@ public class JsonSupportGenerator extends JavaGenerator {
         Type type = member.getType();
         String field = javaNames.getJavaMemberStyleName(name);
         String tag = schemaNames.getSchemaTagName(name);
-        javaBuffer.addLine("case \"%1$s\":", tag);
+        javaBuffer.addLine("case %1$s.%2$s:", getSymbolsName().getSimpleName(), getSymbolConstant(tag));
         if (type instanceof PrimitiveType) {
             Model model = type.getModel();
             if (type == model.getBooleanType()) {
                 javaBuffer.addLine("object.%1$s(reader.readBoolean());", field);
             }
             else if (type == model.getIntegerType()) {
-                javaBuffer.addLine("object.%1$s(reader.readInteger());", field);
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("object.%1$s(reader.readLong());", field);
+                }
+                else {
+                    javaBuffer.addLine("object.%1$s(reader.readInteger());", field);
+                }
             }
             else if (type == model.getDecimalType()) {
                 javaBuffer.addLine("object.%1$s(reader.readDecimal());", field);
@@ -171,10 +355,40 @@ public class JsonSupportGenerator extends JavaGenerator {
                 javaBuffer.addLine("object.%1$s(reader.readDate());", field);
             }
             else {
-                javaBuffer.addLine("reader.skip();");
+                javaBuffer.addLine("reader.skipValue();");
             }
         }
-        else if (type instanceof StructType || type instanceof EnumType) {
+        else if (type instanceof StructType && javaOptions.isLazyStructs()) {
+            JavaClassName readerName = javaTypes.getJsonReaderName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine("if (reader.canDefer()) {");
+            javaBuffer.addLine(
+                "object.%1$sDeferred(%2$s.deferOne(reader, projection.get(\"%3$s\")));",
+                field,
+                readerName.getSimpleName(),
+                tag
+            );
+            javaBuffer.addLine("}");
+            javaBuffer.addLine("else {");
+            javaBuffer.addLine(
+                "object.%1$s(%2$s.readOne(reader, projection.get(\"%3$s\")));",
+                field,
+                readerName.getSimpleName(),
+                tag
+            );
+            javaBuffer.addLine("}");
+        }
+        else if (type instanceof StructType) {
+            JavaClassName readerName = javaTypes.getJsonReaderName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine(
+                "object.%1$s(%2$s.readOne(reader, projection.get(\"%3$s\"), %1$sRecycled));",
+                field,
+                readerName.getSimpleName(),
+                tag
+            );
+        }
+        else if (type instanceof EnumType) {
             JavaClassName readerName = javaTypes.getJsonReaderName(type);
             javaBuffer.addImport(readerName);
             javaBuffer.addLine("object.%1$s(%2$s.readOne(reader));", field, readerName.getSimpleName());
@@ -184,7 +398,10 @@ public class JsonSupportGenerator extends JavaGenerator {
             Type elementType = listType.getElementType();
             JavaClassName readerName = javaTypes.getJsonReaderName(elementType);
             javaBuffer.addImport(readerName);
-            if (elementType instanceof StructType || elementType instanceof EnumType) {
+            if (elementType instanceof StructType) {
+                generateStructVisitMember(member, readerName);
+            }
+            else if (elementType instanceof EnumType) {
                 javaBuffer.addLine("object.%1$s(%2$s.readMany(reader));", field, readerName.getSimpleName());
             }
             else if(elementType instanceof PrimitiveType) {
@@ -205,30 +422,108 @@ public class JsonSupportGenerator extends JavaGenerator {
                     javaBuffer.addLine("object.%1$s(reader.readDates());", field);
                 }
                 else {
-                    javaBuffer.addLine("reader.skip();");
+                    javaBuffer.addLine("reader.skipValue();");
                 }
             }
         }
         else {
-            javaBuffer.addLine("reader.skip();");
+            javaBuffer.addLine("reader.skipValue();");
         }
         javaBuffer.addLine("break;");
     }
 
+    private void generateStructVisitMember(StructMember member, JavaClassName readerName) {
+        // Without a visitor the list is read completely, otherwise the elements are pushed to the visitor one by one,
+        // as they are read, and only the ones that it decides to keep are added to the list:
+        Name name = member.getName();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String tag = schemaNames.getSchemaTagName(name);
+        String method = "visit" + javaNames.getJavaPropertyStyleName(names.getSingular(name));
+        ListType listType = (ListType) member.getType();
+        JavaClassName elementName = javaTypes.getInterfaceName(listType.getElementType());
+        javaBuffer.addImport(elementName);
+        javaBuffer.addImport(ArrayList.class);
+        javaBuffer.addImport(Iterator.class);
+        javaBuffer.addImport(List.class);
+        javaBuffer.addLine("if (visitor == null) {");
+        javaBuffer.addLine(
+            "object.%1$s(%2$s.readMany(reader, projection.get(\"%3$s\"), %1$sRecycled));",
+            field,
+            readerName.getSimpleName(),
+            tag
+        );
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("else {");
+        javaBuffer.addLine(  "List<%1$s> list = new ArrayList<>();", elementName.getSimpleName());
+        javaBuffer.addLine(
+            "Iterator<%1$s> iterator = %2$s.iterateMany(reader, projection.get(\"%3$s\"));",
+            elementName.getSimpleName(),
+            readerName.getSimpleName(),
+            tag
+        );
+        javaBuffer.addLine(  "while (iterator.hasNext()) {");
+        javaBuffer.addLine(    "%1$s element = iterator.next();", elementName.getSimpleName());
+        javaBuffer.addLine(    "if (visitor.%1$s(element)) {", method);
+        javaBuffer.addLine(      "list.add(element);");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "object.%1$s(list);", field);
+        javaBuffer.addLine("}");
+    }
+
     private void generateStructReadMany(StructType type) {
-        // Get the type name:
+        // Get the type and container names:
         JavaClassName typeName = javaTypes.getInterfaceName(type);
+        JavaClassName containerName = javaTypes.getContainerName(type);
 
-        // Iterate method:
+        // Iterate methods:
         javaBuffer.addImport(typeName);
+        javaBuffer.addImport(containerName);
         javaBuffer.addImport(Iterator.class);
         javaBuffer.addImport(JsonParser.class);
         javaBuffer.addImport(JsonReader.class);
+        javaBuffer.addImport(List.class);
         javaBuffer.addImport(NoSuchElementException.class);
+        javaBuffer.addImport(Projection.class);
         javaBuffer.addLine("public static Iterator<%1$s> iterateMany(JsonReader reader) {",
             typeName.getSimpleName());
+        javaBuffer.addLine(  "return iterateMany(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static Iterator<%1$s> iterateMany(JsonReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return iterate(reader, projection, null, false);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Iterate methods that reuse the same container, and the containers of its nested objects, for all the
+        // elements, so the object returned by each call to the next method is valid only till the next call:
+        javaBuffer.addLine("public static Iterator<%1$s> iterateReusing(JsonReader reader) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "return iterateReusing(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static Iterator<%1$s> iterateReusing(JsonReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return iterate(reader, projection, null, true);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method that creates the iterators. The elements reuse the containers of the recycled list, if given, or the
+        // container of the previous element, if requested:
+        javaBuffer.addLine(
+            "private static Iterator<%1$s> iterate(final JsonReader reader, final Projection projection, " +
+            "final List<%1$s> recycled, final boolean reuse) {",
+            typeName.getSimpleName()
+        );
         javaBuffer.addLine(  "return new Iterator<%1$s>() {", typeName.getSimpleName());
         javaBuffer.addLine(    "private boolean first = true;");
+        javaBuffer.addLine(    "private int index;");
+        javaBuffer.addLine(    "private %1$s current;", containerName.getSimpleName());
         javaBuffer.addLine();
         javaBuffer.addLine(    "@Override");
         javaBuffer.addLine(    "public boolean hasNext() {");
@@ -241,10 +536,27 @@ public class JsonSupportGenerator extends JavaGenerator {
         javaBuffer.addLine();
         javaBuffer.addLine(    "@Override");
         javaBuffer.addLine(    "public %1$s next() {", typeName.getSimpleName());
-        javaBuffer.addLine(      "%1$s next = readOne(reader, true);", typeName.getSimpleName());
+        javaBuffer.addLine(      "%1$s object = null;", containerName.getSimpleName());
+        javaBuffer.addLine(      "if (reuse) {");
+        javaBuffer.addLine(        "object = current;");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(      "else if (recycled != null && index < recycled.size()) {");
+        javaBuffer.addLine(        "%1$s element = recycled.get(index);", typeName.getSimpleName());
+        javaBuffer.addLine(        "if (element instanceof %1$s) {", containerName.getSimpleName());
+        javaBuffer.addLine(          "object = (%1$s) element;", containerName.getSimpleName());
+        javaBuffer.addLine(        "}");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(      "index++;");
+        javaBuffer.addLine(
+            "%1$s next = readInto(reader, true, null, projection, object);",
+            containerName.getSimpleName()
+        );
         javaBuffer.addLine(      "if (next == null) {");
         javaBuffer.addLine(        "throw new NoSuchElementException();");
         javaBuffer.addLine(      "}");
+        javaBuffer.addLine(      "if (reuse) {");
+        javaBuffer.addLine(        "current = next;");
+        javaBuffer.addLine(      "}");
         javaBuffer.addLine(      "return next;");
         javaBuffer.addLine(    "}");
         javaBuffer.addLine(  "};");
@@ -258,14 +570,213 @@ public class JsonSupportGenerator extends JavaGenerator {
         javaBuffer.addImport(JsonReader.class);
         javaBuffer.addImport(List.class);
         javaBuffer.addLine("public static List<%1$s> readMany(JsonReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "return readMany(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static List<%1$s> readMany(JsonReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return readMany(reader, projection, null);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Read method used by the readers of the objects that contain lists of this type, to reuse the containers of
+        // the elements of the previous value:
+        javaBuffer.addLine(
+            "static List<%1$s> readMany(JsonReader reader, Projection projection, List<%1$s> recycled) {",
+            typeName.getSimpleName()
+        );
         javaBuffer.addLine(  "List<%1$s> list = new ArrayList<>();", typeName.getSimpleName());
-        javaBuffer.addLine(  "Iterator<%1$s> iterator = iterateMany(reader);", typeName.getSimpleName());
+        javaBuffer.addLine(
+            "Iterator<%1$s> iterator = iterate(reader, projection, recycled, false);",
+            typeName.getSimpleName()
+        );
         javaBuffer.addLine(  "while (iterator.hasNext()) {");
         javaBuffer.addLine(    "list.add(iterator.next());");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine(  "return list;");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
+
+        // Visit method, pushes the objects to the visitor instead of collecting them:
+        JavaClassName visitorName = javaTypes.getVisitorName(type);
+        javaBuffer.addImport(visitorName);
+        javaBuffer.addLine(
+            "public static void visitMany(JsonReader reader, %1$s visitor) {",
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "visitMany(reader, visitor, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static void visitMany(JsonReader reader, %1$s visitor, Projection projection) {",
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "reader.expect(JsonParser.Event.START_ARRAY);");
+        javaBuffer.addLine(  "while (reader.next() == JsonParser.Event.START_OBJECT) {");
+        javaBuffer.addLine(    "visitOne(reader, true, visitor, projection);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadManyParallel(StructType type) {
+        // Get the type name:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(ByteBuffer.class);
+        javaBuffer.addImport(ForkJoinPool.class);
+        javaBuffer.addImport(List.class);
+        javaBuffer.addImport(ParallelDecoder.class);
+        javaBuffer.addImport(Projection.class);
+        javaBuffer.addImport(JsonReader.class);
+
+        // Generate the methods that find the boundaries of the elements of the collection and then decode them in
+        // parallel:
+        javaBuffer.addLine(
+            "public static List<%1$s> readManyParallel(ByteBuffer buffer, ForkJoinPool pool) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return readManyParallel(buffer, Projection.ALL, pool);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static List<%1$s> readManyParallel(ByteBuffer buffer, final Projection projection, " +
+                "ForkJoinPool pool) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "List<ByteBuffer> elements;");
+        javaBuffer.addLine(  "try (JsonReader reader = new JsonReader(buffer)) {");
+        javaBuffer.addLine(    "elements = reader.splitArray();");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(
+            "ParallelDecoder.Decoder<%1$s> decoder = new ParallelDecoder.Decoder<%1$s>() {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(    "@Override");
+        javaBuffer.addLine(    "public %1$s decode(ByteBuffer element) {", typeName.getSimpleName());
+        javaBuffer.addLine(      "try (JsonReader reader = new JsonReader(element)) {");
+        javaBuffer.addLine(        "return readOne(reader, projection);");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "};");
+        javaBuffer.addLine(  "return ParallelDecoder.decode(elements, decoder, pool);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadColumns(StructType type) {
+        // Get the columns name and the members that are stored in columns:
+        JavaClassName columnsName = javaTypes.getColumnsName(type);
+        List<StructMember> members = type.getAttributes().stream()
+            .filter(x -> javaTypes.getColumnName(x.getType()) != null)
+            .sorted()
+            .collect(toList());
+
+        // Add the required imports:
+        JavaClassName symbolsName = getSymbolsName();
+        javaBuffer.addImport(columnsName);
+        javaBuffer.addImport(symbolsName);
+        javaBuffer.addImport(JsonParser.class);
+        javaBuffer.addImport(JsonReader.class);
+        javaBuffer.addImport(SymbolTable.class);
+
+        // Generate the method that reads the attributes of a list of objects directly into the columns, without
+        // creating the objects:
+        javaBuffer.addLine(
+            "public static void readColumns(JsonReader reader, %1$s columns) {",
+            columnsName.getSimpleName()
+        );
+        for (StructMember member : members) {
+            JavaClassName columnName = javaTypes.getColumnName(member.getType());
+            String field = javaNames.getJavaMemberStyleName(member.getName());
+            javaBuffer.addImport(columnName);
+            javaBuffer.addLine("%1$s %2$sColumn = columns.%2$s();", columnName.getSimpleName(), field);
+        }
+        javaBuffer.addLine(  "SymbolTable symbols = %1$s.table();", symbolsName.getSimpleName());
+        javaBuffer.addLine(  "reader.expect(JsonParser.Event.START_ARRAY);");
+        javaBuffer.addLine(  "while (reader.next() == JsonParser.Event.START_OBJECT) {");
+        javaBuffer.addLine(    "int row = columns.addRow();");
+        javaBuffer.addLine(    "while (reader.next() == JsonParser.Event.KEY_NAME) {");
+        javaBuffer.addLine(      "switch (reader.getSymbol(symbols)) {");
+        members.forEach(this::generateStructReadColumn);
+        javaBuffer.addLine(      "default:");
+        javaBuffer.addLine(        "reader.skipValue();");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadColumn(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String column = javaNames.getJavaMemberStyleName(name) + "Column";
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s.%2$s:", getSymbolsName().getSimpleName(), getSymbolConstant(tag));
+        javaBuffer.addLine("if (%1$s != null) {", column);
+        if (type instanceof EnumType) {
+            JavaClassName readerName = javaTypes.getJsonReaderName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine("%1$s.set(row, %2$s.readOne(reader));", column, readerName.getSimpleName());
+        }
+        else {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readBoolean());", column);
+            }
+            else if (type == model.getIntegerType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readLong());", column);
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readDecimal());", column);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readString());", column);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readDate());", column);
+            }
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("else {");
+        javaBuffer.addLine(  "reader.skipValue();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("break;");
+    }
+
+    private void generateStructDeferOne(StructType type) {
+        // Get the type name:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(ByteBuffer.class);
+        javaBuffer.addImport(Deferred.class);
+
+        // Generate the method that skips the object, and returns a deferred value that reads it from the skipped
+        // bytes when it is needed, using the same string cache than the original reader:
+        javaBuffer.addLine(
+            "public static Deferred<%1$s> deferOne(JsonReader reader, final Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addImport(StringCache.class);
+        javaBuffer.addLine(  "final ByteBuffer buffer = reader.deferValue();");
+        javaBuffer.addLine(  "final StringCache strings = reader.getStringCache();");
+        javaBuffer.addLine(  "return new Deferred<%1$s>() {", typeName.getSimpleName());
+        javaBuffer.addLine(    "@Override");
+        javaBuffer.addLine(    "public %1$s decode() {", typeName.getSimpleName());
+        javaBuffer.addLine(      "try (JsonReader deferred = new JsonReader(buffer)) {");
+        javaBuffer.addLine(        "deferred.setStringCache(strings);");
+        javaBuffer.addLine(        "return readOne(deferred, projection);");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "};");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
     }
 
     private void generateEnumReadMany(EnumType type) {
@@ -366,9 +877,15 @@ public class JsonSupportGenerator extends JavaGenerator {
         javaBuffer.addLine("public class %1$s {", writerName.getSimpleName());
         javaBuffer.addLine();
 
+        // Generate the accumulator for the metrics:
+        generateMetricsField(type, "JSON_WRITE");
+
         // Generate methods to write one instance and a list of instances:
         generateStructWriteOne(type);
         generateStructWriteMany(type);
+        if (javaOptions.isTrackChanges()) {
+            generateStructWriteDelta(type);
+        }
 
         // End class:
         javaBuffer.addLine("}");
@@ -393,31 +910,131 @@ public class JsonSupportGenerator extends JavaGenerator {
         // Generate the method that receives the name as parameter:
         javaBuffer.addLine("public static void writeOne(%1$s object, String name, JsonWriter writer) {",
             typeName.getSimpleName());
+        generateMetricsStart();
+        javaBuffer.addLine(  "if (name != null) {");
+        javaBuffer.addLine(    "writer.writeStartObject(name);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else {");
+        javaBuffer.addLine(    "writer.writeStartObject();");
+        javaBuffer.addLine(  "}");
+        Stream.concat(type.attributes(), type.links())
+            .sorted()
+            .forEach(member -> generateStructWriteMember(member, false));
+        javaBuffer.addLine(  "writer.writeEnd();");
+        generateMetricsRecord();
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    /**
+     * Generates the methods that write only the members that have changed since the tracking of changes was started.
+     * Nested structs that have been replaced are written completely, and nested structs that have been changed inside
+     * are written as deltas. Lists are written completely when they, or any of their elements, have changed.
+     */
+    private void generateStructWriteDelta(StructType type) {
+        // Calculate the name of the type:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(JsonWriter.class);
+
+        // Generate the method that uses the default name:
+        javaBuffer.addLine("public static void writeDelta(%1$s object, JsonWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "writeDelta(object, null, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the name as parameter:
+        javaBuffer.addLine("public static void writeDelta(%1$s object, String name, JsonWriter writer) {",
+            typeName.getSimpleName());
         javaBuffer.addLine(  "if (name != null) {");
         javaBuffer.addLine(    "writer.writeStartObject(name);");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine(  "else {");
         javaBuffer.addLine(    "writer.writeStartObject();");
         javaBuffer.addLine(  "}");
-        Stream.concat(type.attributes(), type.links()).sorted().forEach(this::generateStructWriteMember);
+        Stream.concat(type.attributes(), type.links())
+            .sorted()
+            .forEach(member -> generateStructWriteMember(member, true));
         javaBuffer.addLine(  "writer.writeEnd();");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
     }
 
-    private void generateStructWriteMember(StructMember member) {
+    private void generateMetricsField(StructType type, String operation) {
+        String tag = schemaNames.getSchemaTagName(type.getName());
+        javaBuffer.addImport(Metrics.class);
+        javaBuffer.addImport(MetricsAccumulator.class);
+        javaBuffer.addLine(
+            "private static final MetricsAccumulator METRICS = Metrics.accumulator(Metrics.%1$s, \"%2$s\");",
+            operation,
+            tag
+        );
+        javaBuffer.addLine();
+    }
+
+    /**
+     * Generates the code that records the start time of the processing of an object, when metrics are enabled. The
+     * recorded time includes the time of the nested objects, as they are processed inside the same call.
+     */
+    private void generateMetricsStart() {
+        javaBuffer.addLine("long start = Metrics.isEnabled() ? System.nanoTime() : 0L;");
+    }
+
+    private void generateMetricsRecord() {
+        javaBuffer.addLine("if (start != 0L) {");
+        javaBuffer.addLine(  "METRICS.record(System.nanoTime() - start);");
+        javaBuffer.addLine("}");
+    }
+
+    /**
+     * Generates the code that writes a nested struct in a delta. If the struct has been replaced it is written
+     * completely, and if only its contents have changed only those changes are written.
+     */
+    private void generateStructWriteNestedDelta(Type type, String field, String tag) {
+        JavaClassName writerName = javaTypes.getJsonWriterName(type);
+        javaBuffer.addImport(writerName);
+        javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        javaBuffer.addLine(  "if (object.%1$sChanged()) {", field);
+        javaBuffer.addLine(    "%1$s.writeOne(object.%2$s(), \"%3$s\", writer);", writerName.getSimpleName(), field,
+            tag);
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else if (object.%1$s().hasChanges()) {", field);
+        javaBuffer.addLine(    "%1$s.writeDelta(object.%2$s(), \"%3$s\", writer);", writerName.getSimpleName(), field,
+            tag);
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+    }
+
+    private void generateStructWriteMember(StructMember member, boolean delta) {
         Name name = member.getName();
         Type type = member.getType();
         String field = javaNames.getJavaMemberStyleName(name);
         String tag = schemaNames.getSchemaTagName(name);
-        javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        if (delta && type instanceof StructType) {
+            generateStructWriteNestedDelta(type, field, tag);
+            return;
+        }
+        if (delta) {
+            javaBuffer.addLine("if (object.%1$sChanged() && object.%1$sPresent()) {", field);
+        }
+        else {
+            javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        }
         if (type instanceof PrimitiveType) {
             Model model = type.getModel();
             if (type == model.getBooleanType()) {
                 javaBuffer.addLine("writer.writeBoolean(\"%1$s\", object.%2$s());", tag, field);
             }
             else if (type == model.getIntegerType()) {
-                javaBuffer.addLine("writer.writeInteger(\"%1$s\", object.%2$s());", tag, field);
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("writer.writeLong(\"%1$s\", object.%2$sAsPrimitiveLong());", tag, field);
+                }
+                else {
+                    javaBuffer.addLine("writer.writeInteger(\"%1$s\", object.%2$s());", tag, field);
+                }
             }
             else if (type == model.getDecimalType()) {
                 javaBuffer.addLine("writer.writeDecimal(\"%1$s\", object.%2$s());", tag, field);
@@ -20,6 +20,11 @@ import org.ovirt.api.metamodel.concepts.NameParser;
 import org.ovirt.api.metamodel.concepts.PrimitiveType;
 import org.ovirt.api.metamodel.concepts.StructType;
 import org.ovirt.api.metamodel.concepts.Type;
+import org.ovirt.api.metamodel.runtime.columns.BooleanColumn;
+import org.ovirt.api.metamodel.runtime.columns.DoubleColumn;
+import org.ovirt.api.metamodel.runtime.columns.EnumColumn;
+import org.ovirt.api.metamodel.runtime.columns.LongColumn;
+import org.ovirt.api.metamodel.runtime.columns.StringColumn;
 
 /**
  * This class calculates the type references for the Java classes generated from the model.
@@ -31,10 +36,14 @@ public class PlainJavaTypes implements JavaTypes {
     private static final Name BUILDER_NAME = NameParser.parseUsingCase("Builder");
     private static final Name READER_NAME = NameParser.parseUsingCase("Reader");
     private static final Name WRITER_NAME = NameParser.parseUsingCase("Writer");
+    private static final Name VISITOR_NAME = NameParser.parseUsingCase("Visitor");
+    private static final Name COLUMNS_NAME = NameParser.parseUsingCase("Columns");
+    private static final Name TRANSCODER_NAME = NameParser.parseUsingCase("Transcoder");
 
-    // Prefixes for the XML and JSON readers and writers:
+    // Prefixes for the XML, JSON and binary readers and writers:
     private static final Name XML_PREFIX = NameParser.parseUsingCase("Xml");
     private static final Name JSON_PREFIX = NameParser.parseUsingCase("Json");
+    private static final Name BINARY_PREFIX = NameParser.parseUsingCase("Binary");
 
     // Reference to the objects used to calculate package names:
     @Inject
@@ -81,6 +90,45 @@ public class PlainJavaTypes implements JavaTypes {
         return getTypeName(type, javaPackages.getBuildersPackageName(), null, BUILDER_NAME);
     }
 
+    @Override
+    public JavaClassName getVisitorName(Type type) {
+        return getTypeName(type, javaPackages.getTypesPackageName(), null, VISITOR_NAME);
+    }
+
+    @Override
+    public JavaClassName getColumnsName(Type type) {
+        return getTypeName(type, javaPackages.getTypesPackageName(), null, COLUMNS_NAME);
+    }
+
+    @Override
+    public JavaClassName getColumnName(Type type) {
+        Class<?> columnClass = null;
+        if (type instanceof PrimitiveType) {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                columnClass = BooleanColumn.class;
+            }
+            else if (type == model.getIntegerType() || type == model.getDateType()) {
+                columnClass = LongColumn.class;
+            }
+            else if (type == model.getDecimalType()) {
+                columnClass = DoubleColumn.class;
+            }
+            else if (type == model.getStringType()) {
+                columnClass = StringColumn.class;
+            }
+        }
+        else if (type instanceof EnumType) {
+            columnClass = EnumColumn.class;
+        }
+        if (columnClass == null) {
+            return null;
+        }
+        JavaClassName name = new JavaClassName();
+        name.setClass(columnClass);
+        return name;
+    }
+
     @Override
     public JavaClassName getBaseJsonReaderName() {
         JavaClassName name = new JavaClassName();
@@ -107,6 +155,21 @@ public class PlainJavaTypes implements JavaTypes {
         return getTypeName(type, javaPackages.getJsonPackageName(), JSON_PREFIX, WRITER_NAME);
     }
 
+    @Override
+    public JavaClassName getBinaryReaderName(Type type) {
+        return getTypeName(type, javaPackages.getBinaryPackageName(), BINARY_PREFIX, READER_NAME);
+    }
+
+    @Override
+    public JavaClassName getBinaryWriterName(Type type) {
+        return getTypeName(type, javaPackages.getBinaryPackageName(), BINARY_PREFIX, WRITER_NAME);
+    }
+
+    @Override
+    public JavaClassName getTranscoderName(Type type) {
+        return getTypeName(type, javaPackages.getTranscodersPackageName(), null, TRANSCODER_NAME);
+    }
+
     @Override
     public JavaClassName getBaseXmlReaderName() {
         JavaClassName name = new JavaClassName();
@@ -6,6 +6,8 @@
 package org.ovirt.api.metamodel.tool;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.enterprise.context.ApplicationScoped;
@@ -30,6 +32,9 @@ public class Tool {
     // References to the objects that implement the rules to generate names for Java concepts:
     @Inject private JavaPackages javaPackages;
 
+    // Reference to the object that contains the options for the generated Java code:
+    @Inject private JavaOptions javaOptions;
+
     // Reference to the object used to generate Java names:
     @Inject
     @Style("versioned")
@@ -42,6 +47,8 @@ public class Tool {
     @Inject private JaxrsHelperGenerator jaxrsHelperGenerator;
     @Inject private XmlSupportGenerator xmlSupportGenerator;
     @Inject private JsonSupportGenerator jsonSupportGenerator;
+    @Inject private BinarySupportGenerator binarySupportGenerator;
+    @Inject private TranscoderGenerator transcoderGenerator;
 
     // Reference to the object used to add built-in types to the model:
     @Inject private BuiltinTypes builtinTypes;
@@ -63,6 +70,15 @@ public class Tool {
     private static final String BUILDERS_PACKAGE_OPTION = "builders-package";
     private static final String JSON_PACKAGE_OPTION = "json-package";
     private static final String XML_PACKAGE_OPTION = "xml-package";
+    private static final String BINARY_PACKAGE_OPTION = "binary-package";
+    private static final String TRANSCODERS_PACKAGE_OPTION = "transcoders-package";
+
+    // Names of options that change the generated Java code:
+    private static final String PRIMITIVE_INTEGERS_OPTION = "primitive-integers";
+    private static final String LAZY_STRUCTS_OPTION = "lazy-structs";
+    private static final String TRACK_CHANGES_OPTION = "track-changes";
+    private static final String CACHED_VIEWS_OPTION = "cached-views";
+    private static final String COMPACT_CONTAINERS_OPTION = "compact-containers";
 
     public void run(String[] args) throws Exception {
         // Create the command line options:
@@ -174,6 +190,22 @@ public class Tool {
             .argName("PACKAGE")
             .build()
         );
+        options.addOption(Option.builder()
+            .longOpt(BINARY_PACKAGE_OPTION)
+            .desc("The name of the Java package for the generated binary readers and writers.")
+            .required(false)
+            .hasArg(true)
+            .argName("PACKAGE")
+            .build()
+        );
+        options.addOption(Option.builder()
+            .longOpt(TRANSCODERS_PACKAGE_OPTION)
+            .desc("The name of the Java package for the generated XML to JSON and JSON to XML transcoders.")
+            .required(false)
+            .hasArg(true)
+            .argName("PACKAGE")
+            .build()
+        );
         options.addOption(Option.builder()
             .longOpt(VERSION_PREFIX_OPTION)
             .desc("The version prefix to add to the generated Java class names, for example V4.")
@@ -193,6 +225,64 @@ public class Tool {
             .build()
         );
 
+        // Options that change the generated Java code:
+        options.addOption(Option.builder()
+            .longOpt(PRIMITIVE_INTEGERS_OPTION)
+            .desc(
+                "Store integer members of the generated containers in primitive long fields, and read them " +
+                "without creating BigInteger objects. Values that don't fit in 64 bits are then rejected by the " +
+                "readers. The optional value is a comma separated list of the members, like 'vm.memory', that " +
+                "are known to fit. If given, only those members are stored as primitives, and the rest keep " +
+                "using BigInteger. If not given, all the integer members are stored as primitives."
+            )
+            .required(false)
+            .hasArg(true)
+            .optionalArg(true)
+            .argName("MEMBERS")
+            .build()
+        );
+        options.addOption(Option.builder()
+            .longOpt(LAZY_STRUCTS_OPTION)
+            .desc(
+                "Defer the decoding of nested structs read by the JSON readers from UTF-8 bytes till the " +
+                "corresponding getter of the generated container is called. The containers keep a reference to " +
+                "the bytes of the document till then."
+            )
+            .required(false)
+            .hasArg(false)
+            .build()
+        );
+        options.addOption(Option.builder()
+            .longOpt(TRACK_CHANGES_OPTION)
+            .desc(
+                "Record in the generated containers the members that are changed after the tracking of changes is " +
+                "started, and generate XML and JSON writers that write only those members."
+            )
+            .required(false)
+            .hasArg(false)
+            .build()
+        );
+        options.addOption(Option.builder()
+            .longOpt(CACHED_VIEWS_OPTION)
+            .desc(
+                "Create the unmodifiable views returned by the list getters of the generated containers once, when " +
+                "the list is set."
+            )
+            .required(false)
+            .hasArg(false)
+            .build()
+        );
+        options.addOption(Option.builder()
+            .longOpt(COMPACT_CONTAINERS_OPTION)
+            .desc(
+                "Store the members of the generated containers in a dense array that contains only the members that " +
+                "are present, instead of in one field per member."
+            )
+            .required(false)
+            .hasArg(false)
+            .build()
+        );
+
         // Parse the command line:
         CommandLineParser parser = new DefaultParser();
         CommandLine line = null;
@@ -261,6 +351,32 @@ public class Tool {
         if (xmlPackage != null) {
             javaPackages.setXmlPackageName(xmlPackage);
         }
+        String binaryPackage = line.getOptionValue(BINARY_PACKAGE_OPTION);
+        if (binaryPackage != null) {
+            javaPackages.setBinaryPackageName(binaryPackage);
+        }
+        String transcodersPackage = line.getOptionValue(TRANSCODERS_PACKAGE_OPTION);
+        if (transcodersPackage != null) {
+            javaPackages.setTranscodersPackageName(transcodersPackage);
+        }
+
+        // Extract the options that change the generated Java code:
+        javaOptions.setPrimitiveIntegers(line.hasOption(PRIMITIVE_INTEGERS_OPTION));
+        String primitiveIntegerMembers = line.getOptionValue(PRIMITIVE_INTEGERS_OPTION);
+        if (primitiveIntegerMembers != null) {
+            Set<String> members = new HashSet<>();
+            for (String member : primitiveIntegerMembers.split(",")) {
+                member = member.trim();
+                if (!member.isEmpty()) {
+                    members.add(member.toLowerCase());
+                }
+            }
+            javaOptions.setPrimitiveIntegerMembers(members);
+        }
+        javaOptions.setLazyStructs(line.hasOption(LAZY_STRUCTS_OPTION));
+        javaOptions.setTrackChanges(line.hasOption(TRACK_CHANGES_OPTION));
+        javaOptions.setCachedViews(line.hasOption(CACHED_VIEWS_OPTION));
+        javaOptions.setCompactContainers(line.hasOption(COMPACT_CONTAINERS_OPTION));
 
         // Generate the XML schema:
         if (inSchemaFile != null && outSchemaFile != null) {
@@ -292,6 +408,14 @@ public class Tool {
             xmlSupportGenerator.setOutDir(javaDir);
             xmlSupportGenerator.setResourcesDir(resourcesDir);
             xmlSupportGenerator.generate(model);
+
+            // Generate binary support classes:
+            binarySupportGenerator.setOutDir(javaDir);
+            binarySupportGenerator.generate(model);
+
+            // Generate the transcoders between XML and JSON:
+            transcoderGenerator.setOutDir(javaDir);
+            transcoderGenerator.generate(model);
         }
     }
 }
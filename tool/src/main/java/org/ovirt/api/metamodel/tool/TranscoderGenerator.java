@@ -0,0 +1,689 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.api.metamodel.tool;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import javax.json.stream.JsonParser;
+
+import org.ovirt.api.metamodel.concepts.EnumType;
+import org.ovirt.api.metamodel.concepts.ListType;
+import org.ovirt.api.metamodel.concepts.Model;
+import org.ovirt.api.metamodel.concepts.Name;
+import org.ovirt.api.metamodel.concepts.NameParser;
+import org.ovirt.api.metamodel.concepts.PrimitiveType;
+import org.ovirt.api.metamodel.concepts.StructMember;
+import org.ovirt.api.metamodel.concepts.StructType;
+import org.ovirt.api.metamodel.concepts.Type;
+import org.ovirt.api.metamodel.runtime.json.JsonReader;
+import org.ovirt.api.metamodel.runtime.json.JsonWriter;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
+import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
+
+/**
+ * This class generates the classes that convert documents from XML to JSON and from JSON to XML directly, without
+ * creating the intermediate objects. There is one class for each struct type, and the members are translated using
+ * the same tags and the same rules than the generated XML and JSON readers and writers, so the result is equivalent to
+ * reading the document with one of them and writing it with the other.
+ *
+ * The conversion from XML to JSON is completely streaming. The conversion from JSON to XML has to write the members
+ * that are represented as XML attributes before the rest, but in JSON they can appear anywhere inside the object. When
+ * the JSON reader works directly with bytes the generated code does a first pass over each object to extract those
+ * members, and then rewinds the reader to convert the rest. Otherwise it reads the object, and writes it with the XML
+ * writer.
+ */
+public class TranscoderGenerator extends JavaGenerator {
+    // Reference to object used to calculate names:
+    @Inject
+    private Names names;
+
+    // Reference to the object used to calculate package names:
+    @Inject
+    private JavaPackages javaPackages;
+
+    // Reference to the object used to calculate Java names:
+    @Inject
+    @Style("versioned")
+    private JavaNames javaNames;
+
+    // Reference to the object used to calculate Java types:
+    @Inject
+    private JavaTypes javaTypes;
+
+    // Reference to the object used to calculate XML schema names:
+    @Inject
+    private SchemaNames schemaNames;
+
+    // Reference to the object that contains the options for the generated code:
+    @Inject
+    private JavaOptions javaOptions;
+
+    public void generate(Model model) {
+        // Generate a class for each struct type, the enum types are converted inline:
+        model.types()
+            .filter(StructType.class::isInstance)
+            .map(StructType.class::cast)
+            .forEach(this::generateTranscoder);
+    }
+
+    private JavaClassName getXmlSymbolsName() {
+        Name name = NameParser.parseUsingCase("XmlSymbols");
+        JavaClassName symbolsName = new JavaClassName();
+        symbolsName.setPackageName(javaPackages.getXmlPackageName());
+        symbolsName.setSimpleName(javaNames.getJavaClassStyleName(name));
+        return symbolsName;
+    }
+
+    private JavaClassName getJsonSymbolsName() {
+        Name name = NameParser.parseUsingCase("JsonSymbols");
+        JavaClassName symbolsName = new JavaClassName();
+        symbolsName.setPackageName(javaPackages.getJsonPackageName());
+        symbolsName.setSimpleName(javaNames.getJavaClassStyleName(name));
+        return symbolsName;
+    }
+
+    private List<StructMember> getMembers(StructType type) {
+        List<StructMember> members = new ArrayList<>();
+        members.addAll(type.getAttributes());
+        members.addAll(type.getLinks());
+        return members;
+    }
+
+    private List<StructMember> getAttributeMembers(StructType type) {
+        return getMembers(type).stream()
+            .filter(x -> schemaNames.isRepresentedAsAttribute(x.getName()))
+            .sorted()
+            .collect(toList());
+    }
+
+    private List<StructMember> getElementMembers(StructType type) {
+        return getMembers(type).stream()
+            .filter(x -> !schemaNames.isRepresentedAsAttribute(x.getName()))
+            .sorted()
+            .collect(toList());
+    }
+
+    private void generateTranscoder(StructType type) {
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName transcoderName = javaTypes.getTranscoderName(type);
+        javaBuffer.setClassName(transcoderName);
+        generateTranscoderSource(type);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for transcoder \"" + transcoderName + "\"", exception);
+        }
+    }
+
+    private void generateTranscoderSource(StructType type) {
+        // Begin class:
+        JavaClassName transcoderName = javaTypes.getTranscoderName(type);
+        javaBuffer.addLine("public class %1$s {", transcoderName.getSimpleName());
+        javaBuffer.addLine();
+
+        // Generate the methods that convert from XML to JSON:
+        generateXmlToJsonOne(type);
+        generateXmlToJsonMany(type);
+
+        // Generate the methods that convert from JSON to XML:
+        generateJsonToXmlOne(type);
+        generateJsonToXmlMany(type);
+
+        // End class:
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateXmlToJsonOne(StructType type) {
+        // Add the required imports:
+        javaBuffer.addImport(XmlReader.class);
+        javaBuffer.addImport(JsonWriter.class);
+
+        // Generate the method that writes the object as the JSON document:
+        javaBuffer.addLine("public static void xmlToJsonOne(XmlReader reader, JsonWriter writer) {");
+        javaBuffer.addLine(  "xmlToJsonOne(reader, null, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the name of the JSON member:
+        List<StructMember> asAttributes = getAttributeMembers(type);
+        List<StructMember> asElements = getElementMembers(type);
+        JavaClassName symbolsName = getXmlSymbolsName();
+        javaBuffer.addLine("public static void xmlToJsonOne(XmlReader reader, String name, JsonWriter writer) {");
+        javaBuffer.addLine(  "// Do nothing if there aren't more tags:");
+        javaBuffer.addLine(  "if (!reader.forward()) {");
+        javaBuffer.addLine(    "return;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(  "// Start the object:");
+        javaBuffer.addLine(  "if (name != null) {");
+        javaBuffer.addLine(    "writer.writeStartObject(name);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else {");
+        javaBuffer.addLine(    "writer.writeStartObject();");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        if (!asAttributes.isEmpty() || !asElements.isEmpty()) {
+            javaBuffer.addImport(symbolsName);
+            javaBuffer.addImport(SymbolTable.class);
+            javaBuffer.addLine("// Get the table used to translate names into symbols:");
+            javaBuffer.addLine("SymbolTable symbols = %1$s.table();", symbolsName.getSimpleName());
+            javaBuffer.addLine();
+        }
+        if (!asAttributes.isEmpty()) {
+            javaBuffer.addLine("// Convert the attributes:");
+            javaBuffer.addLine("for (int i = 0; i < reader.getAttributeCount(); i++) {");
+            javaBuffer.addLine(  "String image = reader.getAttributeValue(i);");
+            javaBuffer.addLine(  "switch (reader.getAttributeLocalNameSymbol(i, symbols)) {");
+            asAttributes.forEach(this::generateXmlToJsonAttribute);
+            javaBuffer.addLine(  "default:");
+            javaBuffer.addLine(    "break;");
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        javaBuffer.addLine(  "// Convert the inner elements, skipping the links and the unknown elements:");
+        javaBuffer.addLine(  "reader.next();");
+        javaBuffer.addLine(  "while (reader.forward()) {");
+        if (asElements.isEmpty()) {
+            javaBuffer.addLine("reader.skip();");
+        }
+        else {
+            javaBuffer.addLine("switch (reader.getLocalNameSymbol(symbols)) {");
+            asElements.forEach(this::generateXmlToJsonElement);
+            javaBuffer.addLine("default:");
+            javaBuffer.addLine(  "reader.skip();");
+            javaBuffer.addLine(  "break;");
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(  "// Discard the end tag and end the object:");
+        javaBuffer.addLine(  "reader.next();");
+        javaBuffer.addLine(  "writer.writeEnd();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateXmlToJsonAttribute(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s.%2$s:", getXmlSymbolsName().getSimpleName(), getSymbolConstant(tag));
+        if (type instanceof PrimitiveType) {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("writer.writeBoolean(\"%1$s\", Boolean.parseBoolean(image));", tag);
+            }
+            else if (type == model.getIntegerType()) {
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("writer.writeLong(\"%1$s\", reader.parseLong(image));", tag);
+                }
+                else {
+                    javaBuffer.addImport(BigInteger.class);
+                    javaBuffer.addLine("writer.writeInteger(\"%1$s\", new BigInteger(image));", tag);
+                }
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addImport(BigDecimal.class);
+                javaBuffer.addLine("writer.writeDecimal(\"%1$s\", new BigDecimal(image));", tag);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("writer.writeString(\"%1$s\", image);", tag);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("writer.writeDate(\"%1$s\", reader.parseDate(image));", tag);
+            }
+        }
+        else if (type instanceof EnumType) {
+            JavaClassName enumName = javaTypes.getEnumName(type);
+            javaBuffer.addImport(enumName);
+            javaBuffer.addLine("{");
+            javaBuffer.addLine(  "%1$s value = %1$s.fromValue(image);", enumName.getSimpleName());
+            javaBuffer.addLine(  "if (value != null) {");
+            javaBuffer.addLine(    "writer.writeString(\"%1$s\", value.value());", tag);
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine("break;");
+    }
+
+    private void generateXmlToJsonElement(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s.%2$s:", getXmlSymbolsName().getSimpleName(), getSymbolConstant(tag));
+        if (type instanceof PrimitiveType) {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("writer.writeBoolean(\"%1$s\", reader.readBoolean());", tag);
+            }
+            else if (type == model.getIntegerType()) {
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("writer.writeLong(\"%1$s\", reader.readLong());", tag);
+                }
+                else {
+                    javaBuffer.addLine("writer.writeInteger(\"%1$s\", reader.readInteger());", tag);
+                }
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("writer.writeDecimal(\"%1$s\", reader.readDecimal());", tag);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("writer.writeString(\"%1$s\", reader.readString());", tag);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("writer.writeDate(\"%1$s\", reader.readDate());", tag);
+            }
+            else {
+                javaBuffer.addLine("reader.skip();");
+            }
+        }
+        else if (type instanceof StructType) {
+            JavaClassName transcoderName = javaTypes.getTranscoderName(type);
+            javaBuffer.addImport(transcoderName);
+            javaBuffer.addLine("%1$s.xmlToJsonOne(reader, \"%2$s\", writer);", transcoderName.getSimpleName(), tag);
+        }
+        else if (type instanceof EnumType) {
+            // Values that aren't known are read as null, and then omitted by the writer, so they are omitted here
+            // as well:
+            JavaClassName enumName = javaTypes.getEnumName(type);
+            JavaClassName readerName = javaTypes.getXmlReaderName(type);
+            javaBuffer.addImport(enumName);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine("{");
+            javaBuffer.addLine(  "%1$s value = %2$s.readOne(reader);", enumName.getSimpleName(),
+                readerName.getSimpleName());
+            javaBuffer.addLine(  "if (value != null) {");
+            javaBuffer.addLine(    "writer.writeString(\"%1$s\", value.value());", tag);
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+        }
+        else if (type instanceof ListType) {
+            ListType listType = (ListType) type;
+            Type elementType = listType.getElementType();
+            if (elementType instanceof StructType) {
+                JavaClassName transcoderName = javaTypes.getTranscoderName(elementType);
+                javaBuffer.addImport(transcoderName);
+                javaBuffer.addLine("%1$s.xmlToJsonMany(reader, \"%2$s\", writer);", transcoderName.getSimpleName(),
+                    tag);
+            }
+            else if (elementType instanceof EnumType) {
+                // Lists of enum values are small, so it is simpler to read them and write them with the existing
+                // methods:
+                JavaClassName readerName = javaTypes.getXmlReaderName(elementType);
+                JavaClassName writerName = javaTypes.getJsonWriterName(elementType);
+                javaBuffer.addImport(readerName);
+                javaBuffer.addImport(writerName);
+                javaBuffer.addLine(
+                    "%1$s.writeMany(%2$s.readMany(reader).iterator(), \"%3$s\", writer);",
+                    writerName.getSimpleName(),
+                    readerName.getSimpleName(),
+                    tag
+                );
+            }
+            else if (elementType instanceof PrimitiveType) {
+                Model model = type.getModel();
+                if (elementType == model.getBooleanType()) {
+                    javaBuffer.addLine("writer.writeBooleans(\"%1$s\", reader.readBooleans());", tag);
+                }
+                else if (elementType == model.getIntegerType()) {
+                    javaBuffer.addLine("writer.writeIntegers(\"%1$s\", reader.readIntegers());", tag);
+                }
+                else if (elementType == model.getDecimalType()) {
+                    javaBuffer.addLine("writer.writeDecimals(\"%1$s\", reader.readDecimals());", tag);
+                }
+                else if (elementType == model.getStringType()) {
+                    javaBuffer.addLine("writer.writeStrings(\"%1$s\", reader.readStrings());", tag);
+                }
+                else if (elementType == model.getDateType()) {
+                    javaBuffer.addLine("writer.writeDates(\"%1$s\", reader.readDates());", tag);
+                }
+                else {
+                    javaBuffer.addLine("reader.skip();");
+                }
+            }
+            else {
+                javaBuffer.addLine("reader.skip();");
+            }
+        }
+        else {
+            javaBuffer.addLine("reader.skip();");
+        }
+        javaBuffer.addLine("break;");
+    }
+
+    private void generateXmlToJsonMany(StructType type) {
+        // Add the required imports:
+        javaBuffer.addImport(XmlReader.class);
+        javaBuffer.addImport(JsonWriter.class);
+
+        // Generate the method that writes the list as the JSON document:
+        javaBuffer.addLine("public static void xmlToJsonMany(XmlReader reader, JsonWriter writer) {");
+        javaBuffer.addLine(  "xmlToJsonMany(reader, null, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the name of the JSON member:
+        javaBuffer.addLine("public static void xmlToJsonMany(XmlReader reader, String name, JsonWriter writer) {");
+        javaBuffer.addLine(  "if (name != null) {");
+        javaBuffer.addLine(    "writer.writeStartArray(name);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else {");
+        javaBuffer.addLine(    "writer.writeStartArray();");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "if (reader.forward()) {");
+        javaBuffer.addLine(    "reader.next();");
+        javaBuffer.addLine(    "while (reader.forward()) {");
+        javaBuffer.addLine(      "xmlToJsonOne(reader, null, writer);");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(    "reader.next();");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "writer.writeEnd();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateJsonToXmlOne(StructType type) {
+        // Calculate the default tag name:
+        String tag = schemaNames.getSchemaTagName(type.getName());
+
+        // Add the required imports:
+        javaBuffer.addImport(JsonReader.class);
+        javaBuffer.addImport(XmlWriter.class);
+
+        // Generate the methods that use the default tag name:
+        javaBuffer.addLine("public static void jsonToXmlOne(JsonReader reader, XmlWriter writer) {");
+        javaBuffer.addLine(  "jsonToXmlOne(reader, false, \"%1$s\", writer);", tag);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine("public static void jsonToXmlOne(JsonReader reader, boolean started, XmlWriter writer) {");
+        javaBuffer.addLine(  "jsonToXmlOne(reader, started, \"%1$s\", writer);", tag);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives a custom tag name:
+        List<StructMember> asAttributes = getAttributeMembers(type);
+        List<StructMember> asElements = getElementMembers(type);
+        JavaClassName symbolsName = getJsonSymbolsName();
+        javaBuffer.addImport(JsonParser.class);
+        javaBuffer.addLine(
+            "public static void jsonToXmlOne(JsonReader reader, boolean started, String tag, XmlWriter writer) {"
+        );
+        javaBuffer.addLine(  "if (!started) {");
+        javaBuffer.addLine(    "reader.expect(JsonParser.Event.START_OBJECT);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        if (!asAttributes.isEmpty()) {
+            JavaClassName readerName = javaTypes.getJsonReaderName(type);
+            JavaClassName writerName = javaTypes.getXmlWriterName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addImport(writerName);
+            javaBuffer.addLine("// The members that are written as attributes must be extracted before writing any inner");
+            javaBuffer.addLine("// element, and that requires going back to the start of the object. When that isn't");
+            javaBuffer.addLine("// possible read the complete object and write it:");
+            javaBuffer.addLine("if (!reader.canRewind()) {");
+            javaBuffer.addLine(  "%1$s.writeOne(%2$s.readOne(reader, true), tag, writer);",
+                writerName.getSimpleName(), readerName.getSimpleName());
+            javaBuffer.addLine(  "return;");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        if (!asAttributes.isEmpty() || !asElements.isEmpty()) {
+            javaBuffer.addImport(symbolsName);
+            javaBuffer.addImport(SymbolTable.class);
+            javaBuffer.addLine("// Get the table used to translate names into symbols:");
+            javaBuffer.addLine("SymbolTable symbols = %1$s.table();", symbolsName.getSimpleName());
+            javaBuffer.addLine();
+        }
+        if (!asAttributes.isEmpty()) {
+            javaBuffer.addLine("// Extract the attributes, and then go back to the start of the object:");
+            for (StructMember member : asAttributes) {
+                javaBuffer.addLine("String %1$s = null;", javaNames.getJavaMemberStyleName(member.getName()));
+            }
+            javaBuffer.addLine("long mark = reader.mark();");
+            javaBuffer.addLine("while (reader.next() == JsonParser.Event.KEY_NAME) {");
+            javaBuffer.addLine(  "switch (reader.getSymbol(symbols)) {");
+            asAttributes.forEach(this::generateJsonToXmlAttribute);
+            javaBuffer.addLine(  "default:");
+            javaBuffer.addLine(    "reader.skipValue();");
+            javaBuffer.addLine(    "break;");
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine("reader.rewind(mark);");
+            javaBuffer.addLine();
+        }
+        javaBuffer.addLine(  "// Start the element:");
+        javaBuffer.addLine(  "writer.writeStartElement(tag);");
+        for (StructMember member : asAttributes) {
+            String field = javaNames.getJavaMemberStyleName(member.getName());
+            javaBuffer.addLine("if (%1$s != null) {", field);
+            javaBuffer.addLine(  "writer.writeAttribute(\"%1$s\", %2$s);",
+                schemaNames.getSchemaTagName(member.getName()), field);
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine();
+        javaBuffer.addLine(  "// Convert the rest of the members, skipping the attributes and the unknown members:");
+        javaBuffer.addLine(  "while (reader.next() == JsonParser.Event.KEY_NAME) {");
+        if (asElements.isEmpty()) {
+            javaBuffer.addLine("reader.skipValue();");
+        }
+        else {
+            javaBuffer.addLine("switch (reader.getSymbol(symbols)) {");
+            asElements.forEach(this::generateJsonToXmlElement);
+            javaBuffer.addLine("default:");
+            javaBuffer.addLine(  "reader.skipValue();");
+            javaBuffer.addLine(  "break;");
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(  "// End the element:");
+        javaBuffer.addLine(  "writer.writeEndElement();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateJsonToXmlAttribute(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s.%2$s:", getJsonSymbolsName().getSimpleName(), getSymbolConstant(tag));
+        if (type instanceof PrimitiveType) {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("%1$s = Boolean.toString(reader.readBoolean());", field);
+            }
+            else if (type == model.getIntegerType()) {
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("%1$s = Long.toString(reader.readLong());", field);
+                }
+                else {
+                    javaBuffer.addLine("%1$s = reader.readInteger().toString();", field);
+                }
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("%1$s = reader.readDecimal().toString();", field);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("%1$s = reader.readString();", field);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("%1$s = XmlWriter.renderDate(reader.readDate());", field);
+            }
+            else {
+                javaBuffer.addLine("reader.skipValue();");
+            }
+        }
+        else if (type instanceof EnumType) {
+            JavaClassName enumName = javaTypes.getEnumName(type);
+            JavaClassName readerName = javaTypes.getJsonReaderName(type);
+            javaBuffer.addImport(enumName);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine("{");
+            javaBuffer.addLine(  "%1$s value = %2$s.readOne(reader);", enumName.getSimpleName(),
+                readerName.getSimpleName());
+            javaBuffer.addLine(  "%1$s = value != null ? value.value() : null;", field);
+            javaBuffer.addLine("}");
+        }
+        else {
+            javaBuffer.addLine("reader.skipValue();");
+        }
+        javaBuffer.addLine("break;");
+    }
+
+    private void generateJsonToXmlElement(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s.%2$s:", getJsonSymbolsName().getSimpleName(), getSymbolConstant(tag));
+        if (type instanceof PrimitiveType) {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("writer.writeBoolean(\"%1$s\", reader.readBoolean());", tag);
+            }
+            else if (type == model.getIntegerType()) {
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("writer.writeLong(\"%1$s\", reader.readLong());", tag);
+                }
+                else {
+                    javaBuffer.addLine("writer.writeInteger(\"%1$s\", reader.readInteger());", tag);
+                }
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("writer.writeDecimal(\"%1$s\", reader.readDecimal());", tag);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("writer.writeElement(\"%1$s\", reader.readString());", tag);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("writer.writeDate(\"%1$s\", reader.readDate());", tag);
+            }
+            else {
+                javaBuffer.addLine("reader.skipValue();");
+            }
+        }
+        else if (type instanceof StructType) {
+            JavaClassName transcoderName = javaTypes.getTranscoderName(type);
+            javaBuffer.addImport(transcoderName);
+            javaBuffer.addLine("%1$s.jsonToXmlOne(reader, false, \"%2$s\", writer);", transcoderName.getSimpleName(),
+                tag);
+        }
+        else if (type instanceof EnumType) {
+            JavaClassName enumName = javaTypes.getEnumName(type);
+            JavaClassName readerName = javaTypes.getJsonReaderName(type);
+            JavaClassName writerName = javaTypes.getXmlWriterName(type);
+            javaBuffer.addImport(enumName);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addImport(writerName);
+            javaBuffer.addLine("{");
+            javaBuffer.addLine(  "%1$s value = %2$s.readOne(reader);", enumName.getSimpleName(),
+                readerName.getSimpleName());
+            javaBuffer.addLine(  "if (value != null) {");
+            javaBuffer.addLine(    "%1$s.writeOne(value, \"%2$s\", writer);", writerName.getSimpleName(), tag);
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+        }
+        else if (type instanceof ListType) {
+            ListType listType = (ListType) type;
+            Type elementType = listType.getElementType();
+            if (elementType instanceof StructType) {
+                JavaClassName transcoderName = javaTypes.getTranscoderName(elementType);
+                String elementTag = schemaNames.getSchemaTagName(elementType.getName());
+                javaBuffer.addImport(transcoderName);
+                javaBuffer.addLine(
+                    "%1$s.jsonToXmlMany(reader, \"%2$s\", \"%3$s\", writer);",
+                    transcoderName.getSimpleName(),
+                    elementTag,
+                    tag
+                );
+            }
+            else if (elementType instanceof EnumType) {
+                JavaClassName readerName = javaTypes.getJsonReaderName(elementType);
+                JavaClassName writerName = javaTypes.getXmlWriterName(elementType);
+                String elementTag = schemaNames.getSchemaTagName(names.getSingular(name));
+                javaBuffer.addImport(readerName);
+                javaBuffer.addImport(writerName);
+                javaBuffer.addLine(
+                    "%1$s.writeMany(%2$s.readMany(reader).iterator(), \"%3$s\", \"%4$s\", writer);",
+                    writerName.getSimpleName(),
+                    readerName.getSimpleName(),
+                    elementTag,
+                    tag
+                );
+            }
+            else if (elementType instanceof PrimitiveType) {
+                Model model = type.getModel();
+                if (elementType == model.getBooleanType()) {
+                    javaBuffer.addLine("writer.writeBooleans(\"%1$s\", reader.readBooleans());", tag);
+                }
+                else if (elementType == model.getIntegerType()) {
+                    javaBuffer.addLine("writer.writeIntegers(\"%1$s\", reader.readIntegers());", tag);
+                }
+                else if (elementType == model.getDecimalType()) {
+                    javaBuffer.addLine("writer.writeDecimals(\"%1$s\", reader.readDecimals());", tag);
+                }
+                else if (elementType == model.getStringType()) {
+                    javaBuffer.addLine("writer.writeElements(\"%1$s\", reader.readStrings());", tag);
+                }
+                else if (elementType == model.getDateType()) {
+                    javaBuffer.addLine("writer.writeDates(\"%1$s\", reader.readDates());", tag);
+                }
+                else {
+                    javaBuffer.addLine("reader.skipValue();");
+                }
+            }
+            else {
+                javaBuffer.addLine("reader.skipValue();");
+            }
+        }
+        else {
+            javaBuffer.addLine("reader.skipValue();");
+        }
+        javaBuffer.addLine("break;");
+    }
+
+    private void generateJsonToXmlMany(StructType type) {
+        // Calculate the default tag names:
+        Name singularName = type.getName();
+        Name pluralName = names.getPlural(singularName);
+        String singularTag = schemaNames.getSchemaTagName(singularName);
+        String pluralTag = schemaNames.getSchemaTagName(pluralName);
+
+        // Add the required imports:
+        javaBuffer.addImport(JsonReader.class);
+        javaBuffer.addImport(JsonParser.class);
+        javaBuffer.addImport(XmlWriter.class);
+
+        // Generate the method that uses the default tag names:
+        javaBuffer.addLine("public static void jsonToXmlMany(JsonReader reader, XmlWriter writer) {");
+        javaBuffer.addLine(  "jsonToXmlMany(reader, \"%1$s\", \"%2$s\", writer);", singularTag, pluralTag);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that uses custom tag names:
+        javaBuffer.addLine(
+            "public static void jsonToXmlMany(JsonReader reader, String singular, String plural, XmlWriter writer) {"
+        );
+        javaBuffer.addLine(  "reader.expect(JsonParser.Event.START_ARRAY);");
+        javaBuffer.addLine(  "writer.writeStartElement(plural);");
+        javaBuffer.addLine(  "while (reader.next() == JsonParser.Event.START_OBJECT) {");
+        javaBuffer.addLine(    "jsonToXmlOne(reader, true, singular, writer);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "writer.writeEndElement();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+}
@@ -12,6 +12,8 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -29,9 +31,11 @@ import org.ovirt.api.metamodel.concepts.StructMember;
 import org.ovirt.api.metamodel.concepts.StructType;
 import org.ovirt.api.metamodel.concepts.Type;
 import org.ovirt.api.metamodel.runtime.util.ArrayListWithHref;
+import org.ovirt.api.metamodel.runtime.util.Deferred;
 import org.ovirt.api.metamodel.runtime.util.ListWithHref;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+import org.ovirt.api.metamodel.runtime.util.RateLimitedLogger;
 import org.ovirt.api.metamodel.runtime.util.UnmodifiableListWithHref;
-import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -43,6 +47,10 @@ public class TypesGenerator extends JavaGenerator {
     @Inject private JavaPackages javaPackages;
     @Inject private JavaTypes javaTypes;
     @Inject private Names names;
+    @Inject private SchemaNames schemaNames;
+
+    // Reference to the object that contains the options for the generated code:
+    @Inject private JavaOptions javaOptions;
 
     public void generate(Model model) {
         // Generate classes for each enum type:
@@ -87,13 +95,15 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine(";");
         javaBuffer.addLine();
 
-        // Generate the logger:
-        javaBuffer.addImport(Logger.class);
+        // Generate the logger, rate limited because invalid values usually come from the network:
         javaBuffer.addImport(LoggerFactory.class);
-        javaBuffer.addLine(
-            "private static final Logger log = LoggerFactory.getLogger(%1$s.class);",
-            enumName.getSimpleName()
-        );
+        javaBuffer.addImport(RateLimitedLogger.class);
+        javaBuffer.addLine("private static final RateLimitedLogger log =");
+        javaBuffer.addLine(  "new RateLimitedLogger(LoggerFactory.getLogger(%1$s.class));", enumName.getSimpleName());
+        javaBuffer.addLine();
+
+        // Generate the array of values, so that it isn't copied each time that the values are scanned:
+        javaBuffer.addLine("private static final %1$s[] VALUES = values();", enumName.getSimpleName());
         javaBuffer.addLine();
 
         // Generate the field that stores the image:
@@ -112,21 +122,30 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
-        // Generate the method that creates an instance from an string:
+        // Generate the method that creates an instance from an string. The exact images are checked first, with a
+        // switch, and then the rest of the values are compared ignoring case, so that no temporary string or exception
+        // is created:
+        List<String> images = type.values()
+            .map(this::getEnumValueImage)
+            .sorted()
+            .collect(toList());
         javaBuffer.addLine("public static %1$s fromValue(String value) {", enumName.getSimpleName());
-        javaBuffer.addLine(  "try {");
-        javaBuffer.addLine(    "return valueOf(value.toUpperCase());");
+        javaBuffer.addLine(  "switch (value) {");
+        type.values().sorted().forEach(value -> {
+            javaBuffer.addLine("case \"%1$s\":", getEnumValueImage(value));
+            javaBuffer.addLine("return %1$s;", getEnumValueName(value));
+        });
         javaBuffer.addLine(  "}");
-        javaBuffer.addLine(  "catch (IllegalArgumentException exception) {");
-        javaBuffer.addLine(    "log.error(");
+        javaBuffer.addLine(  "for (%1$s candidate : VALUES) {", enumName.getSimpleName());
+        javaBuffer.addLine(    "if (candidate.image.equalsIgnoreCase(value)) {");
+        javaBuffer.addLine(      "return candidate;");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "log.warn(");
         javaBuffer.addLine(
-            "\"The string '\" + value + \"' isn't a valid value for the '%1$s' enumerated type. \" +",
+            "\"The string '{}' isn't a valid value for the '%1$s' enumerated type. \" +",
             enumName.getSimpleName()
         );
-        List<String> images = type.values()
-            .map(this::getEnumValueImage)
-            .sorted()
-            .collect(toList());
         if (images.size() == 1) {
             javaBuffer.addLine("\"Valid value is '%1$s'.\",", images.get(0));
         }
@@ -138,10 +157,9 @@ public class TypesGenerator extends JavaGenerator {
             String tail = images.get(images.size() - 1);
             javaBuffer.addLine( "\"Valid values are %1$s and '%2$s'.\",", head, tail);
         }
-        javaBuffer.addLine(      "exception");
-        javaBuffer.addLine(    ");");
-        javaBuffer.addLine(    "return null;");
-        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(    "value");
+        javaBuffer.addLine(  ");");
+        javaBuffer.addLine(  "return null;");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
@@ -171,6 +189,8 @@ public class TypesGenerator extends JavaGenerator {
         generateBaseContainer();
         generateContainer(type);
         generateBuilder(type);
+        generateVisitor(type);
+        generateColumns(type);
     }
 
     private void generateInterface(StructType type) {
@@ -210,6 +230,14 @@ public class TypesGenerator extends JavaGenerator {
         type.declaredAttributes().sorted().forEach(this::generateInterfaceMembers);
         type.declaredLinks().sorted().forEach(this::generateInterfaceMembers);
 
+        // The methods that start tracking changes and check them, only in the interfaces that don't extend other
+        // interfaces:
+        if (javaOptions.isTrackChanges() && base == null) {
+            javaBuffer.addLine("void trackChanges();");
+            javaBuffer.addLine("boolean hasChanges();");
+            javaBuffer.addLine();
+        }
+
         // End class:
         javaBuffer.addLine("}");
     }
@@ -232,12 +260,21 @@ public class TypesGenerator extends JavaGenerator {
             javaBuffer.addLine("Short %1$sAsShort();", field);
             javaBuffer.addLine("Integer %1$sAsInteger();", field);
             javaBuffer.addLine("Long %1$sAsLong();", field);
+            if (isPrimitiveInteger(member)) {
+                javaBuffer.addLine("long %1$sAsPrimitiveLong();", field);
+            }
         }
         javaBuffer.addLine();
 
         // Generate the checker:
         javaBuffer.addLine("boolean %1$sPresent();", field);
         javaBuffer.addLine();
+
+        // Generate the change checker:
+        if (javaOptions.isTrackChanges()) {
+            javaBuffer.addLine("boolean %1$sChanged();", field);
+            javaBuffer.addLine();
+        }
     }
 
     private void generateBaseContainer() {
@@ -279,7 +316,7 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine(    "throw new ArithmeticException(");
         javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
         javaBuffer.addLine(      "\"type '\" + type + \"' can't be converted to a 8 bits integer because that \" +");
-        javaBuffer.addLine(      "\"would loss precision.\"");
+        javaBuffer.addLine(      "\"would lose precision.\"");
         javaBuffer.addLine(    ");");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine("}");
@@ -298,7 +335,7 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine(    "throw new ArithmeticException(");
         javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
         javaBuffer.addLine(      "\"type '\" + type + \"' can't be converted to a 16 bits integer because that \" +");
-        javaBuffer.addLine(      "\"would loss precision.\"");
+        javaBuffer.addLine(      "\"would lose precision.\"");
         javaBuffer.addLine(    ");");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine("}");
@@ -317,7 +354,7 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine(    "throw new ArithmeticException(");
         javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
         javaBuffer.addLine(      "\"type '\" + type + \"' can't be converted to a 32 bits integer because that \" +");
-        javaBuffer.addLine(      "\"would loss precision.\"");
+        javaBuffer.addLine(      "\"would lose precision.\"");
         javaBuffer.addLine(    ");");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine("}");
@@ -336,12 +373,41 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine(    "throw new ArithmeticException(");
         javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
         javaBuffer.addLine(      "\"type '\" + type + \"' can't be converted to a 64 bits integer because that \" +");
-        javaBuffer.addLine(      "\"would loss precision.\"");
+        javaBuffer.addLine(      "\"would lose precision.\"");
         javaBuffer.addLine(    ");");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
+        // Methods to convert primitive integers, only needed when integers are stored as such:
+        if (javaOptions.isPrimitiveIntegers()) {
+            generatePrimitiveIntegerConversions();
+        }
+
+        // Methods to track changes:
+        if (javaOptions.isTrackChanges()) {
+            generateChangeTracking();
+        }
+
+        // Fields and methods to store the members in a dense array:
+        if (javaOptions.isCompactContainers()) {
+            generateCompactStorage();
+        }
+
+        // Method to clear all the members, overridden by the containers to clear the members that they declare:
+        javaBuffer.addLine("public void clear() {");
+        if (javaOptions.isTrackChanges()) {
+            javaBuffer.addLine("changes = null;");
+        }
+        if (javaOptions.isCompactContainers()) {
+            javaBuffer.addLine("Arrays.fill(values, 0, count, null);");
+            javaBuffer.addLine("count = 0;");
+            javaBuffer.addLine("present = 0L;");
+            javaBuffer.addLine("morePresent = NO_BITS;");
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
         // Method to make an unmodifiable list:
         javaBuffer.addLine("protected static <E> List<E> makeUnmodifiableList(List<E> original) {");
         javaBuffer.addLine(  "if (original == null) {");
@@ -373,6 +439,230 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine("}");
     }
 
+    private void generateChangeTracking() {
+        // The set of members changed since the tracking started, null if it hasn't started:
+        javaBuffer.addImport(BitSet.class);
+        javaBuffer.addLine("private BitSet changes;");
+        javaBuffer.addLine();
+
+        // Method to start tracking changes, or forget the changes recorded so far:
+        javaBuffer.addLine("public void trackChanges() {");
+        javaBuffer.addLine(  "if (changes == null) {");
+        javaBuffer.addLine(    "changes = new BitSet();");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else {");
+        javaBuffer.addLine(    "changes.clear();");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to record a change, called by the setters:
+        javaBuffer.addLine("protected void markChanged(int index) {");
+        javaBuffer.addLine(  "if (changes != null) {");
+        javaBuffer.addLine(    "changes.set(index);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to check a change. When changes aren't being tracked all the members are considered changed:
+        javaBuffer.addLine("protected boolean isChanged(int index) {");
+        javaBuffer.addLine(  "return changes == null || changes.get(index);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to check if any member has changed, overridden by the containers that have nested structs to also
+        // check the changes made inside them:
+        javaBuffer.addLine("public boolean hasChanges() {");
+        javaBuffer.addLine(  "return changes == null || !changes.isEmpty();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateCompactStorage() {
+        // The bits that indicate which members are present, the values of those members, in the order of their
+        // indexes, and the number of values. The first 64 bits are stored in a field, as most types have fewer
+        // members, and the rest in an array that is only allocated when needed:
+        javaBuffer.addImport(Arrays.class);
+        javaBuffer.addLine("private static final long[] NO_BITS = new long[0];");
+        javaBuffer.addLine("private static final Object[] NO_VALUES = new Object[0];");
+        javaBuffer.addLine();
+        javaBuffer.addLine("private long present;");
+        javaBuffer.addLine("private long[] morePresent = NO_BITS;");
+        javaBuffer.addLine("private Object[] values = NO_VALUES;");
+        javaBuffer.addLine("private int count;");
+        javaBuffer.addLine();
+
+        // Methods to get and set a word of the bits:
+        javaBuffer.addLine("private long getPresent(int word) {");
+        javaBuffer.addLine(  "if (word == 0) {");
+        javaBuffer.addLine(    "return present;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "word--;");
+        javaBuffer.addLine(  "return word < morePresent.length? morePresent[word]: 0L;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        javaBuffer.addLine("private void setPresent(int word, long bits) {");
+        javaBuffer.addLine(  "if (word == 0) {");
+        javaBuffer.addLine(    "present = bits;");
+        javaBuffer.addLine(    "return;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "word--;");
+        javaBuffer.addLine(  "if (word >= morePresent.length) {");
+        javaBuffer.addLine(    "morePresent = Arrays.copyOf(morePresent, word + 1);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "morePresent[word] = bits;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to check if a member is present:
+        javaBuffer.addLine("protected boolean hasValue(int index) {");
+        javaBuffer.addLine(  "return (getPresent(index >>> 6) & (1L << index)) != 0;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to get the value of a member, null if it isn't present:
+        javaBuffer.addLine("protected Object getValue(int index) {");
+        javaBuffer.addLine(  "if (!hasValue(index)) {");
+        javaBuffer.addLine(    "return null;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return values[slot(index)];");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to set the value of a member, inserting it in or removing it from the array when its presence
+        // changes. The array grows one slot at a time while it is small, so that objects with few members don't waste
+        // space, and by half after that, so that objects with many members aren't copied too many times:
+        javaBuffer.addLine("protected void setValue(int index, Object value) {");
+        javaBuffer.addLine(  "int word = index >>> 6;");
+        javaBuffer.addLine(  "long bit = 1L << index;");
+        javaBuffer.addLine(  "int slot = slot(index);");
+        javaBuffer.addLine(  "if (hasValue(index)) {");
+        javaBuffer.addLine(    "if (value != null) {");
+        javaBuffer.addLine(      "values[slot] = value;");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(    "else {");
+        javaBuffer.addLine(      "System.arraycopy(values, slot + 1, values, slot, count - slot - 1);");
+        javaBuffer.addLine(      "values[--count] = null;");
+        javaBuffer.addLine(      "setPresent(word, getPresent(word) & ~bit);");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else if (value != null) {");
+        javaBuffer.addLine(    "if (count == values.length) {");
+        javaBuffer.addLine(      "values = Arrays.copyOf(values, count < 8? count + 1: count + (count >> 1));");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(    "System.arraycopy(values, slot, values, slot + 1, count - slot);");
+        javaBuffer.addLine(    "values[slot] = value;");
+        javaBuffer.addLine(    "count++;");
+        javaBuffer.addLine(    "setPresent(word, getPresent(word) | bit);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to calculate the position of a member in the array, counting the members with lower indexes that are
+        // present:
+        javaBuffer.addLine("private int slot(int index) {");
+        javaBuffer.addLine(  "int word = index >>> 6;");
+        javaBuffer.addLine(  "int slot = Long.bitCount(getPresent(word) & ((1L << index) - 1));");
+        javaBuffer.addLine(  "for (int i = 0; i < word; i++) {");
+        javaBuffer.addLine(    "slot += Long.bitCount(getPresent(i));");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return slot;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to find the next member that is present, so that they can be iterated with a bit scan:
+        javaBuffer.addDocComment(
+            "Returns the index of the first member stored in the dense array that is present and whose index is",
+            "greater or equal than the given one, or -1 if there is no such member. The members that are present can",
+            "be iterated calling this method first with zero and then with the returned index plus one, and the name",
+            "of each one can be obtained with the {@link #memberName(int)} method. Integers stored as primitives and",
+            "lazy structs have their own fields, so they aren't returned by this method."
+        );
+        javaBuffer.addLine("public int nextPresent(int from) {");
+        javaBuffer.addLine(  "int words = morePresent.length + 1;");
+        javaBuffer.addLine(  "int word = from >>> 6;");
+        javaBuffer.addLine(  "if (word >= words) {");
+        javaBuffer.addLine(    "return -1;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "long bits = getPresent(word) & (-1L << from);");
+        javaBuffer.addLine(  "while (bits == 0) {");
+        javaBuffer.addLine(    "word++;");
+        javaBuffer.addLine(    "if (word >= words) {");
+        javaBuffer.addLine(      "return -1;");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(    "bits = getPresent(word);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return (word << 6) + Long.numberOfTrailingZeros(bits);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to map an index back to the name of the member, overridden by the containers that declare members:
+        javaBuffer.addDocComment(
+            "Returns the name of the member that has the given index, as used in the names of the getters, or",
+            "{@code null} if the container has no member with that index."
+        );
+        javaBuffer.addLine("public String memberName(int index) {");
+        javaBuffer.addLine(  "return null;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generatePrimitiveIntegerConversions() {
+        // Method to make a byte:
+        javaBuffer.addLine("protected static Byte asByte(String type, String member, long value) {");
+        javaBuffer.addLine(  "if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {");
+        javaBuffer.addLine(    "throw new ArithmeticException(");
+        javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
+        javaBuffer.addLine(      "\"type '\" + type + \"' can't be converted to a 8 bits integer because that \" +");
+        javaBuffer.addLine(      "\"would lose precision.\"");
+        javaBuffer.addLine(    ");");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return Byte.valueOf((byte) value);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to make a short:
+        javaBuffer.addLine("protected static Short asShort(String type, String member, long value) {");
+        javaBuffer.addLine(  "if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {");
+        javaBuffer.addLine(    "throw new ArithmeticException(");
+        javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
+        javaBuffer.addLine(      "\"type '\" + type + \"' can't be converted to a 16 bits integer because that \" +");
+        javaBuffer.addLine(      "\"would lose precision.\"");
+        javaBuffer.addLine(    ");");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return Short.valueOf((short) value);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to make an integer:
+        javaBuffer.addLine("protected static Integer asInteger(String type, String member, long value) {");
+        javaBuffer.addLine(  "if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {");
+        javaBuffer.addLine(    "throw new ArithmeticException(");
+        javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
+        javaBuffer.addLine(      "\"type '\" + type + \"' can't be converted to a 32 bits integer because that \" +");
+        javaBuffer.addLine(      "\"would lose precision.\"");
+        javaBuffer.addLine(    ");");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return Integer.valueOf((int) value);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to convert a big integer into a primitive long, used by the setters:
+        javaBuffer.addImport(BigInteger.class);
+        javaBuffer.addLine("protected static long longValue(String type, String member, BigInteger value) {");
+        javaBuffer.addLine(  "if (value.bitLength() > 63) {");
+        javaBuffer.addLine(    "throw new ArithmeticException(");
+        javaBuffer.addLine(      "\"The integer value \" + value + \" of the '\" + member + \"' member of \" +");
+        javaBuffer.addLine(      "\"type '\" + type + \"' can't be stored because it doesn't fit in a 64 bits \" +");
+        javaBuffer.addLine(      "\"integer.\"");
+        javaBuffer.addLine(    ");");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return value.longValue();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
     private void generateContainer(StructType type) {
         javaBuffer = new JavaClassBuffer();
         JavaClassName containerName = javaTypes.getContainerName(type);
@@ -402,26 +692,132 @@ public class TypesGenerator extends JavaGenerator {
         type.declaredLinks().sorted().forEach(this::generateContainerFields);
         javaBuffer.addLine();
 
+        // Table of the names of all the members, including the inherited ones, in the order of their indexes:
+        if (javaOptions.isCompactContainers()) {
+            generateContainerMemberNames(type);
+        }
+
         // Methods for attributes and links:
         type.declaredAttributes().sorted().forEach(this::generateContainerMethods);
         type.declaredLinks().sorted().forEach(this::generateContainerMethods);
 
+        // Method to clear all the members, so that the container can be reused:
+        javaBuffer.addLine("@Override");
+        javaBuffer.addLine("public void clear() {");
+        javaBuffer.addLine(  "super.clear();");
+        type.declaredAttributes().sorted().forEach(this::generateContainerClear);
+        type.declaredLinks().sorted().forEach(this::generateContainerClear);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Methods that extend the tracking of changes to the nested structs:
+        if (javaOptions.isTrackChanges()) {
+            generateContainerNestedChanges(type);
+        }
+
         // End class:
         javaBuffer.addLine("}");
     }
 
+    private void generateContainerMemberNames(StructType type) {
+        // Generate the table:
+        javaBuffer.addLine("private static final String[] MEMBER_NAMES = {");
+        for (StructMember member : getIndexedMembers(type)) {
+            javaBuffer.addLine("\"%1$s\",", javaNames.getJavaMemberStyleName(member.getName()));
+        }
+        javaBuffer.addLine("};");
+        javaBuffer.addLine();
+
+        // Generate the method that uses it:
+        javaBuffer.addLine("@Override");
+        javaBuffer.addLine("public String memberName(int index) {");
+        javaBuffer.addLine(  "return index >= 0 && index < MEMBER_NAMES.length? MEMBER_NAMES[index]: null;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    /**
+     * Returns all the members of the given type, including the inherited ones, in the order of the indexes returned
+     * by the {@link #getMemberIndex(StructMember)} method.
+     */
+    private List<StructMember> getIndexedMembers(StructType type) {
+        List<StructMember> members = new ArrayList<>();
+        Type base = type.getBase();
+        if (base instanceof StructType) {
+            members.addAll(getIndexedMembers((StructType) base));
+        }
+        type.declaredAttributes().sorted().forEach(members::add);
+        type.declaredLinks().sorted().forEach(members::add);
+        return members;
+    }
+
     private void generateContainerFields(StructMember member) {
         // Get the name of the field:
         Name name = member.getName();
         String field = javaNames.getJavaMemberStyleName(name);
 
-        // Get the type reference:
+        // Integers stored as primitives need an additional field to indicate if the value is present:
         Type type = member.getType();
+        if (isPrimitiveInteger(member)) {
+            javaBuffer.addLine("private long %1$s;", field);
+            javaBuffer.addLine("private boolean %1$sPresent;", field);
+            return;
+        }
+
+        // Members stored in the dense array of compact containers don't need fields:
+        if (isCompactMember(member)) {
+            return;
+        }
+
+        // Get the type reference:
         JavaTypeReference typeReference = javaTypes.getTypeReference(type, true);
         javaBuffer.addImports(typeReference.getImports());
 
         // Generate the field:
         javaBuffer.addLine("private %1$s %2$s;", typeReference.getText(), field);
+
+        // Lists with cached views need an additional field to store the view, created when the list is set:
+        if (isCachedList(type)) {
+            JavaTypeReference viewReference = javaTypes.getTypeReference(type, false);
+            javaBuffer.addImports(viewReference.getImports());
+            javaBuffer.addImport(Collections.class);
+            javaBuffer.addLine(
+                "private %1$s %2$sView = Collections.emptyList();",
+                viewReference.getText(),
+                field
+            );
+        }
+
+        // Structs that can be decoded lazily need an additional field to store the deferred value:
+        if (isLazyStruct(type)) {
+            javaBuffer.addImport(Deferred.class);
+            javaBuffer.addLine("private Deferred<%1$s> %2$sDeferred;", typeReference.getText(), field);
+        }
+    }
+
+    private void generateContainerClear(StructMember member) {
+        // Get the name of the field:
+        Name name = member.getName();
+        Type type = member.getType();
+        String field = javaNames.getJavaMemberStyleName(name);
+
+        // Reset the fields to the values they have in a new container:
+        if (isPrimitiveInteger(member)) {
+            javaBuffer.addLine("%1$s = 0L;", field);
+            javaBuffer.addLine("%1$sPresent = false;", field);
+            return;
+        }
+        if (isCompactMember(member)) {
+            return;
+        }
+        javaBuffer.addLine("%1$s = null;", field);
+        if (isCachedList(type)) {
+            javaBuffer.addImport(Collections.class);
+            javaBuffer.addLine("%1$sView = Collections.emptyList();", field);
+        }
+        if (isLazyStruct(type)) {
+            javaBuffer.addLine("%1$sDeferred = null;", field);
+        }
     }
 
     private void generateContainerMethods(StructMember member) {
@@ -433,6 +829,23 @@ public class TypesGenerator extends JavaGenerator {
         String property = javaNames.getJavaPropertyStyleName(name);
         String declaring = javaNames.getJavaClassStyleName(member.getDeclaringType().getName());
 
+        // Integers stored as primitives and lazy structs need completely different methods:
+        if (isPrimitiveInteger(member)) {
+            generatePrimitiveIntegerContainerMethods(member);
+            generateContainerChangeChecker(member);
+            return;
+        }
+        if (isLazyStruct(type)) {
+            generateLazyStructContainerMethods(member);
+            generateContainerChangeChecker(member);
+            return;
+        }
+        if (isCompactMember(member)) {
+            generateCompactContainerMethods(member);
+            generateContainerChangeChecker(member);
+            return;
+        }
+
         // Get the type reference:
         JavaTypeReference typeReference = javaTypes.getTypeReference(type, false);
 
@@ -479,7 +892,12 @@ public class TypesGenerator extends JavaGenerator {
         else if (type instanceof ListType) {
             javaBuffer.addImports(typeReference.getImports());
             javaBuffer.addLine("public %1$s %2$s() {", typeReference.getText(), field);
-            javaBuffer.addLine(  "return makeUnmodifiableList(%1$s);", field);
+            if (isCachedList(type)) {
+                javaBuffer.addLine("return %1$sView;", field);
+            }
+            else {
+                javaBuffer.addLine("return makeUnmodifiableList(%1$s);", field);
+            }
             javaBuffer.addLine("}");
             javaBuffer.addLine();
         }
@@ -497,12 +915,14 @@ public class TypesGenerator extends JavaGenerator {
                 // Generate the method that takes a "boolean" parameter:
                 javaBuffer.addLine("public void %1$s(boolean new%2$s) {", field, property);
                 javaBuffer.addLine(  "%1$s = Boolean.valueOf(new%2$s);", field, property);
+                generateMarkChanged(member);
                 javaBuffer.addLine("}");
                 javaBuffer.addLine();
 
                 // Generate the method that takes a "Boolean" parameter:
                 javaBuffer.addLine("public void %1$s(Boolean new%2$s) {", field, property);
                 javaBuffer.addLine(  "%1$s = new%2$s;", field, property);
+                generateMarkChanged(member);
                 javaBuffer.addLine("}");
                 javaBuffer.addLine();
             }
@@ -515,12 +935,14 @@ public class TypesGenerator extends JavaGenerator {
                 javaBuffer.addLine(  "else {");
                 javaBuffer.addLine(    "%1$s = new Date(new%2$s.getTime());", field, property);
                 javaBuffer.addLine(  "}");
+                generateMarkChanged(member);
                 javaBuffer.addLine("}");
                 javaBuffer.addLine();
             }
             else {
                 javaBuffer.addLine("public void %1$s(%2$s new%3$s) {", field, typeReference.getText(), property);
                 javaBuffer.addLine(  "%1$s = new%2$s;", field, property);
+                generateMarkChanged(member);
                 javaBuffer.addLine("}");
                 javaBuffer.addLine();
             }
@@ -528,12 +950,17 @@ public class TypesGenerator extends JavaGenerator {
         else if (type instanceof ListType) {
             javaBuffer.addLine("public void %1$s(%2$s new%3$s) {", field, typeReference.getText(), property);
             javaBuffer.addLine(  "%1$s = makeArrayList(new%2$s);", field, property);
+            if (isCachedList(type)) {
+                javaBuffer.addLine("%1$sView = makeUnmodifiableList(%1$s);", field);
+            }
+            generateMarkChanged(member);
             javaBuffer.addLine("}");
             javaBuffer.addLine();
         }
         else {
             javaBuffer.addLine("public void %1$s(%2$s new%3$s) {", field, typeReference.getText(), property);
             javaBuffer.addLine(  "%1$s = new%2$s;", field, property);
+            generateMarkChanged(member);
             javaBuffer.addLine("}");
             javaBuffer.addLine();
         }
@@ -548,6 +975,414 @@ public class TypesGenerator extends JavaGenerator {
         }
         javaBuffer.addLine("}");
         javaBuffer.addLine();
+
+        // Generate the change checker:
+        generateContainerChangeChecker(member);
+    }
+
+    private void generateContainerChangeChecker(StructMember member) {
+        if (!javaOptions.isTrackChanges()) {
+            return;
+        }
+        String field = javaNames.getJavaMemberStyleName(member.getName());
+        javaBuffer.addLine("public boolean %1$sChanged() {", field);
+        Type type = member.getType();
+        if (isStructList(type)) {
+            // Lists are always written completely, so changes made inside the elements are changes of the list:
+            Type elementType = ((ListType) type).getElementType();
+            JavaClassName elementName = javaTypes.getInterfaceName(elementType);
+            javaBuffer.addImport(elementName);
+            javaBuffer.addLine("if (isChanged(%1$d)) {", getMemberIndex(member));
+            javaBuffer.addLine(  "return true;");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine("for (%1$s item : %2$s()) {", elementName.getSimpleName(), field);
+            javaBuffer.addLine(  "if (item.hasChanges()) {");
+            javaBuffer.addLine(    "return true;");
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine("return false;");
+        }
+        else {
+            javaBuffer.addLine("return isChanged(%1$d);", getMemberIndex(member));
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    /**
+     * Generates the methods that start tracking changes and check them also in the nested structs and in the elements
+     * of the nested lists of structs, so that changes made directly to a nested object, without calling the setter of
+     * the parent, are also detected. The nested objects are reached using the getters, so structs that are decoded
+     * lazily are decoded when the tracking starts. The objects are expected to form a tree, without cycles.
+     */
+    private void generateContainerNestedChanges(StructType type) {
+        List<StructMember> nested = Stream.concat(type.declaredAttributes().sorted(), type.declaredLinks().sorted())
+            .filter(member -> member.getType() instanceof StructType || isStructList(member.getType()))
+            .collect(toList());
+        if (nested.isEmpty()) {
+            return;
+        }
+
+        // Method to start tracking changes:
+        javaBuffer.addLine("@Override");
+        javaBuffer.addLine("public void trackChanges() {");
+        javaBuffer.addLine(  "super.trackChanges();");
+        for (StructMember member : nested) {
+            String field = javaNames.getJavaMemberStyleName(member.getName());
+            Type memberType = member.getType();
+            if (memberType instanceof StructType) {
+                javaBuffer.addLine("if (%1$sPresent()) {", field);
+                javaBuffer.addLine(  "%1$s().trackChanges();", field);
+                javaBuffer.addLine("}");
+            }
+            else {
+                JavaClassName elementName = javaTypes.getInterfaceName(((ListType) memberType).getElementType());
+                javaBuffer.addImport(elementName);
+                javaBuffer.addLine("for (%1$s item : %2$s()) {", elementName.getSimpleName(), field);
+                javaBuffer.addLine(  "item.trackChanges();");
+                javaBuffer.addLine("}");
+            }
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method to check the changes:
+        javaBuffer.addLine("@Override");
+        javaBuffer.addLine("public boolean hasChanges() {");
+        javaBuffer.addLine(  "if (super.hasChanges()) {");
+        javaBuffer.addLine(    "return true;");
+        javaBuffer.addLine(  "}");
+        for (StructMember member : nested) {
+            String field = javaNames.getJavaMemberStyleName(member.getName());
+            if (member.getType() instanceof StructType) {
+                javaBuffer.addLine("if (%1$sPresent() && %1$s().hasChanges()) {", field);
+            }
+            else {
+                javaBuffer.addLine("if (%1$sChanged()) {", field);
+            }
+            javaBuffer.addLine(  "return true;");
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine("return false;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateMarkChanged(StructMember member) {
+        if (javaOptions.isTrackChanges()) {
+            javaBuffer.addLine("markChanged(%1$d);", getMemberIndex(member));
+        }
+    }
+
+    /**
+     * Returns the index of the given member, used as the bit that records its changes and, in compact containers, as
+     * the bit that indicates its presence. The members declared by the base types come first, so that the index of a
+     * member is the same in all the containers that inherit it.
+     */
+    private int getMemberIndex(StructMember member) {
+        StructType declaring = member.getDeclaringType();
+        int offset = 0;
+        Type base = declaring.getBase();
+        if (base instanceof StructType) {
+            StructType struct = (StructType) base;
+            offset = (int) (struct.attributes().count() + struct.links().count());
+        }
+        List<StructMember> declared = Stream.concat(
+            declaring.declaredAttributes().sorted(),
+            declaring.declaredLinks().sorted()
+        ).collect(toList());
+        return offset + declared.indexOf(member);
+    }
+
+    private void generatePrimitiveIntegerContainerMethods(StructMember member) {
+        // Get the name of the field:
+        Name name = member.getName();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String property = javaNames.getJavaPropertyStyleName(name);
+        String declaring = javaNames.getJavaClassStyleName(member.getDeclaringType().getName());
+
+        // Generate the getters:
+        javaBuffer.addImport(BigInteger.class);
+        javaBuffer.addLine("public BigInteger %1$s() {", field);
+        javaBuffer.addLine(  "return %1$sPresent? BigInteger.valueOf(%1$s): null;", field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        javaBuffer.addLine("public Byte %1$sAsByte() {", field);
+        javaBuffer.addLine(  "return %2$sPresent? asByte(\"%1$s\", \"%2$s\", %2$s): null;", declaring, field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        javaBuffer.addLine("public Short %1$sAsShort() {", field);
+        javaBuffer.addLine(  "return %2$sPresent? asShort(\"%1$s\", \"%2$s\", %2$s): null;", declaring, field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        javaBuffer.addLine("public Integer %1$sAsInteger() {", field);
+        javaBuffer.addLine(  "return %2$sPresent? asInteger(\"%1$s\", \"%2$s\", %2$s): null;", declaring, field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        javaBuffer.addLine("public Long %1$sAsLong() {", field);
+        javaBuffer.addLine(  "return %1$sPresent? Long.valueOf(%1$s): null;", field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the getter that returns the primitive value, zero when it isn't present, used by the writers to
+        // avoid boxing:
+        javaBuffer.addLine("public long %1$sAsPrimitiveLong() {", field);
+        javaBuffer.addLine(  "return %1$s;", field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the setter that takes a "long" parameter, used by the readers:
+        javaBuffer.addLine("public void %1$s(long new%2$s) {", field, property);
+        javaBuffer.addLine(  "%1$s = new%2$s;", field, property);
+        javaBuffer.addLine(  "%1$sPresent = true;", field);
+        generateMarkChanged(member);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the setter that takes a "BigInteger" parameter, used by the builders:
+        javaBuffer.addLine("public void %1$s(BigInteger new%2$s) {", field, property);
+        javaBuffer.addLine(  "if (new%1$s == null) {", property);
+        javaBuffer.addLine(    "%1$s = 0;", field);
+        javaBuffer.addLine(    "%1$sPresent = false;", field);
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else {");
+        javaBuffer.addLine(    "%2$s = longValue(\"%1$s\", \"%2$s\", new%3$s);", declaring, field, property);
+        javaBuffer.addLine(    "%1$sPresent = true;", field);
+        javaBuffer.addLine(  "}");
+        generateMarkChanged(member);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the checker:
+        javaBuffer.addLine("public boolean %1$sPresent() {", field);
+        javaBuffer.addLine(  "return %1$sPresent;", field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateLazyStructContainerMethods(StructMember member) {
+        // Get the name of the field:
+        Name name = member.getName();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String property = javaNames.getJavaPropertyStyleName(name);
+        JavaTypeReference typeReference = javaTypes.getTypeReference(member.getType(), false);
+        javaBuffer.addImports(typeReference.getImports());
+
+        // Generate the getter, that decodes the deferred value the first time that it is called:
+        javaBuffer.addDocComment(
+            "Returns the value of the {@code " + field + "} member. If the reader deferred the decoding of the value,",
+            "it is decoded now, from the bytes of the original document. Those bytes aren't copied, so the buffer or",
+            "array given to the reader must not be modified or reused till this method has been called, or till the",
+            "container is discarded."
+        );
+        javaBuffer.addLine("public %1$s %2$s() {", typeReference.getText(), field);
+        javaBuffer.addLine(  "if (%1$sDeferred != null) {", field);
+        javaBuffer.addLine(    "%1$s = %1$sDeferred.decode();", field);
+        javaBuffer.addLine(    "%1$sDeferred = null;", field);
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return %1$s;", field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the setter that takes the decoded value:
+        javaBuffer.addLine("public void %1$s(%2$s new%3$s) {", field, typeReference.getText(), property);
+        javaBuffer.addLine(  "%1$s = new%2$s;", field, property);
+        javaBuffer.addLine(  "%1$sDeferred = null;", field);
+        generateMarkChanged(member);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the setter that takes the deferred value, used by the readers:
+        javaBuffer.addImport(Deferred.class);
+        javaBuffer.addLine(
+            "public void %1$sDeferred(Deferred<%2$s> new%3$s) {",
+            field,
+            typeReference.getText(),
+            property
+        );
+        javaBuffer.addLine(  "%1$s = null;", field);
+        javaBuffer.addLine(  "%1$sDeferred = new%2$s;", field, property);
+        generateMarkChanged(member);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the checker, that doesn't need to decode the deferred value:
+        javaBuffer.addLine("public boolean %1$sPresent() {", field);
+        javaBuffer.addLine(  "return %1$s != null || %1$sDeferred != null;", field);
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateCompactContainerMethods(StructMember member) {
+        // Get the name of the field:
+        Name name = member.getName();
+        Type type = member.getType();
+        Model model = type.getModel();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String property = javaNames.getJavaPropertyStyleName(name);
+        String declaring = javaNames.getJavaClassStyleName(member.getDeclaringType().getName());
+        int index = getMemberIndex(member);
+
+        // Get the type reference:
+        JavaTypeReference typeReference = javaTypes.getTypeReference(type, false);
+        javaBuffer.addImports(typeReference.getImports());
+        String text = typeReference.getText();
+
+        // Generate the getters:
+        if (type == model.getIntegerType()) {
+            javaBuffer.addImport(BigInteger.class);
+            javaBuffer.addLine("public BigInteger %1$s() {", field);
+            javaBuffer.addLine(  "return (BigInteger) getValue(%1$d);", index);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+
+            javaBuffer.addLine("public Byte %1$sAsByte() {", field);
+            javaBuffer.addLine(  "return asByte(\"%1$s\", \"%2$s\", %2$s());", declaring, field);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+
+            javaBuffer.addLine("public Short %1$sAsShort() {", field);
+            javaBuffer.addLine(  "return asShort(\"%1$s\", \"%2$s\", %2$s());", declaring, field);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+
+            javaBuffer.addLine("public Integer %1$sAsInteger() {", field);
+            javaBuffer.addLine(  "return asInteger(\"%1$s\", \"%2$s\", %2$s());", declaring, field);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+
+            javaBuffer.addLine("public Long %1$sAsLong() {", field);
+            javaBuffer.addLine(  "return asLong(\"%1$s\", \"%2$s\", %2$s());", declaring, field);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        else if (type == model.getDateType()) {
+            javaBuffer.addImport(Date.class);
+            javaBuffer.addLine("public Date %1$s() {", field);
+            javaBuffer.addLine(  "Date value = (Date) getValue(%1$d);", index);
+            javaBuffer.addLine(  "if (value == null) {");
+            javaBuffer.addLine(    "return null;");
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine(  "else {");
+            javaBuffer.addLine(    "return new Date(value.getTime());");
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        else if (type instanceof ListType) {
+            // When views are cached the array contains the view, otherwise it contains the modifiable copy:
+            javaBuffer.addLine("@SuppressWarnings(\"unchecked\")");
+            javaBuffer.addLine("public %1$s %2$s() {", text, field);
+            javaBuffer.addLine(  "%1$s value = (%1$s) getValue(%2$d);", text, index);
+            if (isCachedList(type)) {
+                javaBuffer.addImport(Collections.class);
+                javaBuffer.addLine("if (value == null) {");
+                javaBuffer.addLine(  "return Collections.emptyList();");
+                javaBuffer.addLine("}");
+                javaBuffer.addLine("return value;");
+            }
+            else {
+                javaBuffer.addLine("return makeUnmodifiableList(value);");
+            }
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        else {
+            // The value is stored as an object, so it has to be cast to the wrapper type even if the getter returns
+            // a primitive:
+            JavaTypeReference wrapperReference = javaTypes.getTypeReference(type, true);
+            javaBuffer.addImports(wrapperReference.getImports());
+            javaBuffer.addLine("public %1$s %2$s() {", text, field);
+            javaBuffer.addLine(  "return (%1$s) getValue(%2$d);", wrapperReference.getText(), index);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+
+        // Generate the setters:
+        if (type == model.getBooleanType()) {
+            javaBuffer.addLine("public void %1$s(boolean new%2$s) {", field, property);
+            javaBuffer.addLine(  "setValue(%1$d, Boolean.valueOf(new%2$s));", index, property);
+            generateMarkChanged(member);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+
+            javaBuffer.addLine("public void %1$s(Boolean new%2$s) {", field, property);
+            javaBuffer.addLine(  "setValue(%1$d, new%2$s);", index, property);
+            generateMarkChanged(member);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        else if (type == model.getDateType()) {
+            javaBuffer.addImport(Date.class);
+            javaBuffer.addLine("public void %1$s(Date new%2$s) {", field, property);
+            javaBuffer.addLine(
+                "setValue(%1$d, new%2$s != null? new Date(new%2$s.getTime()): null);",
+                index,
+                property
+            );
+            generateMarkChanged(member);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        else if (type instanceof ListType) {
+            javaBuffer.addLine("public void %1$s(%2$s new%3$s) {", field, text, property);
+            if (isCachedList(type)) {
+                javaBuffer.addLine(
+                    "setValue(%1$d, new%2$s != null? makeUnmodifiableList(makeArrayList(new%2$s)): null);",
+                    index,
+                    property
+                );
+            }
+            else {
+                javaBuffer.addLine("setValue(%1$d, new%2$s != null? makeArrayList(new%2$s): null);", index, property);
+            }
+            generateMarkChanged(member);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+        else {
+            javaBuffer.addLine("public void %1$s(%2$s new%3$s) {", field, text, property);
+            javaBuffer.addLine(  "setValue(%1$d, new%2$s);", index, property);
+            generateMarkChanged(member);
+            javaBuffer.addLine("}");
+            javaBuffer.addLine();
+        }
+
+        // Generate the checker:
+        javaBuffer.addLine("public boolean %1$sPresent() {", field);
+        if (type instanceof ListType) {
+            javaBuffer.addLine("List<?> value = (List<?>) getValue(%1$d);", index);
+            javaBuffer.addLine("return value != null && !value.isEmpty();");
+        }
+        else {
+            javaBuffer.addLine("return hasValue(%1$d);", index);
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private boolean isLazyStruct(Type type) {
+        return javaOptions.isLazyStructs() && type instanceof StructType;
+    }
+
+    private boolean isStructList(Type type) {
+        return type instanceof ListType && ((ListType) type).getElementType() instanceof StructType;
+    }
+
+    private boolean isCachedList(Type type) {
+        return javaOptions.isCachedViews() && type instanceof ListType;
+    }
+
+    private boolean isCompactMember(StructMember member) {
+        return javaOptions.isCompactContainers() && !isPrimitiveInteger(member) && !isLazyStruct(member.getType());
+    }
+
+    private boolean isPrimitiveInteger(StructMember member) {
+        return javaOptions.isPrimitiveInteger(member);
     }
 
     private void generateBuilder(StructType type) {
@@ -861,6 +1696,193 @@ public class TypesGenerator extends JavaGenerator {
         javaBuffer.addLine();
     }
 
+    private void generateVisitor(StructType type) {
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName visitorName = javaTypes.getVisitorName(type);
+        javaBuffer.setClassName(visitorName);
+        generateVisitorSource(type);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for visitor \"" + visitorName + "\"", exception);
+        }
+    }
+
+    private void generateVisitorSource(StructType type) {
+        // Begin class:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+        JavaClassName visitorName = javaTypes.getVisitorName(type);
+        javaBuffer.addImport(typeName);
+        javaBuffer.addDocComment(
+            "This class receives the objects of type {@link " + typeName.getSimpleName() + "}, and the elements of their",
+            "nested lists, while they are read by the {@code visitOne} and {@code visitMany} methods of the XML and",
+            "JSON readers, so that they can be processed and discarded without building the complete lists. The",
+            "default implementation keeps all the elements, extend it and override the relevant methods to change",
+            "that."
+        );
+        javaBuffer.addLine("public class %1$s {", visitorName.getSimpleName());
+        javaBuffer.addLine();
+
+        // Methods for the elements of the nested lists:
+        getVisitedMembers(type).forEach(this::generateVisitorMethod);
+
+        // Method for the complete object:
+        javaBuffer.addDocComment(
+            "Called when an object has been completely read, after all the elements of its nested lists.",
+            "",
+            "@param object the object, without the elements that weren't kept"
+        );
+        javaBuffer.addLine("public void visit(%1$s object) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "// Empty on purpose");
+        javaBuffer.addLine("}");
+
+        // End class:
+        javaBuffer.addLine("}");
+    }
+
+    private void generateVisitorMethod(StructMember member) {
+        Name name = member.getName();
+        ListType listType = (ListType) member.getType();
+        JavaClassName elementName = javaTypes.getInterfaceName(listType.getElementType());
+        String method = "visit" + javaNames.getJavaPropertyStyleName(names.getSingular(name));
+        javaBuffer.addImport(elementName);
+        javaBuffer.addDocComment(
+            "Called for each element of the {@code " + javaNames.getJavaMemberStyleName(name) + "} list, as soon as it",
+            "has been read.",
+            "",
+            "@param element the element",
+            "@return {@code true} if the element should be added to the list of the object, {@code false} if it",
+            "    should be discarded"
+        );
+        javaBuffer.addLine("public boolean %1$s(%2$s element) {", method, elementName.getSimpleName());
+        javaBuffer.addLine(  "return true;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateColumns(StructType type) {
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName columnsName = javaTypes.getColumnsName(type);
+        javaBuffer.setClassName(columnsName);
+        generateColumnsSource(type);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for columns \"" + columnsName + "\"", exception);
+        }
+    }
+
+    private void generateColumnsSource(StructType type) {
+        // Begin class:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+        JavaClassName columnsName = javaTypes.getColumnsName(type);
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(Projection.class);
+        javaBuffer.addDocComment(
+            "This class stores the attributes of a list of objects of type {@link " + typeName.getSimpleName() + "} in",
+            "columns of primitives, one row per object, instead of creating the objects. It is filled by the",
+            "{@code readColumns} methods of the XML and JSON readers, and only the attributes whose values are",
+            "primitives or enums are stored. The columns of the attributes that aren't included in the projection",
+            "given to the constructor aren't created, their values are skipped when reading, and their getters",
+            "return {@code null}."
+        );
+        javaBuffer.addLine("public class %1$s {", columnsName.getSimpleName());
+
+        // Fields:
+        List<StructMember> members = getColumnMembers(type);
+        for (StructMember member : members) {
+            JavaClassName columnName = javaTypes.getColumnName(member.getType());
+            javaBuffer.addImport(columnName);
+            javaBuffer.addLine(
+                "private final %1$s %2$s;",
+                columnName.getSimpleName(),
+                javaNames.getJavaMemberStyleName(member.getName())
+            );
+        }
+        javaBuffer.addLine("private int rows;");
+        javaBuffer.addLine();
+
+        // Constructors:
+        javaBuffer.addDocComment(
+            "Creates the columns for all the attributes."
+        );
+        javaBuffer.addLine("public %1$s() {", columnsName.getSimpleName());
+        javaBuffer.addLine(  "this(Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addDocComment(
+            "Creates the columns for the attributes included in the given projection."
+        );
+        javaBuffer.addLine("public %1$s(Projection projection) {", columnsName.getSimpleName());
+        for (StructMember member : members) {
+            JavaClassName columnName = javaTypes.getColumnName(member.getType());
+            javaBuffer.addLine(
+                "%1$s = projection.includes(\"%2$s\")? new %3$s(): null;",
+                javaNames.getJavaMemberStyleName(member.getName()),
+                schemaNames.getSchemaTagName(member.getName()),
+                columnName.getSimpleName()
+            );
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Methods to manage the rows:
+        javaBuffer.addDocComment(
+            "Returns the number of rows, one for each object read."
+        );
+        javaBuffer.addLine("public int getRowCount() {");
+        javaBuffer.addLine(  "return rows;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addDocComment(
+            "Adds a row, used by the readers when they find a new object.",
+            "",
+            "@return the index of the new row"
+        );
+        javaBuffer.addLine("public int addRow() {");
+        javaBuffer.addLine(  "return rows++;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addDocComment(
+            "Removes all the rows, keeping the columns so that they can be filled again without allocating memory."
+        );
+        javaBuffer.addLine("public void clear() {");
+        for (StructMember member : members) {
+            String field = javaNames.getJavaMemberStyleName(member.getName());
+            javaBuffer.addLine("if (%1$s != null) {", field);
+            javaBuffer.addLine(  "%1$s.clear();", field);
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine(  "rows = 0;");
+        javaBuffer.addLine("}");
+
+        // Getters:
+        for (StructMember member : members) {
+            JavaClassName columnName = javaTypes.getColumnName(member.getType());
+            String field = javaNames.getJavaMemberStyleName(member.getName());
+            javaBuffer.addLine();
+            javaBuffer.addDocComment(
+                "Returns the column that contains the values of the {@code " + field + "} attribute, or null if it",
+                "isn't included in the projection."
+            );
+            javaBuffer.addLine("public %1$s %2$s() {", columnName.getSimpleName(), field);
+            javaBuffer.addLine(  "return %1$s;", field);
+            javaBuffer.addLine("}");
+        }
+
+        // End class:
+        javaBuffer.addLine("}");
+    }
+
+    private List<StructMember> getColumnMembers(StructType type) {
+        return type.getAttributes().stream()
+            .filter(x -> javaTypes.getColumnName(x.getType()) != null)
+            .sorted()
+            .collect(toList());
+    }
+
     private void generateBuildersFactory(Model model) {
         Name name = NameParser.parseUsingCase("Builders");
         javaBuffer = new JavaClassBuffer();
@@ -12,10 +12,14 @@ import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 
@@ -24,13 +28,21 @@ import org.ovirt.api.metamodel.concepts.Link;
 import org.ovirt.api.metamodel.concepts.ListType;
 import org.ovirt.api.metamodel.concepts.Model;
 import org.ovirt.api.metamodel.concepts.Name;
+import org.ovirt.api.metamodel.concepts.NameParser;
 import org.ovirt.api.metamodel.concepts.PrimitiveType;
 import org.ovirt.api.metamodel.concepts.StructMember;
 import org.ovirt.api.metamodel.concepts.StructType;
 import org.ovirt.api.metamodel.concepts.Type;
+import org.ovirt.api.metamodel.runtime.metrics.Metrics;
+import org.ovirt.api.metamodel.runtime.metrics.MetricsAccumulator;
 import org.ovirt.api.metamodel.runtime.util.ArrayListWithHref;
 import org.ovirt.api.metamodel.runtime.util.ListWithHref;
+import org.ovirt.api.metamodel.runtime.util.ParallelDecoder;
+import org.ovirt.api.metamodel.runtime.util.Projection;
+import org.ovirt.api.metamodel.runtime.util.SymbolTable;
+import org.ovirt.api.metamodel.runtime.xml.XmlObjectReader;
 import org.ovirt.api.metamodel.runtime.xml.XmlReader;
+import org.ovirt.api.metamodel.runtime.xml.XmlReaderRegistry;
 import org.ovirt.api.metamodel.runtime.xml.XmlWriter;
 
 /**
@@ -57,6 +69,10 @@ public class XmlSupportGenerator extends JavaGenerator {
     // Reference to the object used to calculate XML schema names:
     @Inject private SchemaNames schemaNames;
 
+    // Reference to the object that contains the options for the generated code:
+    @Inject
+    private JavaOptions javaOptions;
+
     public void generate(Model model) {
         // Generate classes for each struct type:
         model.types()
@@ -70,7 +86,11 @@ public class XmlSupportGenerator extends JavaGenerator {
             .map(EnumType.class::cast)
             .forEach(this::generateEnumSupportClasses);
 
-        generateXmlTagsPropertiesFile(model);
+        // Generate the registry used by the generic reader:
+        generateReaderRegistry(model);
+
+        // Generate the symbols used by the readers to identify tags:
+        generateSymbols(model);
     }
 
     private void generateStructSupportClasses(StructType type) {
@@ -83,32 +103,160 @@ public class XmlSupportGenerator extends JavaGenerator {
         generateEnumWriter(type);
     }
 
-    private void generateXmlTagsPropertiesFile(Model model) {
-        PropertiesBuffer propertiesBuffer = new PropertiesBuffer();
+    private void generateReaderRegistry(Model model) {
+        Name name = NameParser.parseUsingCase("XmlReaders");
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName registryName = new JavaClassName();
+        registryName.setPackageName(javaPackages.getXmlPackageName());
+        registryName.setSimpleName(javaNames.getJavaClassStyleName(name));
+        javaBuffer.setClassName(registryName);
+        generateReaderRegistrySource(model);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for XML reader registry \"" + registryName + "\"", exception);
+        }
 
-        // Path of the methods.properties file:
-        String methods = XmlReader.class.getPackage().getName().replaceAll("\\.", "/") + "/" + XmlReader.METHODS_FILE;
+        // The registry is found by the runtime using the service loader mechanism, so it needs to be listed in the
+        // corresponding services file:
+        if (resourcesDir != null) {
+            generateReaderRegistryServiceFile(registryName);
+        }
+    }
 
-        // Generate properties to register for every tag appropriate reader method:
-        model.types()
+    private void generateReaderRegistrySource(Model model) {
+        // Calculate the list of read methods, two for each struct type, one to read a single object and another to
+        // read a list of objects. The position of each method in this list is the index used by the dispatcher.
+        List<StructType> types = model.types()
             .filter(StructType.class::isInstance)
             .map(StructType.class::cast)
             .sorted()
-            .forEach(type -> {
-                Name typeName = type.getName();
-                String singularTag = schemaNames.getSchemaTagName(typeName);
-                String pluralTag = schemaNames.getSchemaTagName(names.getPlural(typeName));
-                JavaClassName className = javaTypes.getXmlReaderName(type);
-
-                propertiesBuffer.addProperty(singularTag, String.format("%1$s.readOne", className));
-                propertiesBuffer.addProperty(pluralTag, String.format("%1$s.readMany", className));
-            });
+            .collect(toList());
+
+        // Begin class:
+        javaBuffer.addImport(XmlObjectReader.class);
+        javaBuffer.addImport(XmlReader.class);
+        javaBuffer.addImport(XmlReaderRegistry.class);
+        javaBuffer.addDocComment(
+            "This class tells the generic XML reader what method should be used to read each tag. The tag is",
+            "translated into an index using a switch, and that index is used to select the object reader, so no",
+            "reflection is needed."
+        );
+        javaBuffer.addLine(
+            "public class %1$s implements %2$s {",
+            javaBuffer.getClassName().getSimpleName(),
+            XmlReaderRegistry.class.getSimpleName()
+        );
+        javaBuffer.addLine();
+
+        // Generate the array containing the object readers:
+        javaBuffer.addLine(
+            "private static final %1$s[] READERS = new %1$s[%2$d];",
+            XmlObjectReader.class.getSimpleName(),
+            types.size() * 2
+        );
+        javaBuffer.addLine();
+        javaBuffer.addLine("static {");
+        javaBuffer.addLine("for (int i = 0; i < READERS.length; i++) {");
+        javaBuffer.addLine("READERS[i] = new Dispatcher(i);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
 
+        // Generate the method that translates tags into object readers:
+        javaBuffer.addLine("@Override");
+        javaBuffer.addLine("public %1$s getReader(String tag) {", XmlObjectReader.class.getSimpleName());
+        javaBuffer.addLine("switch (tag) {");
+        for (int i = 0; i < types.size(); i++) {
+            Name typeName = types.get(i).getName();
+            String singularTag = schemaNames.getSchemaTagName(typeName);
+            String pluralTag = schemaNames.getSchemaTagName(names.getPlural(typeName));
+            javaBuffer.addLine("case \"%1$s\":", singularTag);
+            javaBuffer.addLine("return READERS[%1$d];", 2 * i);
+            javaBuffer.addLine("case \"%1$s\":", pluralTag);
+            javaBuffer.addLine("return READERS[%1$d];", 2 * i + 1);
+        }
+        javaBuffer.addLine("default:");
+        javaBuffer.addLine("return null;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the object reader class, that translates indexes into calls to the read methods:
+        javaBuffer.addLine(
+            "private static class Dispatcher implements %1$s {",
+            XmlObjectReader.class.getSimpleName()
+        );
+        javaBuffer.addLine("private final int index;");
+        javaBuffer.addLine();
+        javaBuffer.addLine("Dispatcher(int index) {");
+        javaBuffer.addLine("this.index = index;");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine("@Override");
+        javaBuffer.addLine("public Object read(XmlReader reader) {");
+        javaBuffer.addLine("switch (index) {");
+        for (int i = 0; i < types.size(); i++) {
+            JavaClassName readerName = javaTypes.getXmlReaderName(types.get(i));
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine("case %1$d:", 2 * i);
+            javaBuffer.addLine("return %1$s.readOne(reader);", readerName.getSimpleName());
+            javaBuffer.addLine("case %1$d:", 2 * i + 1);
+            javaBuffer.addLine("return %1$s.readMany(reader);", readerName.getSimpleName());
+        }
+        javaBuffer.addLine("default:");
+        javaBuffer.addLine("throw new IllegalStateException(\"Unknown reader index \" + index);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("}");
+
+        // End class:
+        javaBuffer.addLine("}");
+    }
+
+    private void generateReaderRegistryServiceFile(JavaClassName registryName) {
+        PropertiesBuffer servicesBuffer = new PropertiesBuffer();
+        servicesBuffer.addLine(registryName.toString());
+        String services = "META-INF/services/" + XmlReaderRegistry.class.getName();
         try {
-            propertiesBuffer.write(new File(resourcesDir, methods));
+            servicesBuffer.write(new File(resourcesDir, services));
         }
         catch (IOException exception) {
-            throw new RuntimeException("Can't write file for XML generic methods reader.", exception);
+            throw new RuntimeException("Can't write services file for XML reader registry.", exception);
+        }
+    }
+
+    private JavaClassName getSymbolsName() {
+        Name name = NameParser.parseUsingCase("XmlSymbols");
+        JavaClassName symbolsName = new JavaClassName();
+        symbolsName.setPackageName(javaPackages.getXmlPackageName());
+        symbolsName.setSimpleName(javaNames.getJavaClassStyleName(name));
+        return symbolsName;
+    }
+
+    private void generateSymbols(Model model) {
+        // Collect the tags of all the members of all the struct types, both the ones represented as attributes and
+        // the ones represented as elements, and the tag used for links:
+        SortedSet<String> tags = new TreeSet<>();
+        tags.add("link");
+        model.types()
+            .filter(StructType.class::isInstance)
+            .map(StructType.class::cast)
+            .flatMap(type -> Stream.<StructMember>concat(type.attributes(), type.links()))
+            .map(member -> schemaNames.getSchemaTagName(member.getName()))
+            .forEach(tags::add);
+
+        // Generate the class:
+        javaBuffer = new JavaClassBuffer();
+        JavaClassName symbolsName = getSymbolsName();
+        javaBuffer.setClassName(symbolsName);
+        generateSymbolsSource(tags);
+        try {
+            javaBuffer.write(outDir);
+        }
+        catch (IOException exception) {
+            throw new RuntimeException("Can't write file for XML symbols \"" + symbolsName + "\"", exception);
         }
     }
 
@@ -131,55 +279,73 @@ public class XmlSupportGenerator extends JavaGenerator {
         javaBuffer.addLine("public class %1$s {", readerName.getSimpleName());
         javaBuffer.addLine();
 
+        // Generate the accumulator for the metrics:
+        generateMetricsField(type, "XML_READ");
+
         // Generate methods to read one instance and a list of instances:
         generateStructReadOne(type);
         generateStructReadMany(type);
-        generateProcessLink(type);
+        generateStructReadManyParallel(type);
+        generateStructReadColumns(type);
+        generateProcessLinks(type);
 
         // End class:
         javaBuffer.addLine("}");
         javaBuffer.addLine();
     }
 
-    private void generateProcessLink(StructType type) {
-        // Get the type and container name:
-        JavaClassName containerName = javaTypes.getContainerName(type);
+    /**
+     * Returns the links of the given type whose {@code href} is stored in the list, in the order that determines the
+     * slot where the {@code href} is stored while the object is being read.
+     */
+    private List<Link> getListLinks(StructType type) {
+        return type.links()
+            .sorted()
+            .filter(link -> link.getType() instanceof ListType)
+            .collect(toList());
+    }
 
+    private String getLinkRel(Link link) {
+        return link.getName().words().map(String::toLowerCase).collect(joining());
+    }
+
+    private void generateProcessLinks(StructType type) {
+        // Nothing to generate if there are no links to lists:
+        List<Link> links = getListLinks(type);
+        if (links.isEmpty()) {
+            return;
+        }
+
+        // Generate the table that translates the value of the 'rel' attribute into the slot where the 'href' is
+        // stored, plus one:
+        javaBuffer.addImport(SymbolTable.class);
+        javaBuffer.addLine("private static final SymbolTable RELS = new SymbolTable(");
+        for (int i = 0; i < links.size(); i++) {
+            javaBuffer.addLine("\"%1$s\"%2$s", getLinkRel(links.get(i)), i < links.size() - 1 ? "," : "");
+        }
+        javaBuffer.addLine(");");
+        javaBuffer.addLine();
+
+        // Generate the method that assigns the collected 'href' values to the lists. This has to be done after
+        // reading all the elements, as the element that contains the list may appear after the link.
+        JavaClassName containerName = javaTypes.getContainerName(type);
         javaBuffer.addImport(ArrayListWithHref.class);
         javaBuffer.addImport(ListWithHref.class);
         javaBuffer.addLine(
-            "private static void processLink(%1$s object, String[] link) {",
+            "private static void processLinks(%1$s object, String[] hrefs) {",
             containerName.getSimpleName()
         );
-        List<Link> links = type.links()
-            .sorted()
-            .filter(link -> link.getType() instanceof ListType)
-            .collect(toList());
-
-        if (!links.isEmpty()) {
-            javaBuffer.addLine("// Process the attributes:");
-            javaBuffer.addLine("ListWithHref list;");
-            javaBuffer.addLine("String rel = link[0];");
-            javaBuffer.addLine("String href = link[1];");
-            javaBuffer.addLine("if (href != null) {");
-            javaBuffer.addLine(  "switch (rel) {");
-            links.forEach(
-                link -> {
-                    String field = javaNames.getJavaMemberStyleName(link.getName());
-                    String rel = link.getName().words().map(String::toLowerCase).collect(joining());
-                    javaBuffer.addLine("case \"%1$s\":", rel);
-                    javaBuffer.addLine("list = new ArrayListWithHref(object.%1$s());", field);
-                    javaBuffer.addLine("list.href(href);");
-                    javaBuffer.addLine("object.%1$s(list);", field);
-                    javaBuffer.addLine("break;");
-                }
-            );
-            javaBuffer.addLine(  "default:");
-            javaBuffer.addLine(    "break;");
-            javaBuffer.addLine(  "}");  // End switch
-            javaBuffer.addLine("}"); // End if
+        javaBuffer.addLine("ListWithHref list;");
+        for (int i = 0; i < links.size(); i++) {
+            String field = javaNames.getJavaMemberStyleName(links.get(i).getName());
+            javaBuffer.addLine("if (hrefs[%1$d] != null) {", i);
+            javaBuffer.addLine(  "list = new ArrayListWithHref(object.%1$s());", field);
+            javaBuffer.addLine(  "list.href(hrefs[%1$d]);", i);
+            javaBuffer.addLine(  "object.%1$s(list);", field);
+            javaBuffer.addLine("}");
         }
         javaBuffer.addLine("}");  // End method
+        javaBuffer.addLine();
     }
 
     private void generateStructReadOne(StructType type) {
@@ -202,21 +368,72 @@ public class XmlSupportGenerator extends JavaGenerator {
         List<StructMember> asElements = allMembers.stream()
             .filter(x -> !schemaNames.isRepresentedAsAttribute(x.getName()))
             .collect(toList());
+        JavaClassName visitorName = javaTypes.getVisitorName(type);
+        javaBuffer.addImport(visitorName);
+        javaBuffer.addImport(Projection.class);
+        JavaClassName symbolsName = getSymbolsName();
+        javaBuffer.addImport(symbolsName);
+        javaBuffer.addImport(SymbolTable.class);
         javaBuffer.addLine("public static %1$s readOne(XmlReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "return visitOne(reader, null, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static %1$s readOne(XmlReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return visitOne(reader, null, projection);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static %1$s visitOne(XmlReader reader, %2$s visitor) {",
+            typeName.getSimpleName(),
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return visitOne(reader, visitor, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static %1$s visitOne(XmlReader reader, %2$s visitor, Projection projection) {",
+            typeName.getSimpleName(),
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return readInto(reader, visitor, projection, null);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that reuses the given container and the containers of its nested objects, if any,
+        // used by the iterators that reuse containers and by the readers of the objects that contain this one:
+        javaBuffer.addLine(
+            "static %1$s readInto(XmlReader reader, %2$s visitor, Projection projection, %1$s object) {",
+            containerName.getSimpleName(),
+            visitorName.getSimpleName()
+        );
         javaBuffer.addLine(  "// Do nothing if there aren't more tags:");
         javaBuffer.addLine(  "if (!reader.forward()) {");
         javaBuffer.addLine(    "return null;");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine();
-        javaBuffer.addLine(  "// Create the object:");
-        javaBuffer.addLine(  "%1$s object = new %1$s();", containerName.getSimpleName());
+        generateMetricsStart();
+        javaBuffer.addLine();
+        javaBuffer.addLine(  "// Create the object, or clear and reuse the given one:");
+        generateStructRecycle(asElements, containerName);
         javaBuffer.addLine();
+        if (!asElements.isEmpty() || !asAttributes.isEmpty()) {
+            javaBuffer.addLine("// Get the table used to translate names into symbols:");
+            javaBuffer.addLine("SymbolTable symbols = %1$s.table();", symbolsName.getSimpleName());
+            javaBuffer.addLine();
+        }
         if (!asAttributes.isEmpty()) {
             javaBuffer.addLine("// Process the attributes:");
             javaBuffer.addLine("for (int i = 0; i < reader.getAttributeCount(); i++) {");
-            javaBuffer.addLine(  "String name = reader.getAttributeLocalName(i);");
+            javaBuffer.addLine(  "int symbol = reader.getAttributeLocalNameSymbol(i, symbols);");
+            javaBuffer.addLine(  "if (symbol == SymbolTable.UNKNOWN ||");
+            javaBuffer.addLine(    "(projection != Projection.ALL && !projection.includes(symbols.getName(symbol)))) {");
+            javaBuffer.addLine(    "continue;");
+            javaBuffer.addLine(  "}");
             javaBuffer.addLine(  "String image = reader.getAttributeValue(i);");
-            javaBuffer.addLine(  "switch (name) {");
+            javaBuffer.addLine(  "switch (symbol) {");
             asAttributes.stream()
                 .sorted()
                 .forEach(this::generateStructReadMemberFromAttribute);
@@ -226,23 +443,45 @@ public class XmlSupportGenerator extends JavaGenerator {
             javaBuffer.addLine("}");
             javaBuffer.addLine();
         }
+        List<Link> listLinks = getListLinks(type);
+        if (!listLinks.isEmpty()) {
+            javaBuffer.addLine("// The 'href' attributes of the links, created only if there are links:");
+            javaBuffer.addLine("String[] hrefs = null;");
+            javaBuffer.addLine();
+        }
         javaBuffer.addLine(  "// Process the inner elements:");
-        javaBuffer.addLine(  "List<String[]> links = new ArrayList<>();");
         javaBuffer.addLine(  "reader.next();");
         javaBuffer.addLine(  "while (reader.forward()) {");
         if (!asElements.isEmpty()) {
-            javaBuffer.addLine("String name = reader.getLocalName();");
-            javaBuffer.addLine("switch (name) {");
+            javaBuffer.addLine("int symbol = reader.getLocalNameSymbol(symbols);");
+            javaBuffer.addLine("// Skip the unknown members, and the ones that aren't part of the projection, except the links:");
+            javaBuffer.addLine("if (symbol == SymbolTable.UNKNOWN ||");
+            javaBuffer.addLine(
+                "(symbol != %1$s.%2$s && projection != Projection.ALL && !projection.includes(symbols.getName(symbol)))) {",
+                symbolsName.getSimpleName(),
+                getSymbolConstant("link")
+            );
+            javaBuffer.addLine(  "reader.skip();");
+            javaBuffer.addLine(  "continue;");
+            javaBuffer.addLine("}");
+            javaBuffer.addLine("switch (symbol) {");
             asElements.stream()
                 .sorted()
                 .forEach(this::generateStructReadMemberFromElement);
-            javaBuffer.addLine("case \"link\":");
-            javaBuffer.addLine("// Process the attributes:");
-            javaBuffer.addLine("String rel = reader.getAttributeValue(\"rel\");");
-            javaBuffer.addLine("String href = reader.getAttributeValue(\"href\");");
-            javaBuffer.addLine("if (rel != null && href != null) {");
-            javaBuffer.addLine(  "links.add(new String[]{rel, href});");
-            javaBuffer.addLine("}");
+            javaBuffer.addLine("case %1$s.%2$s:", symbolsName.getSimpleName(), getSymbolConstant("link"));
+            if (!listLinks.isEmpty()) {
+                javaBuffer.addLine("// Store the 'href' in the slot that corresponds to the 'rel':");
+                javaBuffer.addLine("int slot = RELS.get(reader.getAttributeValue(\"rel\"));");
+                javaBuffer.addLine("if (slot != SymbolTable.UNKNOWN) {");
+                javaBuffer.addLine(  "String href = reader.getAttributeValue(\"href\");");
+                javaBuffer.addLine(  "if (href != null) {");
+                javaBuffer.addLine(    "if (hrefs == null) {");
+                javaBuffer.addLine(      "hrefs = new String[%1$d];", listLinks.size());
+                javaBuffer.addLine(    "}");
+                javaBuffer.addLine(    "hrefs[slot - 1] = href;");
+                javaBuffer.addLine(  "}");
+                javaBuffer.addLine("}");
+            }
             javaBuffer.addLine("reader.skip();");
             javaBuffer.addLine("break;");
             javaBuffer.addLine("default:");
@@ -256,19 +495,77 @@ public class XmlSupportGenerator extends JavaGenerator {
         javaBuffer.addLine("}");
 
         // Process the links:
-        javaBuffer.addLine("if (links != null) {");
-        javaBuffer.addLine(  "for (String[] link : links) {");
-        javaBuffer.addLine(    "processLink(object, link);");
-        javaBuffer.addLine(  "}");
-        javaBuffer.addLine("}");
+        if (!listLinks.isEmpty()) {
+            javaBuffer.addLine("if (hrefs != null) {");
+            javaBuffer.addLine(  "processLinks(object, hrefs);");
+            javaBuffer.addLine("}");
+        }
 
         javaBuffer.addLine();
         javaBuffer.addLine(  "// Discard the end tag:");
         javaBuffer.addLine(  "reader.next();");
         javaBuffer.addLine();
+        javaBuffer.addLine(  "// Notify the visitor:");
+        javaBuffer.addLine(  "if (visitor != null) {");
+        javaBuffer.addLine(    "visitor.visit(object);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        generateMetricsRecord();
         javaBuffer.addLine(  "return object;");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
+
+        // Generate the method used by the readers of the objects that contain this one to reuse the container of the
+        // previous value:
+        javaBuffer.addLine(
+            "static %1$s readOne(XmlReader reader, Projection projection, %1$s recycled) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "%1$s object = null;", containerName.getSimpleName());
+        javaBuffer.addLine(  "if (recycled instanceof %1$s) {", containerName.getSimpleName());
+        javaBuffer.addLine(    "object = (%1$s) recycled;", containerName.getSimpleName());
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "return readInto(reader, null, projection, object);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructRecycle(List<StructMember> members, JavaClassName containerName) {
+        // When a container is given it is cleared and reused, but before that the values of the members that contain
+        // other objects are saved, so that their containers can also be reused:
+        List<StructMember> recycled = members.stream()
+            .filter(this::isRecycledMember)
+            .sorted()
+            .collect(toList());
+        for (StructMember member : recycled) {
+            JavaTypeReference reference = javaTypes.getTypeReference(member.getType(), false);
+            javaBuffer.addImports(reference.getImports());
+            javaBuffer.addLine(
+                "%1$s %2$sRecycled = null;",
+                reference.getText(),
+                javaNames.getJavaMemberStyleName(member.getName())
+            );
+        }
+        javaBuffer.addLine("if (object == null) {");
+        javaBuffer.addLine(  "object = new %1$s();", containerName.getSimpleName());
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("else {");
+        for (StructMember member : recycled) {
+            javaBuffer.addLine("%1$sRecycled = object.%1$s();", javaNames.getJavaMemberStyleName(member.getName()));
+        }
+        javaBuffer.addLine(  "object.clear();");
+        javaBuffer.addLine("}");
+    }
+
+    private boolean isRecycledMember(StructMember member) {
+        Type type = member.getType();
+        if (type instanceof StructType) {
+            return true;
+        }
+        if (type instanceof ListType) {
+            return ((ListType) type).getElementType() instanceof StructType;
+        }
+        return false;
     }
 
     private void generateStructReadMemberFromAttribute(StructMember member) {
@@ -276,25 +573,30 @@ public class XmlSupportGenerator extends JavaGenerator {
         Type type = member.getType();
         String field = javaNames.getJavaMemberStyleName(name);
         String tag = schemaNames.getSchemaTagName(name);
-        javaBuffer.addLine("case \"%1$s\":", tag);
+        javaBuffer.addLine("case %1$s.%2$s:", getSymbolsName().getSimpleName(), getSymbolConstant(tag));
         if (type instanceof PrimitiveType) {
             Model model = type.getModel();
             if (type == model.getBooleanType()) {
                 javaBuffer.addLine("object.%1$s(Boolean.parseBoolean(image));", field);
             }
             else if (type == model.getIntegerType()) {
-                javaBuffer.addImport(BigInteger.class);
-                javaBuffer.addLine("object.%1$s(new BigInteger(image));", field);
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("object.%1$s(reader.parseLong(image));", field);
+                }
+                else {
+                    javaBuffer.addImport(BigInteger.class);
+                    javaBuffer.addLine("object.%1$s(new BigInteger(image));", field);
+                }
             }
             else if (type == model.getDecimalType()) {
                 javaBuffer.addImport(BigDecimal.class);
                 javaBuffer.addLine("object.%1$s(new BigDecimal(image));", field);
             }
             else if (type == model.getStringType()) {
-                javaBuffer.addLine("object.%1$s(image);", field);
+                javaBuffer.addLine("object.%1$s(reader.intern(image));", field);
             }
             else if (type == model.getDateType()) {
-                javaBuffer.addLine("object.%1$s(DATE_FORMAT.parse(image));", field);
+                javaBuffer.addLine("object.%1$s(reader.parseDate(image));", field);
             }
         }
         else if (type instanceof EnumType) {
@@ -310,14 +612,19 @@ public class XmlSupportGenerator extends JavaGenerator {
         Type type = member.getType();
         String field = javaNames.getJavaMemberStyleName(name);
         String tag = schemaNames.getSchemaTagName(name);
-        javaBuffer.addLine("case \"%1$s\":", tag);
+        javaBuffer.addLine("case %1$s.%2$s:", getSymbolsName().getSimpleName(), getSymbolConstant(tag));
         if (type instanceof PrimitiveType) {
             Model model = type.getModel();
             if (type == model.getBooleanType()) {
                 javaBuffer.addLine("object.%1$s(reader.readBoolean());", field);
             }
             else if (type == model.getIntegerType()) {
-                javaBuffer.addLine("object.%1$s(reader.readInteger());", field);
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("object.%1$s(reader.readLong());", field);
+                }
+                else {
+                    javaBuffer.addLine("object.%1$s(reader.readInteger());", field);
+                }
             }
             else if (type == model.getDecimalType()) {
                 javaBuffer.addLine("object.%1$s(reader.readDecimal());", field);
@@ -332,7 +639,17 @@ public class XmlSupportGenerator extends JavaGenerator {
                 javaBuffer.addLine("reader.skip();");
             }
         }
-        else if (type instanceof StructType || type instanceof EnumType) {
+        else if (type instanceof StructType) {
+            JavaClassName readerName = javaTypes.getXmlReaderName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine(
+                "object.%1$s(%2$s.readOne(reader, projection.get(\"%3$s\"), %1$sRecycled));",
+                field,
+                readerName.getSimpleName(),
+                tag
+            );
+        }
+        else if (type instanceof EnumType) {
             JavaClassName readerName = javaTypes.getXmlReaderName(type);
             javaBuffer.addImport(readerName);
             javaBuffer.addLine("object.%1$s(%2$s.readOne(reader));", field, readerName.getSimpleName());
@@ -342,7 +659,10 @@ public class XmlSupportGenerator extends JavaGenerator {
             Type elementType = listType.getElementType();
             JavaClassName readerName = javaTypes.getXmlReaderName(elementType);
             javaBuffer.addImport(readerName);
-            if (elementType instanceof StructType || elementType instanceof EnumType) {
+            if (elementType instanceof StructType) {
+                generateStructVisitMember(member, readerName);
+            }
+            else if (elementType instanceof EnumType) {
                 javaBuffer.addLine("object.%1$s(%2$s.readMany(reader));", field, readerName.getSimpleName());
             }
             else if(elementType instanceof PrimitiveType) {
@@ -373,22 +693,96 @@ public class XmlSupportGenerator extends JavaGenerator {
         javaBuffer.addLine("break;");
     }
 
+    private void generateStructVisitMember(StructMember member, JavaClassName readerName) {
+        // Without a visitor the list is read completely, otherwise the elements are pushed to the visitor one by one,
+        // as they are read, and only the ones that it decides to keep are added to the list:
+        Name name = member.getName();
+        String field = javaNames.getJavaMemberStyleName(name);
+        String tag = schemaNames.getSchemaTagName(name);
+        String method = "visit" + javaNames.getJavaPropertyStyleName(names.getSingular(name));
+        ListType listType = (ListType) member.getType();
+        JavaClassName elementName = javaTypes.getInterfaceName(listType.getElementType());
+        javaBuffer.addImport(elementName);
+        javaBuffer.addImport(Iterator.class);
+        javaBuffer.addLine("if (visitor == null) {");
+        javaBuffer.addLine(
+            "object.%1$s(%2$s.readMany(reader, projection.get(\"%3$s\"), %1$sRecycled));",
+            field,
+            readerName.getSimpleName(),
+            tag
+        );
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("else {");
+        javaBuffer.addLine(  "List<%1$s> list = new ArrayList<>();", elementName.getSimpleName());
+        javaBuffer.addLine(
+            "Iterator<%1$s> iterator = %2$s.iterateMany(reader, projection.get(\"%3$s\"));",
+            elementName.getSimpleName(),
+            readerName.getSimpleName(),
+            tag
+        );
+        javaBuffer.addLine(  "while (iterator.hasNext()) {");
+        javaBuffer.addLine(    "%1$s element = iterator.next();", elementName.getSimpleName());
+        javaBuffer.addLine(    "if (visitor.%1$s(element)) {", method);
+        javaBuffer.addLine(      "list.add(element);");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "object.%1$s(list);", field);
+        javaBuffer.addLine("}");
+    }
+
     private void generateStructReadMany(StructType type) {
-        // Get the type name:
+        // Get the type and container names:
         JavaClassName typeName = javaTypes.getInterfaceName(type);
+        JavaClassName containerName = javaTypes.getContainerName(type);
 
         // Add the required imports:
         javaBuffer.addImport(typeName);
+        javaBuffer.addImport(containerName);
         javaBuffer.addImport(ArrayList.class);
         javaBuffer.addImport(Iterator.class);
         javaBuffer.addImport(List.class);
         javaBuffer.addImport(NoSuchElementException.class);
         javaBuffer.addImport(XmlReader.class);
 
-        // Iterate method:
-        javaBuffer.addLine("public static Iterator<%1$s> iterateMany(final XmlReader reader) {", typeName.getSimpleName());
+        // Iterate methods:
+        javaBuffer.addImport(Projection.class);
+        javaBuffer.addLine("public static Iterator<%1$s> iterateMany(XmlReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "return iterateMany(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static Iterator<%1$s> iterateMany(XmlReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return iterate(reader, projection, null, false);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Iterate methods that reuse the same container, and the containers of its nested objects, for all the
+        // elements, so the object returned by each call to the next method is valid only till the next call:
+        javaBuffer.addLine("public static Iterator<%1$s> iterateReusing(XmlReader reader) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "return iterateReusing(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static Iterator<%1$s> iterateReusing(XmlReader reader, Projection projection) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return iterate(reader, projection, null, true);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Method that creates the iterators. The elements reuse the containers of the recycled list, if given, or the
+        // container of the previous element, if requested:
+        javaBuffer.addLine(
+            "private static Iterator<%1$s> iterate(final XmlReader reader, final Projection projection, " +
+            "final List<%1$s> recycled, final boolean reuse) {",
+            typeName.getSimpleName()
+        );
         javaBuffer.addLine(  "return new Iterator<%1$s>() {", typeName.getSimpleName());
         javaBuffer.addLine(    "private boolean first = true;");
+        javaBuffer.addLine(    "private int index;");
+        javaBuffer.addLine(    "private %1$s current;", containerName.getSimpleName());
         javaBuffer.addLine();
         javaBuffer.addLine(    "@Override");
         javaBuffer.addLine(    "public void remove() {");
@@ -413,27 +807,279 @@ public class XmlSupportGenerator extends JavaGenerator {
         javaBuffer.addLine();
         javaBuffer.addLine(    "@Override");
         javaBuffer.addLine(    "public %1$s next() {", typeName.getSimpleName());
-        javaBuffer.addLine(      "%1$s next = readOne(reader);", typeName.getSimpleName());
+        javaBuffer.addLine(      "%1$s object = null;", containerName.getSimpleName());
+        javaBuffer.addLine(      "if (reuse) {");
+        javaBuffer.addLine(        "object = current;");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(      "else if (recycled != null && index < recycled.size()) {");
+        javaBuffer.addLine(        "%1$s element = recycled.get(index);", typeName.getSimpleName());
+        javaBuffer.addLine(        "if (element instanceof %1$s) {", containerName.getSimpleName());
+        javaBuffer.addLine(          "object = (%1$s) element;", containerName.getSimpleName());
+        javaBuffer.addLine(        "}");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(      "index++;");
+        javaBuffer.addLine(
+            "%1$s next = readInto(reader, null, projection, object);",
+            containerName.getSimpleName()
+        );
         javaBuffer.addLine(      "if (next == null) {");
         javaBuffer.addLine(        "throw new NoSuchElementException();");
         javaBuffer.addLine(      "}");
+        javaBuffer.addLine(      "if (reuse) {");
+        javaBuffer.addLine(        "current = next;");
+        javaBuffer.addLine(      "}");
         javaBuffer.addLine(      "return next;");
         javaBuffer.addLine(    "}");
         javaBuffer.addLine(  "};");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
-        // Read method:
+        // Read methods:
         javaBuffer.addLine("public static List<%1$s> readMany(XmlReader reader) {",
             typeName.getSimpleName());
+        javaBuffer.addLine(  "return readMany(reader, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine("public static List<%1$s> readMany(XmlReader reader, Projection projection) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "return readMany(reader, projection, null);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Read method used by the readers of the objects that contain lists of this type, to reuse the containers of
+        // the elements of the previous value:
+        javaBuffer.addLine(
+            "static List<%1$s> readMany(XmlReader reader, Projection projection, List<%1$s> recycled) {",
+            typeName.getSimpleName()
+        );
         javaBuffer.addLine(  "List<%1$s> list = new ArrayList<>();", typeName.getSimpleName());
-        javaBuffer.addLine(  "Iterator<%1$s> iterator = iterateMany(reader);", typeName.getSimpleName());
+        javaBuffer.addLine(
+            "Iterator<%1$s> iterator = iterate(reader, projection, recycled, false);",
+            typeName.getSimpleName()
+        );
         javaBuffer.addLine(  "while (iterator.hasNext()) {");
         javaBuffer.addLine(    "list.add(iterator.next());");
         javaBuffer.addLine(  "}");
         javaBuffer.addLine(  "return list;");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
+
+        // Visit methods, push the objects to the visitor instead of collecting them:
+        JavaClassName visitorName = javaTypes.getVisitorName(type);
+        javaBuffer.addImport(visitorName);
+        javaBuffer.addLine(
+            "public static void visitMany(XmlReader reader, %1$s visitor) {",
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "visitMany(reader, visitor, Projection.ALL);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static void visitMany(XmlReader reader, %1$s visitor, Projection projection) {",
+            visitorName.getSimpleName()
+        );
+        javaBuffer.addLine(  "if (!reader.forward()) {");
+        javaBuffer.addLine(    "return;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "reader.next();");
+        javaBuffer.addLine(  "while (reader.forward()) {");
+        javaBuffer.addLine(    "visitOne(reader, visitor, projection);");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "reader.next();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadManyParallel(StructType type) {
+        // Get the type name:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(ByteBuffer.class);
+        javaBuffer.addImport(ForkJoinPool.class);
+        javaBuffer.addImport(List.class);
+        javaBuffer.addImport(ParallelDecoder.class);
+        javaBuffer.addImport(Projection.class);
+        javaBuffer.addImport(XmlReader.class);
+
+        // Generate the methods that find the boundaries of the elements of the collection and then decode them in
+        // parallel:
+        javaBuffer.addLine(
+            "public static List<%1$s> readManyParallel(ByteBuffer buffer, ForkJoinPool pool) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "return readManyParallel(buffer, Projection.ALL, pool);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(
+            "public static List<%1$s> readManyParallel(ByteBuffer buffer, final Projection projection, " +
+                "ForkJoinPool pool) {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(  "List<ByteBuffer> elements = XmlReader.splitChildren(buffer);");
+        javaBuffer.addLine(
+            "ParallelDecoder.Decoder<%1$s> decoder = new ParallelDecoder.Decoder<%1$s>() {",
+            typeName.getSimpleName()
+        );
+        javaBuffer.addLine(    "@Override");
+        javaBuffer.addLine(    "public %1$s decode(ByteBuffer element) {", typeName.getSimpleName());
+        javaBuffer.addLine(      "try (XmlReader reader = new XmlReader(element)) {");
+        javaBuffer.addLine(        "return readOne(reader, projection);");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(  "};");
+        javaBuffer.addLine(  "return ParallelDecoder.decode(elements, decoder, pool);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadColumns(StructType type) {
+        // Get the columns name and the members that are stored in columns:
+        JavaClassName columnsName = javaTypes.getColumnsName(type);
+        List<StructMember> members = type.getAttributes().stream()
+            .filter(x -> javaTypes.getColumnName(x.getType()) != null)
+            .sorted()
+            .collect(toList());
+        List<StructMember> asAttributes = members.stream()
+            .filter(x -> schemaNames.isRepresentedAsAttribute(x.getName()))
+            .collect(toList());
+        List<StructMember> asElements = members.stream()
+            .filter(x -> !schemaNames.isRepresentedAsAttribute(x.getName()))
+            .collect(toList());
+
+        // Add the required imports:
+        JavaClassName symbolsName = getSymbolsName();
+        javaBuffer.addImport(columnsName);
+        javaBuffer.addImport(symbolsName);
+        javaBuffer.addImport(SymbolTable.class);
+        javaBuffer.addImport(XmlReader.class);
+
+        // Generate the method that reads the attributes of a list of objects directly into the columns, without
+        // creating the objects:
+        javaBuffer.addLine(
+            "public static void readColumns(XmlReader reader, %1$s columns) {",
+            columnsName.getSimpleName()
+        );
+        javaBuffer.addLine(  "// Do nothing if there aren't more tags:");
+        javaBuffer.addLine(  "if (!reader.forward()) {");
+        javaBuffer.addLine(    "return;");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        if (!members.isEmpty()) {
+            javaBuffer.addLine("// Get the columns, the ones that aren't part of the projection will be null:");
+            for (StructMember member : members) {
+                JavaClassName columnName = javaTypes.getColumnName(member.getType());
+                String field = javaNames.getJavaMemberStyleName(member.getName());
+                javaBuffer.addImport(columnName);
+                javaBuffer.addLine("%1$s %2$sColumn = columns.%2$s();", columnName.getSimpleName(), field);
+            }
+            javaBuffer.addLine();
+        }
+        javaBuffer.addLine(  "// Get the table used to translate names into symbols:");
+        javaBuffer.addLine(  "SymbolTable symbols = %1$s.table();", symbolsName.getSimpleName());
+        javaBuffer.addLine();
+        javaBuffer.addLine(  "// Process the elements, one row for each:");
+        javaBuffer.addLine(  "reader.next();");
+        javaBuffer.addLine(  "while (reader.forward()) {");
+        javaBuffer.addLine(    "int row = columns.addRow();");
+        if (!asAttributes.isEmpty()) {
+            javaBuffer.addLine("for (int i = 0; i < reader.getAttributeCount(); i++) {");
+            javaBuffer.addLine(  "String image = reader.getAttributeValue(i);");
+            javaBuffer.addLine(  "switch (reader.getAttributeLocalNameSymbol(i, symbols)) {");
+            asAttributes.forEach(this::generateStructReadColumnFromAttribute);
+            javaBuffer.addLine(  "default:");
+            javaBuffer.addLine(    "break;");
+            javaBuffer.addLine(  "}");
+            javaBuffer.addLine("}");
+        }
+        javaBuffer.addLine(    "reader.next();");
+        javaBuffer.addLine(    "while (reader.forward()) {");
+        javaBuffer.addLine(      "switch (reader.getLocalNameSymbol(symbols)) {");
+        asElements.forEach(this::generateStructReadColumnFromElement);
+        javaBuffer.addLine(      "default:");
+        javaBuffer.addLine(        "reader.skip();");
+        javaBuffer.addLine(        "break;");
+        javaBuffer.addLine(      "}");
+        javaBuffer.addLine(    "}");
+        javaBuffer.addLine(    "reader.next();");
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine();
+        javaBuffer.addLine(  "// Discard the end tag:");
+        javaBuffer.addLine(  "reader.next();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    private void generateStructReadColumnFromAttribute(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String column = javaNames.getJavaMemberStyleName(name) + "Column";
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s.%2$s:", getSymbolsName().getSimpleName(), getSymbolConstant(tag));
+        javaBuffer.addLine("if (%1$s != null) {", column);
+        if (type instanceof EnumType) {
+            JavaClassName enumName = javaTypes.getEnumName(type);
+            javaBuffer.addImport(enumName);
+            javaBuffer.addLine("%1$s.set(row, %2$s.fromValue(image));", column, enumName.getSimpleName());
+        }
+        else {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("%1$s.set(row, Boolean.parseBoolean(image));", column);
+            }
+            else if (type == model.getIntegerType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.parseLong(image));", column);
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("%1$s.set(row, Double.parseDouble(image));", column);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("%1$s.set(row, image);", column);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.parseDate(image));", column);
+            }
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("break;");
+    }
+
+    private void generateStructReadColumnFromElement(StructMember member) {
+        Name name = member.getName();
+        Type type = member.getType();
+        String column = javaNames.getJavaMemberStyleName(name) + "Column";
+        String tag = schemaNames.getSchemaTagName(name);
+        javaBuffer.addLine("case %1$s.%2$s:", getSymbolsName().getSimpleName(), getSymbolConstant(tag));
+        javaBuffer.addLine("if (%1$s != null) {", column);
+        if (type instanceof EnumType) {
+            JavaClassName readerName = javaTypes.getXmlReaderName(type);
+            javaBuffer.addImport(readerName);
+            javaBuffer.addLine("%1$s.set(row, %2$s.readOne(reader));", column, readerName.getSimpleName());
+        }
+        else {
+            Model model = type.getModel();
+            if (type == model.getBooleanType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readBoolean());", column);
+            }
+            else if (type == model.getIntegerType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readLong());", column);
+            }
+            else if (type == model.getDecimalType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readDecimal());", column);
+            }
+            else if (type == model.getStringType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readString());", column);
+            }
+            else if (type == model.getDateType()) {
+                javaBuffer.addLine("%1$s.set(row, reader.readDate());", column);
+            }
+        }
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("else {");
+        javaBuffer.addLine(  "reader.skip();");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine("break;");
     }
 
     private void generateEnumReadMany(EnumType type) {
@@ -533,9 +1179,18 @@ public class XmlSupportGenerator extends JavaGenerator {
         javaBuffer.addLine("public class %1$s {", writerName.getSimpleName());
         javaBuffer.addLine();
 
+        // Generate the accumulator for the metrics:
+        generateMetricsField(type, "XML_WRITE");
+
+        // Generate the encoded names:
+        generateNameConstants(getWriterTags(type));
+
         // Generate methods to write one instance and a list of instances:
         generateStructWriteOne(type);
         generateStructWriteMany(type);
+        if (javaOptions.isTrackChanges()) {
+            generateStructWriteDelta(type);
+        }
 
         // End class:
         javaBuffer.addLine("}");
@@ -553,81 +1208,222 @@ public class XmlSupportGenerator extends JavaGenerator {
 
         // Generate the method that uses the default tag name:
         javaBuffer.addLine("public static void writeOne(%1$s object, XmlWriter writer) {", typeName.getSimpleName());
-        javaBuffer.addLine(  "writeOne(object, \"%1$s\", writer);", tag);
+        javaBuffer.addLine(  "writeOne(object, \"%1$s\", %2$s, writer);", tag, getNameConstant(tag));
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
         // Generate the method that receives the tag name as parameter:
-        javaBuffer.addLine( "public static void writeOne(%1$s object, String tag, XmlWriter writer) {",
+        javaBuffer.addLine("public static void writeOne(%1$s object, String tag, XmlWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "writeOne(object, tag, null, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the tag name and its encoded bytes as parameters:
+        javaBuffer.addLine(
+            "public static void writeOne(%1$s object, String tag, byte[] encodedTag, XmlWriter writer) {",
+            typeName.getSimpleName());
+        generateMetricsStart();
+        javaBuffer.addLine("writer.writeStartElement(tag, encodedTag);");
+        Stream.concat(type.attributes(), type.links())
+            .filter(x -> schemaNames.isRepresentedAsAttribute(x.getName()))
+            .sorted()
+            .forEach(member -> generateStructWriteMemberAsAttribute(member, false));
+        Stream.concat(type.attributes(), type.links())
+            .filter(x -> !schemaNames.isRepresentedAsAttribute(x.getName()))
+            .sorted()
+            .forEach(member -> generateStructWriteMemberAsElement(member, false));
+        javaBuffer.addLine("writer.writeEndElement();");
+        generateMetricsRecord();
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+    }
+
+    /**
+     * Generates the methods that write only the members that have changed since the tracking of changes was started.
+     * Nested structs that have been replaced are written completely, and nested structs that have been changed inside
+     * are written as deltas. Lists are written completely when they, or any of their elements, have changed.
+     */
+    private void generateStructWriteDelta(StructType type) {
+        // Calculate the name of the type and the XML tag:
+        JavaClassName typeName = javaTypes.getInterfaceName(type);
+        String tag = schemaNames.getSchemaTagName(type.getName());
+
+        // Add the required imports:
+        javaBuffer.addImport(typeName);
+        javaBuffer.addImport(XmlWriter.class);
+
+        // Generate the method that uses the default tag name:
+        javaBuffer.addLine("public static void writeDelta(%1$s object, XmlWriter writer) {", typeName.getSimpleName());
+        javaBuffer.addLine(  "writeDelta(object, \"%1$s\", %2$s, writer);", tag, getNameConstant(tag));
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the tag name as parameter:
+        javaBuffer.addLine("public static void writeDelta(%1$s object, String tag, XmlWriter writer) {",
             typeName.getSimpleName());
-        javaBuffer.addLine("writer.writeStartElement(tag);");
+        javaBuffer.addLine(  "writeDelta(object, tag, null, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the tag name and its encoded bytes as parameters:
+        javaBuffer.addLine(
+            "public static void writeDelta(%1$s object, String tag, byte[] encodedTag, XmlWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine("writer.writeStartElement(tag, encodedTag);");
         Stream.concat(type.attributes(), type.links())
             .filter(x -> schemaNames.isRepresentedAsAttribute(x.getName()))
             .sorted()
-            .forEach(this::generateStructWriteMemberAsAttribute);
+            .forEach(member -> generateStructWriteMemberAsAttribute(member, true));
         Stream.concat(type.attributes(), type.links())
             .filter(x -> !schemaNames.isRepresentedAsAttribute(x.getName()))
             .sorted()
-            .forEach(this::generateStructWriteMemberAsElement);
+            .forEach(member -> generateStructWriteMemberAsElement(member, true));
         javaBuffer.addLine("writer.writeEndElement();");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
     }
 
-    private void generateStructWriteMemberAsAttribute(StructMember member) {
+    /**
+     * Generates the code that writes a nested struct in a delta. If the struct has been replaced it is written
+     * completely, and if only its contents have changed only those changes are written.
+     */
+    private void generateStructWriteNestedDelta(Type type, String field, String tag) {
+        JavaClassName writerName = javaTypes.getXmlWriterName(type);
+        javaBuffer.addImport(writerName);
+        javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        javaBuffer.addLine(  "if (object.%1$sChanged()) {", field);
+        javaBuffer.addLine(    "%1$s.writeOne(object.%2$s(), \"%3$s\", %4$s, writer);", writerName.getSimpleName(),
+            field, tag, getNameConstant(tag));
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine(  "else if (object.%1$s().hasChanges()) {", field);
+        javaBuffer.addLine(    "%1$s.writeDelta(object.%2$s(), \"%3$s\", %4$s, writer);", writerName.getSimpleName(),
+            field, tag, getNameConstant(tag));
+        javaBuffer.addLine(  "}");
+        javaBuffer.addLine("}");
+    }
+
+    private void generateStructWriteMemberCheck(String field, boolean delta) {
+        if (delta) {
+            javaBuffer.addLine("if (object.%1$sChanged() && object.%1$sPresent()) {", field);
+        }
+        else {
+            javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        }
+    }
+
+    private void generateMetricsField(StructType type, String operation) {
+        String tag = schemaNames.getSchemaTagName(type.getName());
+        javaBuffer.addImport(Metrics.class);
+        javaBuffer.addImport(MetricsAccumulator.class);
+        javaBuffer.addLine(
+            "private static final MetricsAccumulator METRICS = Metrics.accumulator(Metrics.%1$s, \"%2$s\");",
+            operation,
+            tag
+        );
+        javaBuffer.addLine();
+    }
+
+    /**
+     * Generates the code that records the start time of the processing of an object, when metrics are enabled. The
+     * recorded time includes the time of the nested objects, as they are processed inside the same call.
+     */
+    private void generateMetricsStart() {
+        javaBuffer.addLine("long start = Metrics.isEnabled() ? System.nanoTime() : 0L;");
+    }
+
+    private void generateMetricsRecord() {
+        javaBuffer.addLine("if (start != 0L) {");
+        javaBuffer.addLine(  "METRICS.record(System.nanoTime() - start);");
+        javaBuffer.addLine("}");
+    }
+
+    private void generateStructWriteMemberAsAttribute(StructMember member, boolean delta) {
         Name name = member.getName();
         Type type = member.getType();
         String field = javaNames.getJavaMemberStyleName(name);
         String tag = schemaNames.getSchemaTagName(name);
-        javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        generateStructWriteMemberCheck(field, delta);
         if (type instanceof PrimitiveType) {
             Model model = type.getModel();
-            if (type == model.getBooleanType() || type == model.getIntegerType() || type == model.getDecimalType()) {
-                javaBuffer.addLine("writer.writeAttribute(\"%1$s\", object.%2$s().toString());", tag, field);
+            if (type == model.getIntegerType() && javaOptions.isPrimitiveInteger(member)) {
+                javaBuffer.addLine(
+                    "writer.writeAttribute(\"%1$s\", %2$s, Long.toString(object.%3$sAsPrimitiveLong()));",
+                    tag,
+                    getNameConstant(tag),
+                    field
+                );
+            }
+            else if (type == model.getBooleanType() || type == model.getIntegerType() ||
+                    type == model.getDecimalType()) {
+                javaBuffer.addLine("writer.writeAttribute(\"%1$s\", %2$s, object.%3$s().toString());", tag,
+                    getNameConstant(tag), field);
             }
             else if (type == model.getStringType()) {
-                javaBuffer.addLine("writer.writeAttribute(\"%1$s\", object.%2$s());", tag, field);
+                javaBuffer.addLine("writer.writeAttribute(\"%1$s\", %2$s, object.%3$s());", tag, getNameConstant(tag),
+                    field);
             }
             else if (type == model.getDateType()) {
-                // TODO: This isn't the XML schema format.
-                javaBuffer.addLine("writer.writeAttribute(\"%1$s\", object.%2$s().toString());", tag, field);
+                javaBuffer.addImport(XmlWriter.class);
+                javaBuffer.addLine(
+                    "writer.writeAttribute(\"%1$s\", %2$s, XmlWriter.renderDate(object.%3$s()));",
+                    tag,
+                    getNameConstant(tag),
+                    field
+                );
             }
         }
         else if (type instanceof EnumType) {
-            javaBuffer.addLine("writer.writeAttribute(\"%1$s\", object.%2$s().value());", tag, field);
+            javaBuffer.addLine("writer.writeAttribute(\"%1$s\", %2$s, object.%3$s().value());", tag,
+                getNameConstant(tag), field);
         }
         javaBuffer.addLine("}");
     }
 
-    private void generateStructWriteMemberAsElement(StructMember member) {
+    private void generateStructWriteMemberAsElement(StructMember member, boolean delta) {
         Name name = member.getName();
         Type type = member.getType();
         String field = javaNames.getJavaMemberStyleName(name);
         String tag = schemaNames.getSchemaTagName(name);
-        javaBuffer.addLine("if (object.%1$sPresent()) {", field);
+        if (delta && type instanceof StructType) {
+            generateStructWriteNestedDelta(type, field, tag);
+            return;
+        }
+        generateStructWriteMemberCheck(field, delta);
         if (type instanceof PrimitiveType) {
             Model model = type.getModel();
             if (type == model.getBooleanType()) {
-                javaBuffer.addLine("writer.writeBoolean(\"%1$s\", object.%2$s());", tag, field);
+                javaBuffer.addLine("writer.writeBoolean(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
             }
             else if (type == model.getIntegerType()) {
-                javaBuffer.addLine("writer.writeInteger(\"%1$s\", object.%2$s());", tag, field);
+                if (javaOptions.isPrimitiveInteger(member)) {
+                    javaBuffer.addLine("writer.writeLong(\"%1$s\", %2$s, object.%3$sAsPrimitiveLong());", tag,
+                    getNameConstant(tag), field);
+                }
+                else {
+                    javaBuffer.addLine("writer.writeInteger(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
+                }
             }
             else if (type == model.getDecimalType()) {
-                javaBuffer.addLine("writer.writeDecimal(\"%1$s\", object.%2$s());", tag, field);
+                javaBuffer.addLine("writer.writeDecimal(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
             }
             else if (type == model.getStringType()) {
-                javaBuffer.addLine("writer.writeElement(\"%1$s\", object.%2$s());", tag, field);
+                javaBuffer.addLine("writer.writeElement(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
             }
             else if (type == model.getDateType()) {
-                javaBuffer.addLine("writer.writeDate(\"%1$s\", object.%2$s());", tag, field);
+                javaBuffer.addLine("writer.writeDate(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
             }
         }
         else if (type instanceof StructType || type instanceof EnumType) {
             JavaClassName writerName = javaTypes.getXmlWriterName(type);
             javaBuffer.addImport(writerName);
-            javaBuffer.addLine("%1$s.writeOne(object.%2$s(), \"%3$s\", writer);", writerName.getSimpleName(), field,
-                tag);
+            javaBuffer.addLine("%1$s.writeOne(object.%2$s(), \"%3$s\", %4$s, writer);", writerName.getSimpleName(),
+                field, tag, getNameConstant(tag));
         }
         else if (type instanceof ListType) {
             ListType listType = (ListType) type;
@@ -637,11 +1433,13 @@ public class XmlSupportGenerator extends JavaGenerator {
                 String elementTag = schemaNames.getSchemaTagName(elementType.getName());
                 javaBuffer.addImport(writerName);
                 javaBuffer.addLine(
-                    "%1$s.writeMany(object.%2$s().iterator(), \"%3$s\", \"%4$s\", writer);",
+                    "%1$s.writeMany(object.%2$s().iterator(), \"%3$s\", %4$s, \"%5$s\", %6$s, writer);",
                     writerName.getSimpleName(),
                     field,
                     elementTag,
-                    tag
+                    getNameConstant(elementTag),
+                    tag,
+                    getNameConstant(tag)
                 );
             }
             else if (elementType instanceof EnumType) {
@@ -649,35 +1447,91 @@ public class XmlSupportGenerator extends JavaGenerator {
                 String elementTag = schemaNames.getSchemaTagName(names.getSingular(name));
                 javaBuffer.addImport(writerName);
                 javaBuffer.addLine(
-                    "%1$s.writeMany(object.%2$s().iterator(), \"%3$s\", \"%4$s\", writer);",
+                    "%1$s.writeMany(object.%2$s().iterator(), \"%3$s\", %4$s, \"%5$s\", %6$s, writer);",
                     writerName.getSimpleName(),
                     field,
                     elementTag,
-                    tag
+                    getNameConstant(elementTag),
+                    tag,
+                    getNameConstant(tag)
                 );
             }
             else if (elementType instanceof PrimitiveType) {
                 Model model = type.getModel();
                 if (elementType == model.getBooleanType()) {
-                    javaBuffer.addLine("writer.writeBooleans(\"%1$s\", object.%2$s());", tag, field);
+                    javaBuffer.addLine("writer.writeBooleans(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
                 }
                 else if (elementType == model.getIntegerType()) {
-                    javaBuffer.addLine("writer.writeIntegers(\"%1$s\", object.%2$s());", tag, field);
+                    javaBuffer.addLine("writer.writeIntegers(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
                 }
                 else if (elementType == model.getDecimalType()) {
-                    javaBuffer.addLine("writer.writeDecimals(\"%1$s\", object.%2$s());", tag, field);
+                    javaBuffer.addLine("writer.writeDecimals(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
                 }
                 else if (elementType == model.getStringType()) {
-                    javaBuffer.addLine("writer.writeElements(\"%1$s\", object.%2$s());", tag, field);
+                    javaBuffer.addLine("writer.writeElements(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
                 }
                 else if (elementType == model.getDateType()) {
-                    javaBuffer.addLine("writer.writeDates(\"%1$s\", object.%2$s());", tag, field);
+                    javaBuffer.addLine("writer.writeDates(\"%1$s\", %2$s, object.%3$s());", tag,
+                    getNameConstant(tag), field);
                 }
             }
         }
         javaBuffer.addLine("}");
     }
 
+    /**
+     * Returns the names of the tags and attributes that the writer of the given type writes directly, that is the
+     * default tags of the type itself and of its lists, and the tags of its members and of their elements.
+     */
+    private SortedSet<String> getWriterTags(Type type) {
+        SortedSet<String> tags = new TreeSet<>();
+        tags.add(schemaNames.getSchemaTagName(type.getName()));
+        tags.add(schemaNames.getSchemaTagName(names.getPlural(type.getName())));
+        if (type instanceof StructType) {
+            StructType structType = (StructType) type;
+            Stream.concat(structType.attributes(), structType.links()).forEach(member -> {
+                Name name = member.getName();
+                tags.add(schemaNames.getSchemaTagName(name));
+                Type memberType = member.getType();
+                if (memberType instanceof ListType) {
+                    Type elementType = ((ListType) memberType).getElementType();
+                    if (elementType instanceof StructType) {
+                        tags.add(schemaNames.getSchemaTagName(elementType.getName()));
+                    }
+                    else if (elementType instanceof EnumType) {
+                        tags.add(schemaNames.getSchemaTagName(names.getSingular(name)));
+                    }
+                }
+            });
+        }
+        return tags;
+    }
+
+    /**
+     * Generates a constant containing the encoded bytes of each of the given tag names, so that the writers don't
+     * need to encode them for each document.
+     */
+    private void generateNameConstants(SortedSet<String> tags) {
+        javaBuffer.addImport(XmlWriter.class);
+        javaBuffer.addLine("// The encoded names of the tags and attributes:");
+        for (String tag : tags) {
+            javaBuffer.addLine("private static final byte[] %1$s = XmlWriter.encodeName(\"%2$s\");",
+                getNameConstant(tag), tag);
+        }
+        javaBuffer.addLine();
+    }
+
+    /**
+     * Returns the name of the constant that contains the encoded bytes of the given tag name.
+     */
+    private String getNameConstant(String tag) {
+        return getSymbolConstant(tag) + "_NAME";
+    }
+
     private void generateStructWriteMany(StructType type) {
         generateWriteMany(type);
     }
@@ -706,7 +1560,8 @@ public class XmlSupportGenerator extends JavaGenerator {
         // Generate the method that uses the default tag names:
         javaBuffer.addLine("public static void writeMany(Iterator<%1$s> list, XmlWriter writer) {",
             typeName.getSimpleName());
-        javaBuffer.addLine(  "writeMany(list, \"%1$s\", \"%2$s\", writer);", singularTag, pluralTag);
+        javaBuffer.addLine(  "writeMany(list, \"%1$s\", %2$s, \"%3$s\", %4$s, writer);", singularTag,
+            getNameConstant(singularTag), pluralTag, getNameConstant(pluralTag));
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
@@ -714,9 +1569,19 @@ public class XmlSupportGenerator extends JavaGenerator {
         javaBuffer.addLine(
             "public static void writeMany(Iterator<%1$s> list, String singular, String plural, XmlWriter writer) {",
             typeName.getSimpleName());
-        javaBuffer.addLine(  "writer.writeStartElement(plural);");
+        javaBuffer.addLine(  "writeMany(list, singular, null, plural, null, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that uses custom tag names and their encoded bytes:
+        javaBuffer.addLine(
+            "public static void writeMany(Iterator<%1$s> list, String singular, byte[] encodedSingular, " +
+                "String plural, byte[] encodedPlural, XmlWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine(  "writer.writeStartElement(plural, encodedPlural);");
         javaBuffer.addLine(  "while (list.hasNext()) {");
-        javaBuffer.addLine(    "%1$s.writeOne(list.next(), singular, writer);", writerName.getSimpleName());
+        javaBuffer.addLine(    "%1$s.writeOne(list.next(), singular, encodedSingular, writer);",
+            writerName.getSimpleName());
         javaBuffer.addLine(  "}");
         javaBuffer.addLine(  "writer.writeEndElement();");
         javaBuffer.addLine("}");
@@ -742,6 +1607,9 @@ public class XmlSupportGenerator extends JavaGenerator {
         javaBuffer.addLine("public class %1$s {", writerName.getSimpleName());
         javaBuffer.addLine();
 
+        // Generate the encoded names:
+        generateNameConstants(getWriterTags(type));
+
         // Generate methods to write one instance and a list of instances:
         generateEnumWriteOne(type);
         generateEnumWriteMany(type);
@@ -762,14 +1630,22 @@ public class XmlSupportGenerator extends JavaGenerator {
 
         // Generate the method that uses the default tag name:
         javaBuffer.addLine("public static void writeOne(%1$s object, XmlWriter writer) {", typeName.getSimpleName());
-        javaBuffer.addLine(  "writeOne(object, \"%1$s\", writer);", tag);
+        javaBuffer.addLine(  "writeOne(object, \"%1$s\", %2$s, writer);", tag, getNameConstant(tag));
         javaBuffer.addLine("}");
         javaBuffer.addLine();
 
         // Generate the method that receives the tag name as parameter:
         javaBuffer.addLine( "public static void writeOne(%1$s object, String tag, XmlWriter writer) {",
                 typeName.getSimpleName());
-        javaBuffer.addLine("writer.writeElement(tag, object.value());");
+        javaBuffer.addLine("writeOne(object, tag, null, writer);");
+        javaBuffer.addLine("}");
+        javaBuffer.addLine();
+
+        // Generate the method that receives the tag name and its encoded bytes as parameters:
+        javaBuffer.addLine(
+            "public static void writeOne(%1$s object, String tag, byte[] encodedTag, XmlWriter writer) {",
+            typeName.getSimpleName());
+        javaBuffer.addLine("writer.writeElement(tag, encodedTag, object.value());");
         javaBuffer.addLine("}");
         javaBuffer.addLine();
     }